@@ -34,6 +34,17 @@ android {
     buildFeatures {
         viewBinding = true
     }
+    testOptions {
+        unitTests {
+            isIncludeAndroidResources = true
+            all {
+                // DatabasePerformanceTest 的数据量和阈值：-Pperf.events=100000 等，未指定数据量时跳过灌入数据的测试
+                project.properties.filterKeys { key -> key.startsWith("perf.") }
+                    .forEach { (key, value) -> it.systemProperty(key, value.toString()) }
+                it.maxHeapSize = "2g"
+            }
+        }
+    }
 }
 
 dependencies {
@@ -42,6 +53,7 @@ dependencies {
     implementation(libs.activity)
     implementation(libs.constraintlayout)
     testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
     implementation("com.google.android.material:material:1.12.0")
@@ -0,0 +1,124 @@
+package com.example.mycalendarapp;
+
+import android.content.ComponentCallbacks2;
+import android.content.Intent;
+import android.os.Bundle;
+import android.view.View;
+import android.widget.Toast;
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import com.example.mycalendarapp.adapter.AgendaAdapter;
+import com.example.mycalendarapp.adapter.DayHeaderDecoration;
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.repository.AgendaPager;
+import com.example.mycalendarapp.repository.EventRepository;
+import com.example.mycalendarapp.utils.DateUtils;
+
+/**
+ * 日程列表：从今天开始按时间排列全部日程，上下滚动时分页加载（见 AgendaPager），每天有固定在顶部的日期标题。
+ * 点击日程后返回 MainActivity 并选中那一天。
+ */
+public class AgendaActivity extends AppCompatActivity {
+    // 返回结果中被点击日程所在的日期（纪元日）
+    public static final String EXTRA_EPOCH_DAY = "epochDay";
+
+    private RecyclerView agendaRecyclerView;
+    private LinearLayoutManager layoutManager;
+    private AgendaAdapter adapter;
+    private AgendaPager pager;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_agenda);
+
+        agendaRecyclerView = findViewById(R.id.agendaRecyclerView);
+        findViewById(R.id.agendaBackBtn).setOnClickListener(v -> finish());
+        findViewById(R.id.agendaTodayBtn).setOnClickListener(v -> startFromToday());
+
+        pager = EventRepository.getInstance(this).newAgenda(new AgendaPager.Listener() {
+            @Override
+            public void onInserted(int position, int count) {
+                if (position == 0 && pager.size() > count) {
+                    // 插在开头的是更早的日程，保持当前看到的内容不动
+                    notifyKeepingPosition(() -> adapter.notifyItemRangeInserted(0, count), count);
+                } else {
+                    adapter.notifyItemRangeInserted(position, count);
+                }
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                if (position == 0 && pager.size() > 0) {
+                    notifyKeepingPosition(() -> adapter.notifyItemRangeRemoved(0, count), -count);
+                } else {
+                    adapter.notifyItemRangeRemoved(position, count);
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Toast.makeText(AgendaActivity.this, "加载日程失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            }
+        });
+
+        adapter = new AgendaAdapter(pager);
+        adapter.setOnItemClickListener(this::openDay);
+        layoutManager = new LinearLayoutManager(this);
+        agendaRecyclerView.setLayoutManager(layoutManager);
+        agendaRecyclerView.setAdapter(adapter);
+        agendaRecyclerView.addItemDecoration(new DayHeaderDecoration(this, adapter));
+        agendaRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                pager.onVisibleRange(layoutManager.findFirstVisibleItemPosition(),
+                        layoutManager.findLastVisibleItemPosition());
+            }
+        });
+
+        startFromToday();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        // 内存紧张或界面已不可见时只保留可见范围附近，滚动回来时再按需读取
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            pager.trimAround(layoutManager.findFirstVisibleItemPosition(),
+                    layoutManager.findLastVisibleItemPosition());
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        pager.cancel();
+        super.onDestroy();
+    }
+
+    private void startFromToday() {
+        pager.start(DateUtils.startOfEpochDay(DateUtils.getEpochDay(System.currentTimeMillis())));
+        agendaRecyclerView.scrollToPosition(0);
+    }
+
+    private void openDay(Event event) {
+        setResult(RESULT_OK, new Intent().putExtra(EXTRA_EPOCH_DAY, DateUtils.getEpochDay(event.getStartTime())));
+        finish();
+    }
+
+    /**
+     * 在列表开头插入或移除 shift 条之后，让原来最上面的那一条停在原来的位置。
+     */
+    private void notifyKeepingPosition(Runnable notify, int shift) {
+        // 还没有布局过（例如前后两页在同一帧内到达）时按停在第一条处理
+        int first = layoutManager.findFirstVisibleItemPosition();
+        View firstView = first == RecyclerView.NO_POSITION ? null : layoutManager.findViewByPosition(first);
+        int offset = firstView == null ? 0 : layoutManager.getDecoratedTop(firstView) - agendaRecyclerView.getPaddingTop();
+        if (firstView == null) first = 0;
+        notify.run();
+        if (first + shift >= 0) {
+            layoutManager.scrollToPositionWithOffset(first + shift, offset);
+        }
+    }
+}
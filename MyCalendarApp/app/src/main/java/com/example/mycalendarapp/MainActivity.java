@@ -4,59 +4,132 @@ import android.Manifest;
 import android.app.TimePickerDialog;
 import android.content.Context;
 import android.content.pm.PackageManager;
+import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.StrictMode;
+import android.os.Trace;
 
 
 import androidx.appcompat.app.AppCompatActivity;
 import android.app.AlarmManager;
-import android.app.PendingIntent;
 import android.content.Intent;
 import android.provider.Settings;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.View;
+import android.widget.ArrayAdapter;
 import android.widget.Button;
 import android.widget.EditText;
+import android.widget.Spinner;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.activity.result.ActivityResult;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AlertDialog;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import androidx.recyclerview.widget.SimpleItemAnimator;
 import com.example.mycalendarapp.adapter.CalendarAdapter;
 import com.example.mycalendarapp.adapter.EventAdapter;
-import com.example.mycalendarapp.database.DatabaseHelper;
+import com.example.mycalendarapp.metrics.Histogram;
+import com.example.mycalendarapp.metrics.MainThreadWatchdog;
+import com.example.mycalendarapp.metrics.Metrics;
+import com.example.mycalendarapp.metrics.MetricsDump;
 import com.example.mycalendarapp.model.Event;
-import com.example.mycalendarapp.receiver.AlarmReceiver;
+import com.example.mycalendarapp.model.FreeBusy;
+import com.example.mycalendarapp.model.MonthGrid;
+import com.example.mycalendarapp.model.MonthSnapshot;
+import com.example.mycalendarapp.repository.EventRepository;
+import com.example.mycalendarapp.repository.EventSearch;
+import com.example.mycalendarapp.repository.IcsTransfer;
+import com.example.mycalendarapp.repository.MonthPrefetcher;
 import com.example.mycalendarapp.utils.DateUtils;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 
 public class MainActivity extends AppCompatActivity implements CalendarAdapter.OnItemListener {
+    // 添加日程时可选的重复方式，与 REPEAT_RULES 一一对应
+    private static final String[] REPEAT_LABELS = {"不重复", "每天", "每周", "每月", "每年"};
+    private static final String[] REPEAT_RULES = {null, "FREQ=DAILY", "FREQ=WEEKLY", "FREQ=MONTHLY", "FREQ=YEARLY"};
+    // 新建的日程还没有 id，检测冲突时不排除任何日程
+    private static final int NO_EVENT_ID = Integer.MIN_VALUE;
+    // 查找空闲时间：可选时长（分钟）、查找范围和工作时间
+    private static final String[] FREE_SLOT_LABELS = {"30 分钟", "45 分钟", "1 小时", "1.5 小时", "2 小时"};
+    private static final int[] FREE_SLOT_MINUTES = {30, 45, 60, 90, 120};
+    private static final int FREE_SLOT_DAYS = 7;
+    private static final int MAX_FREE_SLOTS = 20;
+    private static final FreeBusy.WorkingHours FREE_SLOT_HOURS = FreeBusy.WorkingHours.weekdays(9 * 60, 18 * 60);
+    // 点击日期到日程列表数据就绪的耗时
+    private static final Histogram DAY_CLICK_TIME = Metrics.timer("ui.day_click");
+
     private TextView monthYearText;
     private RecyclerView calendarRecyclerView;
     private RecyclerView eventRecyclerView;
     private FloatingActionButton addEventFAB;
-    private Button prevBtn, nextBtn;
+    private Button prevBtn, nextBtn, moreBtn;
     private EventAdapter eventAdapter;
+    private CalendarAdapter calendarAdapter; // 整个生命周期只创建一次，切换月份时提交新数据
 
     private Calendar calendar = Calendar.getInstance();
-    private DatabaseHelper dbHelper;
-    private int selectedPosition = -1;
-    private ArrayList<String> daysInMonth;
+    // 月份标题格式只在主线程使用，创建一次即可
+    private final SimpleDateFormat monthTitleFormat = new SimpleDateFormat("MMMM yyyy", Locale.getDefault());
+    private EventRepository repository;
+    private MonthGrid monthGrid; // 当前月份的网格，与 calendarAdapter 共用
+    private MonthSnapshot monthSnapshot; // 当前月份的日程快照，点击日期时直接从内存读取
+    private final List<Event> conflictBuffer = new ArrayList<>(); // showConflicts 复用的结果列表
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final MonthPrefetcher.Scheduler mainScheduler = new MonthPrefetcher.Scheduler() {
+        @Override
+        public void schedule(Runnable task, long delayMillis) {
+            mainHandler.postDelayed(task, delayMillis);
+        }
+
+        @Override
+        public void cancel(Runnable task) {
+            mainHandler.removeCallbacks(task);
+        }
+    };
+    private MonthPrefetcher monthPrefetcher;
+    // 预取好的相邻月份网格，key 为 year * 12 + month
+    private final HashMap<Integer, MonthGrid> prefetchedGrids = new HashMap<>();
+
+    // 通过系统文件选择器读写 .ics，不需要存储权限
+    private final ActivityResultLauncher<String[]> importLauncher =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), this::importIcs);
+    private final ActivityResultLauncher<String> exportLauncher =
+            registerForActivityResult(new ActivityResultContracts.CreateDocument("text/calendar"), this::exportIcs);
+    // 日程列表和日 / 周视图都在点击日程后返回那一天
+    private final ActivityResultLauncher<Intent> dayPickerLauncher =
+            registerForActivityResult(new ActivityResultContracts.StartActivityForResult(), this::onDayPicked);
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        // 可调试的构建中监控主线程上的磁盘 / 网络访问和卡顿，报告写入 files/watchdog.json
+        MainThreadWatchdog.install(this);
         setContentView(R.layout.activity_main);
 
         initViews();
-        dbHelper = new DatabaseHelper(this);
+        repository = EventRepository.getInstance(this);
+        // 提醒只登记一个闹钟，启动时按数据库重新计算一次
+        repository.rescheduleReminders();
+        monthPrefetcher = new MonthPrefetcher(mainScheduler, this::prefetchMonth);
         checkPermissions();
         setMonthView();
 
@@ -71,27 +144,37 @@ public class MainActivity extends AppCompatActivity implements CalendarAdapter.O
             setMonthView();
         });
 
+        moreBtn.setOnClickListener(v -> showMoreMenu());
+
         // 添加日程按钮
         addEventFAB.setOnClickListener(v -> {
             Calendar selectedDate = Calendar.getInstance();
-            if (selectedPosition != -1 && daysInMonth != null) {
-                String dayText = daysInMonth.get(selectedPosition);
-                if (!dayText.isEmpty()) {
-                    try {
-                        int year = calendar.get(Calendar.YEAR);
-                        int month = calendar.get(Calendar.MONTH);
-                        int day = Integer.parseInt(dayText);
-                        selectedDate.set(year, month, day);
-                    } catch (NumberFormatException e) {
-                        Toast.makeText(this, "日期格式错误", Toast.LENGTH_SHORT).show();
-                        return;
-                    }
-                }
+            int selected = monthGrid.getSelectedPosition();
+            if (selected != -1) {
+                selectedDate.set(monthGrid.getYear(), monthGrid.getMonth(), monthGrid.getDayOfMonth(selected));
             }
             showAddEventDialog(selectedDate);
         });
     }
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+        // 离开期间系统时区可能变了，重新读取；日期也可能已经跨过零点
+        DateUtils.resetTimeZone();
+        if (monthGrid != null) {
+            monthGrid = monthGrid.withToday(todayEpochDay());
+            calendarAdapter.submitGrid(monthGrid);
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        monthPrefetcher.cancel();
+        repository.cancelPrefetch();
+        super.onDestroy();
+    }
+
     private void initViews() {
         monthYearText = findViewById(R.id.monthYearText);
         calendarRecyclerView = findViewById(R.id.calendarRecyclerView);
@@ -99,6 +182,13 @@ public class MainActivity extends AppCompatActivity implements CalendarAdapter.O
         addEventFAB = findViewById(R.id.addEventFAB);
         prevBtn = findViewById(R.id.prevBtn);
         nextBtn = findViewById(R.id.nextBtn);
+        moreBtn = findViewById(R.id.moreBtn);
+
+        calendarAdapter = new CalendarAdapter(this);
+        calendarRecyclerView.setLayoutManager(new GridLayoutManager(this, 7));
+        calendarRecyclerView.setAdapter(calendarAdapter);
+        // 格子内容变化时直接重绑，不做淡入淡出动画
+        ((SimpleItemAnimator) calendarRecyclerView.getItemAnimator()).setSupportsChangeAnimations(false);
 
         eventAdapter = new EventAdapter(new ArrayList<>());
         eventAdapter.setOnItemClickListener(this::showViewEventDialog);
@@ -124,68 +214,337 @@ public class MainActivity extends AppCompatActivity implements CalendarAdapter.O
     }
 
     private void setMonthView() {
-        monthYearText.setText(new SimpleDateFormat("MMMM yyyy", Locale.getDefault()).format(calendar.getTime()));
+        monthYearText.setText(monthTitleFormat.format(calendar.getTime()));
 
-        daysInMonth = daysInMonthArray(calendar);
+        int year = calendar.get(Calendar.YEAR);
+        int month = calendar.get(Calendar.MONTH);
+        MonthGrid prefetched = prefetchedGrids.get(year * 12 + month);
+        monthGrid = prefetched != null
+                ? prefetched.withToday(todayEpochDay())
+                : MonthGrid.create(year, month, todayEpochDay());
+        prefetchedGrids.clear();
+
+        calendarAdapter.submitGrid(monthGrid);
+        monthSnapshot = null; // 旧月份的快照不再适用
+        reloadMonthSnapshot(null);
+
+        // 停留一段时间后再预取前后两个月，快速翻页时旧的预取直接作废
+        repository.cancelPrefetch();
+        monthPrefetcher.onMonthShown(year, month);
+    }
 
-        CalendarAdapter calendarAdapter = new CalendarAdapter(daysInMonth, this, calendar);
-        GridLayoutManager layoutManager = new GridLayoutManager(getApplicationContext(), 7);
-        calendarRecyclerView.setLayoutManager(layoutManager);
-        calendarRecyclerView.setAdapter(calendarAdapter);
-        calendarAdapter.setSelectedPosition(-1);
+    // 预取某个月的日历网格和日程（month 从 0 开始）
+    private void prefetchMonth(int year, int month) {
+        prefetchedGrids.put(year * 12 + month, MonthGrid.create(year, month, todayEpochDay()));
+        repository.prefetchMonth(DateUtils.getMonthDayBoundaries(year, month));
     }
 
-    private ArrayList<String> daysInMonthArray(Calendar calendar) {
-        ArrayList<String> daysInMonthArray = new ArrayList<>();
-        int year = calendar.get(Calendar.YEAR);
-        int month = calendar.get(Calendar.MONTH);
+    // 在后台一次查询加载整个月的日程，完成后刷新日历上的日程标记
+    private void reloadMonthSnapshot(Runnable onLoaded) {
+        long[] boundaries = DateUtils.getMonthDayBoundaries(monthGrid.getYear(), monthGrid.getMonth());
+        repository.loadMonth(boundaries, snapshot -> {
+            if (isDestroyed()) return;
+            monthSnapshot = snapshot;
+            monthGrid = monthGrid.withEvents(snapshot);
+            calendarAdapter.submitGrid(monthGrid);
+            if (onLoaded != null) {
+                onLoaded.run();
+            }
+        });
+    }
 
-        int daysInMonth = calendar.getActualMaximum(Calendar.DAY_OF_MONTH);
-        calendar.set(year, month, 1);
-        int dayOfWeek = calendar.get(Calendar.DAY_OF_WEEK) - 1;
-        if (dayOfWeek == 0) dayOfWeek = 7;
+    // 日程变化后重新加载快照，再刷新当前选中日期的列表
+    private void refreshAfterChange() {
+        reloadMonthSnapshot(() -> {
+            int selected = monthGrid.getSelectedPosition();
+            if (selected != -1) {
+                onItemClick(selected);
+            }
+        });
+    }
+
+    private static long todayEpochDay() {
+        return DateUtils.getEpochDay(System.currentTimeMillis());
+    }
 
-        for (int i = 1; i < dayOfWeek; i++) {
-            daysInMonthArray.add("");
+    @Override
+    public void onItemClick(int position) {
+        if (monthGrid.isOutsideMonth(position)) return; // 空白格
+        Trace.beginSection("MainActivity.onItemClick");
+        try {
+            selectDay(position);
+        } finally {
+            Trace.endSection();
         }
+    }
+
+    private void selectDay(int position) {
+        long begin = Metrics.start();
+        monthGrid = monthGrid.withSelected(position);
+        calendarAdapter.submitGrid(monthGrid);
+
+        int day = monthGrid.getDayOfMonth(position);
+        if (monthSnapshot != null) {
+            // 当月快照已加载，直接从内存读取，无需再查询数据库
+            repository.cancelDayQuery();
+            showDayEvents(monthSnapshot.getEventsForDay(day - 1));
+            DAY_CLICK_TIME.recordSince(begin);
+        } else {
+            // 快照还没加载完，在后台查询这一天；连续点击时只显示最后一次的结果
+            long epochDay = monthGrid.getEpochDay(position);
+            long startOfDay = DateUtils.startOfEpochDay(epochDay);
+            long endOfDay = DateUtils.startOfEpochDay(epochDay + 1) - 1;
+            repository.loadDay(startOfDay, endOfDay, new EventRepository.Callback<List<Event>>() {
+                @Override
+                public void onResult(List<Event> events) {
+                    if (isDestroyed()) return;
+                    showDayEvents(events);
+                    DAY_CLICK_TIME.recordSince(begin);
+                }
 
-        for (int i = 1; i <= daysInMonth; i++) {
-            daysInMonthArray.add(String.valueOf(i));
+                @Override
+                public void onError(Exception e) {
+                    Toast.makeText(MainActivity.this, "加载日程失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                }
+            });
         }
+    }
 
-        return daysInMonthArray;
+    private void showMoreMenu() {
+        // 记录性能指标时（可调试的构建）多一项导出
+        String[] items = Metrics.isEnabled()
+                ? new String[]{"搜索日程", "日程列表", "日 / 周视图", "查找空闲时间", "导入日历 (.ics)", "导出日历 (.ics)", "导出性能数据"}
+                : new String[]{"搜索日程", "日程列表", "日 / 周视图", "查找空闲时间", "导入日历 (.ics)", "导出日历 (.ics)"};
+        new AlertDialog.Builder(this)
+                .setItems(items, (dialog, which) -> {
+                    if (which == 0) {
+                        showSearchDialog();
+                    } else if (which == 1) {
+                        dayPickerLauncher.launch(new Intent(this, AgendaActivity.class));
+                    } else if (which == 2) {
+                        dayPickerLauncher.launch(new Intent(this, TimelineActivity.class)
+                                .putExtra(TimelineActivity.EXTRA_EPOCH_DAY, selectedEpochDay()));
+                    } else if (which == 3) {
+                        showFreeSlotDurationDialog();
+                    } else if (which == 4) {
+                        importLauncher.launch(new String[]{"text/calendar", "application/octet-stream"});
+                    } else if (which == 5) {
+                        exportLauncher.launch("calendar.ics");
+                    } else if (which == 6) {
+                        dumpMetrics();
+                    }
+                })
+                .show();
     }
 
-    @Override
-    public void onItemClick(int position, String dayText) {
-        if (!dayText.isEmpty()) {
-            try {
-                int year = calendar.get(Calendar.YEAR);
-                int month = calendar.get(Calendar.MONTH);
-                int day = Integer.parseInt(dayText);
-
-                Calendar selectedDate = Calendar.getInstance();
-                selectedDate.set(year, month, day);
-
-                CalendarAdapter adapter = (CalendarAdapter) calendarRecyclerView.getAdapter();
-                if (adapter != null) {
-                    adapter.setSelectedPosition(position);
-                    this.selectedPosition = position;
-                }
+    // 当前选中的日期，没有选中时为今天
+    private long selectedEpochDay() {
+        int selected = monthGrid.getSelectedPosition();
+        return selected != -1 ? monthGrid.getEpochDay(selected) : todayEpochDay();
+    }
+
+    // 在日程列表或日 / 周视图中点击了某条日程：切换到那个月并选中那一天
+    private void onDayPicked(ActivityResult result) {
+        Intent data = result.getData();
+        if (result.getResultCode() != RESULT_OK || data == null) return;
+        long epochDay = data.getLongExtra(AgendaActivity.EXTRA_EPOCH_DAY, todayEpochDay());
+        calendar.setTimeInMillis(DateUtils.startOfEpochDay(epochDay));
+        setMonthView();
+        int position = monthGrid.positionOf(epochDay);
+        if (position != -1) {
+            onItemClick(position);
+        }
+    }
+
+    // 输出到 logcat，同时写入 files/metrics.json；主线程监控的报告同时写入 files/watchdog.json
+    private void dumpMetrics() {
+        MetricsDump.toLogcat();
+        MainThreadWatchdog.flush();
+        // 只在调试时由用户触发的一次小文件写入，不计入主线程磁盘访问
+        StrictMode.ThreadPolicy policy = StrictMode.allowThreadDiskWrites();
+        try {
+            Toast.makeText(this, "已写入 " + MetricsDump.toFile(this).getPath(), Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Toast.makeText(this, "写入性能数据失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+        } finally {
+            StrictMode.setThreadPolicy(policy);
+        }
+    }
+
+    // 先选时长，再列出未来 7 天工作日 9:00-18:00 内的空闲时段
+    private void showFreeSlotDurationDialog() {
+        new AlertDialog.Builder(this)
+                .setTitle("需要多长时间")
+                .setItems(FREE_SLOT_LABELS, (dialog, which) -> findFreeSlots(FREE_SLOT_MINUTES[which]))
+                .show();
+    }
+
+    private void findFreeSlots(int minutes) {
+        long now = System.currentTimeMillis();
+        long windowEnd = DateUtils.startOfEpochDay(DateUtils.getEpochDay(now) + FREE_SLOT_DAYS);
+        repository.loadFreeBusy(now, windowEnd, new EventRepository.Callback<FreeBusy>() {
+            @Override
+            public void onResult(FreeBusy freeBusy) {
+                List<FreeBusy.Slot> slots = freeBusy.freeSlots(minutes * 60 * 1000L, FREE_SLOT_HOURS);
+                showFreeSlots(minutes, slots);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Toast.makeText(MainActivity.this, "查找空闲时间失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private void showFreeSlots(int minutes, List<FreeBusy.Slot> slots) {
+        if (slots.isEmpty()) {
+            Toast.makeText(this, "未来 " + FREE_SLOT_DAYS + " 天的工作时间内没有 " + minutes + " 分钟的空闲", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        int count = Math.min(slots.size(), MAX_FREE_SLOTS);
+        String[] labels = new String[count];
+        for (int i = 0; i < count; i++) {
+            FreeBusy.Slot slot = slots.get(i);
+            labels[i] = DateUtils.formatDate(slot.start) + " " + DateUtils.formatTime(slot.start)
+                    + " - " + DateUtils.formatTime(slot.end);
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("空闲时间（" + minutes + " 分钟）")
+                .setItems(labels, (dialog, which) -> {
+                    // 从空闲时段的开始时间新建日程
+                    Calendar start = Calendar.getInstance();
+                    start.setTimeInMillis(slots.get(which).start);
+                    showAddEventDialog(start);
+                })
+                .setNegativeButton("关闭", null)
+                .show();
+    }
+
+    private void showSearchDialog() {
+        View dialogView = LayoutInflater.from(this).inflate(R.layout.dialog_search, null);
+        EditText input = dialogView.findViewById(R.id.searchInput);
+        TextView status = dialogView.findViewById(R.id.searchStatus);
+        RecyclerView results = dialogView.findViewById(R.id.searchResults);
+
+        EventAdapter resultAdapter = new EventAdapter(new ArrayList<>());
+        resultAdapter.setShowDate(true);
+        resultAdapter.setOnItemClickListener(this::showViewEventDialog);
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        results.setLayoutManager(layoutManager);
+        results.setAdapter(resultAdapter);
+
+        List<Event> shown = new ArrayList<>();
+        EventSearch search = repository.newSearch(mainScheduler, new EventSearch.Listener() {
+            @Override
+            public void onResults(List<Event> events, boolean reset, int total, boolean hasMore) {
+                if (reset) shown.clear();
+                shown.addAll(events);
+                resultAdapter.setEvents(shown);
+                if (reset) results.scrollToPosition(0);
+                status.setText(input.getText().toString().trim().isEmpty() ? "" : "找到 " + total + " 条日程");
+            }
+
+            @Override
+            public void onError(Exception e) {
+                status.setText("搜索失败: " + e.getMessage());
+            }
+        });
+
+        input.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
 
-                long startOfDay = DateUtils.getStartOfDay(selectedDate.getTimeInMillis());
-                long endOfDay = DateUtils.getEndOfDay(selectedDate.getTimeInMillis());
-                List<Event> events = dbHelper.getEventsByDay(startOfDay, endOfDay);
-                eventAdapter.setEvents(events);
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
 
-                if (events.isEmpty()) {
-                    Toast.makeText(this, "今日无安排", Toast.LENGTH_SHORT).show();
+            @Override
+            public void afterTextChanged(Editable s) {
+                search.setQuery(s.toString());
+            }
+        });
+        // 滚动到离末尾不足 10 条时加载下一页
+        results.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition() >= resultAdapter.getItemCount() - 10) {
+                    search.loadMore();
                 }
-            } catch (NumberFormatException e) {
-                Toast.makeText(this, "日期解析错误", Toast.LENGTH_SHORT).show();
-            } catch (Exception e) {
-                Toast.makeText(this, "加载日程失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
             }
+        });
+
+        new AlertDialog.Builder(this)
+                .setTitle("搜索日程")
+                .setView(dialogView)
+                .setNegativeButton("关闭", null)
+                .setOnDismissListener(dialog -> search.cancel())
+                .show();
+    }
+
+    private void importIcs(Uri uri) {
+        if (uri == null) return; // 用户取消了选择
+        InputStream in;
+        try {
+            in = getContentResolver().openInputStream(uri);
+        } catch (Exception e) {
+            Toast.makeText(this, "无法打开文件: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            return;
+        }
+        AlertDialog progressDialog = new AlertDialog.Builder(this)
+                .setTitle("正在导入")
+                .setMessage("已导入 0 条")
+                .setCancelable(false)
+                .show();
+        repository.importIcs(in, (imported, bytesRead) -> progressDialog.setMessage("已导入 " + imported + " 条"),
+                new EventRepository.Callback<IcsTransfer.ImportResult>() {
+                    @Override
+                    public void onResult(IcsTransfer.ImportResult result) {
+                        if (isDestroyed()) return;
+                        progressDialog.dismiss();
+                        String message = "导入 " + result.imported + " 条日程";
+                        if (result.skipped > 0) message += "，跳过 " + result.skipped + " 条";
+                        if (result.unsupportedRules > 0) message += "，" + result.unsupportedRules + " 条重复规则不支持，只导入第一次";
+                        Toast.makeText(MainActivity.this, message, Toast.LENGTH_LONG).show();
+                        refreshAfterChange();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        if (isDestroyed()) return;
+                        progressDialog.dismiss();
+                        Toast.makeText(MainActivity.this, "导入失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                        refreshAfterChange(); // 失败前已提交的批次仍然保留
+                    }
+                });
+    }
+
+    private void exportIcs(Uri uri) {
+        if (uri == null) return;
+        OutputStream out;
+        try {
+            out = getContentResolver().openOutputStream(uri);
+        } catch (Exception e) {
+            Toast.makeText(this, "无法创建文件: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            return;
+        }
+        repository.exportIcs(out, new EventRepository.Callback<Integer>() {
+            @Override
+            public void onResult(Integer count) {
+                Toast.makeText(MainActivity.this, "已导出 " + count + " 条日程", Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Toast.makeText(MainActivity.this, "导出失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private void showDayEvents(List<Event> events) {
+        eventAdapter.setEvents(events);
+        if (events.isEmpty()) {
+            Toast.makeText(this, "今日无安排", Toast.LENGTH_SHORT).show();
         }
     }
 
@@ -201,8 +560,13 @@ public class MainActivity extends AppCompatActivity implements CalendarAdapter.O
             final TextView dateDisplay = dialogView.findViewById(R.id.dateDisplay);
             final Button startTimeBtn = dialogView.findViewById(R.id.startTimeBtn);
             final Button endTimeBtn = dialogView.findViewById(R.id.endTimeBtn);
+            final Spinner repeatSpinner = dialogView.findViewById(R.id.repeatSpinner);
+            final TextView conflictWarning = dialogView.findViewById(R.id.conflictWarning);
 
             dateDisplay.setText(DateUtils.formatDate(selectedDate.getTimeInMillis()));
+            ArrayAdapter<String> repeatAdapter = new ArrayAdapter<>(this, android.R.layout.simple_spinner_item, REPEAT_LABELS);
+            repeatAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+            repeatSpinner.setAdapter(repeatAdapter);
 
             // 使用选中的日期作为基础
             final Calendar startTime = (Calendar) selectedDate.clone();
@@ -218,6 +582,7 @@ public class MainActivity extends AppCompatActivity implements CalendarAdapter.O
 
             startTimeBtn.setText(DateUtils.formatTime(startTime.getTimeInMillis()));
             endTimeBtn.setText(DateUtils.formatTime(endTime.getTimeInMillis()));
+            showConflicts(conflictWarning, startTime.getTimeInMillis(), endTime.getTimeInMillis(), NO_EVENT_ID);
 
             // 修复：确保时间选择器正确更新时间
             startTimeBtn.setOnClickListener(v -> showTimePickerDialog(startTime, (hourOfDay, minute) -> {
@@ -230,12 +595,14 @@ public class MainActivity extends AppCompatActivity implements CalendarAdapter.O
                     endTime.setTimeInMillis(startTime.getTimeInMillis() + 3600000);
                     endTimeBtn.setText(DateUtils.formatTime(endTime.getTimeInMillis()));
                 }
+                showConflicts(conflictWarning, startTime.getTimeInMillis(), endTime.getTimeInMillis(), NO_EVENT_ID);
             }));
 
             endTimeBtn.setOnClickListener(v -> showTimePickerDialog(endTime, (hourOfDay, minute) -> {
                 endTime.set(Calendar.HOUR_OF_DAY, hourOfDay);
                 endTime.set(Calendar.MINUTE, minute);
                 endTimeBtn.setText(DateUtils.formatTime(endTime.getTimeInMillis()));
+                showConflicts(conflictWarning, startTime.getTimeInMillis(), endTime.getTimeInMillis(), NO_EVENT_ID);
             }));
 
             builder.setPositiveButton("确定", (dialog, which) -> {
@@ -254,16 +621,17 @@ public class MainActivity extends AppCompatActivity implements CalendarAdapter.O
                             endTime.getTimeInMillis(),
                             startTime.getTimeInMillis()
                     );
-
-                    long eventId = dbHelper.addEvent(event);
-                    if (eventId != -1) {
-                        setAlarm(event);
-                        Toast.makeText(this, "日程已添加", Toast.LENGTH_SHORT).show();
-                        // 刷新当前选中日期的日程
-                        onItemClick(selectedPosition, daysInMonth.get(selectedPosition));
-                    } else {
-                        Toast.makeText(this, "添加失败，请重试", Toast.LENGTH_SHORT).show();
-                    }
+                    event.setRecurrenceRule(REPEAT_RULES[repeatSpinner.getSelectedItemPosition()]);
+
+                    repository.addEvent(event, eventId -> {
+                        if (eventId != -1) {
+                            Toast.makeText(this, "日程已添加", Toast.LENGTH_SHORT).show();
+                            // 刷新当前选中日期的日程
+                            refreshAfterChange();
+                        } else {
+                            Toast.makeText(this, "添加失败，请重试", Toast.LENGTH_SHORT).show();
+                        }
+                    });
                 } catch (Exception e) {
                     Toast.makeText(this, "创建日程失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
                     e.printStackTrace();
@@ -278,6 +646,44 @@ public class MainActivity extends AppCompatActivity implements CalendarAdapter.O
         }
     }
 
+    /**
+     * 在对话框中提示与 [start, end) 时间冲突的日程，没有冲突时隐藏提示。excludeId 为正在编辑的日程。
+     * 时间段在当前月份快照内时直接查快照的区间索引，否则在后台线程查询数据库。
+     */
+    private void showConflicts(TextView warning, long start, long end, int excludeId) {
+        if (monthSnapshot != null && start >= monthSnapshot.getRangeStart() && end <= monthSnapshot.getRangeEnd() + 1) {
+            repository.cancelConflictQuery(); // 让之前排队的查询结果不再覆盖这里的结果
+            conflictBuffer.clear();
+            monthSnapshot.getIntervalIndex().collect(start, end, excludeId, conflictBuffer);
+            bindConflicts(warning, conflictBuffer);
+            return;
+        }
+        repository.findConflicts(start, end, excludeId, new EventRepository.Callback<List<Event>>() {
+            @Override
+            public void onResult(List<Event> conflicts) {
+                if (isDestroyed()) return;
+                bindConflicts(warning, conflicts);
+            }
+        });
+    }
+
+    private static void bindConflicts(TextView warning, List<Event> conflicts) {
+        if (conflicts.isEmpty()) {
+            warning.setVisibility(View.GONE);
+            return;
+        }
+        StringBuilder text = new StringBuilder("与以下日程时间冲突：");
+        for (int i = 0; i < conflicts.size(); i++) {
+            Event event = conflicts.get(i);
+            text.append('\n').append(event.getTitle()).append(' ');
+            DateUtils.appendTime(text, event.getStartTime());
+            text.append(" - ");
+            DateUtils.appendTime(text, event.getEndTime());
+        }
+        warning.setText(text);
+        warning.setVisibility(View.VISIBLE);
+    }
+
     // 修复：修改时间选择器回调接口
     private void showTimePickerDialog(Calendar calendar, TimePickerCallback callback) {
         try {
@@ -358,6 +764,9 @@ public class MainActivity extends AppCompatActivity implements CalendarAdapter.O
             final TextView dateDisplay = dialogView.findViewById(R.id.dateDisplay);
             final Button startTimeBtn = dialogView.findViewById(R.id.startTimeBtn);
             final Button endTimeBtn = dialogView.findViewById(R.id.endTimeBtn);
+            final TextView conflictWarning = dialogView.findViewById(R.id.conflictWarning);
+            // 编辑时不修改重复规则；修改某一次的时间会整体平移整个系列
+            dialogView.findViewById(R.id.repeatSpinner).setVisibility(View.GONE);
 
             titleInput.setText(event.getTitle());
             dateDisplay.setText(DateUtils.formatDate(event.getStartTime()));
@@ -369,6 +778,7 @@ public class MainActivity extends AppCompatActivity implements CalendarAdapter.O
 
             startTimeBtn.setText(DateUtils.formatTime(startTime.getTimeInMillis()));
             endTimeBtn.setText(DateUtils.formatTime(endTime.getTimeInMillis()));
+            showConflicts(conflictWarning, startTime.getTimeInMillis(), endTime.getTimeInMillis(), event.getId());
 
             // 修复：确保时间选择器正确更新时间
             startTimeBtn.setOnClickListener(v -> showTimePickerDialog(startTime, (hourOfDay, minute) -> {
@@ -380,12 +790,14 @@ public class MainActivity extends AppCompatActivity implements CalendarAdapter.O
                     endTime.setTimeInMillis(startTime.getTimeInMillis() + 3600000);
                     endTimeBtn.setText(DateUtils.formatTime(endTime.getTimeInMillis()));
                 }
+                showConflicts(conflictWarning, startTime.getTimeInMillis(), endTime.getTimeInMillis(), event.getId());
             }));
 
             endTimeBtn.setOnClickListener(v -> showTimePickerDialog(endTime, (hourOfDay, minute) -> {
                 endTime.set(Calendar.HOUR_OF_DAY, hourOfDay);
                 endTime.set(Calendar.MINUTE, minute);
                 endTimeBtn.setText(DateUtils.formatTime(endTime.getTimeInMillis()));
+                showConflicts(conflictWarning, startTime.getTimeInMillis(), endTime.getTimeInMillis(), event.getId());
             }));
 
             builder.setPositiveButton("保存", (dialog, which) -> {
@@ -396,18 +808,21 @@ public class MainActivity extends AppCompatActivity implements CalendarAdapter.O
                 }
 
                 try {
-                    event.setTitle(title);
-                    event.setStartTime(startTime.getTimeInMillis());
-                    event.setEndTime(endTime.getTimeInMillis());
-                    event.setRemindTime(startTime.getTimeInMillis());
-
-                    if (dbHelper.updateEvent(event)) {
-                        updateAlarm(event);
-                        Toast.makeText(this, "日程已更新", Toast.LENGTH_SHORT).show();
-                        onItemClick(selectedPosition, daysInMonth.get(selectedPosition));
-                    } else {
-                        Toast.makeText(this, "更新失败，请重试", Toast.LENGTH_SHORT).show();
-                    }
+                    // 修改副本：原对象仍在列表和缓存中，差异比较需要用它和新数据对比
+                    Event edited = new Event(event);
+                    edited.setTitle(title);
+                    edited.setStartTime(startTime.getTimeInMillis());
+                    edited.setEndTime(endTime.getTimeInMillis());
+                    edited.setRemindTime(startTime.getTimeInMillis());
+
+                    repository.updateEvent(edited, updated -> {
+                        if (updated) {
+                            Toast.makeText(this, "日程已更新", Toast.LENGTH_SHORT).show();
+                            refreshAfterChange();
+                        } else {
+                            Toast.makeText(this, "更新失败，请重试", Toast.LENGTH_SHORT).show();
+                        }
+                    });
                 } catch (Exception e) {
                     Toast.makeText(this, "更新日程失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
                     e.printStackTrace();
@@ -423,27 +838,15 @@ public class MainActivity extends AppCompatActivity implements CalendarAdapter.O
     }
 
     private void showDeleteEventDialog(Event event) {
+        if (event.isOccurrence()) {
+            showDeleteOccurrenceDialog(event);
+            return;
+        }
         try {
             new AlertDialog.Builder(this)
                     .setTitle("删除日程")
                     .setMessage("确定要删除这个日程吗？")
-                    .setPositiveButton("删除", (dialog, which) -> {
-                        try {
-                            int eventId = event.getId();
-                            boolean deleteResult = dbHelper.deleteEvent(eventId);
-
-                            if (deleteResult) {
-                                cancelAlarm(event);
-                                Toast.makeText(this, "日程已删除", Toast.LENGTH_SHORT).show();
-                                onItemClick(selectedPosition, daysInMonth.get(selectedPosition));
-                            } else {
-                                Toast.makeText(this, "删除失败，请重试", Toast.LENGTH_SHORT).show();
-                            }
-                        } catch (Exception e) {
-                            Toast.makeText(this, "删除日程失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                            e.printStackTrace();
-                        }
-                    })
+                    .setPositiveButton("删除", (dialog, which) -> deleteEvent(event))
                     .setNegativeButton("取消", null)
                     .show();
         } catch (Exception e) {
@@ -452,47 +855,56 @@ public class MainActivity extends AppCompatActivity implements CalendarAdapter.O
         }
     }
 
-    private void setAlarm(Event event) {
-        AlarmManager alarmManager = (AlarmManager) getSystemService(Context.ALARM_SERVICE);
-        if (alarmManager == null) return;
-
-        Intent intent = new Intent(this, AlarmReceiver.class);
-        intent.putExtra("eventTitle", event.getTitle());
-
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                this,
-                (int) event.getId(),
-                intent,
-                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT
-        );
-
-        long remindTime = event.getRemindTime();
-        if (remindTime > System.currentTimeMillis()) {
-            alarmManager.setExactAndAllowWhileIdle(
-                    AlarmManager.RTC_WAKEUP,
-                    remindTime,
-                    pendingIntent
-            );
+    // 重复日程的某一次：可以只删除这一次（记为例外日期），也可以删除整个系列
+    private void showDeleteOccurrenceDialog(Event occurrence) {
+        try {
+            new AlertDialog.Builder(this)
+                    .setTitle("删除重复日程")
+                    .setItems(new String[]{"仅删除此次", "删除全部"}, (dialog, which) -> {
+                        if (which == 0) {
+                            deleteOccurrence(occurrence);
+                        } else if (which == 1) {
+                            deleteEvent(occurrence);
+                        }
+                    })
+                    .setNegativeButton("取消", null)
+                    .show();
+        } catch (Exception e) {
+            Toast.makeText(this, "显示删除确认对话框失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            e.printStackTrace();
         }
     }
 
-    private void updateAlarm(Event event) {
-        cancelAlarm(event);
-        setAlarm(event);
+    private void deleteEvent(Event event) {
+        try {
+            repository.deleteEvent(event, deleteResult -> {
+                if (deleteResult) {
+                    Toast.makeText(this, "日程已删除", Toast.LENGTH_SHORT).show();
+                    refreshAfterChange();
+                } else {
+                    Toast.makeText(this, "删除失败，请重试", Toast.LENGTH_SHORT).show();
+                }
+            });
+        } catch (Exception e) {
+            Toast.makeText(this, "删除日程失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            e.printStackTrace();
+        }
     }
 
-    private void cancelAlarm(Event event) {
-        AlarmManager alarmManager = (AlarmManager) getSystemService(Context.ALARM_SERVICE);
-        if (alarmManager == null) return;
-
-        Intent intent = new Intent(this, AlarmReceiver.class);
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                this,
-                (int) event.getId(),
-                intent,
-                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT
-        );
-        alarmManager.cancel(pendingIntent);
+    private void deleteOccurrence(Event occurrence) {
+        try {
+            repository.deleteOccurrence(occurrence, deleteResult -> {
+                if (deleteResult) {
+                    Toast.makeText(this, "已删除此次日程", Toast.LENGTH_SHORT).show();
+                    refreshAfterChange();
+                } else {
+                    Toast.makeText(this, "删除失败，请重试", Toast.LENGTH_SHORT).show();
+                }
+            });
+        } catch (Exception e) {
+            Toast.makeText(this, "删除日程失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            e.printStackTrace();
+        }
     }
 
     public interface TimeSetListener {
@@ -0,0 +1,122 @@
+package com.example.mycalendarapp;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.widget.Button;
+import android.widget.TextView;
+import android.widget.Toast;
+import androidx.appcompat.app.AppCompatActivity;
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.model.TimelineLayout;
+import com.example.mycalendarapp.repository.EventRepository;
+import com.example.mycalendarapp.utils.DateUtils;
+import com.example.mycalendarapp.view.TimelineView;
+
+/**
+ * 日 / 周视图：在时间轴上显示一天或一周（周日开始，与月历一致）的日程，重叠的日程并排显示。
+ * 日程在后台线程读取并排好列（EventRepository.loadTimeline），这里只负责切换日期和转交结果。
+ * 点击日程后返回 MainActivity 并选中那一天，与日程列表相同。
+ */
+public class TimelineActivity extends AppCompatActivity implements TimelineView.Listener {
+    // 传入时为要显示的日期，返回时为被点击日程所在的日期（纪元日），与 AgendaActivity 相同
+    public static final String EXTRA_EPOCH_DAY = AgendaActivity.EXTRA_EPOCH_DAY;
+
+    private static final String STATE_EPOCH_DAY = "epochDay";
+    private static final String STATE_DAY_COUNT = "dayCount";
+    private static final int WEEK = 7;
+    // 没有“现在”可定位时默认显示的钟点
+    private static final int DEFAULT_MINUTE = 8 * 60;
+
+    private EventRepository repository;
+    private TimelineView timelineView;
+    private TextView titleTv;
+    private Button modeBtn;
+    private long epochDay;
+    private int dayCount = WEEK;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_timeline);
+
+        long today = DateUtils.getEpochDay(System.currentTimeMillis());
+        if (savedInstanceState != null) {
+            epochDay = savedInstanceState.getLong(STATE_EPOCH_DAY, today);
+            dayCount = savedInstanceState.getInt(STATE_DAY_COUNT, WEEK);
+        } else {
+            epochDay = getIntent().getLongExtra(EXTRA_EPOCH_DAY, today);
+        }
+
+        repository = EventRepository.getInstance(this);
+        timelineView = findViewById(R.id.timelineView);
+        titleTv = findViewById(R.id.timelineTitle);
+        modeBtn = findViewById(R.id.timelineModeBtn);
+        timelineView.setListener(this);
+        findViewById(R.id.timelineBackBtn).setOnClickListener(v -> finish());
+        findViewById(R.id.timelinePrevBtn).setOnClickListener(v -> onPageRequested(-1));
+        findViewById(R.id.timelineNextBtn).setOnClickListener(v -> onPageRequested(1));
+        modeBtn.setOnClickListener(v -> {
+            dayCount = dayCount == WEEK ? 1 : WEEK;
+            showDays();
+        });
+
+        showDays();
+        timelineView.scrollToMinute(epochDay == today
+                ? DateUtils.getMinuteOfDay(System.currentTimeMillis())
+                : DEFAULT_MINUTE);
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putLong(STATE_EPOCH_DAY, epochDay);
+        outState.putInt(STATE_DAY_COUNT, dayCount);
+    }
+
+    @Override
+    protected void onDestroy() {
+        repository.cancelTimelineQuery();
+        super.onDestroy();
+    }
+
+    @Override
+    public void onEventClick(Event event) {
+        setResult(RESULT_OK, new Intent().putExtra(EXTRA_EPOCH_DAY, DateUtils.getEpochDay(event.getStartTime())));
+        finish();
+    }
+
+    @Override
+    public void onPageRequested(int delta) {
+        epochDay += (long) delta * dayCount;
+        showDays();
+    }
+
+    // 按当前的日期和模式重新加载；连续翻页时只有最后一次的结果会送到 TimelineView
+    private void showDays() {
+        long firstDay = dayCount == WEEK ? epochDay - DateUtils.dayOfWeek(epochDay) : epochDay;
+        timelineView.setDays(firstDay, dayCount);
+        modeBtn.setText(dayCount == WEEK ? "日" : "周");
+
+        StringBuilder title = new StringBuilder(24);
+        DateUtils.appendDate(title, DateUtils.startOfEpochDay(firstDay));
+        title.append(dayCount == WEEK ? " 起一周" : "");
+        titleTv.setText(title);
+
+        long[] dayBoundaries = new long[dayCount + 1];
+        for (int i = 0; i <= dayCount; i++) {
+            dayBoundaries[i] = DateUtils.startOfEpochDay(firstDay + i);
+        }
+        repository.loadTimeline(dayBoundaries, new EventRepository.Callback<TimelineLayout>() {
+            @Override
+            public void onResult(TimelineLayout timeline) {
+                if (isDestroyed()) return;
+                timelineView.setTimeline(timeline);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Toast.makeText(TimelineActivity.this, "加载日程失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+}
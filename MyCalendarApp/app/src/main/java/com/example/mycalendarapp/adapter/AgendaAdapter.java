@@ -0,0 +1,79 @@
+package com.example.mycalendarapp.adapter;
+
+import android.os.Trace;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+import com.example.mycalendarapp.R;
+import com.example.mycalendarapp.metrics.Histogram;
+import com.example.mycalendarapp.metrics.Metrics;
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.repository.AgendaPager;
+import com.example.mycalendarapp.utils.DateUtils;
+
+/**
+ * 议程列表适配器，数据直接读取 AgendaPager 当前加载的部分。
+ * 分页插入和丢弃时由 Activity 调用 notifyItemRange*，这里不保存列表副本；日期标题由 DayHeaderDecoration 绘制。
+ */
+public class AgendaAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHolder>
+        implements DayHeaderDecoration.DaySource {
+    private static final Histogram BIND_TIME = Metrics.timer("bind.AgendaAdapter");
+
+    private final AgendaPager pager;
+    private EventAdapter.OnItemClickListener onItemClickListener;
+
+    public AgendaAdapter(AgendaPager pager) {
+        this.pager = pager;
+        setHasStableIds(true);
+    }
+
+    public void setOnItemClickListener(EventAdapter.OnItemClickListener listener) {
+        this.onItemClickListener = listener;
+    }
+
+    @Override
+    public int getItemCount() {
+        return pager.size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return EventAdapter.stableIdOf(pager.get(position));
+    }
+
+    @Override
+    public long getEpochDay(int position) {
+        return DateUtils.getEpochDay(pager.get(position).getStartTime());
+    }
+
+    @NonNull
+    @Override
+    public EventAdapter.EventViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_event, parent, false);
+        EventAdapter.EventViewHolder holder = new EventAdapter.EventViewHolder(view);
+        holder.itemView.setOnClickListener(v -> {
+            int position = holder.getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION && onItemClickListener != null) {
+                onItemClickListener.onItemClick(pager.get(position));
+            }
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull EventAdapter.EventViewHolder holder, int position) {
+        Trace.beginSection("AgendaAdapter.bind");
+        long begin = Metrics.start();
+        try {
+            Event event = pager.get(position);
+            holder.titleTv.setText(event.getTitle());
+            int length = DateUtils.formatTimeRange(event.getStartTime(), event.getEndTime(), holder.timeBuffer);
+            holder.timeTv.setText(holder.timeBuffer, 0, length);
+        } finally {
+            BIND_TIME.recordSince(begin);
+            Trace.endSection();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.mycalendarapp.adapter;
 
 import android.graphics.Color;
+import android.os.Trace;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -8,53 +9,66 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.mycalendarapp.R;
-import java.util.ArrayList;
-import java.util.Calendar;
-
+import com.example.mycalendarapp.metrics.Histogram;
+import com.example.mycalendarapp.metrics.Metrics;
+import com.example.mycalendarapp.model.MonthGrid;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 月历网格适配器。整个 Activity 只创建一个实例，数据来自与 Activity 共用的 MonthGrid。
+ * 每次 submitGrid 时逐格比较新旧网格：日期变了的格子完整重绑，
+ * 只有选中 / 今天 / 日程标记变化的格子通过局部刷新只更新样式，不重新设置文字。
+ */
 public class CalendarAdapter extends RecyclerView.Adapter<CalendarAdapter.CalendarViewHolder> {
-    private ArrayList<String> daysOfMonth;
-    private OnItemListener onItemListener;
-    private int selectedPosition = -1; // 记录选中的位置
-    private int todayPosition = -1;    // 记录今天的位置
-    private Calendar currentCalendar;  // 当前显示的日历实例
-
-    public CalendarAdapter(ArrayList<String> daysOfMonth, OnItemListener onItemListener, Calendar calendar) {
-        this.daysOfMonth = daysOfMonth;
+    // 只更新格子样式（选中 / 今天 / 日程标记）的局部刷新标记
+    private static final Object PAYLOAD_STATE = new Object();
+    private static final Histogram BIND_TIME = Metrics.timer("bind.CalendarAdapter");
+
+    // 1 - 31 号的文字，避免绑定时拼接字符串
+    private static final String[] DAY_TEXTS = new String[32];
+
+    static {
+        for (int day = 0; day < DAY_TEXTS.length; day++) {
+            DAY_TEXTS[day] = String.valueOf(day);
+        }
+    }
+
+    private final OnItemListener onItemListener;
+    private MonthGrid grid;
+
+    public CalendarAdapter(OnItemListener onItemListener) {
         this.onItemListener = onItemListener;
-        this.currentCalendar = (Calendar) calendar.clone(); // 保存当前日历实例
-        calculateTodayPosition();
+        setHasStableIds(true);
     }
 
+    public MonthGrid getGrid() {
+        return grid;
+    }
 
-    // 计算今天在日历中的位置
-    private void calculateTodayPosition() {
-        Calendar today = Calendar.getInstance();
-        Calendar displayCalendar = (Calendar) currentCalendar.clone(); // 当前显示的日历
-
-        // 检查今天是否在当前显示的月份中
-        if (today.get(Calendar.YEAR) == displayCalendar.get(Calendar.YEAR) &&
-                today.get(Calendar.MONTH) == displayCalendar.get(Calendar.MONTH)) {
-            // 今天在当前显示的月份中，计算位置
-            displayCalendar.set(Calendar.DAY_OF_MONTH, 1);
-            int firstDayOfWeek = displayCalendar.get(Calendar.DAY_OF_WEEK);
-            int dayOfMonth = today.get(Calendar.DAY_OF_MONTH);
-            int offset = firstDayOfWeek == Calendar.SUNDAY ? 0 : firstDayOfWeek - 1;
-            todayPosition = offset + dayOfMonth - 2;
-        } else {
-            // 今天不在当前显示的月份中，不显示高亮
-            todayPosition = -1;
+    /**
+     * 提交新的网格。格子数量固定，以位置为身份，所以不需要 DiffUtil，直接逐格比较即可。
+     */
+    public void submitGrid(MonthGrid newGrid) {
+        MonthGrid oldGrid = grid;
+        grid = newGrid;
+        if (oldGrid == null) {
+            notifyItemRangeInserted(0, MonthGrid.CELL_COUNT);
+            return;
+        }
+        if (oldGrid == newGrid) return;
+        for (int position = 0; position < MonthGrid.CELL_COUNT; position++) {
+            if (oldGrid.getEpochDay(position) != newGrid.getEpochDay(position)) {
+                notifyItemChanged(position);
+            } else if (oldGrid.getFlags(position) != newGrid.getFlags(position)) {
+                notifyItemChanged(position, PAYLOAD_STATE);
+            }
         }
     }
 
-    // 更新当前日历实例
-    public void updateCalendar(Calendar calendar) {
-        this.currentCalendar = (Calendar) calendar.clone();
-        calculateTodayPosition();
-        notifyDataSetChanged();
-    }
-    public void setSelectedPosition(int position) {
-        this.selectedPosition = position;
-        notifyDataSetChanged();
+    @Override
+    public long getItemId(int position) {
+        return position;
     }
 
     @NonNull
@@ -65,67 +79,95 @@ public class CalendarAdapter extends RecyclerView.Adapter<CalendarAdapter.Calend
         return new CalendarViewHolder(view, onItemListener);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull CalendarViewHolder holder, int position, @NonNull List<Object> payloads) {
+        Trace.beginSection("CalendarAdapter.bind");
+        long begin = Metrics.start();
+        try {
+            if (payloads.isEmpty()) {
+                bindCell(holder, position);
+            } else {
+                bindState(holder, position);
+            }
+        } finally {
+            BIND_TIME.recordSince(begin);
+            Trace.endSection();
+        }
+    }
+
     @Override
     public void onBindViewHolder(@NonNull CalendarViewHolder holder, int position) {
-        String dayText = daysOfMonth.get(position);
-        holder.dayOfMonth.setText(dayText);
+        onBindViewHolder(holder, position, Collections.emptyList());
+    }
 
-        // 处理周天和周内
-        if (position % 7 == 0) {
-            holder.dayOfMonth.setTextColor(Color.RED); // 周日标红
+    private void bindCell(@NonNull CalendarViewHolder holder, int position) {
+        if (grid.isOutsideMonth(position)) {
+            // 上个月 / 下个月的日期显示为空白
+            holder.dayOfMonth.setText("");
+            holder.lunarText.setText("");
         } else {
-            holder.dayOfMonth.setTextColor(Color.BLACK);
+            holder.dayOfMonth.setText(DAY_TEXTS[grid.getDayOfMonth(position)]);
+            holder.lunarText.setText(grid.getLunarLabel(position));
         }
-        // 设置不同的文本颜色
-        if (dayText.isEmpty()) {
-            holder.dayOfMonth.setTextColor(Color.TRANSPARENT);
+        bindState(holder, position);
+    }
+
+    // 根据选中 / 今天 / 日程标记设置格子样式
+    private void bindState(@NonNull CalendarViewHolder holder, int position) {
+        int flags = grid.getFlags(position);
+        if ((flags & MonthGrid.FLAG_OUTSIDE_MONTH) != 0) {
             holder.dayOfMonth.setBackgroundResource(0);
+            holder.eventDot.setVisibility(View.INVISIBLE);
+            return;
+        }
+        holder.eventDot.setVisibility((flags & MonthGrid.FLAG_HAS_EVENTS) != 0 ? View.VISIBLE : View.INVISIBLE);
+
+        if ((flags & MonthGrid.FLAG_SELECTED) != 0) {
+            // 选中日期使用深蓝色
+            holder.dayOfMonth.setTextColor(Color.WHITE);
+            holder.dayOfMonth.setBackgroundResource(R.drawable.selected_background);
+        } else if ((flags & MonthGrid.FLAG_TODAY) != 0) {
+            // 今天使用浅蓝色（但不是选中状态）
+            holder.dayOfMonth.setTextColor(Color.BLUE);
+            holder.dayOfMonth.setBackgroundResource(R.drawable.today_background);
         } else {
-            // 检查是否是今天
-            boolean isToday = position == todayPosition;
-            // 检查是否是选中的日期
-            boolean isSelected = position == selectedPosition;
-
-            if (isSelected) {
-                // 选中日期使用深蓝色
-                holder.dayOfMonth.setTextColor(Color.WHITE);
-                holder.dayOfMonth.setBackgroundResource(R.drawable.selected_background);
-            } else if (isToday) {
-                // 今天使用浅蓝色（但不是选中状态）
-                holder.dayOfMonth.setTextColor(Color.BLUE);
-                holder.dayOfMonth.setBackgroundResource(R.drawable.today_background);
-            } else {
-                // 其他日期普通显示
-                holder.dayOfMonth.setTextColor(Color.BLACK);
-                holder.dayOfMonth.setBackgroundResource(0);
-            }
+            // 周末标红，其他日期普通显示
+            holder.dayOfMonth.setTextColor((flags & MonthGrid.FLAG_WEEKEND) != 0 ? Color.RED : Color.BLACK);
+            holder.dayOfMonth.setBackgroundResource(0);
         }
     }
 
     @Override
     public int getItemCount() {
-        return daysOfMonth.size();
+        return grid == null ? 0 : MonthGrid.CELL_COUNT;
     }
 
     public interface OnItemListener {
-        void onItemClick(int position, String dayText);
+        // position 为网格中的位置，通过 MonthGrid 取得对应日期
+        void onItemClick(int position);
     }
 
     public static class CalendarViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
         public TextView dayOfMonth;
+        public TextView lunarText;
+        public View eventDot;
         private OnItemListener onItemListener;
 
         public CalendarViewHolder(@NonNull View itemView, OnItemListener onItemListener) {
             super(itemView);
             dayOfMonth = itemView.findViewById(R.id.cellDayText);
+            lunarText = itemView.findViewById(R.id.cellLunarText);
+            eventDot = itemView.findViewById(R.id.cellEventDot);
             this.onItemListener = onItemListener;
             itemView.setOnClickListener(this);
         }
 
         @Override
         public void onClick(View view) {
-            onItemListener.onItemClick(getAdapterPosition(), (String) dayOfMonth.getText());
+            int position = getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                onItemListener.onItemClick(position);
+            }
         }
     }
 }
-
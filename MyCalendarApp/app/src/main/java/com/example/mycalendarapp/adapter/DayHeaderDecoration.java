@@ -0,0 +1,109 @@
+package com.example.mycalendarapp.adapter;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+import android.view.View;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+import com.example.mycalendarapp.utils.DateUtils;
+
+/**
+ * 按天分组的列表的日期标题：每天第一条的上方留出标题的位置，当前最上面那一天的标题固定在列表顶部，
+ * 下一天的标题滚上来时把它推出去。
+ *
+ * 标题不是列表项，分页插入或丢弃时不需要额外维护标题的位置；绘制时文字写入复用的缓冲区，不分配内存。
+ */
+public class DayHeaderDecoration extends RecyclerView.ItemDecoration {
+    private static final String[] WEEKDAYS = {"周日", "周一", "周二", "周三", "周四", "周五", "周六"};
+
+    // 提供某个位置所属的日期（纪元日）
+    public interface DaySource {
+        long getEpochDay(int position);
+    }
+
+    private final DaySource days;
+    private final int height;
+    private final float textX;
+    private final float baseline;
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint backgroundPaint = new Paint();
+    private final StringBuilder label = new StringBuilder(24);
+
+    public DayHeaderDecoration(Context context, DaySource days) {
+        this.days = days;
+        DisplayMetrics display = context.getResources().getDisplayMetrics();
+        height = Math.round(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 32, display));
+        textX = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 12, display);
+        textPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 14, display));
+        textPaint.setColor(Color.parseColor("#424242"));
+        textPaint.setFakeBoldText(true);
+        backgroundPaint.setColor(Color.parseColor("#EEEEEE"));
+        Paint.FontMetrics metrics = textPaint.getFontMetrics();
+        baseline = (height - metrics.ascent - metrics.descent) / 2;
+    }
+
+    @Override
+    public void getItemOffsets(@NonNull Rect outRect, @NonNull View view, @NonNull RecyclerView parent,
+                               @NonNull RecyclerView.State state) {
+        int position = parent.getChildAdapterPosition(view);
+        if (position != RecyclerView.NO_POSITION && isFirstOfDay(position, itemCount(parent))) {
+            outRect.top = height;
+        }
+    }
+
+    @Override
+    public void onDrawOver(@NonNull Canvas canvas, @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+        int childCount = parent.getChildCount();
+        int itemCount = itemCount(parent);
+        long today = DateUtils.getEpochDay(System.currentTimeMillis());
+        int left = parent.getPaddingLeft();
+        int right = parent.getWidth() - parent.getPaddingRight();
+
+        long pinnedDay = Long.MIN_VALUE;
+        float pinnedTop = parent.getPaddingTop();
+        for (int i = 0; i < childCount; i++) {
+            View child = parent.getChildAt(i);
+            int position = parent.getChildAdapterPosition(child);
+            if (position == RecyclerView.NO_POSITION || position >= itemCount) continue;
+            long day = days.getEpochDay(position);
+            float headerTop = child.getTop() + child.getTranslationY() - height;
+            if (pinnedDay == Long.MIN_VALUE) {
+                // 最上面一条所在的日期固定显示
+                pinnedDay = day;
+            } else if (day != pinnedDay && isFirstOfDay(position, itemCount)) {
+                // 下一天的标题：原位绘制，接近顶部时把固定的标题推上去
+                pinnedTop = Math.min(pinnedTop, headerTop - height);
+                drawHeader(canvas, left, right, headerTop, day, today);
+            }
+        }
+        if (pinnedDay != Long.MIN_VALUE) {
+            drawHeader(canvas, left, right, pinnedTop, pinnedDay, today);
+        }
+    }
+
+    // 动画过程中 RecyclerView 的位置可能来自预布局，这里以适配器当前的条数为准
+    private static int itemCount(RecyclerView parent) {
+        RecyclerView.Adapter<?> adapter = parent.getAdapter();
+        return adapter != null ? adapter.getItemCount() : 0;
+    }
+
+    private boolean isFirstOfDay(int position, int itemCount) {
+        if (position >= itemCount) return false;
+        if (position == 0) return true;
+        return days.getEpochDay(position) != days.getEpochDay(position - 1);
+    }
+
+    private void drawHeader(Canvas canvas, int left, int right, float top, long epochDay, long today) {
+        canvas.drawRect(left, top, right, top + height, backgroundPaint);
+        label.setLength(0);
+        DateUtils.appendDate(label, DateUtils.startOfEpochDay(epochDay));
+        label.append(' ').append(WEEKDAYS[DateUtils.dayOfWeek(epochDay)]);
+        if (epochDay == today) label.append(" 今天");
+        canvas.drawText(label, 0, label.length(), left + textX, top + baseline, textPaint);
+    }
+}
@@ -1,30 +1,75 @@
 package com.example.mycalendarapp.adapter;
 
+import android.os.Trace;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.mycalendarapp.R;
+import com.example.mycalendarapp.metrics.Histogram;
+import com.example.mycalendarapp.metrics.Metrics;
 import com.example.mycalendarapp.model.Event;
-import java.text.SimpleDateFormat;
+import com.example.mycalendarapp.utils.DateUtils;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * 日程列表适配器。新列表在后台线程与旧列表做差异比较（ListAdapter / AsyncListDiffer），
+ * 以日程 id（重复日程再加上该次的开始时间）作为身份和稳定 id，增删改一条日程时只重绑受影响的那一行。
+ */
+public class EventAdapter extends ListAdapter<Event, EventAdapter.EventViewHolder> {
+    private static final Histogram BIND_TIME = Metrics.timer("bind.EventAdapter");
+
+    private static final DiffUtil.ItemCallback<Event> DIFF_CALLBACK = new DiffUtil.ItemCallback<Event>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Event oldItem, @NonNull Event newItem) {
+            // 重复日程的各次 id 相同，再用该次原本的开始时间区分
+            return oldItem.getId() == newItem.getId() && oldItem.getRecurrenceId() == newItem.getRecurrenceId();
+        }
 
-public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHolder> {
+        @Override
+        public boolean areContentsTheSame(@NonNull Event oldItem, @NonNull Event newItem) {
+            return Objects.equals(oldItem.getTitle(), newItem.getTitle())
+                    && oldItem.getStartTime() == newItem.getStartTime()
+                    && oldItem.getEndTime() == newItem.getEndTime();
+        }
+    };
 
-    private List<Event> eventList;
+    private boolean showDate; // 列表跨越多天时（如搜索结果）在时间前显示日期
 
     public EventAdapter(List<Event> eventList) {
-        this.eventList = eventList;
+        super(DIFF_CALLBACK);
+        setHasStableIds(true);
+        setEvents(eventList);
+    }
+
+    public void setShowDate(boolean showDate) {
+        this.showDate = showDate;
     }
 
-    // 更新数据的方法
+    // 更新数据的方法，差异在后台计算完成后才会应用到列表
     public void setEvents(List<Event> events) {
-        this.eventList = events;
-        notifyDataSetChanged();
+        // 复制一份：ListAdapter 要求提交后的列表不再被修改
+        submitList(events == null ? null : new ArrayList<>(events));
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return stableIdOf(getItem(position));
+    }
+
+    // 单次日程就是 id；重复日程的各次高 32 位是 id，低 32 位是该次开始时间的分钟数，同一系列的各次互不相同
+    static long stableIdOf(Event event) {
+        if (!event.isOccurrence()) {
+            return event.getId();
+        }
+        return (long) event.getId() << 32 | ((event.getRecurrenceId() / 60_000) & 0xFFFFFFFFL);
     }
 
     // 【添加】设置点击监听器
@@ -53,51 +98,53 @@ public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHol
     @Override
     public EventViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_event, parent, false);
-        return new EventViewHolder(view);
+        EventViewHolder holder = new EventViewHolder(view);
+
+        // 监听器只在创建时设置一次，点击时再根据当前位置取数据
+        holder.itemView.setOnClickListener(v -> {
+            int position = holder.getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION && onItemClickListener != null) {
+                onItemClickListener.onItemClick(getItem(position));
+            }
+        });
+        holder.itemView.setOnLongClickListener(v -> {
+            int position = holder.getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION && onItemLongClickListener != null) {
+                onItemLongClickListener.onItemLongClick(getItem(position), position);
+                return true;
+            }
+            return false;
+        });
+        return holder;
     }
 
     @Override
     public void onBindViewHolder(@NonNull EventViewHolder holder, int position) {
+        Trace.beginSection("EventAdapter.bind");
+        long begin = Metrics.start();
         try {
-            Event event = eventList.get(position);
+            Event event = getItem(position);
             holder.titleTv.setText(event.getTitle());
 
-            // 使用 SimpleDateFormat 格式化时间显示
-            SimpleDateFormat sdf = new SimpleDateFormat("HH:mm", Locale.getDefault());
-            String startTime = sdf.format(new java.util.Date(event.getStartTime()));
-            String endTime = sdf.format(new java.util.Date(event.getEndTime()));
-
-            holder.timeTv.setText(startTime + " - " + endTime);
-
-            // 【添加】设置点击监听
-            holder.itemView.setOnClickListener(v -> {
-                if (onItemClickListener != null) {
-                    onItemClickListener.onItemClick(event);
-                }
-            });
-
-            // 【添加】设置长按监听
-            holder.itemView.setOnLongClickListener(v -> {
-                if (onItemLongClickListener != null) {
-                    onItemLongClickListener.onItemLongClick(event, position);
-                    return true;
-                }
-                return false;
-            });
+            // "HH:mm - HH:mm" 直接写入 ViewHolder 自带的缓冲区，绑定时不创建任何对象
+            int length = showDate
+                    ? DateUtils.formatDateTimeRange(event.getStartTime(), event.getEndTime(), holder.timeBuffer)
+                    : DateUtils.formatTimeRange(event.getStartTime(), event.getEndTime(), holder.timeBuffer);
+            holder.timeTv.setText(holder.timeBuffer, 0, length);
         } catch (Exception e) {
             Log.e("EventAdapter", "绑定数据失败", e);
             holder.titleTv.setText("错误");
             holder.timeTv.setText("");
+        } finally {
+            BIND_TIME.recordSince(begin);
+            Trace.endSection();
         }
     }
 
-    @Override
-    public int getItemCount() {
-        return eventList != null ? eventList.size() : 0;
-    }
-
     public static class EventViewHolder extends RecyclerView.ViewHolder {
         TextView titleTv, timeTv;
+        // setText(char[], int, int) 会持有这个数组，所以每个 ViewHolder 各用一份
+        final char[] timeBuffer = new char[DateUtils.DATE_TIME_RANGE_LENGTH];
 
         public EventViewHolder(@NonNull View itemView) {
             super(itemView);
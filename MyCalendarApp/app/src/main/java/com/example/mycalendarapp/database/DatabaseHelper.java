@@ -1,18 +1,35 @@
 package com.example.mycalendarapp.database;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Trace;
+import com.example.mycalendarapp.metrics.Counter;
+import com.example.mycalendarapp.metrics.Histogram;
+import com.example.mycalendarapp.metrics.Metrics;
+import com.example.mycalendarapp.model.AgendaPage;
 import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.model.MonthSnapshot;
+import com.example.mycalendarapp.model.OccurrenceMerger;
+import com.example.mycalendarapp.model.RecurrenceRule;
+import com.example.mycalendarapp.model.ReminderTimes;
+import com.example.mycalendarapp.utils.DateUtils;
+import com.example.mycalendarapp.utils.SearchText;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.function.BooleanSupplier;
 
-public class DatabaseHelper extends SQLiteOpenHelper {
+public class DatabaseHelper extends SQLiteOpenHelper implements EventStore {
     private static final String DATABASE_NAME = "CalendarDB";
-    private static final int DATABASE_VERSION = 1;
-    private static final String TABLE_EVENTS = "events";
+    private static final int DATABASE_VERSION = 7;
+    static final String TABLE_EVENTS = "events";
 
     // 列名
     private static final String KEY_ID = "id";
@@ -21,13 +38,265 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String KEY_START = "startTime";
     private static final String KEY_END = "endTime";
     private static final String KEY_REMIND = "remindTime";
+    private static final String KEY_RRULE = "rrule";         // 重复规则，NULL 表示单次日程
+    private static final String KEY_EXDATES = "exdates";     // 排除的各次开始时间，逗号分隔
+    private static final String KEY_SERIES_END = "seriesEnd"; // 最后一次的结束时间，不重复的日程等于 endTime
+    // 供全文索引使用的分词结果（见 SearchText.index），与 title / description 一起写入
+    private static final String KEY_FTS_TITLE = "ftsTitle";
+    private static final String KEY_FTS_BODY = "ftsBody";
+    // 重复日程在 reminder_state.floor 之后的第一次提醒时间，没有时为 NULL；单次日程为 NULL，直接用 remindTime
+    private static final String KEY_NEXT_REMIND = "nextRemind";
 
-    public DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    // 单行表：重复日程的 nextRemind 是相对哪个时间点、按哪个时区算出的
+    static final String TABLE_REMINDER_STATE = "reminder_state";
+    private static final String KEY_FLOOR = "floor";
+    private static final String KEY_ZONE = "zone";
+
+    // 全文索引：以 events 为外部内容表的 FTS4 虚表，docid 即 events.id，由触发器保持同步
+    static final String TABLE_FTS = "events_fts";
+    // 标题命中的权重高于描述
+    private static final double[] SEARCH_COLUMN_WEIGHTS = {4.0, 1.0};
+
+    // 性能指标：范围查询和搜索的耗时，以及从游标读出的行数
+    private static final Histogram RANGE_QUERY_TIME = Metrics.timer("db.range_query");
+    private static final Histogram SEARCH_TIME = Metrics.timer("db.search");
+    private static final Histogram AGENDA_PAGE_TIME = Metrics.timer("db.agenda_page");
+    private static final Counter ROWS_READ = Metrics.counter("db.rows_read");
+
+    // 索引名
+    static final String INDEX_START = "idx_events_start";
+    static final String INDEX_END_START = "idx_events_end_start";
+    static final String INDEX_RECURRING = "idx_events_recurring";
+    static final String INDEX_REMIND = "idx_events_remind";
+    static final String INDEX_NEXT_REMIND = "idx_events_next_remind";
+    static final String INDEX_LONG = "idx_events_long";
+
+    // 时长超过一天的单次日程（跨多天）另有索引；其余日程的开始时间不会早于查询区间开始前一天，
+    // 所以按开始时间的索引扫描有上下两个边界。写在索引定义里，修改需要新的迁移
+    static final long LONG_EVENT_MILLIS = 24 * 60 * 60 * 1000L;
+
+    /**
+     * 区间重叠查询：时长不超过 LONG_EVENT_MILLIS 的单次日程 [startTime, endTime] 与查询区间
+     * [rangeStart, rangeEnd] 有交集。这样的日程开始时间在 [rangeStart - LONG_EVENT_MILLIS, rangeEnd] 内，
+     * 扫描的索引范围只与查询区间有关，与表中更早的日程数量无关。最后一个条件排除恰好在 rangeStart
+     * 结束的日程，但保留开始即结束的零时长日程。更长的日程由 QUERY_LONG_EVENTS_IN_RANGE 查询，
+     * 重复日程由 QUERY_SERIES_IN_RANGE 查询。
+     * 参数：?1 = rangeStart, ?2 = rangeEnd
+     */
+    static final String QUERY_EVENTS_IN_RANGE = "SELECT * FROM " + TABLE_EVENTS + " WHERE "
+            + KEY_RRULE + " IS NULL AND " + KEY_END + " - " + KEY_START + " <= " + LONG_EVENT_MILLIS + " AND "
+            + KEY_START + " >= ?1 - " + LONG_EVENT_MILLIS + " AND " + KEY_START + " <= ?2 AND ("
+            + KEY_END + " > ?1 OR " + KEY_START + " >= ?1) ORDER BY " + KEY_START + " ASC";
+
+    /**
+     * 与查询区间有交集的跨多天单次日程，走只包含这些日程的部分索引，不排序。
+     * 时长大于 0，所以在 rangeStart 之后结束即与区间相交。参数同上
+     */
+    static final String QUERY_LONG_EVENTS_IN_RANGE = "SELECT * FROM " + TABLE_EVENTS + " WHERE "
+            + KEY_RRULE + " IS NULL AND " + KEY_END + " - " + KEY_START + " > " + LONG_EVENT_MILLIS + " AND "
+            + KEY_END + " > ?1 AND " + KEY_START + " <= ?2";
+
+    /**
+     * 可能与查询区间相交的重复日程系列，走只包含重复日程的部分索引。
+     * 参数顺序：rangeEnd, rangeStart
+     */
+    static final String QUERY_SERIES_IN_RANGE = "SELECT * FROM " + TABLE_EVENTS + " WHERE "
+            + KEY_RRULE + " IS NOT NULL AND " + KEY_START + " <= ? AND " + KEY_SERIES_END + " >= ?";
+
+    // 参数：MATCH 查询
+    static final String QUERY_SEARCH = "SELECT docid, matchinfo(" + TABLE_FTS + ", '" + SearchText.MATCHINFO_FORMAT
+            + "') FROM " + TABLE_FTS + " WHERE " + TABLE_FTS + " MATCH ?";
+
+    // 提醒时间晚于 ? 的第一个单次日程的提醒时间，走提醒时间的部分索引
+    static final String QUERY_NEXT_REMIND_TIME = "SELECT " + KEY_REMIND + " FROM " + TABLE_EVENTS + " WHERE "
+            + KEY_RRULE + " IS NULL AND " + KEY_REMIND + " > ? ORDER BY " + KEY_REMIND + " LIMIT 1";
+
+    // 提醒时间在 (?, ?] 内的单次日程
+    static final String QUERY_REMINDERS = "SELECT * FROM " + TABLE_EVENTS + " WHERE "
+            + KEY_RRULE + " IS NULL AND " + KEY_REMIND + " > ? AND " + KEY_REMIND + " <= ?"
+            + " ORDER BY " + KEY_REMIND;
+
+    // 下一次提醒不晚于 ? 的重复日程，即把 floor 推进到 ? 时需要重算的系列，走 nextRemind 的部分索引
+    static final String QUERY_SERIES_TO_ADVANCE = "SELECT * FROM " + TABLE_EVENTS + " WHERE "
+            + KEY_RRULE + " IS NOT NULL AND " + KEY_NEXT_REMIND + " <= ?";
+
+    // floor 已推进到 ? 时，重复日程中最早的下一次提醒时间
+    static final String QUERY_NEXT_SERIES_REMIND_TIME = "SELECT " + KEY_NEXT_REMIND + " FROM " + TABLE_EVENTS
+            + " WHERE " + KEY_RRULE + " IS NOT NULL AND " + KEY_NEXT_REMIND + " > ? ORDER BY " + KEY_NEXT_REMIND
+            + " LIMIT 1";
+
+    // floor 已推进到第一个 ? 时，在 (?, ?] 内有提醒的重复日程
+    static final String QUERY_SERIES_REMINDERS = "SELECT * FROM " + TABLE_EVENTS + " WHERE "
+            + KEY_RRULE + " IS NOT NULL AND " + KEY_NEXT_REMIND + " > ? AND " + KEY_NEXT_REMIND + " <= ?";
+
+    private static final String QUERY_REMINDER_STATE = "SELECT " + KEY_FLOOR + ", " + KEY_ZONE
+            + " FROM " + TABLE_REMINDER_STATE;
+
+    // 全部重复日程系列，走重复日程的部分索引
+    static final String QUERY_ALL_SERIES = "SELECT * FROM " + TABLE_EVENTS + " WHERE " + KEY_RRULE + " IS NOT NULL";
+
+    /**
+     * 议程分页：键 (startTime, id) 在 (?, ?) 之后的单次日程。id 即 rowid，idx_events_start 中同一开始时间的行
+     * 本来就按 rowid 排列，所以排序和 LIMIT 都直接沿索引完成，不需要临时排序。
+     * 没有使用行值比较 (startTime, id) > (?, ?)：Android 7 自带的 SQLite 还不支持。
+     * 参数顺序：keyStart, keyStart, keyId, limit
+     */
+    static final String QUERY_AGENDA_AFTER = "SELECT * FROM " + TABLE_EVENTS + " WHERE "
+            + KEY_RRULE + " IS NULL AND " + KEY_START + " >= ? AND (" + KEY_START + " > ? OR " + KEY_ID + " > ?)"
+            + " ORDER BY " + KEY_START + ", " + KEY_ID + " LIMIT ?";
+
+    // 同上，方向相反：键在 (?, ?) 之前，从近到远
+    static final String QUERY_AGENDA_BEFORE = "SELECT * FROM " + TABLE_EVENTS + " WHERE "
+            + KEY_RRULE + " IS NULL AND " + KEY_START + " <= ? AND (" + KEY_START + " < ? OR " + KEY_ID + " < ?)"
+            + " ORDER BY " + KEY_START + " DESC, " + KEY_ID + " DESC LIMIT ?";
+
+    static final String QUERY_ALL_EVENTS = "SELECT * FROM " + TABLE_EVENTS + " ORDER BY " + KEY_ID;
+
+    private static final String QUERY_EVENT_BY_ID = "SELECT * FROM " + TABLE_EVENTS + " WHERE " + KEY_ID + " = ?";
+
+    /**
+     * 单步迁移：把数据库从 version 升级到 version + 1，必须保留已有数据。
+     */
+    interface Migration {
+        void migrate(SQLiteDatabase db);
+    }
+
+    // MIGRATIONS[i] 负责 (i + 1) -> (i + 2)，新增版本时在末尾追加并提升 DATABASE_VERSION
+    private static final Migration[] MIGRATIONS = {
+            // 1 -> 2: 为按时间范围查询添加索引
+            db -> {
+                db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_START
+                        + " ON " + TABLE_EVENTS + "(" + KEY_START + ")");
+                db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_END_START
+                        + " ON " + TABLE_EVENTS + "(" + KEY_END + ", " + KEY_START + ")");
+            },
+            // 2 -> 3: 重复规则，每个系列只存一行
+            db -> {
+                db.execSQL("ALTER TABLE " + TABLE_EVENTS + " ADD COLUMN " + KEY_RRULE + " TEXT");
+                db.execSQL("ALTER TABLE " + TABLE_EVENTS + " ADD COLUMN " + KEY_EXDATES + " TEXT");
+                db.execSQL("ALTER TABLE " + TABLE_EVENTS + " ADD COLUMN " + KEY_SERIES_END + " INTEGER");
+                db.execSQL("UPDATE " + TABLE_EVENTS + " SET " + KEY_SERIES_END + " = " + KEY_END);
+                db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_RECURRING + " ON " + TABLE_EVENTS
+                        + "(" + KEY_START + ") WHERE " + KEY_RRULE + " IS NOT NULL");
+            },
+            // 3 -> 4: 全文搜索
+            db -> {
+                db.execSQL("ALTER TABLE " + TABLE_EVENTS + " ADD COLUMN " + KEY_FTS_TITLE + " TEXT");
+                db.execSQL("ALTER TABLE " + TABLE_EVENTS + " ADD COLUMN " + KEY_FTS_BODY + " TEXT");
+                fillSearchColumns(db);
+                db.execSQL("CREATE VIRTUAL TABLE " + TABLE_FTS + " USING fts4(content=\"" + TABLE_EVENTS + "\", "
+                        + KEY_FTS_TITLE + ", " + KEY_FTS_BODY + ")");
+                // 外部内容表的删除需要读取旧内容，所以删除索引的触发器必须在 BEFORE 阶段执行；
+                // 只在分词列变化时更新索引，删除重复日程的某一次（只改 exdates）不会触发
+                String ftsColumns = "(docid, " + KEY_FTS_TITLE + ", " + KEY_FTS_BODY + ")";
+                String newValues = " VALUES(new." + KEY_ID + ", new." + KEY_FTS_TITLE + ", new." + KEY_FTS_BODY + ")";
+                db.execSQL("CREATE TRIGGER events_fts_ai AFTER INSERT ON " + TABLE_EVENTS + " BEGIN"
+                        + " INSERT INTO " + TABLE_FTS + ftsColumns + newValues + "; END");
+                db.execSQL("CREATE TRIGGER events_fts_bd BEFORE DELETE ON " + TABLE_EVENTS + " BEGIN"
+                        + " DELETE FROM " + TABLE_FTS + " WHERE docid = old." + KEY_ID + "; END");
+                db.execSQL("CREATE TRIGGER events_fts_bu BEFORE UPDATE OF " + KEY_FTS_TITLE + ", " + KEY_FTS_BODY
+                        + " ON " + TABLE_EVENTS + " BEGIN"
+                        + " DELETE FROM " + TABLE_FTS + " WHERE docid = old." + KEY_ID + "; END");
+                db.execSQL("CREATE TRIGGER events_fts_au AFTER UPDATE OF " + KEY_FTS_TITLE + ", " + KEY_FTS_BODY
+                        + " ON " + TABLE_EVENTS + " BEGIN"
+                        + " INSERT INTO " + TABLE_FTS + ftsColumns + newValues + "; END");
+                db.execSQL("INSERT INTO " + TABLE_FTS + "(" + TABLE_FTS + ") VALUES('rebuild')");
+            },
+            // 4 -> 5: 按提醒时间查找下一个提醒；重复日程的提醒在 Java 中展开计算，不放进索引
+            db -> db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_REMIND + " ON " + TABLE_EVENTS
+                    + "(" + KEY_REMIND + ") WHERE " + KEY_RRULE + " IS NULL"),
+            // 5 -> 6: 重复日程的下一次提醒时间也放进索引，查找提醒时不再展开全部系列。
+            // 时区留空，第一次查找提醒时会按当前时区把全部系列算一遍
+            db -> {
+                db.execSQL("ALTER TABLE " + TABLE_EVENTS + " ADD COLUMN " + KEY_NEXT_REMIND + " INTEGER");
+                db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_NEXT_REMIND + " ON " + TABLE_EVENTS
+                        + "(" + KEY_NEXT_REMIND + ") WHERE " + KEY_RRULE + " IS NOT NULL");
+                db.execSQL("CREATE TABLE " + TABLE_REMINDER_STATE + "(" + KEY_FLOOR + " INTEGER NOT NULL, "
+                        + KEY_ZONE + " TEXT NOT NULL)");
+                db.execSQL("INSERT INTO " + TABLE_REMINDER_STATE + " VALUES(0, '')");
+            },
+            // 6 -> 7: 跨多天的日程单独索引，范围查询在开始时间索引上有下界。
+            // 索引中带上 startTime，过滤开始时间时不需要回表
+            db -> db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_LONG + " ON " + TABLE_EVENTS
+                    + "(" + KEY_END + ", " + KEY_START + ") WHERE " + KEY_RRULE + " IS NULL AND "
+                    + KEY_END + " - " + KEY_START + " > " + LONG_EVENT_MILLIS),
+    };
+
+    // 为已有的日程计算分词列（迁移时使用，分词在 Java 中完成）
+    private static void fillSearchColumns(SQLiteDatabase db) {
+        SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_EVENTS + " SET "
+                + KEY_FTS_TITLE + " = ?, " + KEY_FTS_BODY + " = ? WHERE " + KEY_ID + " = ?");
+        Cursor cursor = db.rawQuery("SELECT " + KEY_ID + ", " + KEY_TITLE + ", " + KEY_DESC
+                + " FROM " + TABLE_EVENTS, null);
+        try {
+            while (cursor.moveToNext()) {
+                update.clearBindings();
+                bindNullableString(update, 1, SearchText.index(cursor.getString(1)));
+                bindNullableString(update, 2, SearchText.index(cursor.getString(2)));
+                update.bindLong(3, cursor.getLong(0));
+                update.executeUpdateDelete();
+            }
+        } finally {
+            cursor.close();
+            update.close();
+        }
+    }
+
+    private static final String SQL_INSERT = "INSERT INTO " + TABLE_EVENTS + "("
+            + KEY_TITLE + ", " + KEY_DESC + ", " + KEY_START + ", " + KEY_END + ", " + KEY_REMIND + ", "
+            + KEY_RRULE + ", " + KEY_EXDATES + ", " + KEY_SERIES_END + ", " + KEY_FTS_TITLE + ", " + KEY_FTS_BODY
+            + ", " + KEY_NEXT_REMIND + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SQL_UPDATE = "UPDATE " + TABLE_EVENTS + " SET "
+            + KEY_TITLE + " = ?, " + KEY_DESC + " = ?, " + KEY_START + " = ?, "
+            + KEY_END + " = ?, " + KEY_REMIND + " = ?, " + KEY_RRULE + " = ?, "
+            + KEY_EXDATES + " = ?, " + KEY_SERIES_END + " = ?, " + KEY_FTS_TITLE + " = ?, "
+            + KEY_FTS_BODY + " = ?, " + KEY_NEXT_REMIND + " = ? WHERE " + KEY_ID + " = ?";
+    private static final String SQL_DELETE = "DELETE FROM " + TABLE_EVENTS + " WHERE " + KEY_ID + " = ?";
+    private static final String SQL_ADD_EXDATE = "UPDATE " + TABLE_EVENTS + " SET " + KEY_EXDATES
+            + " = CASE WHEN " + KEY_EXDATES + " IS NULL OR " + KEY_EXDATES + " = '' THEN ?1"
+            + " ELSE " + KEY_EXDATES + " || ',' || ?1 END WHERE " + KEY_ID + " = ?2 AND " + KEY_RRULE + " IS NOT NULL";
+    private static final String SQL_SET_NEXT_REMIND = "UPDATE " + TABLE_EVENTS + " SET " + KEY_NEXT_REMIND + " = ?"
+            + " WHERE " + KEY_ID + " = ?";
+    private static final String SQL_SET_REMINDER_STATE = "UPDATE " + TABLE_REMINDER_STATE + " SET "
+            + KEY_FLOOR + " = ?, " + KEY_ZONE + " = ?";
+
+    private static volatile DatabaseHelper instance;
+
+    // 写操作共用一把锁：预编译语句不是线程安全的，SQLite 本身也只允许一个写者
+    private final Object writeLock = new Object();
+    private SQLiteStatement insertStatement;
+    private SQLiteStatement updateStatement;
+    private SQLiteStatement deleteStatement;
+    private SQLiteStatement addExdateStatement;
+    private SQLiteStatement setNextRemindStatement;
+
+    // reminder_state 的缓存，与上面的语句一样只在持有 writeLock 时访问；reminderZone 为 null 表示尚未读取
+    private long reminderFloor;
+    private String reminderZone;
+
+    // 进程内唯一实例，整个应用共享同一个数据库连接，不要手动 close
+    public static DatabaseHelper getInstance(Context context) {
+        DatabaseHelper result = instance;
+        if (result == null) {
+            synchronized (DatabaseHelper.class) {
+                result = instance;
+                if (result == null) {
+                    result = new DatabaseHelper(context.getApplicationContext(), DATABASE_NAME);
+                    instance = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    // name 为 null 时使用内存数据库，供测试使用
+    DatabaseHelper(Context context, String name) {
+        super(context, name, null, DATABASE_VERSION);
     }
 
     @Override
     public void onCreate(SQLiteDatabase db) {
+        // 先建立版本 1 的表结构，再依次执行迁移，保证新装和升级得到完全相同的结构
         String CREATE_EVENTS_TABLE = "CREATE TABLE " + TABLE_EVENTS + "("
                 + KEY_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
                 + KEY_TITLE + " TEXT,"
@@ -36,80 +305,530 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 + KEY_END + " INTEGER,"
                 + KEY_REMIND + " INTEGER" + ")";
         db.execSQL(CREATE_EVENTS_TABLE);
+        migrate(db, 1, DATABASE_VERSION);
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_EVENTS);
-        onCreate(db);
+        // onUpgrade 已处于事务中，任何一步失败都会整体回滚
+        migrate(db, oldVersion, newVersion);
     }
 
-    // 添加日程
+    static void migrate(SQLiteDatabase db, int fromVersion, int toVersion) {
+        if (toVersion - 1 > MIGRATIONS.length) {
+            throw new IllegalStateException("Missing migration to version " + toVersion);
+        }
+        for (int version = fromVersion; version < toVersion; version++) {
+            MIGRATIONS[version - 1].migrate(db);
+        }
+    }
+
+    // 添加日程，成功后会把生成的 id 写回 event
+    @Override
     public long addEvent(Event event) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(KEY_TITLE, event.getTitle());
-        values.put(KEY_DESC, event.getDescription());
-        values.put(KEY_START, event.getStartTime());
-        values.put(KEY_END, event.getEndTime());
-        values.put(KEY_REMIND, event.getRemindTime());
-
-        long id = db.insert(TABLE_EVENTS, null, values);
-        db.close();
-        return id;
+        synchronized (writeLock) {
+            return insertLocked(event);
+        }
+    }
+
+    // 批量添加日程，在同一个事务中完成，返回成功插入的条数
+    @Override
+    public int addEvents(List<Event> events) {
+        synchronized (writeLock) {
+            SQLiteDatabase db = this.getWritableDatabase();
+            int inserted = 0;
+            db.beginTransaction();
+            try {
+                for (Event event : events) {
+                    if (insertLocked(event) != -1) {
+                        inserted++;
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            return inserted;
+        }
     }
 
-    // 获取特定日期的所有日程
+    // 获取特定日期的所有日程（包括跨天日程）
+    @Override
     public List<Event> getEventsByDay(long startOfDay, long endOfDay) {
-        List<Event> eventList = new ArrayList<>();
-        SQLiteDatabase db = this.getReadableDatabase();
-
-        // 查询逻辑：开始时间在当天范围内
-        String selectQuery = "SELECT * FROM " + TABLE_EVENTS + " WHERE " +
-                KEY_START + " >= " + startOfDay + " AND " +
-                KEY_START + " < " + endOfDay + " ORDER BY " + KEY_START + " ASC";
-
-        Cursor cursor = db.rawQuery(selectQuery, null);
-
-        if (cursor.moveToFirst()) {
-            do {
-                Event event = new Event(
-                        cursor.getString(1), // title
-                        cursor.getString(2), // desc
-                        cursor.getLong(3),   // start
-                        cursor.getLong(4),   // end
-                        cursor.getLong(5)    // remind
-                );
-                event.setId(cursor.getInt(0));
-                eventList.add(event);
-            } while (cursor.moveToNext());
-        }
-        cursor.close();
-        return eventList;
-    }
-
-    // 删除日程
+        return getEventsInRange(startOfDay, endOfDay);
+    }
+
+    /**
+     * 获取与 [rangeStart, rangeEnd] 有交集的所有日程，跨多天的日程在其覆盖的每一天都会返回。
+     * 重复日程只在区间内展开，与单次日程一起按开始时间排序。
+     */
+    @Override
+    public List<Event> getEventsInRange(long rangeStart, long rangeEnd) {
+        Trace.beginSection("DatabaseHelper.getEventsInRange");
+        long begin = Metrics.start();
+        try {
+            String[] args = {String.valueOf(rangeStart), String.valueOf(rangeEnd)};
+            List<Event> eventList = queryEvents(QUERY_EVENTS_IN_RANGE, args);
+            List<Event> longEvents = queryEvents(QUERY_LONG_EVENTS_IN_RANGE, args);
+            if (!longEvents.isEmpty()) {
+                // 跨多天的日程通常只有几个，并入后按 (startTime, id) 排序，与索引顺序一致
+                eventList.addAll(longEvents);
+                eventList.sort(Comparator.comparingLong(Event::getStartTime).thenComparingInt(Event::getId));
+            }
+            List<Event> series = querySeries(rangeStart, rangeEnd);
+            ROWS_READ.add(eventList.size() + series.size());
+            return OccurrenceMerger.merge(eventList, series, rangeStart, rangeEnd);
+        } finally {
+            RANGE_QUERY_TIME.recordSince(begin);
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * 一次遍历游标加载整段日期的日程，并按天分桶。
+     * dayBoundaries[i] 是第 i 天的开始时间，最后一个元素是范围结束后一天的开始时间。
+     */
+    @Override
+    public MonthSnapshot getMonthSnapshot(long[] dayBoundaries) {
+        MonthSnapshot snapshot = new MonthSnapshot(dayBoundaries);
+        for (Event event : getEventsInRange(snapshot.getRangeStart(), snapshot.getRangeEnd())) {
+            snapshot.add(event);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public int[] searchEventIds(String query, BooleanSupplier canceled) {
+        String match = SearchText.toMatchQuery(query);
+        if (match == null) return new int[0];
+        long[] keys = new long[64];
+        int count = 0;
+        long begin = Metrics.start();
+        Cursor cursor = getReadableDatabase().rawQuery(QUERY_SEARCH, new String[]{match});
+        try {
+            while (cursor.moveToNext()) {
+                // 每 256 行检查一次是否已被更新的输入取代
+                if ((count & 0xFF) == 0 && canceled.getAsBoolean()) return null;
+                if (count == keys.length) keys = Arrays.copyOf(keys, count * 2);
+                double score = SearchText.score(cursor.getBlob(1), SEARCH_COLUMN_WEIGHTS);
+                keys[count++] = SearchText.rankKey(score, cursor.getInt(0));
+            }
+        } finally {
+            cursor.close();
+            ROWS_READ.add(count);
+            SEARCH_TIME.recordSince(begin);
+        }
+        return SearchText.idsByRank(keys, count);
+    }
+
+    @Override
+    public List<Event> getEventsByIds(int[] ids, int from, int to) {
+        List<Event> result = new ArrayList<>(Math.max(0, to - from));
+        if (from >= to) return result;
+        // 每页最多几十条，远低于 SQLite 的参数个数上限
+        StringBuilder sql = new StringBuilder("SELECT * FROM " + TABLE_EVENTS + " WHERE " + KEY_ID + " IN (");
+        String[] args = new String[to - from];
+        for (int i = from; i < to; i++) {
+            sql.append(i == from ? "?" : ", ?");
+            args[i - from] = String.valueOf(ids[i]);
+        }
+        sql.append(')');
+        HashMap<Integer, Event> byId = new HashMap<>(args.length * 2);
+        Cursor cursor = getReadableDatabase().rawQuery(sql.toString(), args);
+        try {
+            while (cursor.moveToNext()) {
+                Event event = readEvent(cursor);
+                byId.put(event.getId(), event);
+            }
+        } finally {
+            cursor.close();
+        }
+        for (int i = from; i < to; i++) {
+            Event event = byId.get(ids[i]);
+            if (event != null) result.add(event);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Event> getAgendaPage(long keyStart, int keyId, int limit, boolean forward) {
+        Trace.beginSection("DatabaseHelper.getAgendaPage");
+        long begin = Metrics.start();
+        try {
+            String start = String.valueOf(keyStart);
+            Cursor cursor = getReadableDatabase().rawQuery(forward ? QUERY_AGENDA_AFTER : QUERY_AGENDA_BEFORE,
+                    new String[]{start, start, String.valueOf(keyId), String.valueOf(limit)});
+            List<Event> oneOffs = new ArrayList<>(limit);
+            try {
+                while (cursor.moveToNext()) {
+                    oneOffs.add(readEvent(cursor));
+                }
+            } finally {
+                cursor.close();
+            }
+            if (!forward) Collections.reverse(oneOffs);
+            // 只读取在这一页覆盖的时间段内可能有某一次的系列，已经结束或尚未开始的系列不参与合并
+            List<Event> series = forward
+                    ? querySeries(keyStart, AgendaPage.seriesWindowEnd(oneOffs, limit))
+                    : querySeries(AgendaPage.seriesWindowStart(oneOffs, limit), keyStart);
+            ROWS_READ.add(oneOffs.size() + series.size());
+            return AgendaPage.merge(oneOffs, series, keyStart, keyId, limit, forward);
+        } finally {
+            AGENDA_PAGE_TIME.recordSince(begin);
+            Trace.endSection();
+        }
+    }
+
+    // 游标按窗口分段加载，导出再多的日程也只占用一个窗口的内存
+    @Override
+    public int forEachEvent(EventVisitor visitor) throws IOException {
+        int count = 0;
+        Cursor cursor = getReadableDatabase().rawQuery(QUERY_ALL_EVENTS, null);
+        try {
+            while (cursor.moveToNext()) {
+                visitor.visit(readEvent(cursor));
+                count++;
+            }
+        } finally {
+            cursor.close();
+        }
+        return count;
+    }
+
+    // 单次日程和重复日程各走一次提醒索引；持有 writeLock，查询期间 floor 不会被其他线程推进
+    @Override
+    public long getNextRemindTime(long after) {
+        synchronized (writeLock) {
+            advanceRemindersLocked(after);
+            String[] args = {String.valueOf(after)};
+            return Math.min(queryFirstLong(QUERY_NEXT_REMIND_TIME, args),
+                    queryFirstLong(QUERY_NEXT_SERIES_REMIND_TIME, args));
+        }
+    }
+
+    @Override
+    public List<Event> getReminders(long after, long until) {
+        synchronized (writeLock) {
+            advanceRemindersLocked(after);
+            String[] args = {String.valueOf(after), String.valueOf(until)};
+            List<Event> result = queryEvents(QUERY_REMINDERS, args);
+            boolean hasOccurrences = false;
+            for (Event series : queryEvents(QUERY_SERIES_REMINDERS, args)) {
+                if (ReminderTimes.collect(series, after, until, result) > 0) hasOccurrences = true;
+            }
+            if (hasOccurrences) result.sort(Comparator.comparingLong(Event::getRemindTime));
+            return result;
+        }
+    }
+
+    /**
+     * 把 floor 推进到 after：只有下一次提醒不晚于 after 的系列（通常是刚送达的几个）需要重算，走索引。
+     * after 早于 floor（系统时间被调回）或时区变化时，已经越过的提醒可能重新有效，全部系列重算一遍。
+     */
+    private void advanceRemindersLocked(long after) {
+        loadReminderStateLocked();
+        String zone = DateUtils.getTimeZoneId();
+        boolean rebuild = after < reminderFloor || !zone.equals(reminderZone);
+        if (!rebuild && after == reminderFloor) return;
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            List<Event> stale = rebuild ? queryEvents(QUERY_ALL_SERIES, null)
+                    : queryEvents(QUERY_SERIES_TO_ADVANCE, new String[]{String.valueOf(after)});
+            for (Event series : stale) {
+                setNextRemindLocked(series.getId(), nextRemind(series, after));
+            }
+            SQLiteStatement state = db.compileStatement(SQL_SET_REMINDER_STATE);
+            try {
+                state.bindLong(1, after);
+                state.bindString(2, zone);
+                state.executeUpdateDelete();
+            } finally {
+                state.close();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        reminderFloor = after;
+        reminderZone = zone;
+    }
+
+    private void loadReminderStateLocked() {
+        if (reminderZone != null) return;
+        Cursor cursor = getWritableDatabase().rawQuery(QUERY_REMINDER_STATE, null);
+        try {
+            cursor.moveToFirst();
+            reminderFloor = cursor.getLong(0);
+            reminderZone = cursor.getString(1);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private void setNextRemindLocked(int id, long nextRemind) {
+        if (setNextRemindStatement == null) {
+            setNextRemindStatement = getWritableDatabase().compileStatement(SQL_SET_NEXT_REMIND);
+        }
+        bindNextRemind(setNextRemindStatement, 1, nextRemind);
+        setNextRemindStatement.bindLong(2, id);
+        setNextRemindStatement.executeUpdateDelete();
+    }
+
+    // 系列在 after 之后的第一次提醒时间，没有时为 NO_REMINDER（存为 NULL）
+    private static long nextRemind(Event series, long after) {
+        Event next = ReminderTimes.next(series, after);
+        return next == null ? NO_REMINDER : next.getRemindTime();
+    }
+
+    private static void bindNextRemind(SQLiteStatement statement, int index, long nextRemind) {
+        if (nextRemind == NO_REMINDER) {
+            statement.bindNull(index);
+        } else {
+            statement.bindLong(index, nextRemind);
+        }
+    }
+
+    private long queryFirstLong(String sql, String[] args) {
+        Cursor cursor = getReadableDatabase().rawQuery(sql, args);
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : NO_REMINDER;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private List<Event> queryEvents(String sql, String[] args) {
+        List<Event> events = new ArrayList<>();
+        Cursor cursor = getReadableDatabase().rawQuery(sql, args);
+        try {
+            while (cursor.moveToNext()) {
+                events.add(readEvent(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return events;
+    }
+
+    private List<Event> querySeries(long rangeStart, long rangeEnd) {
+        List<Event> series = new ArrayList<>();
+        Cursor cursor = getReadableDatabase().rawQuery(QUERY_SERIES_IN_RANGE,
+                new String[]{String.valueOf(rangeEnd), String.valueOf(rangeStart)});
+        try {
+            while (cursor.moveToNext()) {
+                series.add(readEvent(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return series;
+    }
+
+    private static Event readEvent(Cursor cursor) {
+        Event event = new Event(
+                cursor.getString(1), // title
+                cursor.getString(2), // desc
+                cursor.getLong(3),   // start
+                cursor.getLong(4),   // end
+                cursor.getLong(5)    // remind
+        );
+        event.setId(cursor.getInt(0));
+        event.setRecurrenceRule(cursor.getString(6));
+        event.setExceptionDates(cursor.getString(7));
+        return event;
+    }
+
+    // 删除日程；重复日程会删除整个系列
+    @Override
     public boolean deleteEvent(int id) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        int rowsAffected = db.delete(TABLE_EVENTS, KEY_ID + " = ?", new String[]{String.valueOf(id)});
-        db.close();
-        return rowsAffected > 0;  // 根据实际删除的行数返回结果
+        synchronized (writeLock) {
+            return deleteLocked(id);  // 根据实际删除的行数返回结果
+        }
+    }
+
+    // 批量删除日程，在同一个事务中完成，返回实际删除的条数
+    @Override
+    public int deleteEvents(List<Event> events) {
+        synchronized (writeLock) {
+            SQLiteDatabase db = this.getWritableDatabase();
+            int deleted = 0;
+            db.beginTransaction();
+            try {
+                for (Event event : events) {
+                    if (deleteLocked(event.getId())) {
+                        deleted++;
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            return deleted;
+        }
     }
 
+    // 只删除重复日程中的某一次：把它的开始时间加入系列的排除列表
+    @Override
+    public boolean deleteOccurrence(Event occurrence) {
+        if (!occurrence.isOccurrence()) {
+            throw new IllegalArgumentException("Not an occurrence of a recurring event");
+        }
+        synchronized (writeLock) {
+            if (addExdateStatement == null) {
+                addExdateStatement = getWritableDatabase().compileStatement(SQL_ADD_EXDATE);
+            }
+            addExdateStatement.bindString(1, String.valueOf(occurrence.getRecurrenceId()));
+            addExdateStatement.bindLong(2, occurrence.getId());
+            if (addExdateStatement.executeUpdateDelete() == 0) return false;
+            // 删除的可能正是下一次提醒，按新的排除列表重算
+            List<Event> series = queryEvents(QUERY_EVENT_BY_ID, new String[]{String.valueOf(occurrence.getId())});
+            loadReminderStateLocked();
+            if (!series.isEmpty()) setNextRemindLocked(occurrence.getId(), nextRemind(series.get(0), reminderFloor));
+            return true;
+        }
+    }
+
+    // 修改重复日程中的某一次时，时间的变化应用到整个系列
+    @Override
     public boolean updateEvent(Event event) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(KEY_TITLE, event.getTitle());
-        values.put(KEY_DESC, event.getDescription());
-        values.put(KEY_START, event.getStartTime());
-        values.put(KEY_END, event.getEndTime());
-        values.put(KEY_REMIND, event.getRemindTime());
-
-        int rows = db.update(TABLE_EVENTS, values, KEY_ID + " = ?", new String[]{String.valueOf(event.getId())});
-        db.close();
-        return rows > 0;
+        synchronized (writeLock) {
+            return updateLocked(event);
+        }
     }
-}
 
+    // 批量更新日程，在同一个事务中完成，返回实际更新的条数
+    @Override
+    public int updateEvents(List<Event> events) {
+        synchronized (writeLock) {
+            SQLiteDatabase db = this.getWritableDatabase();
+            int updated = 0;
+            db.beginTransaction();
+            try {
+                for (Event event : events) {
+                    if (updateLocked(event)) {
+                        updated++;
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            return updated;
+        }
+    }
+
+    // 与写操作相同，先取 writeLock 再由 super.close() 锁住 this；不能声明为 synchronized，否则加锁顺序相反会死锁
+    @Override
+    public void close() {
+        synchronized (writeLock) {
+            closeStatements();
+            super.close();
+        }
+    }
 
+    // 以下 *Locked 方法必须在持有 writeLock 时调用
 
+    private long insertLocked(Event event) {
+        if (insertStatement == null) {
+            insertStatement = getWritableDatabase().compileStatement(SQL_INSERT);
+        }
+        loadReminderStateLocked();
+        bindEvent(insertStatement, event, reminderFloor);
+        long id = insertStatement.executeInsert();
+        if (id != -1) {
+            event.setId((int) id);
+        }
+        return id;
+    }
+
+    private boolean updateLocked(Event event) {
+        if (updateStatement == null) {
+            updateStatement = getWritableDatabase().compileStatement(SQL_UPDATE);
+        }
+        loadReminderStateLocked();
+        bindEvent(updateStatement, toSeries(event), reminderFloor);
+        updateStatement.bindLong(12, event.getId());
+        return updateStatement.executeUpdateDelete() > 0;
+    }
+
+    private boolean deleteLocked(int id) {
+        if (deleteStatement == null) {
+            deleteStatement = getWritableDatabase().compileStatement(SQL_DELETE);
+        }
+        deleteStatement.bindLong(1, id);
+        return deleteStatement.executeUpdateDelete() > 0;
+    }
+
+    // reminderFloor：重复日程的 nextRemind 按它之后的第一次计算
+    private static void bindEvent(SQLiteStatement statement, Event event, long reminderFloor) {
+        statement.clearBindings();
+        bindNullableString(statement, 1, event.getTitle());
+        bindNullableString(statement, 2, event.getDescription());
+        statement.bindLong(3, event.getStartTime());
+        statement.bindLong(4, event.getEndTime());
+        statement.bindLong(5, event.getRemindTime());
+        if (event.isRecurring()) {
+            // 规则不合法时这里会抛出 IllegalArgumentException，不会写入无法展开的系列
+            RecurrenceRule rule = RecurrenceRule.parse(event.getRecurrenceRule());
+            statement.bindString(6, rule.toString());
+            bindNullableString(statement, 7, event.getExceptionDates());
+            statement.bindLong(8, rule.seriesEnd(event.getStartTime(), event.getEndTime() - event.getStartTime()));
+        } else {
+            statement.bindNull(6);
+            statement.bindNull(7);
+            statement.bindLong(8, event.getEndTime());
+        }
+        bindNullableString(statement, 9, SearchText.index(event.getTitle()));
+        bindNullableString(statement, 10, SearchText.index(event.getDescription()));
+        bindNextRemind(statement, 11, event.isRecurring() ? nextRemind(event, reminderFloor) : NO_REMINDER);
+    }
+
+    /**
+     * 把重复日程展开出的某一次转换回系列本身：这一次的时间变化量同样应用到系列开始时间和排除列表。
+     */
+    private static Event toSeries(Event event) {
+        if (!event.isOccurrence()) return event;
+        long shift = event.getStartTime() - event.getRecurrenceId();
+        long seriesStart = event.getSeriesStartTime() + shift;
+        Event series = new Event(event.getTitle(), event.getDescription(), seriesStart,
+                seriesStart + (event.getEndTime() - event.getStartTime()),
+                seriesStart + (event.getRemindTime() - event.getStartTime()));
+        series.setId(event.getId());
+        series.setRecurrenceRule(event.getRecurrenceRule());
+        long[] exdates = RecurrenceRule.parseExceptionDates(event.getExceptionDates());
+        if (exdates != null && shift != 0) {
+            StringBuilder shifted = new StringBuilder();
+            for (long exdate : exdates) {
+                if (shifted.length() > 0) shifted.append(',');
+                shifted.append(exdate + shift);
+            }
+            series.setExceptionDates(shifted.toString());
+        } else {
+            series.setExceptionDates(event.getExceptionDates());
+        }
+        return series;
+    }
+
+    private static void bindNullableString(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    private void closeStatements() {
+        if (insertStatement != null) insertStatement.close();
+        if (updateStatement != null) updateStatement.close();
+        if (deleteStatement != null) deleteStatement.close();
+        if (addExdateStatement != null) addExdateStatement.close();
+        if (setNextRemindStatement != null) setNextRemindStatement.close();
+        insertStatement = null;
+        updateStatement = null;
+        deleteStatement = null;
+        addExdateStatement = null;
+        setNextRemindStatement = null;
+        reminderZone = null; // 内存数据库关闭后内容就没有了，重新打开时再读取
+    }
+}
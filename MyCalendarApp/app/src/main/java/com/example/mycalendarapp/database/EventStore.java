@@ -0,0 +1,70 @@
+package com.example.mycalendarapp.database;
+
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.model.MonthSnapshot;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 日程存储接口，由 DatabaseHelper 实现。
+ * 上层（如 EventRepository）只依赖这个接口，方便在 JVM 单元测试中替换为内存实现。
+ */
+public interface EventStore {
+    // getNextRemindTime 没有后续提醒时的返回值
+    long NO_REMINDER = Long.MAX_VALUE;
+
+    List<Event> getEventsByDay(long startOfDay, long endOfDay);
+
+    List<Event> getEventsInRange(long rangeStart, long rangeEnd);
+
+    MonthSnapshot getMonthSnapshot(long[] dayBoundaries);
+
+    long addEvent(Event event);
+
+    int addEvents(List<Event> events);
+
+    boolean updateEvent(Event event);
+
+    int updateEvents(List<Event> events);
+
+    boolean deleteEvent(int id);
+
+    // 只删除重复日程中的某一次（occurrence 必须是展开结果）
+    boolean deleteOccurrence(Event occurrence);
+
+    int deleteEvents(List<Event> events);
+
+    /**
+     * 提醒时间晚于 after 的最早一个提醒时间，重复日程按展开后的各次计算；没有时返回 NO_REMINDER。
+     */
+    long getNextRemindTime(long after);
+
+    // 提醒时间在 (after, until] 内的日程，重复日程返回对应的各次，按提醒时间升序
+    List<Event> getReminders(long after, long until);
+
+    /**
+     * 全文搜索标题和描述，返回按相关度从高到低排序的日程 id（重复日程返回系列本身）。
+     * 输入中没有可搜索的内容时返回空数组；canceled 返回 true 时尽快放弃并返回 null。
+     */
+    int[] searchEventIds(String query, BooleanSupplier canceled);
+
+    // 按 ids[from, to) 的顺序读取日程，已经删除的跳过
+    List<Event> getEventsByIds(int[] ids, int from, int to);
+
+    /**
+     * 议程列表的一页（见 AgendaPage）：按 (startTime, id) 排在 (keyStart, keyId) 之后（forward）
+     * 或之前的最多 limit 条，重复日程按各次展开，结果总是按键升序。
+     */
+    List<Event> getAgendaPage(long keyStart, int keyId, int limit, boolean forward);
+
+    /**
+     * 按 id 顺序逐条读取全部日程（重复日程为系列本身，不展开），不把结果放进列表，用于导出。
+     * 返回读取的条数。
+     */
+    int forEachEvent(EventVisitor visitor) throws IOException;
+
+    interface EventVisitor {
+        void visit(Event event) throws IOException;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.mycalendarapp.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单调递增的计数器，多线程同时累加时没有竞争。通过 Metrics.counter 获取。
+ */
+public final class Counter {
+    private final String name;
+    private final LongAdder value = new LongAdder();
+
+    Counter(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void increment() {
+        if (Metrics.isEnabled()) value.increment();
+    }
+
+    public void add(long amount) {
+        if (Metrics.isEnabled()) value.add(amount);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+
+    void reset() {
+        value.reset();
+    }
+}
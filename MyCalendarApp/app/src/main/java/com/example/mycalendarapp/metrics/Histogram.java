@@ -0,0 +1,111 @@
+package com.example.mycalendarapp.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 按 2 的幂分桶的直方图：第 i 个桶（i >= 1）统计 [2^(i-1), 2^i) 内的值，第 0 个桶统计 0 和负数。
+ * 记录一次只有几次原子加法，不分配内存；百分位数按所在桶的上界估算，误差不超过 2 倍。
+ * 通过 Metrics.timer 或 Metrics.histogram 获取。
+ */
+public final class Histogram {
+    public static final String UNIT_MICROS = "us";
+    public static final String UNIT_MILLIS = "ms";
+    public static final String UNIT_COUNT = "count";
+
+    private static final int BUCKETS = 64;
+
+    private final String name;
+    private final String unit;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    Histogram(String name, String unit) {
+        this.name = name;
+        this.unit = unit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public void record(long value) {
+        if (!Metrics.isEnabled()) return;
+        buckets.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    // 记录从 Metrics.start() 到现在经过的微秒数
+    public void recordSince(long startNanos) {
+        if (startNanos == Metrics.NOT_STARTED) return;
+        record((System.nanoTime() - startNanos) / 1000);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getSum() {
+        return sum.get();
+    }
+
+    public long getMax() {
+        return count.get() == 0 ? 0 : max.get();
+    }
+
+    /**
+     * 估算第 percentile 百分位的值（所在桶的上界，且不超过最大值）；没有数据时返回 0。
+     */
+    public long getPercentile(double percentile) {
+        long total = count.get();
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), getMax());
+        }
+        return getMax();
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(Long.MIN_VALUE);
+    }
+
+    void appendJson(StringBuilder json) {
+        json.append("{\"unit\":");
+        Metrics.appendString(json, unit);
+        json.append(",\"count\":").append(getCount())
+                .append(",\"sum\":").append(getSum())
+                .append(",\"max\":").append(getMax())
+                .append(",\"p50\":").append(getPercentile(50))
+                .append(",\"p90\":").append(getPercentile(90))
+                .append(",\"p99\":").append(getPercentile(99))
+                .append('}');
+    }
+
+    static int bucketOf(long value) {
+        return value <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+    }
+
+    // 第 i 个桶中的最大值
+    private static long upperBound(int bucket) {
+        return bucket == 0 ? 0 : bucket >= 63 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.mycalendarapp.metrics;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.StrictMode;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.Printer;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 只在可调试的构建中启用的主线程监控：
+ * 1. StrictMode 检测主线程上的磁盘读写和网络访问，违规交给自定义的监听器（Android 9+，更早的系统只输出日志）；
+ * 2. 通过主 Looper 的分发日志给每条消息计时，超过 LONG_DISPATCH_MILLIS 时在后台线程采集主线程调用栈。
+ *
+ * 问题记录在 WatchdogReport 中，按来源（Handler 和回调，例如 showAddEventDialog 里的 lambda）汇总，
+ * 有新记录后稍等片刻写入 files/watchdog.json，测试跑完后即可取出：
+ *     adb shell run-as com.example.mycalendarapp cat files/watchdog.json
+ */
+public final class MainThreadWatchdog implements Printer {
+    private static final String TAG = "Watchdog";
+    private static final String FILE_NAME = "watchdog.json";
+    // 超过这个时间的消息分发视为卡顿（约 6 帧）
+    static final long LONG_DISPATCH_MILLIS = 100;
+    // 新记录出现后延迟写文件，把一连串的问题合并成一次写入
+    private static final long WRITE_DELAY_MILLIS = 2000;
+
+    private static MainThreadWatchdog instance;
+
+    private final WatchdogReport report = new WatchdogReport();
+    private final File reportFile;
+    private final Thread mainThread = Looper.getMainLooper().getThread();
+    private final Handler watchdogHandler;
+
+    // 当前正在分发的消息，只在主线程读写
+    private String dispatchLine;
+    private long dispatchStart;
+    // 分发序号和采集到的调用栈，由监控线程写入
+    private volatile long dispatchSequence;
+    private volatile long sampledSequence = -1;
+    private volatile StackTraceElement[] sampledStack;
+
+    private final Runnable sampleStack = new Runnable() {
+        @Override
+        public void run() {
+            long sequence = dispatchSequence;
+            StackTraceElement[] stack = mainThread.getStackTrace();
+            sampledStack = stack;
+            sampledSequence = sequence;
+        }
+    };
+    private final Runnable writeReport = this::writeReport;
+
+    private MainThreadWatchdog(Context context) {
+        reportFile = new File(context.getFilesDir(), FILE_NAME);
+        HandlerThread thread = new HandlerThread("main-thread-watchdog");
+        thread.start();
+        watchdogHandler = new Handler(thread.getLooper());
+    }
+
+    /**
+     * 在主线程调用；不可调试的构建或已经安装过时什么都不做。
+     */
+    public static void install(Context context) {
+        if (instance != null) return;
+        if ((context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) == 0) return;
+        MainThreadWatchdog watchdog = new MainThreadWatchdog(context.getApplicationContext());
+        instance = watchdog;
+        Looper.getMainLooper().setMessageLogging(watchdog);
+
+        StrictMode.ThreadPolicy.Builder policy = new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .detectNetwork()
+                .detectCustomSlowCalls();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            // 直接在违规的线程上回调，这样能知道当时正在分发哪条消息
+            policy.penaltyListener(Runnable::run, violation -> watchdog.onViolation(
+                    violation.getClass().getSimpleName(), violation.getStackTrace()));
+        } else {
+            policy.penaltyLog();
+        }
+        StrictMode.setThreadPolicy(policy.build());
+    }
+
+    // 未安装时返回 null
+    public static WatchdogReport getReport() {
+        MainThreadWatchdog watchdog = instance;
+        return watchdog != null ? watchdog.report : null;
+    }
+
+    // 立即写出报告（在监控线程上），例如导出性能数据时
+    public static void flush() {
+        MainThreadWatchdog watchdog = instance;
+        if (watchdog == null) return;
+        watchdog.watchdogHandler.removeCallbacks(watchdog.writeReport);
+        watchdog.watchdogHandler.post(watchdog.writeReport);
+    }
+
+    // Looper 在每条消息分发前后各调用一次
+    @Override
+    public void println(String line) {
+        if (line.startsWith(">>>>> Dispatching")) {
+            dispatchLine = line;
+            dispatchStart = SystemClock.uptimeMillis();
+            dispatchSequence++;
+            watchdogHandler.postDelayed(sampleStack, LONG_DISPATCH_MILLIS);
+        } else if (line.startsWith("<<<<< Finished")) {
+            watchdogHandler.removeCallbacks(sampleStack);
+            long duration = SystemClock.uptimeMillis() - dispatchStart;
+            if (dispatchLine != null && duration >= LONG_DISPATCH_MILLIS) {
+                StackTraceElement[] stack = sampledSequence == dispatchSequence ? sampledStack : null;
+                record(WatchdogReport.KIND_LONG_DISPATCH, duration, stack);
+            }
+            dispatchLine = null;
+        }
+    }
+
+    private void onViolation(String kind, StackTraceElement[] stack) {
+        record(kind, 0, stack);
+    }
+
+    private void record(String kind, long durationMillis, StackTraceElement[] stack) {
+        String origin = Thread.currentThread() == mainThread
+                ? WatchdogReport.originOf(dispatchLine)
+                : WatchdogReport.ORIGIN_UNKNOWN;
+        if (report.add(kind, origin, durationMillis, stack)) {
+            Log.w(TAG, kind + " from " + origin + " at " + WatchdogReport.appFrameOf(stack)
+                    + (durationMillis > 0 ? " (" + durationMillis + "ms)" : ""));
+        }
+        watchdogHandler.removeCallbacks(writeReport);
+        watchdogHandler.postDelayed(writeReport, WRITE_DELAY_MILLIS);
+    }
+
+    // 在监控线程上执行，本身的磁盘写入不会再触发主线程的 StrictMode
+    private void writeReport() {
+        try (OutputStream out = new FileOutputStream(reportFile)) {
+            out.write(report.toJson().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Log.w(TAG, "写入 " + reportFile + " 失败", e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.mycalendarapp.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 进程内的性能指标登记处：计数器、延迟直方图，以及由其他组件自己维护、导出时读取的数值（gauge），
+ * 可以整体导出为 JSON。
+ *
+ * 指标在使用处作为静态常量创建一次，记录时只做原子加法。关闭时（默认）记录方法在读取一个
+ * volatile 标志后立即返回，计时也不会调用 System.nanoTime()：
+ *
+ *     private static final Histogram QUERY_TIME = Metrics.timer("db.range_query");
+ *     long begin = Metrics.start();
+ *     ...
+ *     QUERY_TIME.recordSince(begin);
+ *
+ * 不依赖 Android，导出到 logcat 或文件见 MetricsDump。
+ */
+public final class Metrics {
+    // Metrics.start() 在关闭时的返回值，recordSince 遇到它时不记录
+    public static final long NOT_STARTED = 0;
+
+    private static volatile boolean enabled;
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private static final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    // 开启或关闭记录；关闭不会清空已有数据
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    // 同名的计数器只创建一个
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, Counter::new);
+    }
+
+    // 以微秒为单位的延迟直方图
+    public static Histogram timer(String name) {
+        return histogram(name, Histogram.UNIT_MICROS);
+    }
+
+    public static Histogram histogram(String name, String unit) {
+        Histogram histogram = histograms.computeIfAbsent(name, key -> new Histogram(key, unit));
+        if (!histogram.getUnit().equals(unit)) {
+            throw new IllegalArgumentException("Histogram " + name + " already uses " + histogram.getUnit());
+        }
+        return histogram;
+    }
+
+    // 已有统计的组件（如 EventCache 的命中次数）通过它报告，不必再计一遍；同名的后注册者覆盖先注册者
+    public static void gauge(String name, LongSupplier source) {
+        gauges.put(name, source);
+    }
+
+    // 开始计时；关闭时返回 NOT_STARTED
+    public static long start() {
+        if (!enabled) return NOT_STARTED;
+        long now = System.nanoTime();
+        return now != NOT_STARTED ? now : 1;
+    }
+
+    // 清空所有数值，指标本身保留；gauge 的数值不归这里管，不受影响
+    public static void reset() {
+        for (Counter counter : counters.values()) {
+            counter.reset();
+        }
+        for (Histogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * 所有指标的快照，按名字排序：
+     * {"enabled":true,"counters":{"name":1},"gauges":{"name":1},"histograms":{"name":{"unit":"us","count":..,"p50":..}}}
+     */
+    public static String toJson() {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"enabled\":").append(enabled).append(",\"counters\":{");
+        boolean first = true;
+        for (Counter counter : new TreeMap<>(counters).values()) {
+            if (!first) json.append(',');
+            first = false;
+            appendString(json, counter.getName());
+            json.append(':').append(counter.get());
+        }
+        json.append("},\"gauges\":{");
+        first = true;
+        for (Map.Entry<String, LongSupplier> gauge : new TreeMap<>(gauges).entrySet()) {
+            if (!first) json.append(',');
+            first = false;
+            appendString(json, gauge.getKey());
+            json.append(':').append(gauge.getValue().getAsLong());
+        }
+        json.append("},\"histograms\":{");
+        first = true;
+        for (Histogram histogram : new TreeMap<>(histograms).values()) {
+            if (!first) json.append(',');
+            first = false;
+            appendString(json, histogram.getName());
+            json.append(':');
+            histogram.appendJson(json);
+        }
+        return json.append("}}").toString();
+    }
+
+    // 指标名只含 ASCII，这里仍然转义引号和反斜杠，避免生成无效的 JSON
+    static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') json.append('\\');
+            json.append(c);
+        }
+        json.append('"');
+    }
+}
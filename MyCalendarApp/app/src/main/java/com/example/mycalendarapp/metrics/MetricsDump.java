@@ -0,0 +1,40 @@
+package com.example.mycalendarapp.metrics;
+
+import android.content.Context;
+import android.util.Log;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 把 Metrics 的 JSON 快照输出到 logcat 或应用私有目录下的文件：
+ *     adb logcat -s Metrics
+ *     adb shell run-as com.example.mycalendarapp cat files/metrics.json
+ */
+public final class MetricsDump {
+    private static final String TAG = "Metrics";
+    private static final String FILE_NAME = "metrics.json";
+    // logcat 单条消息约 4000 字节，超过时分段输出
+    private static final int LOG_CHUNK = 3000;
+
+    private MetricsDump() {
+    }
+
+    public static void toLogcat() {
+        String json = Metrics.toJson();
+        for (int start = 0; start < json.length(); start += LOG_CHUNK) {
+            Log.i(TAG, json.substring(start, Math.min(json.length(), start + LOG_CHUNK)));
+        }
+    }
+
+    // 覆盖写入 files/metrics.json，返回写入的文件
+    public static File toFile(Context context) throws IOException {
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(Metrics.toJson().getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.mycalendarapp.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MainThreadWatchdog 发现的问题汇总：主线程上的磁盘 / 网络访问（StrictMode 违规）和耗时过长的消息分发。
+ *
+ * 同一种问题、同一个来源（Handler 和回调）、同一个应用内调用点只保留一条，累计次数和耗时，
+ * 并保存第一次出现时的调用栈。不依赖 Android，可以直接在 JVM 上测试。
+ */
+public final class WatchdogReport {
+    public static final String KIND_LONG_DISPATCH = "LongDispatch";
+    // 消息分发之外（例如 Activity 启动前）发生的问题
+    public static final String ORIGIN_UNKNOWN = "(unknown)";
+
+    // 用于找出调用栈中第一个应用自己的方法
+    private static final String APP_PACKAGE = "com.example.mycalendarapp.";
+    private static final String OWN_PACKAGE = "com.example.mycalendarapp.metrics.";
+    // 最多保留的条目数和每条保存的栈帧数，避免长时间运行后占用过多内存
+    static final int MAX_FINDINGS = 200;
+    static final int MAX_FRAMES = 30;
+
+    private static final class Finding {
+        final String kind;
+        final String origin;
+        final String appFrame;
+        final String[] stack;
+        int count;
+        long totalMillis;
+        long maxMillis;
+
+        Finding(String kind, String origin, String appFrame, String[] stack) {
+            this.kind = kind;
+            this.origin = origin;
+            this.appFrame = appFrame;
+            this.stack = stack;
+        }
+    }
+
+    private final Map<String, Finding> findings = new LinkedHashMap<>();
+    private int dropped;
+
+    /**
+     * 记录一次问题。
+     *
+     * @param kind           问题类型，StrictMode 违规用违规类的简单名，如 DiskReadViolation
+     * @param origin         正在分发的消息来源（见 originOf），不在分发中时为 ORIGIN_UNKNOWN
+     * @param durationMillis 耗时，没有意义时传 0
+     * @param stack          调用栈，没有采到时为 null
+     * @return 是否是新的条目
+     */
+    public synchronized boolean add(String kind, String origin, long durationMillis, StackTraceElement[] stack) {
+        String appFrame = appFrameOf(stack);
+        String key = kind + '|' + origin + '|' + appFrame;
+        Finding finding = findings.get(key);
+        boolean added = finding == null;
+        if (added) {
+            if (findings.size() >= MAX_FINDINGS) {
+                dropped++;
+                return false;
+            }
+            finding = new Finding(kind, origin, appFrame, framesOf(stack));
+            findings.put(key, finding);
+        }
+        finding.count++;
+        finding.totalMillis += durationMillis;
+        finding.maxMillis = Math.max(finding.maxMillis, durationMillis);
+        return added;
+    }
+
+    public synchronized int size() {
+        return findings.size();
+    }
+
+    public synchronized void clear() {
+        findings.clear();
+        dropped = 0;
+    }
+
+    /**
+     * 按出现次数从多到少输出：
+     * {"findings":[{"kind":..,"origin":..,"appFrame":..,"count":..,"totalMillis":..,"maxMillis":..,"stack":[..]}],"dropped":0}
+     */
+    public synchronized String toJson() {
+        List<Finding> sorted = new ArrayList<>(findings.values());
+        sorted.sort((a, b) -> Integer.compare(b.count, a.count));
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\"findings\":[");
+        for (int i = 0; i < sorted.size(); i++) {
+            Finding finding = sorted.get(i);
+            if (i > 0) json.append(',');
+            json.append("{\"kind\":");
+            Metrics.appendString(json, finding.kind);
+            json.append(",\"origin\":");
+            Metrics.appendString(json, finding.origin);
+            json.append(",\"appFrame\":");
+            Metrics.appendString(json, finding.appFrame);
+            json.append(",\"count\":").append(finding.count)
+                    .append(",\"totalMillis\":").append(finding.totalMillis)
+                    .append(",\"maxMillis\":").append(finding.maxMillis)
+                    .append(",\"stack\":[");
+            for (int j = 0; j < finding.stack.length; j++) {
+                if (j > 0) json.append(',');
+                Metrics.appendString(json, finding.stack[j]);
+            }
+            json.append("]}");
+        }
+        return json.append("],\"dropped\":").append(dropped).append('}').toString();
+    }
+
+    /**
+     * 从 Looper 的分发日志中取出消息来源，日志格式为
+     * ">>>>> Dispatching to Handler (android.os.Handler) {8f3c1a2} com.example.Foo$$Lambda$3@1b2c: 0"。
+     * 有回调时返回 "Handler 类 / 回调类"（去掉对象地址），否则只返回 Handler 类。
+     */
+    public static String originOf(String dispatchLine) {
+        if (dispatchLine == null) return ORIGIN_UNKNOWN;
+        int handlerStart = dispatchLine.indexOf('(');
+        int handlerEnd = handlerStart < 0 ? -1 : dispatchLine.indexOf(')', handlerStart);
+        if (handlerEnd < 0) return ORIGIN_UNKNOWN;
+        String handler = dispatchLine.substring(handlerStart + 1, handlerEnd);
+
+        int callbackStart = dispatchLine.indexOf("} ", handlerEnd);
+        int callbackEnd = dispatchLine.lastIndexOf(": ");
+        if (callbackStart < 0 || callbackEnd < callbackStart + 2) return handler;
+        String callback = dispatchLine.substring(callbackStart + 2, callbackEnd);
+        int address = callback.lastIndexOf('@');
+        if (address > 0) callback = callback.substring(0, address);
+        return "null".equals(callback) ? handler : handler + " / " + callback;
+    }
+
+    // 调用栈中第一个应用自己的方法（不含监控代码本身），例如 MainActivity.lambda$showAddEventDialog$3:512
+    static String appFrameOf(StackTraceElement[] stack) {
+        if (stack == null) return ORIGIN_UNKNOWN;
+        for (StackTraceElement frame : stack) {
+            String className = frame.getClassName();
+            if (className.startsWith(APP_PACKAGE) && !className.startsWith(OWN_PACKAGE)) {
+                return className.substring(APP_PACKAGE.length()) + "." + frame.getMethodName()
+                        + ":" + frame.getLineNumber();
+            }
+        }
+        return ORIGIN_UNKNOWN;
+    }
+
+    private static String[] framesOf(StackTraceElement[] stack) {
+        if (stack == null) return new String[0];
+        String[] frames = new String[Math.min(stack.length, MAX_FRAMES)];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = stack[i].toString();
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.mycalendarapp.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 议程列表的键集分页：所有日程（重复日程按各次展开）按 (startTime, id) 排成一个序列，
+ * 每一页用相邻一条的键定位，不使用 OFFSET，翻到多远都只读取一页附近的数据。
+ *
+ * 同一系列的各次 id 相同但开始时间不同，单次日程的 id 各不相同，所以这个键是唯一的。
+ * 数据库按同样的顺序给出单次日程的一页（见 DatabaseHelper.getAgendaPage），这里再把重复系列
+ * 在这一页覆盖的时间段内展开，合并后截取 limit 条。
+ */
+public final class AgendaPage {
+    // 从某个时间点开始分页时使用的 id：forward 时包含恰好在这个时间开始的日程，向前翻时不包含
+    public static final int KEY_ID_NONE = Integer.MIN_VALUE;
+
+    public static final Comparator<Event> ORDER = (a, b) -> {
+        int byStart = Long.compare(a.getStartTime(), b.getStartTime());
+        return byStart != 0 ? byStart : Integer.compare(a.getId(), b.getId());
+    };
+
+    private AgendaPage() {
+    }
+
+    // (start, id) 与键 (keyStart, keyId) 比较
+    public static int compareToKey(long start, int id, long keyStart, int keyId) {
+        int byStart = Long.compare(start, keyStart);
+        return byStart != 0 ? byStart : Integer.compare(id, keyId);
+    }
+
+    /**
+     * @param oneOffs 数据库给出的单次日程：键在 (keyStart, keyId) 之后（forward）或之前的最多 limit 条，按键升序
+     * @param series  可能在这一页的时间段内有某一次的重复系列（数据库中的原始行），多给的不影响结果
+     * @return 键在 (keyStart, keyId) 之后或之前、最靠近它的最多 limit 条，按键升序
+     */
+    public static List<Event> merge(List<Event> oneOffs, List<Event> series, long keyStart, int keyId,
+                                    int limit, boolean forward) {
+        if (series.isEmpty() || limit <= 0) return oneOffs;
+        List<Event> candidates = new ArrayList<>(oneOffs.size() + limit);
+        candidates.addAll(oneOffs);
+        if (forward) {
+            long until = seriesWindowEnd(oneOffs, limit);
+            for (Event master : series) {
+                collectAfter(master, keyStart, keyId, until, limit, candidates);
+            }
+        } else {
+            long since = seriesWindowStart(oneOffs, limit);
+            for (Event master : series) {
+                collectBefore(master, keyStart, keyId, since, limit, candidates);
+            }
+        }
+        candidates.sort(ORDER);
+        if (candidates.size() <= limit) return candidates;
+        return forward
+                ? new ArrayList<>(candidates.subList(0, limit))
+                : new ArrayList<>(candidates.subList(candidates.size() - limit, candidates.size()));
+    }
+
+    /**
+     * 向后翻页时需要展开的各次的最晚开始时间：单次日程已满一页时，晚于这一页最后一条的各次不可能进入结果。
+     * 数据库据此只读取可能在 [keyStart, 这个时间] 内有某一次的系列。
+     */
+    public static long seriesWindowEnd(List<Event> oneOffs, int limit) {
+        return oneOffs.size() >= limit ? oneOffs.get(oneOffs.size() - 1).getStartTime() : Long.MAX_VALUE;
+    }
+
+    // 向前翻页时的对应值：需要展开的各次的最早开始时间（oneOffs 按键升序）
+    public static long seriesWindowStart(List<Event> oneOffs, int limit) {
+        return oneOffs.size() >= limit ? oneOffs.get(0).getStartTime() : Long.MIN_VALUE;
+    }
+
+    // 键在 (keyStart, keyId) 之后、开始时间不晚于 until 的前 limit 次
+    private static void collectAfter(Event master, long keyStart, int keyId, long until, int limit, List<Event> out) {
+        RecurrenceRule.OccurrenceIterator iterator = iteratorOf(master, keyStart, until);
+        if (iterator == null) {
+            // 规则无法解析时与 OccurrenceMerger 一样按单次日程处理
+            if (compareToKey(master.getStartTime(), master.getId(), keyStart, keyId) > 0
+                    && master.getStartTime() <= until) {
+                out.add(master);
+            }
+            return;
+        }
+        int added = 0;
+        while (added < limit && iterator.hasNext()) {
+            long start = iterator.next();
+            // 迭代器按区间相交展开，会带上在 keyStart 之前开始、之后结束的一次
+            if (compareToKey(start, master.getId(), keyStart, keyId) <= 0) continue;
+            if (start > until) break;
+            out.add(Event.occurrence(master, start));
+            added++;
+        }
+    }
+
+    // 键在 (keyStart, keyId) 之前、开始时间不早于 since 的最后 limit 次；只保留开始时间，最后才创建对象
+    private static void collectBefore(Event master, long keyStart, int keyId, long since, int limit, List<Event> out) {
+        RecurrenceRule.OccurrenceIterator iterator = iteratorOf(master, since, keyStart);
+        if (iterator == null) {
+            if (compareToKey(master.getStartTime(), master.getId(), keyStart, keyId) < 0
+                    && master.getStartTime() >= since) {
+                out.add(master);
+            }
+            return;
+        }
+        long[] ring = new long[limit];
+        int count = 0;
+        while (iterator.hasNext()) {
+            long start = iterator.next();
+            if (compareToKey(start, master.getId(), keyStart, keyId) >= 0) break;
+            if (start < since) continue;
+            ring[count++ % limit] = start;
+        }
+        for (int i = Math.max(0, count - limit); i < count; i++) {
+            out.add(Event.occurrence(master, ring[i % limit]));
+        }
+    }
+
+    // 规则无法解析时返回 null
+    private static RecurrenceRule.OccurrenceIterator iteratorOf(Event master, long windowStart, long windowEnd) {
+        RecurrenceRule rule;
+        try {
+            rule = RecurrenceRule.parse(master.getRecurrenceRule());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        long duration = master.getEndTime() - master.getStartTime();
+        long[] exdates = RecurrenceRule.parseExceptionDates(master.getExceptionDates());
+        return rule.iterator(master.getStartTime(), duration, exdates, windowStart, windowEnd);
+    }
+}
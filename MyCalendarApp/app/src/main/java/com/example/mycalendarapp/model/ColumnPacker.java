@@ -0,0 +1,149 @@
+package com.example.mycalendarapp.model;
+
+import com.example.mycalendarapp.utils.DateUtils;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 把一段日期内的日程排成时间轴上的列：同一天里时间重叠的日程并排显示，互不遮挡。
+ *
+ * 每天一次扫描线：块按开始分钟升序（同时开始的较长的在前）扫过，放进第一个已经空出来的列，
+ * 没有空列时新开一列；扫到的块不再与当前这组的任何块重叠时，这一组结束，组内所有块的列数
+ * 就是这一组用到的列数。每个块只比较当前组的各列，列数很少，整体接近 O(n log n)（排序）。
+ *
+ * 太短的日程按 minMinutes 参与排列和显示，否则文字放不下、看起来也会互相重叠。
+ * 只依赖 Event 和 DateUtils，不依赖 Android，在后台线程调用。
+ */
+public final class ColumnPacker {
+    // 默认最短显示 20 分钟：默认缩放下约为一行标题的高度
+    public static final int DEFAULT_MIN_MINUTES = 20;
+
+    // 排序键的布局：天 | 开始分钟 | (一天的分钟数 - 结束分钟) | 块的临时下标
+    private static final int INDEX_BITS = 20;
+    private static final int MINUTE_BITS = 12;
+    private static final int MAX_SEGMENTS = 1 << INDEX_BITS;
+
+    private ColumnPacker() {
+    }
+
+    public static TimelineLayout pack(List<Event> events, long[] dayBoundaries) {
+        return pack(events, dayBoundaries, DEFAULT_MIN_MINUTES);
+    }
+
+    /**
+     * @param events        范围内的日程，顺序不限；跨天日程会在它覆盖的每一天各出现一块
+     * @param dayBoundaries 第 i 天为 [dayBoundaries[i], dayBoundaries[i + 1])
+     * @param minMinutes    最短显示时长（分钟）
+     */
+    public static TimelineLayout pack(List<Event> events, long[] dayBoundaries, int minMinutes) {
+        if (dayBoundaries.length < 2) {
+            throw new IllegalArgumentException("At least one day is required");
+        }
+        int dayCount = dayBoundaries.length - 1;
+
+        // 1. 切成每天一块，算出当天的开始、结束分钟
+        int capacity = events.size() + 8;
+        Event[] segmentEvents = new Event[capacity];
+        int[] segmentStarts = new int[capacity];
+        int[] segmentEnds = new int[capacity];
+        long[] keys = new long[capacity];
+        int count = 0;
+        for (Event event : events) {
+            long start = event.getStartTime();
+            long end = Math.max(event.getEndTime(), start);
+            for (int day = firstDayOf(dayBoundaries, start); day < dayCount; day++) {
+                long dayStart = dayBoundaries[day];
+                long dayEnd = dayBoundaries[day + 1];
+                if (start >= dayEnd) continue;
+                if (end < dayStart) break;
+                // 恰好在当天零点结束的日程不属于这一天，零时长日程除外（与 MonthSnapshot 一致）
+                if (end == dayStart && start < dayStart) break;
+
+                int startMinute = start <= dayStart ? 0 : DateUtils.getMinuteOfDay(start);
+                int endMinute = end >= dayEnd ? TimelineLayout.MINUTES_PER_DAY : DateUtils.getMinuteOfDay(end);
+                // 夏令时结束那天重复的一小时里，结束的钟点可能早于开始
+                endMinute = Math.max(endMinute, startMinute);
+                if (endMinute - startMinute < minMinutes) {
+                    // 太短的日程按最短时长显示，临近午夜的向上延伸，不超出当天
+                    endMinute = Math.min(startMinute + minMinutes, TimelineLayout.MINUTES_PER_DAY);
+                    startMinute = Math.max(0, endMinute - minMinutes);
+                }
+
+                if (count == capacity) {
+                    if (capacity == MAX_SEGMENTS) {
+                        throw new IllegalArgumentException("Too many blocks: " + count);
+                    }
+                    capacity = Math.min(capacity * 2, MAX_SEGMENTS);
+                    segmentEvents = Arrays.copyOf(segmentEvents, capacity);
+                    segmentStarts = Arrays.copyOf(segmentStarts, capacity);
+                    segmentEnds = Arrays.copyOf(segmentEnds, capacity);
+                    keys = Arrays.copyOf(keys, capacity);
+                }
+                segmentEvents[count] = event;
+                segmentStarts[count] = startMinute;
+                segmentEnds[count] = endMinute;
+                keys[count] = ((long) day << (INDEX_BITS + 2 * MINUTE_BITS))
+                        | ((long) startMinute << (INDEX_BITS + MINUTE_BITS))
+                        | ((long) (TimelineLayout.MINUTES_PER_DAY - endMinute) << INDEX_BITS)
+                        | count;
+                count++;
+            }
+        }
+
+        // 2. 按 (天, 开始分钟, 结束分钟降序) 排序：编码在一个 long 里，直接排基本类型数组
+        Arrays.sort(keys, 0, count);
+        Event[] sortedEvents = new Event[count];
+        int[] starts = new int[count];
+        int[] ends = new int[count];
+        int[] firstBlocks = new int[dayCount + 1];
+        for (int i = 0; i < count; i++) {
+            int segment = (int) (keys[i] & (MAX_SEGMENTS - 1));
+            sortedEvents[i] = segmentEvents[segment];
+            starts[i] = segmentStarts[segment];
+            ends[i] = segmentEnds[segment];
+            firstBlocks[(int) (keys[i] >>> (INDEX_BITS + 2 * MINUTE_BITS)) + 1]++;
+        }
+        for (int day = 0; day < dayCount; day++) {
+            firstBlocks[day + 1] += firstBlocks[day];
+        }
+
+        // 3. 每天一次扫描线分配列
+        int[] columns = new int[count];
+        int[] columnCounts = new int[count];
+        int[] columnEnds = new int[8];
+        for (int day = 0; day < dayCount; day++) {
+            int groupStart = firstBlocks[day];
+            int groupEnd = Integer.MIN_VALUE; // 当前这组最晚的结束分钟
+            int used = 0;                     // 当前这组用到的列数
+            for (int i = firstBlocks[day]; i < firstBlocks[day + 1]; i++) {
+                if (starts[i] >= groupEnd) {
+                    // 与这组都不重叠：这组的列数确定下来，开始新的一组
+                    Arrays.fill(columnCounts, groupStart, i, used);
+                    groupStart = i;
+                    used = 0;
+                }
+                int column = 0;
+                while (column < used && columnEnds[column] > starts[i]) {
+                    column++;
+                }
+                if (column == used) {
+                    if (used == columnEnds.length) columnEnds = Arrays.copyOf(columnEnds, used * 2);
+                    used++;
+                }
+                columnEnds[column] = ends[i];
+                columns[i] = column;
+                groupEnd = Math.max(groupEnd, ends[i]);
+            }
+            Arrays.fill(columnCounts, groupStart, firstBlocks[day + 1], used);
+        }
+        return new TimelineLayout(dayBoundaries.clone(), firstBlocks, sortedEvents, starts, ends, columns,
+                columnCounts);
+    }
+
+    // start 所在的那一天，早于范围时为 0
+    private static int firstDayOf(long[] dayBoundaries, long start) {
+        int index = Arrays.binarySearch(dayBoundaries, start);
+        int day = index >= 0 ? index : -index - 2;
+        return Math.max(0, day);
+    }
+}
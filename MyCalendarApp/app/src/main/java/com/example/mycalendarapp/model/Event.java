@@ -9,6 +9,13 @@ public class Event implements Serializable {
     private long startTime;     // 开始时间戳 (DTSTART)
     private long endTime;       // 结束时间戳 (DTEND)
     private long remindTime;    // 提醒时间戳
+    private String recurrenceRule; // 重复规则 (RRULE)，如 "FREQ=WEEKLY;BYDAY=MO,WE"；null 表示不重复
+    private String exceptionDates; // 排除的各次开始时间戳 (EXDATE)，逗号分隔
+    // 重复日程展开出的某一次：该次原本的开始时间 (RECURRENCE-ID) 和整个系列的开始时间；不是展开结果时为 NOT_OCCURRENCE
+    private long recurrenceId = NOT_OCCURRENCE;
+    private long seriesStartTime = NOT_OCCURRENCE;
+
+    public static final long NOT_OCCURRENCE = Long.MIN_VALUE;
 
     // 构造函数
     public Event(String title, String description, long startTime, long endTime, long remindTime) {
@@ -19,6 +26,30 @@ public class Event implements Serializable {
         this.remindTime = remindTime;
     }
 
+    // 复制构造函数：编辑时修改副本，避免改动列表和缓存中共享的对象
+    public Event(Event other) {
+        this(other.title, other.description, other.startTime, other.endTime, other.remindTime);
+        this.id = other.id;
+        this.recurrenceRule = other.recurrenceRule;
+        this.exceptionDates = other.exceptionDates;
+        this.recurrenceId = other.recurrenceId;
+        this.seriesStartTime = other.seriesStartTime;
+    }
+
+    /**
+     * 由重复日程 series 生成开始于 occurrenceStart 的一次，时长和提醒提前量与系列相同。
+     */
+    public static Event occurrence(Event series, long occurrenceStart) {
+        Event event = new Event(series);
+        long shift = occurrenceStart - series.startTime;
+        event.startTime = occurrenceStart;
+        event.endTime = series.endTime + shift;
+        event.remindTime = series.remindTime + shift;
+        event.recurrenceId = occurrenceStart;
+        event.seriesStartTime = series.startTime;
+        return event;
+    }
+
     // Setter方法
     public void setTitle(String title) {
         this.title = title;
@@ -48,4 +79,25 @@ public class Event implements Serializable {
     public long getStartTime() { return startTime; }
     public long getEndTime() { return endTime; }
     public long getRemindTime() { return remindTime; }
+
+    public String getRecurrenceRule() { return recurrenceRule; }
+    public void setRecurrenceRule(String recurrenceRule) { this.recurrenceRule = recurrenceRule; }
+    public String getExceptionDates() { return exceptionDates; }
+    public void setExceptionDates(String exceptionDates) { this.exceptionDates = exceptionDates; }
+
+    public boolean isRecurring() {
+        return recurrenceRule != null && !recurrenceRule.isEmpty();
+    }
+
+    // 是否是重复日程展开出的某一次（而不是数据库中的系列本身）
+    public boolean isOccurrence() {
+        return recurrenceId != NOT_OCCURRENCE;
+    }
+
+    public long getRecurrenceId() { return recurrenceId; }
+
+    // 展开结果返回系列的开始时间，否则就是自己的开始时间
+    public long getSeriesStartTime() {
+        return isOccurrence() ? seriesStartTime : startTime;
+    }
 }
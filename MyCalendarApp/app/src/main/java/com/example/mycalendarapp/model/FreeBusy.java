@@ -0,0 +1,237 @@
+package com.example.mycalendarapp.model;
+
+import com.example.mycalendarapp.utils.DateUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 一段时间窗口内的忙闲表：把范围查询得到的日程合并成按时间排序、互不重叠的忙碌区间，
+ * 再回答“下一个空闲时段”和“所有空闲时段”，可以限定在工作时间内。
+ *
+ * 输入按开始时间排序（DatabaseHelper.getEventsInRange 的结果就是如此）时建立和查询都是线性的；
+ * 顺序不对时先排序。跨天日程按实际覆盖的时间计入，零时长日程不占用时间。
+ * 只依赖 Event，不依赖 Android，可以直接在 JVM 上测试和测量。
+ */
+public final class FreeBusy {
+    private static final long MINUTE = 60 * 1000L;
+
+    private final long windowStart;
+    private final long windowEnd;
+    private final long[] busyStarts;
+    private final long[] busyEnds;
+    private final int busyCount;
+
+    /**
+     * 每天的可用时段（本地时间），以及一周中哪些天可用。
+     */
+    public static final class WorkingHours {
+        private static final int ALL_DAYS = 0x7F;
+        private static final int WEEKDAYS = 0x3E; // 周一到周五，位号与 DateUtils.dayOfWeek 一致（0 为周日）
+
+        // 不限制：全天、每天
+        public static final WorkingHours ANY_TIME = new WorkingHours(0, 24 * 60, ALL_DAYS);
+
+        final int startMinute;
+        final int endMinute;
+        final int dayMask;
+
+        /**
+         * @param startMinute 当天开始的分钟数，如 9:00 为 540
+         * @param endMinute   当天结束的分钟数（不含），最大 1440
+         * @param dayMask     第 n 位表示 DateUtils.dayOfWeek 返回 n 的那天可用
+         */
+        public WorkingHours(int startMinute, int endMinute, int dayMask) {
+            if (startMinute < 0 || endMinute > 24 * 60 || startMinute >= endMinute) {
+                throw new IllegalArgumentException("Invalid working hours: " + startMinute + "-" + endMinute);
+            }
+            this.startMinute = startMinute;
+            this.endMinute = endMinute;
+            this.dayMask = dayMask;
+        }
+
+        // 周一到周五的 [startMinute, endMinute)
+        public static WorkingHours weekdays(int startMinute, int endMinute) {
+            return new WorkingHours(startMinute, endMinute, WEEKDAYS);
+        }
+
+        boolean includes(long epochDay) {
+            return (dayMask & (1 << DateUtils.dayOfWeek(epochDay))) != 0;
+        }
+    }
+
+    // 空闲时段 [start, end)
+    public static final class Slot {
+        public final long start;
+        public final long end;
+
+        Slot(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public long getDuration() {
+            return end - start;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Slot)) return false;
+            Slot other = (Slot) o;
+            return start == other.start && end == other.end;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(start) * 31 + Long.hashCode(end);
+        }
+
+        @Override
+        public String toString() {
+            return "[" + start + ", " + end + ")";
+        }
+    }
+
+    private FreeBusy(long windowStart, long windowEnd, long[] busyStarts, long[] busyEnds, int busyCount) {
+        this.windowStart = windowStart;
+        this.windowEnd = windowEnd;
+        this.busyStarts = busyStarts;
+        this.busyEnds = busyEnds;
+        this.busyCount = busyCount;
+    }
+
+    /**
+     * 由窗口 [windowStart, windowEnd) 内的日程建立忙闲表，超出窗口的部分被截掉。
+     */
+    public static FreeBusy of(List<Event> events, long windowStart, long windowEnd) {
+        if (windowEnd < windowStart) throw new IllegalArgumentException("windowEnd < windowStart");
+        int n = events.size();
+        long[] starts = new long[n];
+        long[] ends = new long[n];
+        int count = 0;
+        boolean sorted = true;
+        for (int i = 0; i < n; i++) {
+            Event event = events.get(i);
+            long start = Math.max(event.getStartTime(), windowStart);
+            long end = Math.min(event.getEndTime(), windowEnd);
+            if (end <= start) continue;
+            if (count > 0 && start < starts[count - 1]) sorted = false;
+            starts[count] = start;
+            ends[count] = end;
+            count++;
+        }
+        if (!sorted) sortByStart(starts, ends, count);
+
+        // 合并重叠或首尾相接的区间
+        int merged = 0;
+        for (int i = 0; i < count; i++) {
+            if (merged > 0 && starts[i] <= ends[merged - 1]) {
+                ends[merged - 1] = Math.max(ends[merged - 1], ends[i]);
+            } else {
+                starts[merged] = starts[i];
+                ends[merged] = ends[i];
+                merged++;
+            }
+        }
+        return new FreeBusy(windowStart, windowEnd, starts, ends, merged);
+    }
+
+    public int getBusyCount() {
+        return busyCount;
+    }
+
+    public Slot getBusy(int index) {
+        return new Slot(busyStarts[index], busyEnds[index]);
+    }
+
+    /**
+     * from 之后第一个至少 duration 长的空闲时段，返回 [开始, 开始 + duration)；窗口内没有时返回 null。
+     */
+    public Slot nextFreeSlot(long from, long duration, WorkingHours hours) {
+        List<Slot> found = new ArrayList<>(1);
+        scan(from, duration, hours, found, true);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * 窗口内所有至少 duration 长的空闲时段，每段都取到最长（不会被拆成多个 duration）。
+     */
+    public List<Slot> freeSlots(long duration, WorkingHours hours) {
+        List<Slot> found = new ArrayList<>();
+        scan(windowStart, duration, hours, found, false);
+        return found;
+    }
+
+    /**
+     * 按天遍历工作时段，同时用一个指针顺序走过忙碌区间，两者都只前进不后退，
+     * 复杂度 O(天数 + 忙碌区间数)。相邻两天首尾相接的空闲（全天可用时跨过午夜）合并为一段。
+     */
+    private void scan(long from, long duration, WorkingHours hours, List<Slot> out, boolean firstOnly) {
+        long begin = Math.max(from, windowStart);
+        if (begin >= windowEnd) return;
+        long minLength = Math.max(duration, 1);
+        int busy = firstBusyEndingAfter(begin);
+        long runStart = 0;
+        long runEnd = Long.MIN_VALUE;
+
+        long lastDay = DateUtils.getEpochDay(windowEnd - 1);
+        for (long day = DateUtils.getEpochDay(begin); day <= lastDay; day++) {
+            if (!hours.includes(day)) continue;
+            long workStart = Math.max(begin, localTime(day, hours.startMinute));
+            long workEnd = Math.min(windowEnd, localTime(day, hours.endMinute));
+            long cursor = workStart;
+            while (cursor < workEnd) {
+                while (busy < busyCount && busyEnds[busy] <= cursor) busy++;
+                if (busy < busyCount && busyStarts[busy] <= cursor) {
+                    cursor = busyEnds[busy]; // 当前时刻正忙，跳到这段忙碌结束
+                    continue;
+                }
+                long freeEnd = busy < busyCount ? Math.min(busyStarts[busy], workEnd) : workEnd;
+                if (cursor == runEnd) {
+                    runEnd = freeEnd; // 与上一段首尾相接
+                } else {
+                    if (runEnd - runStart >= minLength) out.add(new Slot(runStart, runEnd));
+                    runStart = cursor;
+                    runEnd = freeEnd;
+                }
+                if (firstOnly && runEnd - runStart >= minLength) {
+                    out.add(new Slot(runStart, runStart + duration));
+                    return;
+                }
+                cursor = freeEnd;
+            }
+        }
+        if (runEnd - runStart >= minLength && !firstOnly) out.add(new Slot(runStart, runEnd));
+    }
+
+    private int firstBusyEndingAfter(long time) {
+        int low = 0;
+        int high = busyCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (busyEnds[mid] <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // 本地日期 epochDay 的第 minute 分钟对应的时刻
+    private static long localTime(long epochDay, int minute) {
+        return DateUtils.fromLocalMillis(epochDay * DateUtils.MILLIS_PER_DAY + minute * MINUTE);
+    }
+
+    private static void sortByStart(long[] starts, long[] ends, int count) {
+        long[][] pairs = new long[count][];
+        for (int i = 0; i < count; i++) {
+            pairs[i] = new long[]{starts[i], ends[i]};
+        }
+        Arrays.sort(pairs, (a, b) -> Long.compare(a[0], b[0]));
+        for (int i = 0; i < count; i++) {
+            starts[i] = pairs[i][0];
+            ends[i] = pairs[i][1];
+        }
+    }
+}
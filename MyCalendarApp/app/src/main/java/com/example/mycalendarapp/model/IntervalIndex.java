@@ -0,0 +1,88 @@
+package com.example.mycalendarapp.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 一组已加载日程（例如当前月份的快照）上的区间索引，用于检测时间冲突。
+ *
+ * 以数组实现的增广区间树：日程按开始时间排序，排序后的数组本身就是一棵平衡二叉搜索树
+ * （[lo, hi) 的根在中点），每个节点再记录子树中最晚的结束时间。查询时跳过最晚结束时间
+ * 不超过查询开始的子树，以及开始时间不早于查询结束的右半部分，复杂度 O(log n + k)。
+ * 建好后不可修改，可以在线程间共享。
+ *
+ * 区间按半开区间 [start, end) 比较：一个结束时另一个恰好开始不算冲突。
+ * 零时长的日程视为占用 1 毫秒，落在其他日程中间时算作冲突。
+ */
+public final class IntervalIndex {
+    private final Event[] events;
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnds; // maxEnds[mid] 为以 mid 为根的子树中最晚的结束时间
+
+    private IntervalIndex(Event[] events) {
+        this.events = events;
+        int n = events.length;
+        starts = new long[n];
+        ends = new long[n];
+        maxEnds = new long[n];
+        for (int i = 0; i < n; i++) {
+            starts[i] = events[i].getStartTime();
+            ends[i] = Math.max(events[i].getEndTime(), starts[i] + 1);
+        }
+        buildMaxEnds(0, n);
+    }
+
+    public static IntervalIndex of(List<Event> events) {
+        Event[] sorted = events.toArray(new Event[0]);
+        // 稳定排序：开始时间相同的保持原顺序
+        Arrays.sort(sorted, (a, b) -> Long.compare(a.getStartTime(), b.getStartTime()));
+        return new IntervalIndex(sorted);
+    }
+
+    public int size() {
+        return events.length;
+    }
+
+    /**
+     * 与 [start, end) 重叠的日程，按开始时间升序。
+     */
+    public List<Event> overlapping(long start, long end) {
+        List<Event> result = new ArrayList<>();
+        collect(start, end, Integer.MIN_VALUE, result);
+        return result;
+    }
+
+    /**
+     * 把与 [start, end) 重叠、且 id 不是 excludeId 的日程按开始时间升序追加到 out，返回追加的个数。
+     * 编辑日程时传入它自己的 id，重复日程的其他各次也会一并排除（它们会随修改一起平移）。
+     */
+    public int collect(long start, long end, int excludeId, List<Event> out) {
+        int before = out.size();
+        long queryEnd = Math.max(end, start + 1);
+        query(0, events.length, start, queryEnd, excludeId, out);
+        return out.size() - before;
+    }
+
+    private long buildMaxEnds(int lo, int hi) {
+        if (lo >= hi) return Long.MIN_VALUE;
+        int mid = (lo + hi) >>> 1;
+        long max = Math.max(ends[mid], Math.max(buildMaxEnds(lo, mid), buildMaxEnds(mid + 1, hi)));
+        maxEnds[mid] = max;
+        return max;
+    }
+
+    private void query(int lo, int hi, long start, long end, int excludeId, List<Event> out) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (maxEnds[mid] <= start) return; // 子树中的日程都在查询开始前结束
+            query(lo, mid, start, end, excludeId, out);
+            if (starts[mid] >= end) return;     // 右半部分都在查询结束后才开始
+            if (ends[mid] > start && events[mid].getId() != excludeId) {
+                out.add(events[mid]);
+            }
+            lo = mid + 1; // 右子树用循环代替递归
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.mycalendarapp.model;
+
+import com.example.mycalendarapp.utils.DateUtils;
+import com.example.mycalendarapp.utils.LunarCalendar;
+
+/**
+ * 一个月的月历网格：固定 6 行 7 列共 42 格，周日在第一列（与表头“日 一 二 …”一致）。
+ *
+ * 每格的纪元日、几号、农历文字和状态标记都存放在基本类型数组中，每月只计算一次，
+ * Activity 和 CalendarAdapter 共用同一个实例。对象不可变：选中、今天、日程标记变化时
+ * 通过 with* 方法得到新对象，只复制 42 个标记位，其余数组共享。
+ */
+public final class MonthGrid {
+    public static final int COLUMNS = 7;
+    public static final int ROWS = 6;
+    public static final int CELL_COUNT = COLUMNS * ROWS;
+
+    public static final int FLAG_TODAY = 1;
+    public static final int FLAG_WEEKEND = 1 << 1;
+    public static final int FLAG_SELECTED = 1 << 2;
+    public static final int FLAG_HAS_EVENTS = 1 << 3;
+    public static final int FLAG_OUTSIDE_MONTH = 1 << 4; // 上个月或下个月的日期
+
+    private final int year;
+    private final int month;          // 从 0 开始，与 Calendar.MONTH 一致
+    private final int leadingDays;    // 1 日之前属于上个月的格子数
+    private final int daysInMonth;
+    private final long[] epochDays;   // 以下数组在 with* 产生的副本之间共享，不允许修改
+    private final byte[] daysOfMonth;
+    private final String[] lunarLabels;
+    private final int[] flags;
+    private final int todayPosition;
+    private final int selectedPosition;
+
+    private MonthGrid(int year, int month, int leadingDays, int daysInMonth, long[] epochDays,
+                      byte[] daysOfMonth, String[] lunarLabels, int[] flags) {
+        this.year = year;
+        this.month = month;
+        this.leadingDays = leadingDays;
+        this.daysInMonth = daysInMonth;
+        this.epochDays = epochDays;
+        this.daysOfMonth = daysOfMonth;
+        this.lunarLabels = lunarLabels;
+        this.flags = flags;
+        this.todayPosition = find(flags, FLAG_TODAY);
+        this.selectedPosition = find(flags, FLAG_SELECTED);
+    }
+
+    /**
+     * 生成某个月的网格（month 从 0 开始），todayEpochDay 所在的格子标记为今天。
+     */
+    public static MonthGrid create(int year, int month, long todayEpochDay) {
+        long firstOfMonth = DateUtils.epochDayOf(year, month + 1, 1);
+        int leadingDays = DateUtils.dayOfWeek(firstOfMonth);
+        int daysInMonth = DateUtils.daysInMonth(year, month + 1);
+        long firstCell = firstOfMonth - leadingDays;
+
+        long[] epochDays = new long[CELL_COUNT];
+        byte[] daysOfMonth = new byte[CELL_COUNT];
+        int[] flags = new int[CELL_COUNT];
+        String[] lunarLabels = new String[CELL_COUNT];
+        LunarCalendar.fillLabels(firstCell, lunarLabels, 0, CELL_COUNT);
+
+        // 第一格的几号只需要转换一次，之后逐格递增，跨月时归 1
+        int ymd = DateUtils.toYmd(firstCell);
+        int cellYear = DateUtils.ymdYear(ymd);
+        int cellMonth = DateUtils.ymdMonth(ymd);
+        int day = DateUtils.ymdDay(ymd);
+        int cellMonthLength = DateUtils.daysInMonth(cellYear, cellMonth);
+        for (int i = 0; i < CELL_COUNT; i++) {
+            long epochDay = firstCell + i;
+            epochDays[i] = epochDay;
+            daysOfMonth[i] = (byte) day;
+            int column = i % COLUMNS;
+            int cellFlags = column == 0 || column == COLUMNS - 1 ? FLAG_WEEKEND : 0;
+            if (i < leadingDays || i >= leadingDays + daysInMonth) {
+                cellFlags |= FLAG_OUTSIDE_MONTH;
+            }
+            if (epochDay == todayEpochDay) {
+                cellFlags |= FLAG_TODAY;
+            }
+            flags[i] = cellFlags;
+
+            if (++day > cellMonthLength) {
+                day = 1;
+                if (++cellMonth > 12) {
+                    cellMonth = 1;
+                    cellYear++;
+                }
+                cellMonthLength = DateUtils.daysInMonth(cellYear, cellMonth);
+            }
+        }
+        return new MonthGrid(year, month, leadingDays, daysInMonth, epochDays, daysOfMonth, lunarLabels, flags);
+    }
+
+    // --- 产生修改后的副本 ---
+
+    // 选中某一格，position 为 -1 时取消选中；月外的格子不能选中
+    public MonthGrid withSelected(int position) {
+        if (position == selectedPosition) return this;
+        if (position != -1 && isOutsideMonth(position)) {
+            throw new IllegalArgumentException("Cell outside month: " + position);
+        }
+        int[] newFlags = flags.clone();
+        if (selectedPosition != -1) newFlags[selectedPosition] &= ~FLAG_SELECTED;
+        if (position != -1) newFlags[position] |= FLAG_SELECTED;
+        return copy(newFlags);
+    }
+
+    // 跨过零点后更新“今天”
+    public MonthGrid withToday(long todayEpochDay) {
+        int position = positionOf(todayEpochDay);
+        if (position == todayPosition) return this;
+        int[] newFlags = flags.clone();
+        if (todayPosition != -1) newFlags[todayPosition] &= ~FLAG_TODAY;
+        if (position != -1) newFlags[position] |= FLAG_TODAY;
+        return copy(newFlags);
+    }
+
+    /**
+     * 根据当月日程快照设置日程标记，快照的第 i 天对应当月 i + 1 日；snapshot 为 null 时清除所有标记。
+     */
+    public MonthGrid withEvents(MonthSnapshot snapshot) {
+        if (snapshot != null && snapshot.getDayCount() != daysInMonth) {
+            throw new IllegalArgumentException("Snapshot has " + snapshot.getDayCount()
+                    + " days, month has " + daysInMonth);
+        }
+        int[] newFlags = null;
+        for (int day = 0; day < daysInMonth; day++) {
+            int position = leadingDays + day;
+            boolean hasEvents = snapshot != null && snapshot.hasEvents(day);
+            if (hasEvents != ((flags[position] & FLAG_HAS_EVENTS) != 0)) {
+                if (newFlags == null) newFlags = flags.clone();
+                newFlags[position] ^= FLAG_HAS_EVENTS;
+            }
+        }
+        return newFlags == null ? this : copy(newFlags);
+    }
+
+    private MonthGrid copy(int[] newFlags) {
+        return new MonthGrid(year, month, leadingDays, daysInMonth, epochDays, daysOfMonth, lunarLabels, newFlags);
+    }
+
+    // --- 查询 ---
+
+    public int getYear() {
+        return year;
+    }
+
+    // 从 0 开始
+    public int getMonth() {
+        return month;
+    }
+
+    public int getLeadingDays() {
+        return leadingDays;
+    }
+
+    public int getDaysInMonth() {
+        return daysInMonth;
+    }
+
+    public long getEpochDay(int position) {
+        return epochDays[position];
+    }
+
+    public int getDayOfMonth(int position) {
+        return daysOfMonth[position];
+    }
+
+    public String getLunarLabel(int position) {
+        return lunarLabels[position];
+    }
+
+    public int getFlags(int position) {
+        return flags[position];
+    }
+
+    public boolean hasFlag(int position, int flag) {
+        return (flags[position] & flag) != 0;
+    }
+
+    public boolean isOutsideMonth(int position) {
+        return hasFlag(position, FLAG_OUTSIDE_MONTH);
+    }
+
+    // 今天不在网格中时返回 -1
+    public int getTodayPosition() {
+        return todayPosition;
+    }
+
+    // 没有选中时返回 -1
+    public int getSelectedPosition() {
+        return selectedPosition;
+    }
+
+    // 纪元日所在的格子，不在网格中返回 -1
+    public int positionOf(long epochDay) {
+        long position = epochDay - epochDays[0];
+        return position >= 0 && position < CELL_COUNT ? (int) position : -1;
+    }
+
+    // 当月 dayOfMonth 日所在的格子
+    public int positionOfDay(int dayOfMonth) {
+        if (dayOfMonth < 1 || dayOfMonth > daysInMonth) {
+            throw new IllegalArgumentException("Invalid day: " + dayOfMonth);
+        }
+        return leadingDays + dayOfMonth - 1;
+    }
+
+    private static int find(int[] flags, int flag) {
+        for (int i = 0; i < flags.length; i++) {
+            if ((flags[i] & flag) != 0) return i;
+        }
+        return -1;
+    }
+}
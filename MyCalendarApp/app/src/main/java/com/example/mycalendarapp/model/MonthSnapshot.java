@@ -0,0 +1,106 @@
+package com.example.mycalendarapp.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一段连续日期（通常是当前显示的月份）内所有日程的内存快照，按天分桶。
+ * 由一次范围查询填充，之后点击任意一天都可以直接从内存取数据。
+ * 跨天日程会出现在它覆盖的每一天里，规则与 DatabaseHelper.getEventsInRange 一致。
+ */
+public class MonthSnapshot {
+    private final long[] dayBoundaries; // 第 i 天为 [dayBoundaries[i], dayBoundaries[i + 1])
+    private final List<List<Event>> buckets;
+    private final List<Event> events = new ArrayList<>(); // 快照中的全部日程，每个只出现一次
+    private IntervalIndex intervalIndex; // 首次检测冲突时建立
+
+    public MonthSnapshot(long[] dayBoundaries) {
+        if (dayBoundaries.length < 2) {
+            throw new IllegalArgumentException("At least one day is required");
+        }
+        this.dayBoundaries = dayBoundaries.clone();
+        int dayCount = dayBoundaries.length - 1;
+        this.buckets = new ArrayList<>(dayCount);
+        for (int i = 0; i < dayCount; i++) {
+            buckets.add(null); // 空桶延迟创建
+        }
+    }
+
+    public long getRangeStart() {
+        return dayBoundaries[0];
+    }
+
+    // 范围的最后一毫秒（含）
+    public long getRangeEnd() {
+        return dayBoundaries[dayBoundaries.length - 1] - 1;
+    }
+
+    public int getDayCount() {
+        return buckets.size();
+    }
+
+    // 按开始时间升序加入日程，各天的列表也会保持升序
+    public void add(Event event) {
+        long start = event.getStartTime();
+        long end = event.getEndTime();
+        events.add(event);
+        intervalIndex = null;
+        int day = Math.max(0, dayIndexOf(start));
+        for (; day < buckets.size(); day++) {
+            long dayStart = dayBoundaries[day];
+            long dayEnd = dayBoundaries[day + 1] - 1;
+            if (start > dayEnd) continue;
+            if (end < dayStart) break;
+            // 恰好在当天零点结束的日程不属于这一天，零时长日程除外
+            if (end == dayStart && start < dayStart) break;
+
+            List<Event> bucket = buckets.get(day);
+            if (bucket == null) {
+                bucket = new ArrayList<>();
+                buckets.set(day, bucket);
+            }
+            bucket.add(event);
+        }
+    }
+
+    public List<Event> getEventsForDay(int dayIndex) {
+        List<Event> bucket = buckets.get(dayIndex);
+        return bucket == null ? Collections.emptyList() : Collections.unmodifiableList(bucket);
+    }
+
+    // 快照中的全部日程（不重复），按加入顺序排列
+    public List<Event> getEvents() {
+        return Collections.unmodifiableList(events);
+    }
+
+    /**
+     * 快照内日程的区间索引，用于添加、编辑日程时检测冲突。第一次调用时建立，之后直接复用。
+     */
+    public IntervalIndex getIntervalIndex() {
+        if (intervalIndex == null) {
+            intervalIndex = IntervalIndex.of(events);
+        }
+        return intervalIndex;
+    }
+
+    public boolean hasEvents(int dayIndex) {
+        return buckets.get(dayIndex) != null;
+    }
+
+    // 返回包含 time 的那一天的下标，早于范围返回 -1，晚于范围返回 getDayCount()
+    public int dayIndexOf(long time) {
+        if (time < dayBoundaries[0]) return -1;
+        int low = 0;
+        int high = dayBoundaries.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (dayBoundaries[mid] <= time) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.mycalendarapp.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 把单次日程和重复日程在某个时间窗口内展开出的各次合并成一个按开始时间排序的列表。
+ *
+ * 单次日程来自按 startTime 排序的查询结果，每个重复系列的展开本身也是有序的，
+ * 因此用优先队列做 k 路归并，复杂度 O((n + m) log k)，k 为窗口内的系列数。
+ */
+public final class OccurrenceMerger {
+
+    private OccurrenceMerger() {
+    }
+
+    /**
+     * @param oneOffs 窗口内的单次日程，按开始时间升序
+     * @param series  可能与窗口相交的重复日程系列（数据库中的原始行）
+     */
+    public static List<Event> merge(List<Event> oneOffs, List<Event> series, long rangeStart, long rangeEnd) {
+        if (series.isEmpty()) return oneOffs;
+
+        PriorityQueue<Source> queue = new PriorityQueue<>(series.size() + 1);
+        ListSource listSource = new ListSource(oneOffs);
+        if (listSource.advance()) queue.add(listSource);
+        for (Event master : series) {
+            SeriesSource source = SeriesSource.create(master, rangeStart, rangeEnd);
+            if (source.advance()) queue.add(source);
+        }
+
+        List<Event> result = new ArrayList<>(oneOffs.size() + series.size() * 4);
+        while (!queue.isEmpty()) {
+            Source source = queue.poll();
+            result.add(source.current());
+            if (source.advance()) queue.add(source);
+        }
+        return result;
+    }
+
+    private abstract static class Source implements Comparable<Source> {
+        long currentStart;
+        int order; // 开始时间相同时的次序：单次日程在前，其余按 id
+
+        abstract boolean advance();
+
+        abstract Event current();
+
+        @Override
+        public int compareTo(Source other) {
+            int byStart = Long.compare(currentStart, other.currentStart);
+            return byStart != 0 ? byStart : Integer.compare(order, other.order);
+        }
+    }
+
+    private static final class ListSource extends Source {
+        private final List<Event> events;
+        private int index = -1;
+
+        ListSource(List<Event> events) {
+            this.events = events;
+            this.order = Integer.MIN_VALUE;
+        }
+
+        @Override
+        boolean advance() {
+            if (++index >= events.size()) return false;
+            currentStart = events.get(index).getStartTime();
+            return true;
+        }
+
+        @Override
+        Event current() {
+            return events.get(index);
+        }
+    }
+
+    private static final class SeriesSource extends Source {
+        // 只产生第一次，用于规则无法解析的系列
+        private static final RecurrenceRule ONCE = RecurrenceRule.parse("FREQ=DAILY;COUNT=1");
+
+        private final Event master;
+        private final RecurrenceRule.OccurrenceIterator iterator;
+        private final boolean expand;
+
+        private SeriesSource(Event master, RecurrenceRule.OccurrenceIterator iterator, boolean expand) {
+            this.master = master;
+            this.iterator = iterator;
+            this.expand = expand;
+            this.order = master.getId();
+        }
+
+        // 规则无法解析时（例如旧版本写入的数据）整个系列只按单次日程显示
+        static SeriesSource create(Event master, long rangeStart, long rangeEnd) {
+            long duration = master.getEndTime() - master.getStartTime();
+            RecurrenceRule rule;
+            try {
+                rule = RecurrenceRule.parse(master.getRecurrenceRule());
+            } catch (IllegalArgumentException e) {
+                return new SeriesSource(master, ONCE.iterator(master.getStartTime(), duration, null, rangeStart, rangeEnd), false);
+            }
+            long[] exdates = RecurrenceRule.parseExceptionDates(master.getExceptionDates());
+            return new SeriesSource(master, rule.iterator(master.getStartTime(), duration, exdates, rangeStart, rangeEnd), true);
+        }
+
+        @Override
+        boolean advance() {
+            if (!iterator.hasNext()) return false;
+            currentStart = iterator.next();
+            return true;
+        }
+
+        @Override
+        Event current() {
+            return expand ? Event.occurrence(master, currentStart) : master;
+        }
+    }
+}
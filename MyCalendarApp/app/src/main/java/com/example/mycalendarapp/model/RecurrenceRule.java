@@ -0,0 +1,498 @@
+package com.example.mycalendarapp.model;
+
+import com.example.mycalendarapp.utils.DateUtils;
+
+/**
+ * RFC 5545 重复规则 (RRULE) 的子集：FREQ=DAILY/WEEKLY/MONTHLY/YEARLY，
+ * 以及 INTERVAL、BYDAY、COUNT、UNTIL、WKST；排除日期 (EXDATE) 由调用方传入。
+ *
+ * 规则按本地时间展开，每周例会在夏令时切换前后都保持同样的钟点。
+ * iterator 只在查询窗口附近展开：没有 COUNT 时直接跳到窗口所在的周期，
+ * 一个永不结束的每日日程在一个月的窗口内只需要展开约 30 次，与已经过去多久无关。
+ * 有 COUNT 时必须从头计数，但展开次数不超过 COUNT。
+ *
+ * 对象不可变，可以在线程之间共享。
+ */
+public final class RecurrenceRule {
+    public static final int DAILY = 0;
+    public static final int WEEKLY = 1;
+    public static final int MONTHLY = 2;
+    public static final int YEARLY = 3;
+
+    public static final long NO_UNTIL = Long.MAX_VALUE;
+    public static final long NO_END = Long.MAX_VALUE;
+
+    private static final String[] FREQ_NAMES = {"DAILY", "WEEKLY", "MONTHLY", "YEARLY"};
+    // 下标与 DateUtils.dayOfWeek 一致：0 = 周日
+    private static final String[] DAY_NAMES = {"SU", "MO", "TU", "WE", "TH", "FR", "SA"};
+    private static final long DAY = DateUtils.MILLIS_PER_DAY;
+
+    private final int frequency;
+    private final int interval;
+    private final int count;       // 0 表示不限次数
+    private final long until;      // 最后一次开始时间的上限（含），NO_UNTIL 表示不限
+    private final int weekStart;   // WKST，默认周一
+    private final int[] byDayWeekdays; // BYDAY 的星期
+    private final int[] byDayOrdinals; // 对应的序号，0 表示每一个（如 MO），2 表示第二个（2MO），-1 表示最后一个
+
+    private RecurrenceRule(int frequency, int interval, int count, long until, int weekStart,
+                           int[] byDayWeekdays, int[] byDayOrdinals) {
+        this.frequency = frequency;
+        this.interval = interval;
+        this.count = count;
+        this.until = until;
+        this.weekStart = weekStart;
+        this.byDayWeekdays = byDayWeekdays;
+        this.byDayOrdinals = byDayOrdinals;
+    }
+
+    /**
+     * 解析 RRULE 的值部分（如 "FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,WE"），可以带 "RRULE:" 前缀。
+     * 不支持的写法抛出 IllegalArgumentException。
+     */
+    public static RecurrenceRule parse(String rule) {
+        if (rule == null) throw new IllegalArgumentException("Empty RRULE");
+        String value = rule.trim();
+        if (value.regionMatches(true, 0, "RRULE:", 0, 6)) {
+            value = value.substring(6);
+        }
+        int frequency = -1;
+        int interval = 1;
+        int count = 0;
+        long until = NO_UNTIL;
+        int weekStart = 1;
+        int[] weekdays = new int[0];
+        int[] ordinals = new int[0];
+
+        for (String part : value.split(";")) {
+            if (part.isEmpty()) continue;
+            int eq = part.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("Malformed RRULE part: " + part);
+            String name = part.substring(0, eq).toUpperCase();
+            String arg = part.substring(eq + 1).toUpperCase();
+            switch (name) {
+                case "FREQ":
+                    frequency = indexOf(FREQ_NAMES, arg);
+                    if (frequency < 0) throw new IllegalArgumentException("Unsupported FREQ: " + arg);
+                    break;
+                case "INTERVAL":
+                    interval = parsePositive(arg, "INTERVAL");
+                    break;
+                case "COUNT":
+                    count = parsePositive(arg, "COUNT");
+                    break;
+                case "UNTIL":
+                    until = parseUntil(arg);
+                    break;
+                case "WKST":
+                    weekStart = indexOf(DAY_NAMES, arg);
+                    if (weekStart < 0) throw new IllegalArgumentException("Bad WKST: " + arg);
+                    break;
+                case "BYDAY": {
+                    String[] days = arg.split(",");
+                    weekdays = new int[days.length];
+                    ordinals = new int[days.length];
+                    for (int i = 0; i < days.length; i++) {
+                        String day = days[i].trim();
+                        if (day.length() < 2) throw new IllegalArgumentException("Bad BYDAY: " + arg);
+                        weekdays[i] = indexOf(DAY_NAMES, day.substring(day.length() - 2));
+                        if (weekdays[i] < 0) throw new IllegalArgumentException("Bad BYDAY: " + arg);
+                        String ordinal = day.substring(0, day.length() - 2);
+                        if (!ordinal.isEmpty()) {
+                            try {
+                                ordinals[i] = Integer.parseInt(ordinal.startsWith("+") ? ordinal.substring(1) : ordinal);
+                            } catch (NumberFormatException e) {
+                                throw new IllegalArgumentException("Bad BYDAY: " + arg);
+                            }
+                            if (ordinals[i] == 0 || Math.abs(ordinals[i]) > 5) {
+                                throw new IllegalArgumentException("Bad BYDAY: " + arg);
+                            }
+                        }
+                    }
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("Unsupported RRULE part: " + name);
+            }
+        }
+        if (frequency < 0) throw new IllegalArgumentException("FREQ is required: " + rule);
+        if (count > 0 && until != NO_UNTIL) throw new IllegalArgumentException("COUNT and UNTIL are exclusive");
+        if (weekdays.length > 0 && frequency == YEARLY) {
+            throw new IllegalArgumentException("BYDAY is not supported for YEARLY");
+        }
+        for (int ordinal : ordinals) {
+            if (ordinal != 0 && frequency != MONTHLY) {
+                throw new IllegalArgumentException("BYDAY ordinals are only supported for MONTHLY");
+            }
+        }
+        return new RecurrenceRule(frequency, interval, count, until, weekStart, weekdays, ordinals);
+    }
+
+    // 能解析返回 true，用于导入时判断是否按单次日程处理
+    public static boolean isSupported(String rule) {
+        try {
+            parse(rule);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public int getFrequency() {
+        return frequency;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getUntil() {
+        return until;
+    }
+
+    // 规范化的 RRULE 值，可以再被 parse 读回
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("FREQ=").append(FREQ_NAMES[frequency]);
+        if (interval != 1) sb.append(";INTERVAL=").append(interval);
+        if (count > 0) sb.append(";COUNT=").append(count);
+        if (until != NO_UNTIL) sb.append(";UNTIL=").append(formatUtc(until));
+        if (byDayWeekdays.length > 0) {
+            sb.append(";BYDAY=");
+            for (int i = 0; i < byDayWeekdays.length; i++) {
+                if (i > 0) sb.append(',');
+                if (byDayOrdinals[i] != 0) sb.append(byDayOrdinals[i]);
+                sb.append(DAY_NAMES[byDayWeekdays[i]]);
+            }
+        }
+        if (weekStart != 1) sb.append(";WKST=").append(DAY_NAMES[weekStart]);
+        return sb.toString();
+    }
+
+    /**
+     * 系列最后一次的结束时间；没有 COUNT 和 UNTIL 时返回 NO_END。
+     * 用于数据库中按时间范围筛选系列，排除日期不影响结果（只会让范围偏大）。
+     */
+    public long seriesEnd(long dtstart, long duration) {
+        if (count == 0 && until == NO_UNTIL) return NO_END;
+        long last = dtstart;
+        OccurrenceIterator iterator = iterator(dtstart, duration, null, Long.MIN_VALUE, Long.MAX_VALUE);
+        while (iterator.hasNext()) {
+            last = iterator.next();
+        }
+        return last + duration;
+    }
+
+    /**
+     * 展开与窗口 [windowStart, windowEnd] 有交集的各次开始时间，按时间升序。
+     * 交集规则与 DatabaseHelper.getEventsInRange 一致：恰好在 windowStart 结束的一次不算，零时长的除外。
+     *
+     * @param dtstart  系列第一次的开始时间，总是算作第一次（即使不符合 BYDAY）
+     * @param duration 每次的时长
+     * @param exdates  排除的开始时间，可以为 null；被排除的次数仍计入 COUNT
+     */
+    public OccurrenceIterator iterator(long dtstart, long duration, long[] exdates, long windowStart, long windowEnd) {
+        return new OccurrenceIterator(dtstart, duration, exdates, windowStart, windowEnd);
+    }
+
+    /**
+     * 按时间顺序逐个产生开始时间的迭代器，不为每一次创建对象。
+     */
+    public final class OccurrenceIterator {
+        private final long dtstart;
+        private final long duration;
+        private final long[] exdates;
+        private final long windowStart;
+        private final long windowEnd;
+        private final long timeOfDay;      // 本地时间中的钟点（毫秒）
+        private final long firstDay;       // dtstart 的本地纪元日
+        private final long lastPeriodDay;  // 超过这一天开始的周期不可能再与窗口相交
+
+        private long period;               // 当前周期的序号（已乘以 INTERVAL）
+        private final long[] candidates = new long[31];
+        private int candidateCount;
+        private int candidateIndex;
+        private int emitted;               // 已产生的次数（含被排除的），用于 COUNT
+        private boolean dtstartPending = true;
+        private boolean finished;
+        private long next;
+        private boolean hasNext;
+
+        OccurrenceIterator(long dtstart, long duration, long[] exdates, long windowStart, long windowEnd) {
+            this.dtstart = dtstart;
+            this.duration = Math.max(0, duration);
+            this.exdates = exdates;
+            this.windowStart = windowStart;
+            this.windowEnd = windowEnd;
+            long local = DateUtils.toLocalMillis(dtstart);
+            this.firstDay = Math.floorDiv(local, DAY);
+            this.timeOfDay = Math.floorMod(local, DAY);
+            this.lastPeriodDay = windowEnd == Long.MAX_VALUE
+                    ? Long.MAX_VALUE : Math.floorDiv(DateUtils.toLocalMillis(windowEnd), DAY) + 1;
+            if (count == 0 && windowStart != Long.MIN_VALUE) {
+                skipToWindow();
+            }
+            advance();
+        }
+
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        public long next() {
+            if (!hasNext) throw new java.util.NoSuchElementException();
+            long result = next;
+            advance();
+            return result;
+        }
+
+        // 没有 COUNT 时，窗口之前的周期对结果没有影响，直接跳过（多留一个周期的余量）
+        private void skipToWindow() {
+            long durationDays = duration / DAY + 2;
+            long targetDay = Math.floorDiv(DateUtils.toLocalMillis(windowStart), DAY) - durationDays;
+            if (targetDay <= firstDay) return;
+            long periods;
+            switch (frequency) {
+                case DAILY:
+                    periods = (targetDay - firstDay) / interval;
+                    break;
+                case WEEKLY:
+                    periods = (targetDay - firstDay) / (7L * interval);
+                    break;
+                case MONTHLY:
+                    periods = (monthIndex(targetDay) - monthIndex(firstDay)) / interval;
+                    break;
+                default:
+                    periods = (monthIndex(targetDay) - monthIndex(firstDay)) / (12L * interval);
+                    break;
+            }
+            if (periods > 1) {
+                period = (periods - 1) * interval;
+                dtstartPending = false; // dtstart 早于窗口
+            }
+        }
+
+        private void advance() {
+            hasNext = false;
+            while (!finished) {
+                long start;
+                if (candidateIndex < candidateCount) {
+                    start = candidates[candidateIndex];
+                    if (dtstartPending && start > dtstart) {
+                        start = dtstart; // dtstart 不符合规则时仍作为第一次
+                    } else {
+                        candidateIndex++;
+                    }
+                    if (start < dtstart) continue;
+                    if (start == dtstart) dtstartPending = false;
+                } else {
+                    if (!fillPeriod()) {
+                        if (dtstartPending) {
+                            start = dtstart;
+                            dtstartPending = false;
+                        } else {
+                            finished = true;
+                            return;
+                        }
+                    } else {
+                        continue;
+                    }
+                }
+
+                if (start > until || start > windowEnd) {
+                    finished = true;
+                    return;
+                }
+                if (count > 0 && ++emitted > count) {
+                    finished = true;
+                    return;
+                }
+                if (isExcluded(start)) continue;
+                long end = start + duration;
+                if (end >= windowStart && (end > windowStart || start >= windowStart)) {
+                    next = start;
+                    hasNext = true;
+                    return;
+                }
+            }
+        }
+
+        // 计算当前周期内的候选开始时间并前进到下一个周期；已超出窗口时返回 false
+        private boolean fillPeriod() {
+            candidateCount = 0;
+            candidateIndex = 0;
+            long periodFirstDay = periodFirstDay(period);
+            if (periodFirstDay > lastPeriodDay) return false;
+            switch (frequency) {
+                case DAILY:
+                    if (matchesWeekday(periodFirstDay)) addCandidate(periodFirstDay);
+                    break;
+                case WEEKLY:
+                    if (byDayWeekdays.length == 0) {
+                        addCandidate(periodFirstDay + Math.floorMod(DateUtils.dayOfWeek(firstDay) - weekStart, 7));
+                    } else {
+                        for (int i = 0; i < 7; i++) {
+                            if (matchesWeekday(periodFirstDay + i)) addCandidate(periodFirstDay + i);
+                        }
+                    }
+                    break;
+                case MONTHLY: {
+                    int ymd = DateUtils.toYmd(periodFirstDay);
+                    int length = DateUtils.daysInMonth(DateUtils.ymdYear(ymd), DateUtils.ymdMonth(ymd));
+                    if (byDayWeekdays.length == 0) {
+                        int day = DateUtils.ymdDay(DateUtils.toYmd(firstDay));
+                        if (day <= length) addCandidate(periodFirstDay + day - 1); // 没有 31 日的月份跳过
+                    } else {
+                        for (int i = 0; i < length; i++) {
+                            if (matchesMonthlyByDay(periodFirstDay + i, i + 1, length)) {
+                                addCandidate(periodFirstDay + i);
+                            }
+                        }
+                    }
+                    break;
+                }
+                default: {
+                    int start = DateUtils.toYmd(firstDay);
+                    int year = DateUtils.ymdYear(DateUtils.toYmd(periodFirstDay));
+                    int month = DateUtils.ymdMonth(start);
+                    int day = DateUtils.ymdDay(start);
+                    if (day <= DateUtils.daysInMonth(year, month)) { // 2 月 29 日只在闰年出现
+                        addCandidate(DateUtils.epochDayOf(year, month, day));
+                    }
+                    break;
+                }
+            }
+            period += interval;
+            return true;
+        }
+
+        private void addCandidate(long epochDay) {
+            candidates[candidateCount++] = DateUtils.fromLocalMillis(epochDay * DAY + timeOfDay);
+        }
+
+        // 第 period 个周期的第一天（本地纪元日）
+        private long periodFirstDay(long period) {
+            switch (frequency) {
+                case DAILY:
+                    return firstDay + period;
+                case WEEKLY:
+                    long weekFirstDay = firstDay - Math.floorMod(DateUtils.dayOfWeek(firstDay) - weekStart, 7);
+                    return weekFirstDay + 7 * period;
+                case MONTHLY:
+                    return firstDayOfMonthIndex(monthIndex(firstDay) + period);
+                default:
+                    return firstDayOfMonthIndex(monthIndex(firstDay) / 12 * 12 + 12 * period);
+            }
+        }
+
+        private boolean isExcluded(long start) {
+            if (exdates == null) return false;
+            for (long exdate : exdates) {
+                if (exdate == start) return true;
+            }
+            return false;
+        }
+    }
+
+    private boolean matchesWeekday(long epochDay) {
+        if (byDayWeekdays.length == 0) return true;
+        int weekday = DateUtils.dayOfWeek(epochDay);
+        for (int byDay : byDayWeekdays) {
+            if (byDay == weekday) return true;
+        }
+        return false;
+    }
+
+    private boolean matchesMonthlyByDay(long epochDay, int dayOfMonth, int monthLength) {
+        int weekday = DateUtils.dayOfWeek(epochDay);
+        for (int i = 0; i < byDayWeekdays.length; i++) {
+            if (byDayWeekdays[i] != weekday) continue;
+            int ordinal = byDayOrdinals[i];
+            if (ordinal == 0
+                    || (ordinal > 0 && (dayOfMonth - 1) / 7 + 1 == ordinal)
+                    || (ordinal < 0 && (monthLength - dayOfMonth) / 7 + 1 == -ordinal)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // --- EXDATE ---
+
+    // 逗号分隔的时间戳列表，空或 null 返回 null
+    public static long[] parseExceptionDates(String value) {
+        if (value == null || value.isEmpty()) return null;
+        String[] parts = value.split(",");
+        long[] result = new long[parts.length];
+        int n = 0;
+        for (String part : parts) {
+            if (!part.isEmpty()) result[n++] = Long.parseLong(part.trim());
+        }
+        return n == result.length ? result : java.util.Arrays.copyOf(result, n);
+    }
+
+    public static String appendExceptionDate(String value, long start) {
+        return value == null || value.isEmpty() ? String.valueOf(start) : value + "," + start;
+    }
+
+    // --- 日期辅助 ---
+
+    private static long monthIndex(long epochDay) {
+        int ymd = DateUtils.toYmd(epochDay);
+        return DateUtils.ymdYear(ymd) * 12L + DateUtils.ymdMonth(ymd) - 1;
+    }
+
+    private static long firstDayOfMonthIndex(long monthIndex) {
+        return DateUtils.epochDayOf((int) Math.floorDiv(monthIndex, 12), Math.floorMod(monthIndex, 12) + 1, 1);
+    }
+
+    // UNTIL：yyyyMMdd（当天结束前都有效）、yyyyMMdd'T'HHmmss'Z'（UTC）或不带 Z 的本地时间
+    static long parseUntil(String value) {
+        try {
+            int year = Integer.parseInt(value.substring(0, 4));
+            int month = Integer.parseInt(value.substring(4, 6));
+            int day = Integer.parseInt(value.substring(6, 8));
+            long epochDay = DateUtils.epochDayOf(year, month, day);
+            if (value.length() == 8) {
+                return DateUtils.startOfEpochDay(epochDay + 1) - 1;
+            }
+            if (value.charAt(8) != 'T' || value.length() < 15) throw new IllegalArgumentException("Bad UNTIL: " + value);
+            long timeOfDay = Integer.parseInt(value.substring(9, 11)) * 3_600_000L
+                    + Integer.parseInt(value.substring(11, 13)) * 60_000L
+                    + Integer.parseInt(value.substring(13, 15)) * 1000L;
+            long millis = epochDay * DAY + timeOfDay;
+            return value.endsWith("Z") ? millis : DateUtils.fromLocalMillis(millis);
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Bad UNTIL: " + value);
+        }
+    }
+
+    static String formatUtc(long millis) {
+        long epochDay = Math.floorDiv(millis, DAY);
+        long seconds = Math.floorMod(millis, DAY) / 1000;
+        int ymd = DateUtils.toYmd(epochDay);
+        return String.format(java.util.Locale.ROOT, "%04d%02d%02dT%02d%02d%02dZ",
+                DateUtils.ymdYear(ymd), DateUtils.ymdMonth(ymd), DateUtils.ymdDay(ymd),
+                seconds / 3600, seconds / 60 % 60, seconds % 60);
+    }
+
+    private static int indexOf(String[] names, String value) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(value)) return i;
+        }
+        return -1;
+    }
+
+    private static int parsePositive(String value, String name) {
+        try {
+            int result = Integer.parseInt(value);
+            if (result > 0) return result;
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException("Bad " + name + ": " + value);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.mycalendarapp.model;
+
+import java.util.List;
+
+/**
+ * 重复日程的提醒时间计算。每一次的提醒提前量与系列相同（remindTime - startTime），
+ * 因此“提醒时间晚于 t”等价于“开始时间不早于 t - 提前量 + 1”，直接用 RecurrenceRule 展开即可。
+ */
+public final class ReminderTimes {
+    // 只产生第一次，用于规则无法解析的系列（与 OccurrenceMerger 的处理一致）
+    private static final RecurrenceRule ONCE = RecurrenceRule.parse("FREQ=DAILY;COUNT=1");
+
+    private ReminderTimes() {
+    }
+
+    /**
+     * 系列中提醒时间晚于 after 的第一次，没有时返回 null。
+     */
+    public static Event next(Event series, long after) {
+        RecurrenceRule.OccurrenceIterator iterator = iterator(series, after, Long.MAX_VALUE);
+        return iterator.hasNext() ? occurrence(series, iterator.next()) : null;
+    }
+
+    /**
+     * 把系列中提醒时间在 (after, until] 内的各次按时间顺序追加到 out，返回追加的个数。
+     */
+    public static int collect(Event series, long after, long until, List<Event> out) {
+        int added = 0;
+        RecurrenceRule.OccurrenceIterator iterator = iterator(series, after, until);
+        while (iterator.hasNext()) {
+            out.add(occurrence(series, iterator.next()));
+            added++;
+        }
+        return added;
+    }
+
+    // 以零时长展开：窗口 [windowStart, windowEnd] 内开始的各次
+    private static RecurrenceRule.OccurrenceIterator iterator(Event series, long after, long until) {
+        long lead = series.getRemindTime() - series.getStartTime();
+        long windowStart = after == Long.MAX_VALUE ? Long.MAX_VALUE : after + 1 - lead;
+        long windowEnd = until == Long.MAX_VALUE ? Long.MAX_VALUE : until - lead;
+        RecurrenceRule rule;
+        long[] exdates = null;
+        try {
+            rule = RecurrenceRule.parse(series.getRecurrenceRule());
+            exdates = RecurrenceRule.parseExceptionDates(series.getExceptionDates());
+        } catch (IllegalArgumentException e) {
+            rule = ONCE;
+        }
+        return rule.iterator(series.getStartTime(), 0, exdates, windowStart, windowEnd);
+    }
+
+    private static Event occurrence(Event series, long start) {
+        return series.isRecurring() && RecurrenceRule.isSupported(series.getRecurrenceRule())
+                ? Event.occurrence(series, start) : series;
+    }
+}
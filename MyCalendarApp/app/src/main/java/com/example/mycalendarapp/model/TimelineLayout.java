@@ -0,0 +1,84 @@
+package com.example.mycalendarapp.model;
+
+/**
+ * 日 / 周时间轴上全部日程块的位置，由 ColumnPacker 在后台线程算好，之后不可修改，绘制时直接读取。
+ *
+ * 每个块是某个日程在某一天内的部分（跨天日程每天一个块），位置用当天的分钟数和所在的列表示：
+ * 互相重叠（直接或间接）的一组块平分当天的宽度，getColumnCount 是这一组的列数。
+ * 各字段按块存放在平行数组中，按天、再按开始分钟排序，绘制时顺序读取、不需要查找对象。
+ */
+public final class TimelineLayout {
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final long[] dayBoundaries;
+    private final int[] firstBlocks; // 第 i 天的块为 [firstBlocks[i], firstBlocks[i + 1])
+    private final Event[] events;
+    private final int[] startMinutes;
+    private final int[] endMinutes;
+    private final int[] columns;
+    private final int[] columnCounts;
+
+    TimelineLayout(long[] dayBoundaries, int[] firstBlocks, Event[] events, int[] startMinutes, int[] endMinutes,
+                   int[] columns, int[] columnCounts) {
+        this.dayBoundaries = dayBoundaries;
+        this.firstBlocks = firstBlocks;
+        this.events = events;
+        this.startMinutes = startMinutes;
+        this.endMinutes = endMinutes;
+        this.columns = columns;
+        this.columnCounts = columnCounts;
+    }
+
+    public int getDayCount() {
+        return dayBoundaries.length - 1;
+    }
+
+    // 第 day 天的开始时间
+    public long getDayStart(int day) {
+        return dayBoundaries[day];
+    }
+
+    public int getBlockCount() {
+        return events.length;
+    }
+
+    // 第 day 天的第一个块，getFirstBlock(day + 1) 是最后一个块之后
+    public int getFirstBlock(int day) {
+        return firstBlocks[day];
+    }
+
+    public Event getEvent(int block) {
+        return events[block];
+    }
+
+    public int getStartMinute(int block) {
+        return startMinutes[block];
+    }
+
+    // 显示的开始、结束分钟都在 [0, MINUTES_PER_DAY] 内，太短的日程已按最短显示时长延长
+    public int getEndMinute(int block) {
+        return endMinutes[block];
+    }
+
+    public int getColumn(int block) {
+        return columns[block];
+    }
+
+    public int getColumnCount(int block) {
+        return columnCounts[block];
+    }
+
+    /**
+     * 第 day 天 minute 分钟处、按宽度比例 fraction（0 到 1）落在哪个块上，没有返回 -1。
+     * 用于点击命中；多个块重叠时取后绘制（位于上层）的那个。
+     */
+    public int findBlock(int day, float minute, float fraction) {
+        for (int block = firstBlocks[day + 1] - 1; block >= firstBlocks[day]; block--) {
+            if (minute < startMinutes[block] || minute >= endMinutes[block]) continue;
+            float left = (float) columns[block] / columnCounts[block];
+            float right = (float) (columns[block] + 1) / columnCounts[block];
+            if (fraction >= left && fraction < right) return block;
+        }
+        return -1;
+    }
+}
@@ -1,73 +1,35 @@
 package com.example.mycalendarapp.receiver;
 
-import android.app.NotificationChannel;
-import android.app.NotificationManager;
-import android.app.PendingIntent;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.os.Build;
-import androidx.core.app.NotificationCompat;
-import com.example.mycalendarapp.MainActivity;
-import com.example.mycalendarapp.R;
-import com.example.mycalendarapp.model.Event;
-import java.util.Objects;
+import com.example.mycalendarapp.repository.EventRepository;
 
+/**
+ * ReminderAlarm 到点时触发：在后台线程取出这一时段到期的全部提醒，由 ReminderNotifier 合并成一组通知发出。
+ */
 public class AlarmReceiver extends BroadcastReceiver {
 
-    private static final String CHANNEL_ID = "CalendarApp_Channel";
+    // ReminderAlarm 的广播；升级前按日程登记的旧闹钟没有 action，同样按“送达到期提醒”处理
+    public static final String ACTION_DELIVER_REMINDERS = "com.example.mycalendarapp.action.DELIVER_REMINDERS";
 
     @Override
     public void onReceive(Context context, Intent intent) {
-        // 从 Intent 中获取日程标题
-        String eventTitle = intent.getStringExtra("eventTitle");
-        if (eventTitle == null) eventTitle = "未知日程";
-
-        // 创建通知渠道（Android 8.0+ 必须）
-        createNotificationChannel(context);
-
-        // 点击通知后跳转到 MainActivity
-        Intent notificationIntent = new Intent(context, MainActivity.class);
-        PendingIntent pendingIntent = PendingIntent.getActivity(
-                context,
-                0,
-                notificationIntent,
-                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT
-        );
-
-        // 构建通知
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
-                .setSmallIcon(R.mipmap.ic_launcher) // 使用应用图标（确保存在）
-                .setContentTitle("日程提醒")
-                .setContentText(eventTitle)
-                .setPriority(NotificationCompat.PRIORITY_HIGH)
-                .setContentIntent(pendingIntent)
-                .setAutoCancel(true);
-
-        NotificationManager manager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
-
-        // 使用时间戳作为唯一ID，防止通知覆盖
-        long notificationId = System.currentTimeMillis();
-        if (manager != null) {
-            manager.notify((int) notificationId, builder.build());
-        }
-    }
-
-    private void createNotificationChannel(Context context) {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            CharSequence name = "Calendar Reminder Channel";
-            String description = "Channel for calendar event reminders";
-            int importance = NotificationManager.IMPORTANCE_HIGH;
-
-            NotificationChannel channel = new NotificationChannel(CHANNEL_ID, name, importance);
-            channel.setDescription(description);
-
-            NotificationManager manager = context.getSystemService(NotificationManager.class);
-            if (manager != null) {
-                manager.createNotificationChannel(channel);
-            }
-        }
+        // 查询和发通知都在仓库的后台线程进行，完成后再结束广播
+        PendingResult pendingResult = goAsync();
+        Context appContext = context.getApplicationContext();
+        EventRepository.getInstance(appContext).deliverReminders(new ReminderNotifier(appContext),
+                new EventRepository.Callback<Integer>() {
+                    @Override
+                    public void onResult(Integer delivered) {
+                        pendingResult.finish();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        e.printStackTrace();
+                        pendingResult.finish();
+                    }
+                });
     }
 }
-
-
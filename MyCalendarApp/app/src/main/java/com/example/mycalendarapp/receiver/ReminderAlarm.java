@@ -0,0 +1,52 @@
+package com.example.mycalendarapp.receiver;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import com.example.mycalendarapp.repository.ReminderScheduler;
+
+/**
+ * ReminderScheduler 使用的唯一系统闹钟，到点时广播给 AlarmReceiver。
+ * 没有精确闹钟权限（Android 12+ 用户可以收回）时退回到非精确闹钟，提醒可能稍有延迟但不会丢失。
+ */
+public class ReminderAlarm implements ReminderScheduler.Alarm {
+    private final Context context;
+
+    public ReminderAlarm(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    @Override
+    public void set(long triggerAtMillis) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) return;
+        PendingIntent operation = operation();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && !alarmManager.canScheduleExactAlarms()) {
+            alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAtMillis, operation);
+        } else {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAtMillis, operation);
+        }
+    }
+
+    @Override
+    public void cancel() {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager != null) {
+            alarmManager.cancel(operation());
+        }
+    }
+
+    // 请求码和 Intent 固定，每次 set 都替换同一个闹钟
+    private PendingIntent operation() {
+        Intent intent = new Intent(context, AlarmReceiver.class);
+        intent.setAction(AlarmReceiver.ACTION_DELIVER_REMINDERS);
+        return PendingIntent.getBroadcast(
+                context,
+                0,
+                intent,
+                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT
+        );
+    }
+}
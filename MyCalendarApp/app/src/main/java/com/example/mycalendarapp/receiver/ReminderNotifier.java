@@ -0,0 +1,163 @@
+package com.example.mycalendarapp.receiver;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.os.Trace;
+import android.service.notification.StatusBarNotification;
+import androidx.core.app.NotificationCompat;
+import com.example.mycalendarapp.MainActivity;
+import com.example.mycalendarapp.R;
+import com.example.mycalendarapp.metrics.Histogram;
+import com.example.mycalendarapp.metrics.Metrics;
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.repository.ReminderScheduler;
+import com.example.mycalendarapp.utils.DateUtils;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * 把同一次闹钟送达的提醒合并成一组通知：每个日程一条子通知，外加一条摘要。
+ *
+ * 子通知以 tag 区分：单次日程为日程 id，重复日程再加上这一次的开始时间，已经显示的不会重复发出。
+ * 摘要按组内所有仍在显示的子通知生成，之前批次的也计算在内。
+ * 在 EventRepository 的后台线程中调用，不占用主线程。
+ */
+public class ReminderNotifier implements ReminderScheduler.Notifier {
+    private static final String CHANNEL_ID = "CalendarApp_Channel";
+    private static final String GROUP_KEY = "com.example.mycalendarapp.REMINDERS";
+    // 摘要通知的 id；摘要没有 tag，子通知都有 tag，不会冲突
+    private static final int SUMMARY_ID = 0;
+    // 摘要中最多列出的条数
+    private static final int SUMMARY_LINES = 5;
+    // 从 remindTime 到通知发出的延迟
+    private static final Histogram DELIVERY_DELAY = Metrics.histogram("reminder.delay", Histogram.UNIT_MILLIS);
+
+    private static volatile boolean channelCreated;
+
+    private final Context context;
+
+    public ReminderNotifier(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    @Override
+    public void post(List<Event> due) {
+        NotificationManager manager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (manager == null || due.isEmpty()) return;
+        Trace.beginSection("ReminderNotifier.post");
+        try {
+            postAll(manager, due);
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    private void postAll(NotificationManager manager, List<Event> due) {
+        createNotificationChannel(manager);
+
+        // 组内仍在显示的子通知：用于去重，也要计入摘要
+        HashSet<String> shown = new HashSet<>();
+        List<Notification> children = new ArrayList<>();
+        for (StatusBarNotification active : manager.getActiveNotifications()) {
+            Notification notification = active.getNotification();
+            if (active.getTag() == null || !GROUP_KEY.equals(notification.getGroup())) continue;
+            shown.add(active.getTag());
+            children.add(notification);
+        }
+
+        PendingIntent contentIntent = contentIntent();
+        int posted = 0;
+        for (Event event : due) {
+            String tag = notificationTag(event);
+            if (!shown.add(tag)) continue; // 已经显示过（例如闹钟重复触发）
+            Notification child = new NotificationCompat.Builder(context, CHANNEL_ID)
+                    .setSmallIcon(R.mipmap.ic_launcher)
+                    .setContentTitle("日程提醒")
+                    .setContentText(titleOf(event))
+                    .setWhen(event.getStartTime())
+                    .setPriority(NotificationCompat.PRIORITY_HIGH)
+                    .setContentIntent(contentIntent)
+                    .setGroup(GROUP_KEY)
+                    .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_SUMMARY) // 同一批只由摘要响一次
+                    .setAutoCancel(true)
+                    .build();
+            manager.notify(tag, event.getId(), child);
+            children.add(child);
+            DELIVERY_DELAY.record(System.currentTimeMillis() - event.getRemindTime());
+            posted++;
+        }
+        if (posted == 0) return;
+
+        children.sort(Comparator.comparingLong(child -> child.when));
+        NotificationCompat.InboxStyle summaryStyle = new NotificationCompat.InboxStyle();
+        StringBuilder line = new StringBuilder(32);
+        for (int i = 0; i < Math.min(children.size(), SUMMARY_LINES); i++) {
+            Notification child = children.get(i);
+            line.setLength(0);
+            DateUtils.appendTime(line, child.when);
+            line.append(' ').append(textOf(child));
+            summaryStyle.addLine(line.toString());
+        }
+        int count = children.size();
+        if (count > SUMMARY_LINES) {
+            summaryStyle.setSummaryText("还有 " + (count - SUMMARY_LINES) + " 个");
+        }
+        manager.notify(SUMMARY_ID, new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.mipmap.ic_launcher)
+                .setContentTitle(count + " 个日程提醒")
+                .setContentText(textOf(children.get(0)))
+                .setStyle(summaryStyle)
+                .setNumber(count)
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setContentIntent(contentIntent)
+                .setGroup(GROUP_KEY)
+                .setGroupSummary(true)
+                .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_SUMMARY)
+                .setAutoCancel(true)
+                .build());
+    }
+
+    // 子通知的 tag：单次日程和重复日程的各次格式不同，(日程 id, 这一次的开始时间) 不同的 tag 一定不同
+    static String notificationTag(Event event) {
+        if (!event.isOccurrence()) return "event:" + event.getId();
+        return "occ:" + event.getId() + ":" + event.getRecurrenceId();
+    }
+
+    // 子通知的正文即日程标题
+    private static CharSequence textOf(Notification child) {
+        CharSequence text = NotificationCompat.getExtras(child).getCharSequence(NotificationCompat.EXTRA_TEXT);
+        return text != null ? text : "未知日程";
+    }
+
+    private static String titleOf(Event event) {
+        return event.getTitle() != null ? event.getTitle() : "未知日程";
+    }
+
+    // 点击通知后跳转到 MainActivity
+    private PendingIntent contentIntent() {
+        Intent notificationIntent = new Intent(context, MainActivity.class);
+        return PendingIntent.getActivity(
+                context,
+                0,
+                notificationIntent,
+                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT
+        );
+    }
+
+    // 创建通知渠道（Android 8.0+ 必须），每个进程只创建一次
+    private static void createNotificationChannel(NotificationManager manager) {
+        if (channelCreated || Build.VERSION.SDK_INT < Build.VERSION_CODES.O) return;
+        NotificationChannel channel = new NotificationChannel(CHANNEL_ID,
+                "Calendar Reminder Channel", NotificationManager.IMPORTANCE_HIGH);
+        channel.setDescription("Channel for calendar event reminders");
+        manager.createNotificationChannel(channel);
+        channelCreated = true;
+    }
+}
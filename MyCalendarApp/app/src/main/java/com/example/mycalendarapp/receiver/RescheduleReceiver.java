@@ -0,0 +1,46 @@
+package com.example.mycalendarapp.receiver;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import com.example.mycalendarapp.repository.EventRepository;
+import com.example.mycalendarapp.utils.DateUtils;
+
+/**
+ * 开机、应用更新、系统时间或时区变化后重新设置提醒闹钟：AlarmManager 中登记的闹钟在这些情况下可能丢失或失准。
+ *
+ * 只需按提醒时间索引查出下一个提醒并设置唯一的闹钟（见 ReminderScheduler），与日程总数无关；
+ * 查询在仓库的后台线程执行，goAsync() 让广播保持到完成为止。
+ */
+public class RescheduleReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        if (!Intent.ACTION_BOOT_COMPLETED.equals(action)
+                && !Intent.ACTION_TIME_CHANGED.equals(action)
+                && !Intent.ACTION_TIMEZONE_CHANGED.equals(action)
+                && !Intent.ACTION_MY_PACKAGE_REPLACED.equals(action)) {
+            return;
+        }
+        if (Intent.ACTION_TIMEZONE_CHANGED.equals(action)) {
+            // 重复日程按本地时间展开，时区变了各次的提醒时间也跟着变；DatabaseHelper 发现时区变化后会全部重算
+            DateUtils.resetTimeZone();
+        }
+
+        PendingResult pendingResult = goAsync();
+        EventRepository.getInstance(context.getApplicationContext())
+                .restoreReminders(new EventRepository.Callback<Void>() {
+                    @Override
+                    public void onResult(Void result) {
+                        pendingResult.finish();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        e.printStackTrace();
+                        pendingResult.finish();
+                    }
+                });
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.mycalendarapp.repository;
+
+import android.util.Log;
+import com.example.mycalendarapp.database.EventStore;
+import com.example.mycalendarapp.model.AgendaPage;
+import com.example.mycalendarapp.model.Event;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 议程列表（按时间排列的全部日程）的分页加载。除了回调，所有方法都只能在主线程调用。
+ *
+ * - 键集分页：每页从已加载部分两端那一条的 (startTime, id) 继续读取（见 AgendaPage），两个方向都可以加载；
+ * - 内存固定：最多保留 MAX_PAGES 页，超出时丢弃离加载方向最远的部分，内存紧张时可以只保留可见范围附近；
+ *   丢弃的部分滚动回来时按同样的键重新读取，因此无论数据库中有多少日程，占用的内存都不变；
+ * - 过期：重新开始（start）或取消后，尚未回调的加载直接作废；两端的键变了（例如被丢弃）时对应方向的结果也作废。
+ */
+public class AgendaPager {
+    public static final int PAGE_SIZE = 50;
+    public static final int MAX_PAGES = 6;
+    // 可见范围离已加载部分的一端不足这么多条时加载下一页
+    public static final int PREFETCH_DISTANCE = 20;
+
+    private static final String TAG = "AgendaPager";
+
+    public interface Listener {
+        // 列表在 position 处插入了 count 条（向前加载时插在开头）
+        void onInserted(int position, int count);
+
+        // 列表从 position 开始移除了 count 条
+        void onRemoved(int position, int count);
+
+        default void onError(Exception e) {
+            Log.e(TAG, "加载失败", e);
+        }
+    }
+
+    private final EventStore store;
+    private final Executor ioExecutor;
+    private final Executor mainExecutor;
+    private final Listener listener;
+
+    // start / cancel 时递增，后台任务据此判断自己是否已经过期
+    private final AtomicLong generation = new AtomicLong();
+
+    private final List<Event> items = new ArrayList<>();
+    // 已加载部分两端的键：items 恰好是键在 [front, back] 内的全部日程。
+    // 从 anchor 开始时两端都是 (anchor, KEY_ID_NONE)，不对应任何日程，只在加载到那一侧的日程后才换成真实的键
+    private long frontStart;
+    private int frontId = AgendaPage.KEY_ID_NONE;
+    private long backStart;
+    private int backId = AgendaPage.KEY_ID_NONE;
+    private boolean hasPrevious;
+    private boolean hasNext;
+    private boolean loadingPrevious;
+    private boolean loadingNext;
+
+    AgendaPager(EventStore store, Executor ioExecutor, Executor mainExecutor, Listener listener) {
+        this.store = store;
+        this.ioExecutor = ioExecutor;
+        this.mainExecutor = mainExecutor;
+        this.listener = listener;
+    }
+
+    /**
+     * 清空列表，从 anchor 开始重新加载：anchor 之后的一页显示在开头，之前的日程随后插在它前面。
+     */
+    public void start(long anchor) {
+        cancel();
+        frontStart = anchor;
+        backStart = anchor;
+        frontId = AgendaPage.KEY_ID_NONE;
+        backId = AgendaPage.KEY_ID_NONE;
+        hasPrevious = true;
+        hasNext = true;
+        loadNext();
+        loadPrevious();
+    }
+
+    // 放弃所有尚未回调的加载并清空列表，离开界面时调用
+    public void cancel() {
+        generation.incrementAndGet();
+        loadingPrevious = false;
+        loadingNext = false;
+        hasPrevious = false;
+        hasNext = false;
+        int size = items.size();
+        if (size > 0) {
+            items.clear();
+            listener.onRemoved(0, size);
+        }
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public Event get(int position) {
+        return items.get(position);
+    }
+
+    public boolean hasPrevious() {
+        return hasPrevious;
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    // 列表滚动后调用，可见范围接近已加载部分的一端时加载那个方向的下一页
+    public void onVisibleRange(int first, int last) {
+        if (first < 0) return;
+        if (last >= items.size() - PREFETCH_DISTANCE) loadNext();
+        if (first < PREFETCH_DISTANCE) loadPrevious();
+    }
+
+    /**
+     * 内存紧张时调用：只保留可见范围前后各一页，其余的滚动回来时重新读取。
+     */
+    public void trimAround(int first, int last) {
+        if (first < 0) return;
+        dropBack(items.size() - Math.min(items.size(), last + 1 + PAGE_SIZE));
+        dropFront(Math.max(0, first - PAGE_SIZE));
+    }
+
+    public void loadNext() {
+        if (!hasNext || loadingNext) return;
+        loadingNext = true;
+        long token = generation.get();
+        long keyStart = backStart;
+        int keyId = backId;
+        runIo(token, () -> {
+            List<Event> page = store.getAgendaPage(keyStart, keyId, PAGE_SIZE, true);
+            return () -> {
+                loadingNext = false;
+                // 等待期间末尾被丢弃过，这一页已经接不上了
+                if (keyStart != backStart || keyId != backId) return;
+                appendBack(page);
+            };
+        });
+    }
+
+    public void loadPrevious() {
+        if (!hasPrevious || loadingPrevious) return;
+        loadingPrevious = true;
+        long token = generation.get();
+        long keyStart = frontStart;
+        int keyId = frontId;
+        runIo(token, () -> {
+            List<Event> page = store.getAgendaPage(keyStart, keyId, PAGE_SIZE, false);
+            return () -> {
+                loadingPrevious = false;
+                if (keyStart != frontStart || keyId != frontId) return;
+                prependFront(page);
+            };
+        });
+    }
+
+    private void appendBack(List<Event> page) {
+        hasNext = page.size() == PAGE_SIZE;
+        if (page.isEmpty()) return;
+        int position = items.size();
+        items.addAll(page);
+        setBack(page.get(page.size() - 1));
+        listener.onInserted(position, page.size());
+        dropFront(items.size() - PAGE_SIZE * MAX_PAGES);
+    }
+
+    private void prependFront(List<Event> page) {
+        hasPrevious = page.size() == PAGE_SIZE;
+        if (page.isEmpty()) return;
+        items.addAll(0, page);
+        setFront(page.get(0));
+        listener.onInserted(0, page.size());
+        dropBack(items.size() - PAGE_SIZE * MAX_PAGES);
+    }
+
+    // 丢弃开头的 count 条（至少保留一条），之后开头的键就是剩下的第一条
+    private void dropFront(int count) {
+        count = Math.min(count, items.size() - 1);
+        if (count <= 0) return;
+        items.subList(0, count).clear();
+        setFront(items.get(0));
+        hasPrevious = true;
+        listener.onRemoved(0, count);
+    }
+
+    private void dropBack(int count) {
+        count = Math.min(count, items.size() - 1);
+        if (count <= 0) return;
+        int size = items.size();
+        items.subList(size - count, size).clear();
+        setBack(items.get(items.size() - 1));
+        hasNext = true;
+        listener.onRemoved(size - count, count);
+    }
+
+    private void setFront(Event first) {
+        frontStart = first.getStartTime();
+        frontId = first.getId();
+    }
+
+    private void setBack(Event last) {
+        backStart = last.getStartTime();
+        backId = last.getId();
+    }
+
+    // 后台任务返回要在主线程执行的动作；主线程执行前再次确认没有过期
+    private interface IoTask {
+        Runnable run() throws Exception;
+    }
+
+    private void runIo(long token, IoTask task) {
+        try {
+            ioExecutor.execute(() -> {
+                if (generation.get() != token) return;
+                try {
+                    Runnable onMain = task.run();
+                    mainExecutor.execute(() -> {
+                        if (generation.get() == token) onMain.run();
+                    });
+                } catch (Exception e) {
+                    mainExecutor.execute(() -> {
+                        if (generation.get() != token) return;
+                        loadingPrevious = false;
+                        loadingNext = false;
+                        listener.onError(e);
+                    });
+                }
+            });
+        } catch (RejectedExecutionException e) { // 队列已满
+            mainExecutor.execute(() -> {
+                if (generation.get() != token) return;
+                loadingPrevious = false;
+                loadingNext = false;
+                listener.onError(e);
+            });
+        }
+    }
+}
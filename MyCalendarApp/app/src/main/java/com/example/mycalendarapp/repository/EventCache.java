@@ -0,0 +1,257 @@
+package com.example.mycalendarapp.repository;
+
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.model.MonthSnapshot;
+import com.example.mycalendarapp.model.RecurrenceRule;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按天 / 按月缓存日程查询结果的 LRU 缓存，总大小受内存预算限制。
+ *
+ * 每个缓存项记录它覆盖的时间范围；日程被增删改时只清除与该日程时间范围有交集、
+ * 或包含该日程 id 的缓存项（后者用于处理修改前的旧位置），其余缓存项保持有效。
+ * 所有方法都是线程安全的。
+ */
+public class EventCache {
+    public static final long DEFAULT_MAX_BYTES = 512 * 1024;
+
+    // 估算内存占用用的常量（字节），只需要数量级正确
+    private static final int ENTRY_OVERHEAD = 96;
+    private static final int EVENT_OVERHEAD = 96;
+    private static final int MONTH_DAY_OVERHEAD = 16;
+
+    // 批量写入超过这个数量时直接清空缓存，比逐条比对更快
+    private static final int BULK_INVALIDATE_THRESHOLD = 64;
+
+    private static final int KIND_DAY = 0;
+    private static final int KIND_MONTH = 1;
+
+    private static final class Key {
+        final int kind;
+        final long start;
+        final long end;
+
+        Key(int kind, long start, long end) {
+            this.kind = kind;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return kind == key.kind && start == key.start && end == key.end;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = kind;
+            result = 31 * result + Long.hashCode(start);
+            result = 31 * result + Long.hashCode(end);
+            return result;
+        }
+    }
+
+    private static final class Entry {
+        final Object value;       // List<Event> 或 MonthSnapshot
+        final List<Event> events; // 用于失效判断
+        final long bytes;
+
+        Entry(Object value, List<Event> events, long bytes) {
+            this.value = value;
+            this.events = events;
+            this.bytes = bytes;
+        }
+    }
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long invalidationCount;
+
+    public EventCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    // --- 查询 ---
+
+    public synchronized List<Event> getDay(long startOfDay, long endOfDay) {
+        Entry entry = lookup(new Key(KIND_DAY, startOfDay, endOfDay));
+        return entry == null ? null : entry.events;
+    }
+
+    public synchronized MonthSnapshot getMonth(long rangeStart, long rangeEnd) {
+        Entry entry = lookup(new Key(KIND_MONTH, rangeStart, rangeEnd));
+        return entry == null ? null : (MonthSnapshot) entry.value;
+    }
+
+    // 只检查是否已缓存，不计入命中统计，也不改变 LRU 顺序
+    public synchronized boolean containsMonth(long rangeStart, long rangeEnd) {
+        return entries.containsKey(new Key(KIND_MONTH, rangeStart, rangeEnd));
+    }
+
+    public void putDay(long startOfDay, long endOfDay, List<Event> events) {
+        List<Event> readOnly = Collections.unmodifiableList(events);
+        put(new Key(KIND_DAY, startOfDay, endOfDay), new Entry(readOnly, readOnly, estimate(events, 0)));
+    }
+
+    public void putMonth(MonthSnapshot snapshot) {
+        List<Event> events = snapshot.getEvents();
+        put(new Key(KIND_MONTH, snapshot.getRangeStart(), snapshot.getRangeEnd()),
+                new Entry(snapshot, events, estimate(events, snapshot.getDayCount())));
+    }
+
+    // --- 失效 ---
+
+    /**
+     * 日程新增、修改或删除后调用；修改时 event 是修改后的内容。
+     * 重复日程的影响范围从系列开始一直到最后一次，不确定时按无限远处理。
+     */
+    public synchronized void invalidate(Event event) {
+        long start = Math.min(event.getStartTime(), event.getSeriesStartTime());
+        long end = event.isRecurring() ? seriesEnd(event) : event.getEndTime();
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, Entry> item = iterator.next();
+            Key key = item.getKey();
+            boolean overlaps = end >= key.start && start <= key.end;
+            if (overlaps || containsId(item.getValue().events, event.getId())) {
+                currentBytes -= item.getValue().bytes;
+                iterator.remove();
+                invalidationCount++;
+            }
+        }
+    }
+
+    public void invalidateAll(List<Event> events) {
+        if (events.size() > BULK_INVALIDATE_THRESHOLD) {
+            clear();
+            return;
+        }
+        for (Event event : events) {
+            invalidate(event);
+        }
+    }
+
+    public synchronized void clear() {
+        invalidationCount += entries.size();
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    // --- 统计，用于调整缓存大小 ---
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public synchronized long getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    public synchronized long getSizeBytes() {
+        return currentBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "EventCache{hits=" + hitCount + ", misses=" + missCount
+                + ", evictions=" + evictionCount + ", invalidations=" + invalidationCount
+                + ", entries=" + entries.size() + ", bytes=" + currentBytes + "/" + maxBytes + "}";
+    }
+
+    private Entry lookup(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return entry;
+    }
+
+    private synchronized void put(Key key, Entry entry) {
+        if (entry.bytes > maxBytes) {
+            return; // 单项超过整个预算，不缓存
+        }
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            currentBytes -= previous.bytes;
+        }
+        currentBytes += entry.bytes;
+        trimToSize();
+    }
+
+    private void trimToSize() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (currentBytes > maxBytes && iterator.hasNext()) {
+            currentBytes -= iterator.next().bytes; // 访问顺序的第一个即最久未使用
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+    private static long seriesEnd(Event event) {
+        long end;
+        try {
+            long duration = event.getEndTime() - event.getStartTime();
+            end = RecurrenceRule.parse(event.getRecurrenceRule()).seriesEnd(event.getSeriesStartTime(), duration);
+        } catch (IllegalArgumentException e) {
+            return Long.MAX_VALUE;
+        }
+        // 修改某一次的时间会让整个系列平移，结束时间也随之后移
+        long shift = event.isOccurrence() ? event.getStartTime() - event.getRecurrenceId() : 0;
+        return shift > 0 && end < Long.MAX_VALUE - shift ? end + shift : end;
+    }
+
+    private static boolean containsId(List<Event> events, int id) {
+        for (int i = 0, size = events.size(); i < size; i++) {
+            if (events.get(i).getId() == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long estimate(List<Event> events, int dayCount) {
+        long bytes = ENTRY_OVERHEAD + (long) dayCount * MONTH_DAY_OVERHEAD;
+        for (int i = 0, size = events.size(); i < size; i++) {
+            Event event = events.get(i);
+            bytes += EVENT_OVERHEAD + 2L * (length(event.getTitle()) + length(event.getDescription()));
+        }
+        return bytes;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -0,0 +1,581 @@
+package com.example.mycalendarapp.repository;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import com.example.mycalendarapp.database.DatabaseHelper;
+import com.example.mycalendarapp.database.EventStore;
+import com.example.mycalendarapp.metrics.Histogram;
+import com.example.mycalendarapp.metrics.Metrics;
+import com.example.mycalendarapp.model.ColumnPacker;
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.model.FreeBusy;
+import com.example.mycalendarapp.model.IntervalIndex;
+import com.example.mycalendarapp.model.MonthSnapshot;
+import com.example.mycalendarapp.model.TimelineLayout;
+import com.example.mycalendarapp.receiver.ReminderAlarm;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 日程数据仓库：所有数据库读写都在后台线程执行，结果回调到主线程。
+ *
+ * 读取按“最新优先”处理：同一类查询（某天 / 某月）连续发起时，
+ * 还没开始执行的旧请求会被新请求替换，已经执行完的旧结果也不会再回调，
+ * 因此快速连续点击多个日期时只会显示最后一次选择的结果。
+ * 写操作按提交顺序串行执行，不会被丢弃。
+ *
+ * 后台队列有容量上限：读取按类合并，每类在队列中最多占一个位置，只有写操作会累积。
+ * 队列已满时新的请求不会排队，直接以 RejectedExecutionException 回调 onError。
+ *
+ * 按天、按月的查询结果放在 EventCache 中，命中时直接在调用线程返回，不再访问数据库；
+ * 写操作完成后只清除受影响的缓存项。
+ *
+ * 提醒由 ReminderScheduler 管理，写操作完成后在同一个后台线程中更新唯一的提醒闹钟。
+ *
+ * .ics 导入导出可能持续很久，在单独的线程上执行：导入每提交一个批次都会释放数据库，
+ * 期间的按天 / 按月读取和搜索照常进行，不必等整个文件处理完。
+ */
+public class EventRepository {
+
+    public interface Callback<T> {
+        void onResult(T result);
+
+        default void onError(Exception e) {
+            Log.e(TAG, "后台读写失败", e);
+        }
+    }
+
+    private static final String TAG = "EventRepository";
+    // 后台队列的容量：读取合并后最多几个，写操作来自用户操作，正常情况下远达不到
+    private static final int QUEUE_CAPACITY = 64;
+    // 排队中的预取最多几个（MonthPrefetcher 每次预取前后两个月），更早的让位给新的
+    private static final int MAX_PENDING_PREFETCHES = 2;
+
+    private static volatile EventRepository instance;
+
+    private final EventStore store;
+    private final Executor ioExecutor;
+    private final Executor transferExecutor;
+    private final Executor mainExecutor;
+    private final EventCache cache;
+    private final ReminderScheduler reminders; // 为 null 时不处理提醒（测试）
+
+    private static final Histogram TIMELINE_PACK_TIME = Metrics.timer("timeline.pack");
+
+    // 每类最新优先的查询一个，见 LatestQuery
+    private final LatestQuery dayQuery = new LatestQuery();
+    private final LatestQuery monthQuery = new LatestQuery();
+    private final LatestQuery freeBusyQuery = new LatestQuery();
+    private final LatestQuery timelineQuery = new LatestQuery();
+    private final LatestQuery conflictQuery = new LatestQuery();
+
+    // 等待预取的月份，由 prefetchSlot 在后台线程逐个取出
+    private final ArrayDeque<long[]> pendingPrefetches = new ArrayDeque<>();
+    private final TaskSlot prefetchSlot = new TaskSlot();
+
+    /**
+     * 一类最新优先的读取：发起新查询或取消时代号递增，旧代号的请求即视为过期；
+     * 排队中的旧请求由 slot 直接替换，不占用队列。
+     */
+    private static final class LatestQuery {
+        final AtomicLong generation = new AtomicLong();
+        final TaskSlot slot = new TaskSlot();
+
+        void cancel() {
+            generation.incrementAndGet();
+            slot.clear();
+        }
+    }
+
+    public static EventRepository getInstance(Context context) {
+        EventRepository result = instance;
+        if (result == null) {
+            synchronized (EventRepository.class) {
+                result = instance;
+                if (result == null) {
+                    // 可调试的构建默认记录性能指标；无论从 Activity 还是广播启动进程都会经过这里
+                    Metrics.setEnabled((context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0);
+                    Handler mainHandler = new Handler(Looper.getMainLooper());
+                    DatabaseHelper store = DatabaseHelper.getInstance(context);
+                    EventCache cache = new EventCache(EventCache.DEFAULT_MAX_BYTES);
+                    registerCacheGauges(cache);
+                    result = new EventRepository(
+                            store,
+                            createIoExecutor(),
+                            createTransferExecutor(),
+                            mainHandler::post,
+                            cache,
+                            createReminderScheduler(context.getApplicationContext(), store));
+                    instance = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param ioExecutor   执行数据库操作的线程池，测试时可以传入同步执行器
+     * @param mainExecutor 投递回调的执行器，应用中是主线程 Handler
+     */
+    public EventRepository(EventStore store, Executor ioExecutor, Executor mainExecutor) {
+        this(store, ioExecutor, mainExecutor, new EventCache(EventCache.DEFAULT_MAX_BYTES));
+    }
+
+    public EventRepository(EventStore store, Executor ioExecutor, Executor mainExecutor, EventCache cache) {
+        this(store, ioExecutor, mainExecutor, cache, null);
+    }
+
+    // 导入导出与其他读写共用 ioExecutor
+    public EventRepository(EventStore store, Executor ioExecutor, Executor mainExecutor, EventCache cache,
+                           ReminderScheduler reminders) {
+        this(store, ioExecutor, ioExecutor, mainExecutor, cache, reminders);
+    }
+
+    /**
+     * @param transferExecutor 执行 .ics 导入导出的线程池，与 ioExecutor 分开时导入导出不会阻塞读取
+     */
+    public EventRepository(EventStore store, Executor ioExecutor, Executor transferExecutor, Executor mainExecutor,
+                           EventCache cache, ReminderScheduler reminders) {
+        this.store = store;
+        this.ioExecutor = ioExecutor;
+        this.transferExecutor = transferExecutor;
+        this.mainExecutor = mainExecutor;
+        this.cache = cache;
+        this.reminders = reminders;
+    }
+
+    public EventCache getCache() {
+        return cache;
+    }
+
+    // 命中、未命中等次数由 EventCache 自己统计，导出指标时直接读取，不再另外计数
+    private static void registerCacheGauges(EventCache cache) {
+        Metrics.gauge("cache.hit", cache::getHitCount);
+        Metrics.gauge("cache.miss", cache::getMissCount);
+        Metrics.gauge("cache.eviction", cache::getEvictionCount);
+        Metrics.gauge("cache.invalidation", cache::getInvalidationCount);
+        Metrics.gauge("cache.bytes", cache::getSizeBytes);
+    }
+
+    // 单个后台线程：写操作天然串行，读操作也能看到之前提交的写入
+    private static Executor createIoExecutor() {
+        return createSingleThreadExecutor("event-repository", Thread.NORM_PRIORITY - 1);
+    }
+
+    // 导入导出的线程，优先级低于读写线程，多次导入导出之间按提交顺序执行
+    private static Executor createTransferExecutor() {
+        return createSingleThreadExecutor("event-transfer", Thread.MIN_PRIORITY);
+    }
+
+    private static Executor createSingleThreadExecutor(String name, int priority) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                1, 1, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, name);
+                    thread.setPriority(priority);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    // 闹钟由 AlarmManager 实现，调度状态保存在 SharedPreferences 中
+    private static ReminderScheduler createReminderScheduler(Context context, EventStore store) {
+        SharedPreferences preferences = context.getSharedPreferences("reminders", Context.MODE_PRIVATE);
+        return new ReminderScheduler(store, new ReminderAlarm(context), System::currentTimeMillis,
+                new ReminderScheduler.Checkpoint() {
+                    @Override
+                    public long get(String key, long defaultValue) {
+                        return preferences.getLong(key, defaultValue);
+                    }
+
+                    @Override
+                    public void put(String key, long value) {
+                        preferences.edit().putLong(key, value).apply();
+                    }
+                });
+    }
+
+    // --- 读取（最新优先） ---
+
+    public void loadDay(long startOfDay, long endOfDay, Callback<List<Event>> callback) {
+        List<Event> cached = cache.getDay(startOfDay, endOfDay);
+        if (cached != null) {
+            dayQuery.cancel(); // 让排队中的旧查询失效
+            callback.onResult(cached);
+            return;
+        }
+        runLatest(dayQuery, () -> {
+            List<Event> events = store.getEventsByDay(startOfDay, endOfDay);
+            cache.putDay(startOfDay, endOfDay, events);
+            return events;
+        }, callback);
+    }
+
+    public void loadMonth(long[] dayBoundaries, Callback<MonthSnapshot> callback) {
+        long rangeStart = dayBoundaries[0];
+        long rangeEnd = dayBoundaries[dayBoundaries.length - 1] - 1;
+        MonthSnapshot cached = cache.getMonth(rangeStart, rangeEnd);
+        if (cached != null) {
+            monthQuery.cancel();
+            callback.onResult(cached);
+            return;
+        }
+        runLatest(monthQuery, () -> {
+            MonthSnapshot snapshot = store.getMonthSnapshot(dayBoundaries);
+            cache.putMonth(snapshot);
+            return snapshot;
+        }, callback);
+    }
+
+    /**
+     * 加载 [windowStart, windowEnd) 内的忙闲表，用于查找空闲时段。不经过缓存：窗口通常不是整月。
+     */
+    public void loadFreeBusy(long windowStart, long windowEnd, Callback<FreeBusy> callback) {
+        runLatest(freeBusyQuery,
+                () -> FreeBusy.of(store.getEventsInRange(windowStart, windowEnd - 1), windowStart, windowEnd),
+                callback);
+    }
+
+    /**
+     * 查找与 [start, end) 冲突的日程（半开区间，规则与 IntervalIndex 相同），排除 id 为 excludeId 的日程。
+     * 用于时间段不在当前月份快照内的情况；连续修改时间时只回调最后一次。
+     */
+    public void findConflicts(long start, long end, int excludeId, Callback<List<Event>> callback) {
+        runLatest(conflictQuery, () -> {
+            List<Event> conflicts = new ArrayList<>();
+            IntervalIndex.of(store.getEventsInRange(start, Math.max(end, start + 1) - 1))
+                    .collect(start, end, excludeId, conflicts);
+            return conflicts;
+        }, callback);
+    }
+
+    /**
+     * 加载一段日期（日视图为 1 天，周视图为 7 天）的时间轴：读取范围内的日程后在后台线程排好列，
+     * 主线程只负责绘制。连续翻页时只回调最后一次。
+     */
+    public void loadTimeline(long[] dayBoundaries, Callback<TimelineLayout> callback) {
+        long rangeStart = dayBoundaries[0];
+        long rangeEnd = dayBoundaries[dayBoundaries.length - 1] - 1;
+        runLatest(timelineQuery, () -> {
+            List<Event> events = store.getEventsInRange(rangeStart, rangeEnd);
+            long begin = Metrics.start();
+            TimelineLayout layout = ColumnPacker.pack(events, dayBoundaries);
+            TIMELINE_PACK_TIME.recordSince(begin);
+            return layout;
+        }, callback);
+    }
+
+    /**
+     * 预取某段日期的数据放入缓存，不回调。已缓存时什么都不做；
+     * 最多保留 MAX_PENDING_PREFETCHES 个等待中的预取，快速翻页时不会积压。
+     * 每次只加载一个月，加载完再排到队尾，不会连续占用后台线程。
+     */
+    public void prefetchMonth(long[] dayBoundaries) {
+        long rangeStart = dayBoundaries[0];
+        long rangeEnd = dayBoundaries[dayBoundaries.length - 1] - 1;
+        if (cache.containsMonth(rangeStart, rangeEnd)) return;
+        synchronized (pendingPrefetches) {
+            if (pendingPrefetches.size() == MAX_PENDING_PREFETCHES) pendingPrefetches.poll();
+            pendingPrefetches.add(dayBoundaries);
+        }
+        schedulePrefetch();
+    }
+
+    // 放弃所有排队中的预取，通常在开始新一轮预取前调用
+    public void cancelPrefetch() {
+        synchronized (pendingPrefetches) {
+            pendingPrefetches.clear();
+        }
+        prefetchSlot.clear();
+    }
+
+    private void schedulePrefetch() {
+        try {
+            prefetchSlot.submit(ioExecutor, this::prefetchNext);
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "队列已满，放弃预取", e);
+        }
+    }
+
+    private void prefetchNext() {
+        long[] dayBoundaries;
+        boolean more;
+        synchronized (pendingPrefetches) {
+            dayBoundaries = pendingPrefetches.poll();
+            more = !pendingPrefetches.isEmpty();
+        }
+        if (dayBoundaries == null) return;
+        try {
+            cache.putMonth(store.getMonthSnapshot(dayBoundaries));
+        } catch (Exception e) {
+            Log.w(TAG, "预取失败", e); // 预取失败不影响正常加载
+        }
+        if (more) schedulePrefetch();
+    }
+
+    // 放弃所有尚未回调的按天查询
+    public void cancelDayQuery() {
+        dayQuery.cancel();
+    }
+
+    // 放弃所有尚未回调的按月查询
+    public void cancelMonthQuery() {
+        monthQuery.cancel();
+    }
+
+    // 放弃尚未回调的冲突查询
+    public void cancelConflictQuery() {
+        conflictQuery.cancel();
+    }
+
+    // 放弃尚未回调的时间轴加载
+    public void cancelTimelineQuery() {
+        timelineQuery.cancel();
+    }
+
+    // --- 写入（串行，不丢弃） ---
+
+    public void addEvent(Event event, Callback<Long> callback) {
+        runWrite(() -> {
+            long id = store.addEvent(event);
+            cache.invalidate(event);
+            if (reminders != null) reminders.onEventsAdded(Collections.singletonList(event));
+            return id;
+        }, callback);
+    }
+
+    public void addEvents(List<Event> events, Callback<Integer> callback) {
+        runWrite(() -> {
+            int count = store.addEvents(events);
+            cache.invalidateAll(events);
+            if (reminders != null) reminders.onEventsAdded(events);
+            return count;
+        }, callback);
+    }
+
+    public void updateEvent(Event event, Callback<Boolean> callback) {
+        runWrite(() -> {
+            boolean updated = store.updateEvent(event);
+            cache.invalidate(event);
+            updateReminders(updated);
+            return updated;
+        }, callback);
+    }
+
+    public void updateEvents(List<Event> events, Callback<Integer> callback) {
+        runWrite(() -> {
+            int count = store.updateEvents(events);
+            cache.invalidateAll(events);
+            updateReminders(count > 0);
+            return count;
+        }, callback);
+    }
+
+    public void deleteEvent(Event event, Callback<Boolean> callback) {
+        runWrite(() -> {
+            boolean deleted = store.deleteEvent(event.getId());
+            cache.invalidate(event);
+            updateReminders(deleted);
+            return deleted;
+        }, callback);
+    }
+
+    // 只删除重复日程中的某一次
+    public void deleteOccurrence(Event occurrence, Callback<Boolean> callback) {
+        runWrite(() -> {
+            boolean deleted = store.deleteOccurrence(occurrence);
+            cache.invalidate(occurrence);
+            updateReminders(deleted);
+            return deleted;
+        }, callback);
+    }
+
+    public void deleteEvents(List<Event> events, Callback<Integer> callback) {
+        runWrite(() -> {
+            int count = store.deleteEvents(events);
+            cache.invalidateAll(events);
+            updateReminders(count > 0);
+            return count;
+        }, callback);
+    }
+
+    // --- .ics 导入导出（在 transferExecutor 上执行，每个批次是一个事务，批次之间其他读写可以进行） ---
+
+    /**
+     * 导入 .ics，完成后关闭 in。进度在主线程回调，每提交一个批次一次。
+     */
+    public void importIcs(InputStream in, IcsTransfer.ProgressListener progress,
+                          Callback<IcsTransfer.ImportResult> callback) {
+        try {
+            transferExecutor.execute(() -> {
+                IcsTransfer.ImportResult result = null;
+                Exception error = null;
+                try {
+                    result = IcsTransfer.importFrom(store, in, IcsTransfer.DEFAULT_BATCH_SIZE, progress == null ? null
+                            : (imported, bytesRead) -> mainExecutor.execute(() -> progress.onProgress(imported, bytesRead)));
+                } catch (Exception e) {
+                    error = e;
+                }
+                IcsTransfer.ImportResult imported = result;
+                Exception failure = error;
+                // 导入可能涉及任意月份，中途失败时已提交的批次也要可见。在读写线程上清空缓存，
+                // 导入期间读到并放入缓存的旧结果都会被清掉，之后的读取一定能看到全部已提交的批次
+                runWrite(() -> {
+                    cache.clear();
+                    updateReminders(true);
+                    if (failure != null) throw failure;
+                    return imported;
+                }, callback);
+            });
+        } catch (RejectedExecutionException e) {
+            closeQuietly(in);
+            if (callback != null) mainExecutor.execute(() -> callback.onError(e));
+        }
+    }
+
+    // 导出全部日程，完成后关闭 out，回调写出的条数
+    public void exportIcs(OutputStream out, Callback<Integer> callback) {
+        if (!run(transferExecutor, () -> IcsTransfer.exportTo(store, out), callback)) {
+            closeQuietly(out);
+        }
+    }
+
+    // 导入导出没能排进队列时由这里关闭流，否则由 IcsTransfer 关闭
+    private static void closeQuietly(Closeable stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            Log.w(TAG, "关闭流失败", e);
+        }
+    }
+
+    // --- 提醒 ---
+
+    /**
+     * 闹钟到点时调用：在后台线程取出到期的提醒并交给 notifier，回调送达的条数。
+     * 排在写队列中，不会与修改日程交错。
+     */
+    public void deliverReminders(ReminderScheduler.Notifier notifier, Callback<Integer> callback) {
+        runWrite(() -> {
+            if (reminders == null) return 0;
+            List<Event> due = reminders.deliverDue();
+            if (!due.isEmpty()) notifier.post(due);
+            return due.size();
+        }, callback);
+    }
+
+    // 重新计算提醒闹钟，例如应用启动时（覆盖升级前按日程登记的闹钟）
+    public void rescheduleReminders() {
+        runWrite(() -> {
+            updateReminders(true);
+            return null;
+        }, null);
+    }
+
+    // 系统闹钟可能已经丢失时调用（开机、系统时间或时区变化），完成后回调
+    public void restoreReminders(Callback<Void> callback) {
+        runWrite(() -> {
+            if (reminders != null) reminders.restore();
+            return null;
+        }, callback);
+    }
+
+    private void updateReminders(boolean changed) {
+        if (changed && reminders != null) reminders.reschedule();
+    }
+
+    // --- 搜索 ---
+
+    /**
+     * 创建一个搜索会话，scheduler 用于输入防抖（应用中是主线程 Handler）。
+     */
+    public EventSearch newSearch(MonthPrefetcher.Scheduler scheduler, EventSearch.Listener listener) {
+        return new EventSearch(store, ioExecutor, mainExecutor, scheduler, listener);
+    }
+
+    // --- 议程列表 ---
+
+    // 创建一个议程分页会话，与其他读写共用同一个后台线程
+    public AgendaPager newAgenda(AgendaPager.Listener listener) {
+        return new AgendaPager(store, ioExecutor, mainExecutor, listener);
+    }
+
+    private <T> void runLatest(LatestQuery query, Callable<T> read, Callback<T> callback) {
+        AtomicLong generation = query.generation;
+        long token = generation.incrementAndGet();
+        try {
+            query.slot.submit(ioExecutor, () -> {
+                if (generation.get() != token) return; // 已被取消
+                try {
+                    T result = read.call();
+                    mainExecutor.execute(() -> {
+                        if (generation.get() == token) {
+                            callback.onResult(result);
+                        }
+                    });
+                } catch (Exception e) {
+                    mainExecutor.execute(() -> {
+                        if (generation.get() == token) {
+                            callback.onError(e);
+                        }
+                    });
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            mainExecutor.execute(() -> {
+                if (generation.get() == token) {
+                    callback.onError(e);
+                }
+            });
+        }
+    }
+
+    private <T> void runWrite(Callable<T> write, Callback<T> callback) {
+        run(ioExecutor, write, callback);
+    }
+
+    // 返回 false 表示队列已满、task 不会执行（已经回调 onError）
+    private <T> boolean run(Executor executor, Callable<T> task, Callback<T> callback) {
+        try {
+            executor.execute(() -> {
+                try {
+                    T result = task.call();
+                    if (callback != null) {
+                        mainExecutor.execute(() -> callback.onResult(result));
+                    }
+                } catch (Exception e) {
+                    if (callback != null) {
+                        mainExecutor.execute(() -> callback.onError(e));
+                    }
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            if (callback != null) {
+                mainExecutor.execute(() -> callback.onError(e));
+            } else {
+                Log.e(TAG, "队列已满，任务未执行", e);
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.mycalendarapp.repository;
+
+import android.util.Log;
+import com.example.mycalendarapp.database.EventStore;
+import com.example.mycalendarapp.model.Event;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 边输入边搜索。除了回调，所有方法都只能在主线程调用。
+ *
+ * - 防抖：输入停顿 DEBOUNCE_MS 后才真正查询，连续输入只查最后一次；
+ * - 取消：新的输入会让正在执行的搜索在下一次检查时放弃，旧结果也不会再回调；
+ * - 分页：一次搜索得到按相关度排序的全部 id，日程本身按 PAGE_SIZE 分页读取。
+ */
+public class EventSearch {
+    public static final long DEBOUNCE_MS = 200;
+    public static final int PAGE_SIZE = 50;
+
+    private static final String TAG = "EventSearch";
+
+    public interface Listener {
+        /**
+         * @param events  这一页的日程
+         * @param reset   true 表示新查询的第一页，应替换已显示的结果；false 表示追加
+         * @param total   匹配的总数
+         * @param hasMore 是否还有下一页
+         */
+        void onResults(List<Event> events, boolean reset, int total, boolean hasMore);
+
+        default void onError(Exception e) {
+            Log.e(TAG, "加载失败", e);
+        }
+    }
+
+    private final EventStore store;
+    private final Executor ioExecutor;
+    private final Executor mainExecutor;
+    private final MonthPrefetcher.Scheduler scheduler;
+    private final Listener listener;
+    private final Runnable searchTask = this::search;
+
+    // 每次输入变化时递增，后台任务据此判断自己是否已经过期
+    private final AtomicLong generation = new AtomicLong();
+
+    private String query = "";
+    private boolean pending;
+    private int[] rankedIds = new int[0];
+    private int nextIndex;   // 下一页从 rankedIds 的哪个位置开始
+    private boolean loading;
+
+    EventSearch(EventStore store, Executor ioExecutor, Executor mainExecutor,
+                MonthPrefetcher.Scheduler scheduler, Listener listener) {
+        this.store = store;
+        this.ioExecutor = ioExecutor;
+        this.mainExecutor = mainExecutor;
+        this.scheduler = scheduler;
+        this.listener = listener;
+    }
+
+    // 输入变化时调用
+    public void setQuery(String text) {
+        String trimmed = text == null ? "" : text.trim();
+        if (trimmed.equals(query)) return; // 只是增删了首尾空格
+        query = trimmed;
+        invalidate();
+        if (trimmed.isEmpty()) {
+            listener.onResults(Collections.emptyList(), true, 0, false);
+            return;
+        }
+        pending = true;
+        scheduler.schedule(searchTask, DEBOUNCE_MS);
+    }
+
+    // 列表滚动到接近末尾时调用，加载下一页
+    public void loadMore() {
+        if (pending || loading || nextIndex >= rankedIds.length) return;
+        loading = true;
+        long token = generation.get();
+        int[] ids = rankedIds;
+        int from = nextIndex;
+        int to = Math.min(ids.length, from + PAGE_SIZE);
+        runIo(token, () -> {
+            List<Event> page = store.getEventsByIds(ids, from, to);
+            return () -> {
+                loading = false;
+                nextIndex = to;
+                listener.onResults(page, false, ids.length, to < ids.length);
+            };
+        });
+    }
+
+    // 放弃等待中的和正在执行的搜索，离开搜索界面时调用
+    public void cancel() {
+        query = "";
+        invalidate();
+    }
+
+    public int getResultCount() {
+        return rankedIds.length;
+    }
+
+    private void invalidate() {
+        generation.incrementAndGet();
+        if (pending) {
+            scheduler.cancel(searchTask);
+            pending = false;
+        }
+        loading = false;
+        rankedIds = new int[0];
+        nextIndex = 0;
+    }
+
+    private void search() {
+        pending = false;
+        loading = true;
+        long token = generation.get();
+        String text = query;
+        runIo(token, () -> {
+            int[] ids = store.searchEventIds(text, () -> generation.get() != token);
+            if (ids == null) return null; // 已被新的输入取代
+            int to = Math.min(ids.length, PAGE_SIZE);
+            List<Event> firstPage = store.getEventsByIds(ids, 0, to);
+            return () -> {
+                loading = false;
+                rankedIds = ids;
+                nextIndex = to;
+                listener.onResults(firstPage, true, ids.length, to < ids.length);
+            };
+        });
+    }
+
+    // 后台任务返回要在主线程执行的动作；主线程执行前再次确认没有过期
+    private interface IoTask {
+        Runnable run() throws Exception;
+    }
+
+    private void runIo(long token, IoTask task) {
+        try {
+            ioExecutor.execute(() -> {
+                if (generation.get() != token) return; // 排队期间已有新的输入
+                try {
+                    Runnable onMain = task.run();
+                    if (onMain == null) return;
+                    mainExecutor.execute(() -> {
+                        if (generation.get() == token) onMain.run();
+                    });
+                } catch (Exception e) {
+                    mainExecutor.execute(() -> {
+                        if (generation.get() != token) return;
+                        loading = false;
+                        listener.onError(e);
+                    });
+                }
+            });
+        } catch (RejectedExecutionException e) { // 队列已满
+            mainExecutor.execute(() -> {
+                if (generation.get() != token) return;
+                loading = false;
+                listener.onError(e);
+            });
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.mycalendarapp.repository;
+
+import com.example.mycalendarapp.database.EventStore;
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.utils.IcsParser;
+import com.example.mycalendarapp.utils.IcsWriter;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * .ics 文件的导入导出，在调用线程同步执行（由 EventRepository 放到后台线程）。
+ *
+ * 导入时边解析边写入：每攒够 batchSize 条调用一次 addEvents，在一个事务中提交，
+ * 内存中最多只有一个批次的日程。中途失败时已经提交的批次会保留。
+ * 导出时直接从数据库游标逐条写到输出流。
+ */
+public final class IcsTransfer {
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    public interface ProgressListener {
+        // imported 为已提交的日程数，bytesRead 为已读取的文件字节数
+        void onProgress(int imported, long bytesRead);
+    }
+
+    public static final class ImportResult {
+        public final int imported;
+        public final int skipped;          // 无法转换而跳过的 VEVENT
+        public final int unsupportedRules; // 重复规则不受支持、只导入了第一次的 VEVENT
+
+        ImportResult(int imported, int skipped, int unsupportedRules) {
+            this.imported = imported;
+            this.skipped = skipped;
+            this.unsupportedRules = unsupportedRules;
+        }
+    }
+
+    private IcsTransfer() {
+    }
+
+    /**
+     * 从 UTF-8 编码的 .ics 流导入，完成后关闭 in。
+     */
+    public static ImportResult importFrom(EventStore store, InputStream in, int batchSize,
+                                          ProgressListener listener) throws IOException {
+        if (batchSize <= 0) throw new IllegalArgumentException("batchSize must be positive");
+        CountingInputStream counting = new CountingInputStream(in);
+        List<Event> batch = new ArrayList<>(batchSize);
+        int imported = 0;
+        try (IcsParser parser = new IcsParser(new BufferedReader(
+                new InputStreamReader(counting, StandardCharsets.UTF_8), 64 * 1024))) {
+            Event event;
+            while ((event = parser.next()) != null) {
+                batch.add(event);
+                if (batch.size() == batchSize) {
+                    imported += store.addEvents(batch);
+                    batch.clear();
+                    if (listener != null) listener.onProgress(imported, counting.count);
+                }
+            }
+            if (!batch.isEmpty()) {
+                imported += store.addEvents(batch);
+                batch.clear();
+            }
+            if (listener != null) listener.onProgress(imported, counting.count);
+            return new ImportResult(imported, parser.getSkippedCount(), parser.getUnsupportedRuleCount());
+        }
+    }
+
+    /**
+     * 把全部日程写到 out（UTF-8），完成后关闭 out，返回写出的条数。
+     */
+    public static int exportTo(EventStore store, OutputStream out) throws IOException {
+        try (IcsWriter writer = new IcsWriter(new BufferedWriter(
+                new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024))) {
+            writer.begin();
+            store.forEachEvent(writer::write);
+            writer.end();
+            return writer.getWrittenCount();
+        }
+    }
+
+    // 统计已读取的字节数，用于显示进度
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.mycalendarapp.repository;
+
+/**
+ * 翻页后的空闲时间里预取前后两个月的数据。
+ *
+ * 每次显示新的月份都会取消尚未执行的预取任务并重新计时，只有停留超过
+ * IDLE_DELAY_MS 后才真正开始加载，所以连续快速翻页不会堆积大量无用的加载。
+ */
+public class MonthPrefetcher {
+    public static final long IDLE_DELAY_MS = 400;
+
+    // 延迟执行任务，应用中用主线程 Handler 实现，测试中可以手动触发
+    public interface Scheduler {
+        void schedule(Runnable task, long delayMillis);
+
+        void cancel(Runnable task);
+    }
+
+    // 实际的加载动作，month 从 0 开始
+    public interface Loader {
+        void prefetch(int year, int month);
+    }
+
+    private final Scheduler scheduler;
+    private final Loader loader;
+    private final Runnable prefetchTask = this::prefetchNeighbours;
+
+    private int currentYear;
+    private int currentMonth;
+    private boolean pending;
+
+    public MonthPrefetcher(Scheduler scheduler, Loader loader) {
+        this.scheduler = scheduler;
+        this.loader = loader;
+    }
+
+    // 当前显示的月份变化时调用（month 从 0 开始）
+    public void onMonthShown(int year, int month) {
+        currentYear = year;
+        currentMonth = month;
+        if (pending) {
+            scheduler.cancel(prefetchTask);
+        }
+        pending = true;
+        scheduler.schedule(prefetchTask, IDLE_DELAY_MS);
+    }
+
+    public void cancel() {
+        if (pending) {
+            scheduler.cancel(prefetchTask);
+            pending = false;
+        }
+    }
+
+    private void prefetchNeighbours() {
+        pending = false;
+        int index = currentYear * 12 + currentMonth;
+        // 先加载下个月：向后翻页更常见
+        loader.prefetch(Math.floorDiv(index + 1, 12), Math.floorMod(index + 1, 12));
+        loader.prefetch(Math.floorDiv(index - 1, 12), Math.floorMod(index - 1, 12));
+    }
+}
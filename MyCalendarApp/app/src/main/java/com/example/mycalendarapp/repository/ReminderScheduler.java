@@ -0,0 +1,141 @@
+package com.example.mycalendarapp.repository;
+
+import com.example.mycalendarapp.database.EventStore;
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.model.ReminderTimes;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 提醒调度：不论有多少日程，系统中只登记一个闹钟，指向下一个尚未送达的提醒。
+ *
+ * 闹钟到点时 deliverDue() 取出上次送达之后到现在的全部提醒（闹钟被推迟时也不会漏掉），
+ * 再按提醒时间索引查出下一个提醒并重新设置闹钟。日程变化时：
+ * - 新增只需和已登记的时间比较，不查询数据库；
+ * - 修改和删除重新查询一次下一个提醒时间（索引查找，O(log n)）。
+ * 重复系列的下一次提醒时间由 DatabaseHelper 存在索引列中，每次查询前只重算已经过去的那几个系列。
+ *
+ * 已送达的位置和当前登记的闹钟时间保存在 Checkpoint 中，进程被杀后仍然有效。
+ * 方法会访问数据库，应在后台线程调用（EventRepository 在写队列中调用）。
+ */
+public class ReminderScheduler {
+    // 错过太久的提醒（例如关机期间）不再补发
+    public static final long MAX_LATENESS_MS = 24 * 60 * 60 * 1000L;
+
+    static final String KEY_DELIVERED_UNTIL = "deliveredUntil";
+    static final String KEY_ARMED_AT = "armedAt";
+
+    public interface Clock {
+        long now();
+    }
+
+    // 唯一的系统闹钟，再次 set 会替换之前的时间
+    public interface Alarm {
+        void set(long triggerAtMillis);
+
+        void cancel();
+    }
+
+    // 持久化的调度状态，应用中是 SharedPreferences
+    public interface Checkpoint {
+        long get(String key, long defaultValue);
+
+        void put(String key, long value);
+    }
+
+    // 送达提醒（应用中是发出通知），在后台线程调用，一次传入同一批到期的全部提醒
+    public interface Notifier {
+        void post(List<Event> due);
+    }
+
+    private final EventStore store;
+    private final Alarm alarm;
+    private final Clock clock;
+    private final Checkpoint checkpoint;
+
+    // 本进程中最后一次交给 Alarm 的时间；进程重启后未知，需要重新设置一次
+    private long armedInProcess = Long.MIN_VALUE;
+
+    public ReminderScheduler(EventStore store, Alarm alarm, Clock clock, Checkpoint checkpoint) {
+        this.store = store;
+        this.alarm = alarm;
+        this.clock = clock;
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * 重新查询下一个提醒并设置闹钟，在修改、删除日程或系统时间变化后调用。
+     */
+    public synchronized void reschedule() {
+        long now = clock.now();
+        arm(store.getNextRemindTime(settle(now)));
+    }
+
+    /**
+     * 系统闹钟可能已经丢失时调用（开机、系统时间或时区变化）：重新计算并无条件重新设置闹钟。
+     * 关机期间错过的提醒会让闹钟立即触发，由 deliverDue() 补发。
+     */
+    public synchronized void restore() {
+        armedInProcess = Long.MIN_VALUE;
+        reschedule();
+    }
+
+    /**
+     * 新增日程后调用：只有比已登记的闹钟更早时才改动闹钟，不查询数据库。
+     */
+    public synchronized void onEventsAdded(List<Event> events) {
+        long now = clock.now();
+        settle(now);
+        long earliest = checkpoint.get(KEY_ARMED_AT, EventStore.NO_REMINDER);
+        for (Event event : events) {
+            long remindTime;
+            if (event.isRecurring()) {
+                Event next = ReminderTimes.next(event, now);
+                if (next == null) continue;
+                remindTime = next.getRemindTime();
+            } else {
+                remindTime = event.getRemindTime();
+            }
+            // 添加时已经过去的提醒不补发
+            if (remindTime > now && remindTime < earliest) earliest = remindTime;
+        }
+        arm(earliest);
+    }
+
+    /**
+     * 闹钟到点时调用：返回上次送达之后到现在应当送达的提醒（按提醒时间升序），并为下一个提醒设置闹钟。
+     */
+    public synchronized List<Event> deliverDue() {
+        long now = clock.now();
+        long from = Math.max(checkpoint.get(KEY_DELIVERED_UNTIL, now), now - MAX_LATENESS_MS);
+        List<Event> due = from < now ? store.getReminders(from, now) : Collections.emptyList();
+        checkpoint.put(KEY_DELIVERED_UNTIL, now);
+        arm(store.getNextRemindTime(now));
+        return due;
+    }
+
+    /**
+     * 返回应从哪个时间之后开始送达。
+     * 登记的闹钟还没到点时，之前的提醒都已处理过，把送达位置推进到 now，
+     * 这样改到过去的提醒不会被补发；闹钟已到点但 deliverDue() 尚未执行时保持不变，以免漏掉。
+     */
+    private long settle(long now) {
+        long armedAt = checkpoint.get(KEY_ARMED_AT, EventStore.NO_REMINDER);
+        if (armedAt <= now) {
+            return checkpoint.get(KEY_DELIVERED_UNTIL, now);
+        }
+        checkpoint.put(KEY_DELIVERED_UNTIL, now);
+        return now;
+    }
+
+    private void arm(long triggerAtMillis) {
+        if (triggerAtMillis == armedInProcess) return;
+        if (triggerAtMillis == EventStore.NO_REMINDER) {
+            alarm.cancel();
+        } else {
+            alarm.set(triggerAtMillis);
+        }
+        armedInProcess = triggerAtMillis;
+        checkpoint.put(KEY_ARMED_AT, triggerAtMillis);
+    }
+}
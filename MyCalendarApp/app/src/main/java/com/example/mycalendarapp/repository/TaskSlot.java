@@ -0,0 +1,39 @@
+package com.example.mycalendarapp.repository;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 一类后台任务在执行器队列中最多只占一个位置：排队期间再次提交时直接替换旧任务，
+ * 旧任务和它持有的回调立即释放，不必等出队后才被丢弃。
+ *
+ * 适用于“最新优先”的读取：被替换的任务本来也会因为过期而不执行。
+ */
+final class TaskSlot {
+    private final AtomicReference<Runnable> pending = new AtomicReference<>();
+    private final Runnable drain = this::drain;
+
+    /**
+     * 提交 task。队列中已有这一类的任务时只替换它，不再向 executor 排队；
+     * executor 拒绝时（队列已满）抛出异常，task 不会执行。
+     */
+    void submit(Executor executor, Runnable task) {
+        if (pending.getAndSet(task) != null) return;
+        try {
+            executor.execute(drain);
+        } catch (RuntimeException e) {
+            pending.compareAndSet(task, null);
+            throw e;
+        }
+    }
+
+    // 放弃排队中的任务；队列中留下的位置出队时什么都不做
+    void clear() {
+        pending.set(null);
+    }
+
+    private void drain() {
+        Runnable task = pending.getAndSet(null);
+        if (task != null) task.run();
+    }
+}
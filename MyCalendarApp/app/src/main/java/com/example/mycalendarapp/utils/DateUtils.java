@@ -1,79 +1,305 @@
 package com.example.mycalendarapp.utils;
 
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Date;
-import java.util.Locale;
+import java.util.TimeZone;
 
+/**
+ * 日期工具类。
+ *
+ * 格式化和日期边界计算都不再创建 SimpleDateFormat / Calendar / Date：
+ * 时区偏移直接从缓存的 TimeZone 读取，年月日用整数算法从“纪元日”（1970-01-01 起的天数）推出。
+ * append* / format*(..., char[]) 系列方法把结果写入调用方复用的缓冲区，完全不分配内存，
+ * 适合在 onBindViewHolder 等热点路径中使用。
+ */
 public class DateUtils {
 
+    public static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+    // formatTimeRange 输出 "HH:mm - HH:mm" 的长度
+    public static final int TIME_RANGE_LENGTH = 13;
+    // formatDateTimeRange 输出 "yyyy年MM月dd日 HH:mm - HH:mm" 的长度
+    public static final int DATE_TIME_RANGE_LENGTH = 25;
+
+    private static final long MILLIS_PER_MINUTE = 60 * 1000L;
+    private static final long TRANSITION_WINDOW = 6 * 60 * 60 * 1000L;
+
+    // TimeZone.getDefault() 每次都会复制一个对象，这里缓存起来；时区变化后需调用 resetTimeZone
+    private static volatile TimeZone timeZone = TimeZone.getDefault();
+
+    // 返回 String 的方法共用的每线程缓冲区
+    private static final ThreadLocal<StringBuilder> BUILDER = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(16);
+        }
+    };
+
+    // 系统时区变化后调用，重新读取默认时区
+    public static void resetTimeZone() {
+        timeZone = TimeZone.getDefault();
+    }
+
+    // 当前使用的时区，例如判断按本地时间算出的结果是否需要重算
+    public static String getTimeZoneId() {
+        return timeZone.getID();
+    }
+
     // 格式化日期为 "yyyy年MM月dd日"
     public static String formatDate(long timeInMillis) {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy年MM月dd日", Locale.getDefault());
-        return sdf.format(new Date(timeInMillis));
+        StringBuilder sb = BUILDER.get();
+        sb.setLength(0);
+        appendDate(sb, timeInMillis);
+        return sb.toString();
     }
 
     // 格式化时间为 "HH:mm"
     public static String formatTime(long timeInMillis) {
-        SimpleDateFormat sdf = new SimpleDateFormat("HH:mm", Locale.getDefault());
-        return sdf.format(new Date(timeInMillis));
+        StringBuilder sb = BUILDER.get();
+        sb.setLength(0);
+        appendTime(sb, timeInMillis);
+        return sb.toString();
+    }
+
+    // 把 "yyyy年MM月dd日" 追加到 sb，不分配内存
+    public static void appendDate(StringBuilder sb, long timeInMillis) {
+        int ymd = toYmd(getEpochDay(timeInMillis));
+        appendDigits(sb, ymdYear(ymd), 4);
+        sb.append('年');
+        appendDigits(sb, ymdMonth(ymd), 2);
+        sb.append('月');
+        appendDigits(sb, ymdDay(ymd), 2);
+        sb.append('日');
+    }
+
+    // 把 "HH:mm" 追加到 sb，不分配内存
+    public static void appendTime(StringBuilder sb, long timeInMillis) {
+        int minuteOfDay = getMinuteOfDay(timeInMillis);
+        appendDigits(sb, minuteOfDay / 60, 2);
+        sb.append(':');
+        appendDigits(sb, minuteOfDay % 60, 2);
+    }
+
+    /**
+     * 把 "HH:mm - HH:mm" 写入 dst（长度至少 TIME_RANGE_LENGTH），返回写入的字符数。
+     * 配合 TextView.setText(char[], int, int) 使用时整个绑定过程不分配内存。
+     */
+    public static int formatTimeRange(long startMillis, long endMillis, char[] dst) {
+        int pos = writeTime(dst, 0, getMinuteOfDay(startMillis));
+        dst[pos++] = ' ';
+        dst[pos++] = '-';
+        dst[pos++] = ' ';
+        return writeTime(dst, pos, getMinuteOfDay(endMillis));
+    }
+
+    /**
+     * 把 "yyyy年MM月dd日 HH:mm - HH:mm" 写入 dst（长度至少 DATE_TIME_RANGE_LENGTH），返回写入的字符数。
+     * 日期取开始时间所在的那一天，用于搜索结果等跨越多天的列表。
+     */
+    public static int formatDateTimeRange(long startMillis, long endMillis, char[] dst) {
+        int ymd = toYmd(getEpochDay(startMillis));
+        int year = ymdYear(ymd);
+        int pos = 0;
+        for (int divisor = 1000; divisor > 0; divisor /= 10) {
+            dst[pos++] = (char) ('0' + year / divisor % 10);
+        }
+        dst[pos++] = '年';
+        pos = writeTwoDigits(dst, pos, ymdMonth(ymd));
+        dst[pos++] = '月';
+        pos = writeTwoDigits(dst, pos, ymdDay(ymd));
+        dst[pos++] = '日';
+        dst[pos++] = ' ';
+        pos = writeTime(dst, pos, getMinuteOfDay(startMillis));
+        dst[pos++] = ' ';
+        dst[pos++] = '-';
+        dst[pos++] = ' ';
+        return writeTime(dst, pos, getMinuteOfDay(endMillis));
     }
 
     // 获取当天的开始时间 (00:00:00)
     public static long getStartOfDay(long timeInMillis) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTimeInMillis(timeInMillis);
-        calendar.set(Calendar.HOUR_OF_DAY, 0);
-        calendar.set(Calendar.MINUTE, 0);
-        calendar.set(Calendar.SECOND, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-        return calendar.getTimeInMillis();
+        return startOfEpochDay(getEpochDay(timeInMillis));
     }
 
-    // 获取当天的结束时间 (23:59:59)
+    // 获取当天的结束时间 (23:59:59.999)，即第二天开始前的最后一毫秒
     public static long getEndOfDay(long timeInMillis) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTimeInMillis(timeInMillis);
-        calendar.set(Calendar.HOUR_OF_DAY, 23);
-        calendar.set(Calendar.MINUTE, 59);
-        calendar.set(Calendar.SECOND, 59);
-        calendar.set(Calendar.MILLISECOND, 999);
-        return calendar.getTimeInMillis();
+        return startOfEpochDay(getEpochDay(timeInMillis) + 1) - 1;
     }
 
-    // --- 扩展要求：农历相关实现 ---
+    // 获取某月每一天的开始时间，最后一个元素是下个月 1 日的开始时间（month 从 0 开始）
+    public static long[] getMonthDayBoundaries(int year, int month) {
+        long firstDay = epochDayOf(year, month + 1, 1);
+        int daysInMonth = daysInMonth(year, month + 1);
+        long[] boundaries = new long[daysInMonth + 1];
+        for (int i = 0; i <= daysInMonth; i++) {
+            boundaries[i] = startOfEpochDay(firstDay + i);
+        }
+        return boundaries;
+    }
+
+    // --- 纪元日与本地时间换算 ---
+
+    // 时间戳在本地时区对应的纪元日（1970-01-01 为 0）
+    public static long getEpochDay(long timeInMillis) {
+        long local = timeInMillis + timeZone.getOffset(timeInMillis);
+        return Math.floorDiv(local, MILLIS_PER_DAY);
+    }
 
     /**
-     * 获取简化的农历字符串
-     * 注意：完整的农历算法代码量很大，这里为了课程设计演示，
-     * 使用一个简化的模拟逻辑，或者你可以引入开源库如 'ChineseCalendar'
+     * 本地时区中某个纪元日 00:00 对应的时间戳。
+     * 零点因夏令时跳变不存在时顺延到跳变后；零点出现两次时取第一次，保证 getStartOfDay(t) <= t。
      */
-    public static String getLunarDate(int year, int month, int day) {
-        // 实际开发中，这里通常会调用一个包含1900-2100年数据的 Lunar 类
-        // 下面是一个返回演示文本的示例逻辑
+    public static long startOfEpochDay(long epochDay) {
+        return localToUtc(timeZone, epochDay * MILLIS_PER_DAY);
+    }
+
+    // 时间戳在本地时区是当天的第几分钟
+    public static int getMinuteOfDay(long timeInMillis) {
+        long local = timeInMillis + timeZone.getOffset(timeInMillis);
+        return (int) (Math.floorMod(local, MILLIS_PER_DAY) / MILLIS_PER_MINUTE);
+    }
+
+    // 时间戳转为本地“墙上时间”（把本地时间当作 UTC 表示的毫秒数）
+    public static long toLocalMillis(long timeInMillis) {
+        return timeInMillis + timeZone.getOffset(timeInMillis);
+    }
 
-        // 模拟逻辑：假设1月1日是农历正月初一（实际不是）
-        Calendar cal = Calendar.getInstance();
-        cal.set(year, month - 1, day); // month is 0-based in Calendar
+    // toLocalMillis 的逆运算；不存在或重复的本地时间按 startOfEpochDay 的规则处理
+    public static long fromLocalMillis(long localMillis) {
+        return localToUtc(timeZone, localMillis);
+    }
+
+    // 同上，但按指定时区换算，用于导入带 TZID 的时间
+    public static long fromLocalMillis(TimeZone zone, long localMillis) {
+        return localToUtc(zone, localMillis);
+    }
 
-        // 这里为了演示，我们硬编码几个节日，真实逻辑需查表
-        int dayOfYear = cal.get(Calendar.DAY_OF_YEAR);
+    // 本地“墙上时间”转为时间戳
+    private static long localToUtc(TimeZone zone, long local) {
+        long approx = local - zone.getRawOffset();
+        int earlyOffset = zone.getOffset(approx - TRANSITION_WINDOW);
+        int lateOffset = zone.getOffset(approx + TRANSITION_WINDOW);
+        if (earlyOffset == lateOffset) {
+            return local - earlyOffset; // 附近没有时区跳变，最常见的情况
+        }
+        long early = local - earlyOffset;
+        if (zone.getOffset(early) == earlyOffset) {
+            return early; // 正常时间，或回拨时重复出现的时间取第一次
+        }
+        long late = local - lateOffset;
+        if (zone.getOffset(late) == lateOffset) {
+            return late;
+        }
+        return early; // 跳变中不存在的时间，按跳变前的偏移换算，相当于向后顺延
+    }
 
-        if (month == 1 && day == 1) return "元旦";
-        if (month == 2 && day == 14) return "情人";
+    // --- 公历日期算法（proleptic Gregorian，月份从 1 开始） ---
 
-        // 这里的返回值只是示例，实际需要复杂的农历计算类
-        // 如果你想省事，可以返回 "农历" + day;
-        return "腊" + (30 - day); // 仅作演示数据
+    // 年月日对应的纪元日
+    public static long epochDayOf(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        int shiftedMonth = month > 2 ? month - 3 : month + 9;
+        long dayOfYear = (153L * shiftedMonth + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
     }
 
     /**
-     * (推荐) 真实的农历转换参考逻辑
-     * 如果要实现完整功能，请创建一个 Lunar 类，包含 LunarYearData 数组
-     * 然后通过位运算计算。鉴于篇幅，这里提供接口设计。
+     * 纪元日转为打包的年月日：year << 9 | month << 5 | day，
+     * 用 ymdYear / ymdMonth / ymdDay 解包，避免返回对象。
      */
+    public static int toYmd(long epochDay) {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+        int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+        return year << 9 | month << 5 | day;
+    }
+
+    public static int ymdYear(int ymd) {
+        return ymd >> 9;
+    }
+
+    public static int ymdMonth(int ymd) {
+        return (ymd >> 5) & 0xF;
+    }
+
+    public static int ymdDay(int ymd) {
+        return ymd & 0x1F;
+    }
+
+    // 星期几：0 = 周日 ... 6 = 周六
+    public static int dayOfWeek(long epochDay) {
+        return Math.floorMod(epochDay + 4, 7); // 1970-01-01 是周四
+    }
+
+    public static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    // month 从 1 开始
+    public static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static int writeTime(char[] dst, int pos, int minuteOfDay) {
+        pos = writeTwoDigits(dst, pos, minuteOfDay / 60);
+        dst[pos++] = ':';
+        return writeTwoDigits(dst, pos, minuteOfDay % 60);
+    }
+
+    private static int writeTwoDigits(char[] dst, int pos, int value) {
+        dst[pos++] = (char) ('0' + value / 10);
+        dst[pos++] = (char) ('0' + value % 10);
+        return pos;
+    }
+
+    // 追加至少 width 位的十进制数字，不足补零
+    private static void appendDigits(StringBuilder sb, int value, int width) {
+        if (value < 0) {
+            sb.append('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (int v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        for (int i = digits; i < width; i++) {
+            sb.append('0');
+        }
+        sb.append(value); // StringBuilder.append(int) 直接写入数字字符，不创建 String
+    }
+
+    // --- 扩展要求：农历相关实现 ---
+
+    /**
+     * 获取日历格子中显示的农历文字（month 从 1 开始）：
+     * 传统节日优先，每月初一显示月份（如“二月”），其余显示日期（如“十五”）。
+     * 超出 LunarCalendar 支持的年份范围时返回空字符串。
+     */
+    public static String getLunarDate(int year, int month, int day) {
+        return LunarCalendar.getLabel(epochDayOf(year, month, day));
+    }
+
+    // 完整的农历日期，例如 "甲辰年正月初一"
     public static String getChineseDate(Calendar calendar) {
-        // 调用外部库或者自己实现的 LunarCalendar.convert(calendar)
-        return "农历示例";
+        long epochDay = epochDayOf(calendar.get(Calendar.YEAR),
+                calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH));
+        return LunarCalendar.isSupported(epochDay) ? LunarCalendar.format(epochDay) : "";
     }
 }
@@ -0,0 +1,415 @@
+package com.example.mycalendarapp.utils;
+
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.model.RecurrenceRule;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * 流式 iCalendar (RFC 5545) 解析器：每次调用 next() 读取下一个 VEVENT 并转换为 Event。
+ *
+ * 只保存当前一行和当前事件的字段，内存占用与文件大小无关。
+ * 支持折行、TEXT 转义、UTC / TZID / 浮动时间、全天日期、DURATION、RRULE、EXDATE 和第一个 VALARM 的 TRIGGER。
+ * 不支持的 RRULE 只导入第一次；带 RECURRENCE-ID 的单次修改无法表示，直接跳过。
+ * VTIMEZONE 不解析，TZID 按系统时区数据库解释，不认识的 TZID 按本地时间处理。
+ */
+public final class IcsParser implements Closeable {
+    // 超过这个长度的逻辑行会被截断，防止异常文件占用过多内存
+    public static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    private static final long DAY = DateUtils.MILLIS_PER_DAY;
+    private static final String DEFAULT_TITLE = "无标题";
+
+    private final Reader reader;
+    private final StringBuilder line = new StringBuilder(256);
+    private int lookahead = -2; // -2 表示还没有读取
+    private final HashMap<String, TimeZone> zones = new HashMap<>();
+
+    // 当前属性行的解析结果
+    private String name;
+    private String value;
+    private String paramTzid;
+    private String paramValue;
+    private String paramRelated;
+
+    private int eventCount;
+    private int skippedCount;
+    private int unsupportedRuleCount;
+
+    public IcsParser(Reader reader) {
+        this.reader = reader;
+    }
+
+    // 成功转换的 VEVENT 数
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    // 缺少 DTSTART、时间无法解析或是单次修改 (RECURRENCE-ID) 而跳过的 VEVENT 数
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    // RRULE 不受支持、只导入了第一次的 VEVENT 数
+    public int getUnsupportedRuleCount() {
+        return unsupportedRuleCount;
+    }
+
+    /**
+     * 读取下一个 VEVENT，文件结束时返回 null。
+     */
+    public Event next() throws IOException {
+        while (readLine()) {
+            parseProperty();
+            if ("BEGIN".equals(name) && "VEVENT".equalsIgnoreCase(value)) {
+                Event event = readEvent();
+                if (event != null) {
+                    eventCount++;
+                    return event;
+                }
+                skippedCount++;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // 读到 END:VEVENT 为止，无法导入时返回 null
+    private Event readEvent() throws IOException {
+        String title = null;
+        String description = null;
+        String rrule = null;
+        String startText = null, startTzid = null, startValueType = null;
+        String endText = null, endTzid = null, endValueType = null;
+        String durationText = null;
+        String triggerText = null, triggerValueType = null, triggerRelated = null;
+        ArrayList<String> exdates = null;      // EXDATE 的值，与 exdateZones 一一对应
+        ArrayList<String> exdateZones = null;
+        boolean override = false;
+        boolean inAlarm = false;
+        boolean alarmSeen = false;
+        int nestedDepth = 0; // VALARM 以外的嵌套组件（忽略其内容）
+
+        while (readLine()) {
+            parseProperty();
+            if ("BEGIN".equals(name)) {
+                if (nestedDepth == 0 && !inAlarm && "VALARM".equalsIgnoreCase(value)) {
+                    inAlarm = true;
+                } else {
+                    nestedDepth++;
+                }
+                continue;
+            }
+            if ("END".equals(name)) {
+                if (nestedDepth > 0) {
+                    nestedDepth--;
+                } else if (inAlarm) {
+                    inAlarm = false;
+                    alarmSeen |= triggerText != null;
+                } else if ("VEVENT".equalsIgnoreCase(value)) {
+                    break;
+                }
+                continue;
+            }
+            if (nestedDepth > 0) continue;
+            if (inAlarm) {
+                if (!alarmSeen && "TRIGGER".equals(name)) {
+                    triggerText = value;
+                    triggerValueType = paramValue;
+                    triggerRelated = paramRelated;
+                }
+                continue;
+            }
+            switch (name) {
+                case "SUMMARY":
+                    title = unescape(value);
+                    break;
+                case "DESCRIPTION":
+                    description = unescape(value);
+                    break;
+                case "DTSTART":
+                    startText = value;
+                    startTzid = paramTzid;
+                    startValueType = paramValue;
+                    break;
+                case "DTEND":
+                    endText = value;
+                    endTzid = paramTzid;
+                    endValueType = paramValue;
+                    break;
+                case "DURATION":
+                    durationText = value;
+                    break;
+                case "RRULE":
+                    rrule = value;
+                    break;
+                case "EXDATE":
+                    if (exdates == null) {
+                        exdates = new ArrayList<>();
+                        exdateZones = new ArrayList<>();
+                    }
+                    exdates.add(value);
+                    exdateZones.add(paramTzid);
+                    break;
+                case "RECURRENCE-ID":
+                    override = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        if (startText == null || override) return null;
+        try {
+            boolean allDay = isDate(startText, startValueType);
+            long start = parseTime(startText, startTzid, allDay);
+            long end;
+            if (endText != null) {
+                end = parseTime(endText, endTzid, isDate(endText, endValueType));
+            } else if (durationText != null) {
+                end = start + parseDuration(durationText);
+            } else {
+                // 没有结束时间：全天日程持续一天，否则为零时长
+                end = allDay ? DateUtils.startOfEpochDay(DateUtils.getEpochDay(start) + 1) : start;
+            }
+            if (end < start) end = start;
+
+            long remind = start;
+            if (triggerText != null) {
+                if ("DATE-TIME".equalsIgnoreCase(triggerValueType)) {
+                    remind = parseTime(triggerText, null, false);
+                } else {
+                    long base = "END".equalsIgnoreCase(triggerRelated) ? end : start;
+                    remind = base + parseDuration(triggerText);
+                }
+            }
+
+            Event event = new Event(title == null || title.isEmpty() ? DEFAULT_TITLE : title,
+                    description, start, end, remind);
+            if (rrule != null) {
+                if (RecurrenceRule.isSupported(rrule)) {
+                    event.setRecurrenceRule(RecurrenceRule.parse(rrule).toString());
+                    if (exdates != null) {
+                        event.setExceptionDates(convertExdates(exdates, exdateZones, start, allDay));
+                    }
+                } else {
+                    unsupportedRuleCount++;
+                }
+            }
+            return event;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // 转为 Event 使用的逗号分隔时间戳；每个 EXDATE 的值本身也可以是逗号分隔的列表
+    private String convertExdates(List<String> values, List<String> tzids, long start, boolean allDayStart) {
+        StringBuilder result = new StringBuilder();
+        long startTimeOfDay = Math.floorMod(DateUtils.toLocalMillis(start), DAY);
+        for (int i = 0; i < values.size(); i++) {
+            String tzid = tzids.get(i);
+            for (String text : values.get(i).split(",")) {
+                text = text.trim();
+                if (text.isEmpty()) continue;
+                long exdate;
+                if (text.length() == 8 && !allDayStart) {
+                    // 只给日期时排除那一天中与 DTSTART 同一钟点的一次
+                    exdate = DateUtils.fromLocalMillis(parseDate(text) * DAY + startTimeOfDay);
+                } else {
+                    exdate = parseTime(text, tzid, text.length() == 8);
+                }
+                result.append(result.length() == 0 ? "" : ",").append(exdate);
+            }
+        }
+        return result.length() == 0 ? null : result.toString();
+    }
+
+    // --- 行读取 ---
+
+    // 读取一个逻辑行（已展开折行，不含行尾），文件结束返回 false
+    private boolean readLine() throws IOException {
+        line.setLength(0);
+        int c = lookahead == -2 ? reader.read() : lookahead;
+        if (c == -1) return false;
+        while (true) {
+            if (c == -1) {
+                lookahead = -1;
+                return true;
+            }
+            if (c == '\r' || c == '\n') {
+                if (c == '\r') {
+                    c = reader.read();
+                    if (c == '\n') c = reader.read();
+                } else {
+                    c = reader.read();
+                }
+                if (c == ' ' || c == '\t') {
+                    c = reader.read(); // 折行：下一行以空白开头，去掉空白后拼接
+                    continue;
+                }
+                if (line.length() == 0 && c != -1) {
+                    continue; // 跳过空行
+                }
+                lookahead = c;
+                return true;
+            }
+            if (line.length() < MAX_LINE_LENGTH) {
+                line.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+
+    // 拆分 "NAME;PARAM=a;PARAM="b:c":VALUE"
+    private void parseProperty() {
+        paramTzid = null;
+        paramValue = null;
+        paramRelated = null;
+        int length = line.length();
+        int i = 0;
+        while (i < length && line.charAt(i) != ';' && line.charAt(i) != ':') i++;
+        name = line.substring(0, i).trim().toUpperCase(java.util.Locale.ROOT);
+        while (i < length && line.charAt(i) == ';') {
+            int paramStart = ++i;
+            boolean quoted = false;
+            while (i < length) {
+                char ch = line.charAt(i);
+                if (ch == '"') quoted = !quoted;
+                else if (!quoted && (ch == ';' || ch == ':')) break;
+                i++;
+            }
+            int eq = line.indexOf("=", paramStart);
+            if (eq < 0 || eq >= i) continue;
+            String paramName = line.substring(paramStart, eq).trim();
+            String paramText = line.substring(eq + 1, i).trim();
+            if (paramText.length() >= 2 && paramText.startsWith("\"") && paramText.endsWith("\"")) {
+                paramText = paramText.substring(1, paramText.length() - 1);
+            }
+            if ("TZID".equalsIgnoreCase(paramName)) paramTzid = paramText;
+            else if ("VALUE".equalsIgnoreCase(paramName)) paramValue = paramText;
+            else if ("RELATED".equalsIgnoreCase(paramName)) paramRelated = paramText;
+        }
+        value = i < length ? line.substring(i + 1).trim() : "";
+    }
+
+    // --- 值解析 ---
+
+    private static boolean isDate(String text, String valueType) {
+        return "DATE".equalsIgnoreCase(valueType) || text.length() == 8;
+    }
+
+    // yyyyMMdd 对应的纪元日
+    private static long parseDate(String text) {
+        if (text.length() < 8) throw new IllegalArgumentException("Bad date: " + text);
+        int year = parseDigits(text, 0, 4);
+        int month = parseDigits(text, 4, 6);
+        int day = parseDigits(text, 6, 8);
+        if (month < 1 || month > 12 || day < 1 || day > DateUtils.daysInMonth(year, month)) {
+            throw new IllegalArgumentException("Bad date: " + text);
+        }
+        return DateUtils.epochDayOf(year, month, day);
+    }
+
+    // DATE 按本地时间的当天零点；DATE-TIME 以 Z 结尾为 UTC，带 TZID 按该时区，否则为本地浮动时间
+    private long parseTime(String text, String tzid, boolean date) {
+        long epochDay = parseDate(text);
+        if (date) {
+            return DateUtils.startOfEpochDay(epochDay);
+        }
+        if (text.length() < 15 || text.charAt(8) != 'T') throw new IllegalArgumentException("Bad time: " + text);
+        long local = epochDay * DAY + parseDigits(text, 9, 11) * 3_600_000L
+                + parseDigits(text, 11, 13) * 60_000L + parseDigits(text, 13, 15) * 1000L;
+        if (text.length() > 15 && text.charAt(15) == 'Z') {
+            return local;
+        }
+        TimeZone zone = tzid == null ? null : zoneFor(tzid);
+        return zone == null ? DateUtils.fromLocalMillis(local) : DateUtils.fromLocalMillis(zone, local);
+    }
+
+    private TimeZone zoneFor(String tzid) {
+        if (zones.containsKey(tzid)) return zones.get(tzid);
+        String id = tzid.startsWith("/") ? tzid.substring(1) : tzid;
+        TimeZone zone = TimeZone.getTimeZone(id);
+        // 不认识的 ID 会得到 GMT，这时按本地时间处理
+        if ("GMT".equals(zone.getID()) && !"GMT".equalsIgnoreCase(id)) zone = null;
+        zones.put(tzid, zone);
+        return zone;
+    }
+
+    /**
+     * RFC 5545 DURATION，如 "PT1H30M"、"-PT15M"、"P1D"、"P2W"，返回毫秒。
+     */
+    static long parseDuration(String text) {
+        int i = 0;
+        int length = text.length();
+        long sign = 1;
+        if (i < length && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+            if (text.charAt(i) == '-') sign = -1;
+            i++;
+        }
+        if (i >= length || text.charAt(i) != 'P') throw new IllegalArgumentException("Bad duration: " + text);
+        i++;
+        long total = 0;
+        boolean time = false;
+        boolean any = false;
+        while (i < length) {
+            char ch = text.charAt(i);
+            if (ch == 'T') {
+                time = true;
+                i++;
+                continue;
+            }
+            int digitsStart = i;
+            while (i < length && Character.isDigit(text.charAt(i))) i++;
+            if (i == digitsStart || i >= length) throw new IllegalArgumentException("Bad duration: " + text);
+            long amount = Long.parseLong(text.substring(digitsStart, i));
+            switch (text.charAt(i)) {
+                case 'W': total += amount * 7 * DAY; break;
+                case 'D': total += amount * DAY; break;
+                case 'H': if (!time) throw new IllegalArgumentException("Bad duration: " + text); total += amount * 3_600_000L; break;
+                case 'M': if (!time) throw new IllegalArgumentException("Bad duration: " + text); total += amount * 60_000L; break;
+                case 'S': if (!time) throw new IllegalArgumentException("Bad duration: " + text); total += amount * 1000L; break;
+                default: throw new IllegalArgumentException("Bad duration: " + text);
+            }
+            any = true;
+            i++;
+        }
+        if (!any) throw new IllegalArgumentException("Bad duration: " + text);
+        return sign * total;
+    }
+
+    private static int parseDigits(String text, int from, int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            char ch = text.charAt(i);
+            if (ch < '0' || ch > '9') throw new IllegalArgumentException("Bad number: " + text);
+            result = result * 10 + (ch - '0');
+        }
+        return result;
+    }
+
+    // TEXT 转义：\n \N \, \; \\
+    static String unescape(String text) {
+        if (text.indexOf('\\') < 0) return text;
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (ch == '\\' && i + 1 < text.length()) {
+                char next = text.charAt(++i);
+                sb.append(next == 'n' || next == 'N' ? '\n' : next);
+            } else {
+                sb.append(ch);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.mycalendarapp.utils;
+
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.model.RecurrenceRule;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.TimeZone;
+
+/**
+ * 流式 iCalendar (RFC 5545) 写出器：begin() 之后逐条 write(Event)，最后 end()。
+ *
+ * 每个属性先拼在同一个 StringBuilder 里，再按 75 个 UTF-8 字节折行写出，不为每条日程创建中间字符串。
+ * 单次日程用 UTC 时间；重复日程用本地时区的 TZID 时间，这样导入方按墙上时间展开，
+ * 与本应用在夏令时前后保持同一钟点的行为一致。
+ */
+public final class IcsWriter implements Closeable {
+    private static final int MAX_LINE_OCTETS = 75;
+    private static final long DAY = DateUtils.MILLIS_PER_DAY;
+
+    private final Writer out;
+    private final StringBuilder line = new StringBuilder(256);
+    private char[] chars = new char[256];
+    private String zoneId;
+    private long stamp;
+    private int written;
+
+    public IcsWriter(Writer out) {
+        this.out = out;
+    }
+
+    public int getWrittenCount() {
+        return written;
+    }
+
+    public void begin() throws IOException {
+        zoneId = TimeZone.getDefault().getID();
+        stamp = System.currentTimeMillis() / 1000 * 1000;
+        writeLine("BEGIN:VCALENDAR");
+        writeLine("VERSION:2.0");
+        writeLine("PRODID:-//MyCalendarApp//CN");
+        writeLine("CALSCALE:GREGORIAN");
+    }
+
+    public void write(Event event) throws IOException {
+        boolean recurring = event.isRecurring() && !event.isOccurrence();
+        long start = event.getStartTime();
+
+        writeLine("BEGIN:VEVENT");
+        line.setLength(0);
+        line.append("UID:").append(event.getId()).append('-').append(start).append("@mycalendarapp");
+        flushLine();
+        line.append("DTSTAMP:");
+        appendUtc(line, stamp);
+        flushLine();
+        writeTime("DTSTART", start, recurring);
+        writeTime("DTEND", event.getEndTime(), recurring);
+        line.append("SUMMARY:");
+        appendText(line, event.getTitle());
+        flushLine();
+        if (event.getDescription() != null && !event.getDescription().isEmpty()) {
+            line.append("DESCRIPTION:");
+            appendText(line, event.getDescription());
+            flushLine();
+        }
+        if (recurring) {
+            line.append("RRULE:").append(event.getRecurrenceRule());
+            flushLine();
+            long[] exdates = RecurrenceRule.parseExceptionDates(event.getExceptionDates());
+            if (exdates != null) {
+                line.append("EXDATE;TZID=").append(zoneId).append(':');
+                for (int i = 0; i < exdates.length; i++) {
+                    if (i > 0) line.append(',');
+                    appendLocal(line, exdates[i]);
+                }
+                flushLine();
+            }
+        }
+        writeLine("BEGIN:VALARM");
+        writeLine("ACTION:DISPLAY");
+        line.append("DESCRIPTION:");
+        appendText(line, event.getTitle());
+        flushLine();
+        line.append("TRIGGER:");
+        appendDuration(line, event.getRemindTime() - start);
+        flushLine();
+        writeLine("END:VALARM");
+        writeLine("END:VEVENT");
+        written++;
+    }
+
+    public void end() throws IOException {
+        writeLine("END:VCALENDAR");
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeTime(String name, long millis, boolean local) throws IOException {
+        line.append(name);
+        if (local) {
+            line.append(";TZID=").append(zoneId).append(':');
+            appendLocal(line, millis);
+        } else {
+            line.append(':');
+            appendUtc(line, millis);
+        }
+        flushLine();
+    }
+
+    private void writeLine(String text) throws IOException {
+        line.setLength(0);
+        line.append(text);
+        flushLine();
+    }
+
+    // 写出 line 并清空；超过 75 字节时折行，不拆开代理对
+    private void flushLine() throws IOException {
+        int length = line.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        line.getChars(0, length, chars, 0);
+        int segmentStart = 0;
+        int octets = 0;
+        for (int i = 0; i < length; i++) {
+            char ch = chars[i];
+            int size;
+            if (ch < 0x80) size = 1;
+            else if (ch < 0x800) size = 2;
+            else if (Character.isHighSurrogate(ch)) size = 4;
+            else if (Character.isLowSurrogate(ch)) size = 0; // 已和高位一起计为 4 字节
+            else size = 3;
+            if (size > 0 && octets + size > MAX_LINE_OCTETS) {
+                out.write(chars, segmentStart, i - segmentStart);
+                out.write("\r\n ");
+                segmentStart = i;
+                octets = 1; // 续行开头的空格
+            }
+            octets += size;
+        }
+        out.write(chars, segmentStart, length - segmentStart);
+        out.write("\r\n");
+        line.setLength(0);
+    }
+
+    // TEXT 转义：反斜杠、分号、逗号和换行
+    private static void appendText(StringBuilder sb, String text) {
+        if (text == null) return;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            switch (ch) {
+                case '\\': sb.append("\\\\"); break;
+                case ';': sb.append("\\;"); break;
+                case ',': sb.append("\\,"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': break;
+                default: sb.append(ch);
+            }
+        }
+    }
+
+    static void appendUtc(StringBuilder sb, long millis) {
+        appendDateTime(sb, millis);
+        sb.append('Z');
+    }
+
+    private static void appendLocal(StringBuilder sb, long millis) {
+        appendDateTime(sb, DateUtils.toLocalMillis(millis));
+    }
+
+    // yyyyMMdd'T'HHmmss，millis 按 UTC 解释
+    private static void appendDateTime(StringBuilder sb, long millis) {
+        int ymd = DateUtils.toYmd(Math.floorDiv(millis, DAY));
+        int seconds = (int) (Math.floorMod(millis, DAY) / 1000);
+        appendDigits(sb, DateUtils.ymdYear(ymd), 4);
+        appendDigits(sb, DateUtils.ymdMonth(ymd), 2);
+        appendDigits(sb, DateUtils.ymdDay(ymd), 2);
+        sb.append('T');
+        appendDigits(sb, seconds / 3600, 2);
+        appendDigits(sb, seconds / 60 % 60, 2);
+        appendDigits(sb, seconds % 60, 2);
+    }
+
+    private static void appendDigits(StringBuilder sb, int value, int width) {
+        for (int divisor = width == 4 ? 1000 : 10; divisor > 0; divisor /= 10) {
+            sb.append((char) ('0' + value / divisor % 10));
+        }
+    }
+
+    // 毫秒转为 DURATION，如 -PT15M、P1DT2H、PT0S
+    static void appendDuration(StringBuilder sb, long millis) {
+        if (millis < 0) sb.append('-');
+        long seconds = Math.abs(millis) / 1000;
+        sb.append('P');
+        long days = seconds / 86_400;
+        seconds %= 86_400;
+        if (days > 0) sb.append(days).append('D');
+        if (seconds > 0 || days == 0) {
+            sb.append('T');
+            long hours = seconds / 3600;
+            long minutes = seconds / 60 % 60;
+            long rest = seconds % 60;
+            if (hours > 0) sb.append(hours).append('H');
+            if (minutes > 0) sb.append(minutes).append('M');
+            if (rest > 0 || seconds == 0) sb.append(rest).append('S');
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.mycalendarapp.utils;
+
+/**
+ * 公历转农历（1900-01-31 至 2100 年底），查表实现。
+ *
+ * 每个农历年用一个 int 描述（LUNAR_INFO）：
+ * 第 0-3 位是闰月月份（0 表示无闰月），第 4-15 位依次是正月到腊月的大小（1 为 30 天，正月在第 15 位），
+ * 第 16 位是闰月的大小。类加载时预先算好每年正月初一的纪元日，
+ * 转换时直接定位到年份，再最多走 13 个月，时间复杂度为常数。
+ *
+ * 转换结果打包成一个 int（见 lunarYear / lunarMonth / lunarDay / isLeapMonth），不创建对象。
+ */
+public final class LunarCalendar {
+
+    public static final int MIN_YEAR = 1900;
+    public static final int MAX_YEAR = 2100;
+
+    private static final int[] LUNAR_INFO = {
+            0x04bd8, 0x04ae0, 0x0a570, 0x054d5, 0x0d260, 0x0d950, 0x16554, 0x056a0, 0x09ad0, 0x055d2, // 1900-1909
+            0x04ae0, 0x0a5b6, 0x0a4d0, 0x0d250, 0x1d255, 0x0b540, 0x0d6a0, 0x0ada2, 0x095b0, 0x14977, // 1910-1919
+            0x04970, 0x0a4b0, 0x0b4b5, 0x06a50, 0x06d40, 0x1ab54, 0x02b60, 0x09570, 0x052f2, 0x04970, // 1920-1929
+            0x06566, 0x0d4a0, 0x0ea50, 0x16a95, 0x05ad0, 0x02b60, 0x186e3, 0x092e0, 0x1c8d7, 0x0c950, // 1930-1939
+            0x0d4a0, 0x1d8a6, 0x0b550, 0x056a0, 0x1a5b4, 0x025d0, 0x092d0, 0x0d2b2, 0x0a950, 0x0b557, // 1940-1949
+            0x06ca0, 0x0b550, 0x15355, 0x04da0, 0x0a5b0, 0x14573, 0x052b0, 0x0a9a8, 0x0e950, 0x06aa0, // 1950-1959
+            0x0aea6, 0x0ab50, 0x04b60, 0x0aae4, 0x0a570, 0x05260, 0x0f263, 0x0d950, 0x05b57, 0x056a0, // 1960-1969
+            0x096d0, 0x04dd5, 0x04ad0, 0x0a4d0, 0x0d4d4, 0x0d250, 0x0d558, 0x0b540, 0x0b6a0, 0x195a6, // 1970-1979
+            0x095b0, 0x049b0, 0x0a974, 0x0a4b0, 0x0b27a, 0x06a50, 0x06d40, 0x0af46, 0x0ab60, 0x09570, // 1980-1989
+            0x04af5, 0x04970, 0x064b0, 0x074a3, 0x0ea50, 0x06b58, 0x05ac0, 0x0ab60, 0x096d5, 0x092e0, // 1990-1999
+            0x0c960, 0x0d954, 0x0d4a0, 0x0da50, 0x07552, 0x056a0, 0x0abb7, 0x025d0, 0x092d0, 0x0cab5, // 2000-2009
+            0x0a950, 0x0b4a0, 0x0baa4, 0x0ad50, 0x055d9, 0x04ba0, 0x0a5b0, 0x15176, 0x052b0, 0x0a930, // 2010-2019
+            0x07954, 0x06aa0, 0x0ad50, 0x05b52, 0x04b60, 0x0a6e6, 0x0a4e0, 0x0d260, 0x0ea65, 0x0d530, // 2020-2029
+            0x05aa0, 0x076a3, 0x096d0, 0x04afb, 0x04ad0, 0x0a4d0, 0x1d0b6, 0x0d250, 0x0d520, 0x0dd45, // 2030-2039
+            0x0b5a0, 0x056d0, 0x055b2, 0x049b0, 0x0a577, 0x0a4b0, 0x0aa50, 0x1b255, 0x06d20, 0x0ada0, // 2040-2049
+            0x14b63, 0x09370, 0x049f8, 0x04970, 0x064b0, 0x168a6, 0x0ea50, 0x06b20, 0x1a6c4, 0x0aae0, // 2050-2059
+            0x092e0, 0x0d2e3, 0x0c960, 0x0d557, 0x0d4a0, 0x0da50, 0x05d55, 0x056a0, 0x0a6d0, 0x055d4, // 2060-2069
+            0x052d0, 0x0a9b8, 0x0a950, 0x0b4a0, 0x0b6a6, 0x0ad50, 0x055a0, 0x0aba4, 0x0a5b0, 0x052b0, // 2070-2079
+            0x0b273, 0x06930, 0x07337, 0x06aa0, 0x0ad50, 0x14b55, 0x04b60, 0x0a570, 0x054e4, 0x0d160, // 2080-2089
+            0x0e968, 0x0d520, 0x0daa0, 0x16aa6, 0x056d0, 0x04ae0, 0x0a9d4, 0x0a2d0, 0x0d150, 0x0f252, // 2090-2099
+            0x0d520, // 2100
+    };
+
+    private static final String[] DAY_NAMES = {
+            "初一", "初二", "初三", "初四", "初五", "初六", "初七", "初八", "初九", "初十",
+            "十一", "十二", "十三", "十四", "十五", "十六", "十七", "十八", "十九", "二十",
+            "廿一", "廿二", "廿三", "廿四", "廿五", "廿六", "廿七", "廿八", "廿九", "三十",
+    };
+    private static final String[] MONTH_NAMES = {
+            "正月", "二月", "三月", "四月", "五月", "六月", "七月", "八月", "九月", "十月", "冬月", "腊月",
+    };
+    private static final String[] LEAP_MONTH_NAMES = {
+            "闰正月", "闰二月", "闰三月", "闰四月", "闰五月", "闰六月",
+            "闰七月", "闰八月", "闰九月", "闰十月", "闰冬月", "闰腊月",
+    };
+    private static final String[] STEMS = {"甲", "乙", "丙", "丁", "戊", "己", "庚", "辛", "壬", "癸"};
+    private static final String[] BRANCHES = {"子", "丑", "寅", "卯", "辰", "巳", "午", "未", "申", "酉", "戌", "亥"};
+
+    // NEW_YEAR_EPOCH_DAY[i] 是 (MIN_YEAR + i) 年正月初一的纪元日，最后一项是支持范围结束后的第一天
+    private static final int[] NEW_YEAR_EPOCH_DAY = new int[LUNAR_INFO.length + 1];
+    // 农历年平均长度（天）的近似值，用于直接估算年份
+    private static final double AVERAGE_YEAR_DAYS;
+
+    static {
+        int day = (int) DateUtils.epochDayOf(MIN_YEAR, 1, 31);
+        for (int i = 0; i < LUNAR_INFO.length; i++) {
+            NEW_YEAR_EPOCH_DAY[i] = day;
+            day += yearDays(MIN_YEAR + i);
+        }
+        NEW_YEAR_EPOCH_DAY[LUNAR_INFO.length] = day;
+        AVERAGE_YEAR_DAYS = (double) (day - NEW_YEAR_EPOCH_DAY[0]) / LUNAR_INFO.length;
+    }
+
+    private LunarCalendar() {
+    }
+
+    // --- 年表查询 ---
+
+    // 闰哪个月，0 表示无闰月
+    public static int leapMonth(int year) {
+        return LUNAR_INFO[year - MIN_YEAR] & 0xF;
+    }
+
+    public static int leapMonthDays(int year) {
+        if (leapMonth(year) == 0) return 0;
+        return (LUNAR_INFO[year - MIN_YEAR] & 0x10000) != 0 ? 30 : 29;
+    }
+
+    // 非闰月 month（1-12）的天数
+    public static int monthDays(int year, int month) {
+        return (LUNAR_INFO[year - MIN_YEAR] & (0x10000 >> month)) != 0 ? 30 : 29;
+    }
+
+    public static int yearDays(int year) {
+        int info = LUNAR_INFO[year - MIN_YEAR];
+        int days = 12 * 29 + Integer.bitCount(info & 0xFFF0);
+        return days + leapMonthDays(year);
+    }
+
+    // 是否在可转换的范围内
+    public static boolean isSupported(long epochDay) {
+        return epochDay >= NEW_YEAR_EPOCH_DAY[0] && epochDay < NEW_YEAR_EPOCH_DAY[LUNAR_INFO.length];
+    }
+
+    // --- 转换 ---
+
+    /**
+     * 纪元日转农历，返回打包的结果：year << 11 | leap << 10 | month << 5 | day。
+     * 超出支持范围时抛出 IllegalArgumentException。
+     */
+    public static int fromEpochDay(long epochDay) {
+        if (!isSupported(epochDay)) {
+            throw new IllegalArgumentException("Out of supported range: " + epochDay);
+        }
+        int offset = (int) (epochDay - NEW_YEAR_EPOCH_DAY[0]);
+        // 先按平均年长估算，误差不超过一年，再修正
+        int index = Math.min((int) (offset / AVERAGE_YEAR_DAYS), LUNAR_INFO.length - 1);
+        while (NEW_YEAR_EPOCH_DAY[index] > epochDay) index--;
+        while (NEW_YEAR_EPOCH_DAY[index + 1] <= epochDay) index++;
+
+        int year = MIN_YEAR + index;
+        int dayOfYear = (int) (epochDay - NEW_YEAR_EPOCH_DAY[index]);
+        int leap = leapMonth(year);
+        for (int month = 1; month <= 12; month++) {
+            int days = monthDays(year, month);
+            if (dayOfYear < days) {
+                return pack(year, month, false, dayOfYear + 1);
+            }
+            dayOfYear -= days;
+            if (month == leap) {
+                int leapDays = leapMonthDays(year);
+                if (dayOfYear < leapDays) {
+                    return pack(year, month, true, dayOfYear + 1);
+                }
+                dayOfYear -= leapDays;
+            }
+        }
+        throw new IllegalStateException("Corrupt lunar table for " + year);
+    }
+
+    public static int fromSolar(int year, int month, int day) {
+        return fromEpochDay(DateUtils.epochDayOf(year, month, day));
+    }
+
+    public static int lunarYear(int lunar) {
+        return lunar >>> 11;
+    }
+
+    public static int lunarMonth(int lunar) {
+        return (lunar >> 5) & 0xF;
+    }
+
+    public static int lunarDay(int lunar) {
+        return lunar & 0x1F;
+    }
+
+    public static boolean isLeapMonth(int lunar) {
+        return (lunar & (1 << 10)) != 0;
+    }
+
+    // --- 文字 ---
+
+    // 完整写法，例如 "甲辰年正月初一"、"乙巳年闰六月十五"
+    public static String format(long epochDay) {
+        int lunar = fromEpochDay(epochDay);
+        int year = lunarYear(lunar);
+        int month = lunarMonth(lunar);
+        return STEMS[(year - 4) % 10] + BRANCHES[(year - 4) % 12] + "年"
+                + (isLeapMonth(lunar) ? LEAP_MONTH_NAMES : MONTH_NAMES)[month - 1]
+                + DAY_NAMES[lunarDay(lunar) - 1];
+    }
+
+    // 日历格子中显示的短文字：节日 > 每月初一显示月份 > 日期；超出范围返回空字符串
+    public static String getLabel(long epochDay) {
+        if (!isSupported(epochDay)) return "";
+        int lunar = fromEpochDay(epochDay);
+        int month = lunarMonth(lunar);
+        return label(month, isLeapMonth(lunar), lunarDay(lunar), monthLength(lunar));
+    }
+
+    /**
+     * 从 firstEpochDay 开始连续 count 天的格子文字写入 labels[from ..]。
+     * 只对第一天做完整转换，之后逐日递推，一个月的网格不需要 42 次查表。
+     * 返回的字符串都是常量，不分配内存。
+     */
+    public static void fillLabels(long firstEpochDay, String[] labels, int from, int count) {
+        int i = 0;
+        // 跳过范围之前的日期
+        for (; i < count && firstEpochDay + i < NEW_YEAR_EPOCH_DAY[0]; i++) {
+            labels[from + i] = "";
+        }
+        if (i == count || !isSupported(firstEpochDay + i)) {
+            for (; i < count; i++) labels[from + i] = "";
+            return;
+        }
+        int lunar = fromEpochDay(firstEpochDay + i);
+        int year = lunarYear(lunar);
+        int month = lunarMonth(lunar);
+        boolean leap = isLeapMonth(lunar);
+        int day = lunarDay(lunar);
+        int length = monthLength(lunar);
+        for (; i < count; i++) {
+            if (year > MAX_YEAR) {
+                labels[from + i] = "";
+                continue;
+            }
+            labels[from + i] = label(month, leap, day, length);
+            if (++day > length) {
+                // 进入下一个月：本月是闰月所在月份时先进入闰月
+                day = 1;
+                if (!leap && month == leapMonth(year)) {
+                    leap = true;
+                    length = leapMonthDays(year);
+                    continue;
+                }
+                leap = false;
+                if (++month > 12) {
+                    month = 1;
+                    if (++year > MAX_YEAR) continue;
+                }
+                length = monthDays(year, month);
+            }
+        }
+    }
+
+    private static int monthLength(int lunar) {
+        int year = lunarYear(lunar);
+        return isLeapMonth(lunar) ? leapMonthDays(year) : monthDays(year, lunarMonth(lunar));
+    }
+
+    private static String label(int month, boolean leap, int day, int monthLength) {
+        if (!leap) {
+            String festival = festival(month, day, monthLength);
+            if (festival != null) return festival;
+        }
+        if (day == 1) {
+            return (leap ? LEAP_MONTH_NAMES : MONTH_NAMES)[month - 1];
+        }
+        return DAY_NAMES[day - 1];
+    }
+
+    // 农历传统节日，闰月不算
+    private static String festival(int month, int day, int monthLength) {
+        switch (month) {
+            case 1:
+                if (day == 1) return "春节";
+                if (day == 15) return "元宵";
+                return null;
+            case 5:
+                return day == 5 ? "端午" : null;
+            case 7:
+                return day == 7 ? "七夕" : null;
+            case 8:
+                return day == 15 ? "中秋" : null;
+            case 9:
+                return day == 9 ? "重阳" : null;
+            case 12:
+                if (day == 8) return "腊八";
+                return day == monthLength ? "除夕" : null;
+            default:
+                return null;
+        }
+    }
+
+    private static int pack(int year, int month, boolean leap, int day) {
+        return year << 11 | (leap ? 1 << 10 : 0) | month << 5 | day;
+    }
+}
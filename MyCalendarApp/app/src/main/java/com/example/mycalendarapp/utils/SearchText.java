@@ -0,0 +1,153 @@
+package com.example.mycalendarapp.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Locale;
+
+/**
+ * 全文搜索的文本处理：写入索引前的分词、把用户输入转为 FTS4 MATCH 查询，以及根据 matchinfo 计算相关度。
+ *
+ * FTS4 自带的 simple 分词器把一整段连续的中文当作一个词，搜“会议”找不到“部门会议”。
+ * 因此写入前在 Java 中预处理：中日韩文字切成相邻两字的二元组，每段最后一个字再单独作为一个词，
+ * 其他文字转小写，标点和符号变成空格。索引列里存的就是处理后的文本，SQLite 只需要按空格切分。
+ */
+public final class SearchText {
+    // matchinfo 的格式：短语数、列数、总行数，然后每个短语每列 3 个数
+    public static final String MATCHINFO_FORMAT = "pcnx";
+
+    private SearchText() {
+    }
+
+    /**
+     * 写入索引列的文本；text 为 null 时返回 null。
+     */
+    public static String index(String text) {
+        if (text == null) return null;
+        StringBuilder sb = new StringBuilder(text.length() * 3);
+        appendTokens(sb, text, false);
+        return sb.toString();
+    }
+
+    /**
+     * 把用户输入转为 MATCH 查询，所有词都要出现（AND）。
+     * 拉丁字母和数字按前缀匹配；中文按二元组组成短语，匹配连续出现的原文，单个汉字按前缀匹配。
+     * 没有可搜索的内容时返回 null。
+     */
+    public static String toMatchQuery(String input) {
+        if (input == null) return null;
+        StringBuilder sb = new StringBuilder(input.length() * 4);
+        appendTokens(sb, input, true);
+        return sb.length() == 0 ? null : sb.toString();
+    }
+
+    private static void appendTokens(StringBuilder sb, String text, boolean query) {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int cp = text.codePointAt(i);
+            if (isCjk(cp)) {
+                int runEnd = i;
+                while (runEnd < length && isCjk(text.codePointAt(runEnd))) {
+                    runEnd += Character.charCount(text.codePointAt(runEnd));
+                }
+                appendCjkRun(sb, text, i, runEnd, query);
+                i = runEnd;
+            } else if (Character.isLetterOrDigit(cp)) {
+                int wordEnd = i;
+                while (wordEnd < length) {
+                    int c = text.codePointAt(wordEnd);
+                    if (!Character.isLetterOrDigit(c) || isCjk(c)) break;
+                    wordEnd += Character.charCount(c);
+                }
+                separate(sb);
+                sb.append(text.substring(i, wordEnd).toLowerCase(Locale.ROOT));
+                if (query) sb.append('*');
+                i = wordEnd;
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+    }
+
+    // 索引：“部门会议” -> “部门 门会 会议 议”；查询：“部门会议” -> "部门 门会 会议"，“会” -> 会*
+    private static void appendCjkRun(StringBuilder sb, String text, int start, int end, boolean query) {
+        separate(sb);
+        int second = start + Character.charCount(text.codePointAt(start));
+        if (second >= end) {
+            sb.append(text, start, end);
+            if (query) sb.append('*');
+            return;
+        }
+        if (query) sb.append('"');
+        int first = start;
+        boolean firstToken = true;
+        while (second < end) {
+            int next = second + Character.charCount(text.codePointAt(second));
+            if (!firstToken) sb.append(' ');
+            sb.append(text, first, next);
+            firstToken = false;
+            first = second;
+            second = next;
+        }
+        if (query) {
+            sb.append('"');
+        } else {
+            sb.append(' ').append(text, first, end);
+        }
+    }
+
+    private static void separate(StringBuilder sb) {
+        if (sb.length() > 0) sb.append(' ');
+    }
+
+    // 中日韩表意文字、假名和谚文
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    /**
+     * 按 matchinfo(MATCHINFO_FORMAT) 的结果计算相关度（TF-IDF）：每个短语在每列的命中次数乘以列权重，
+     * 再乘以短语的逆文档频率，越少见的词权重越高。
+     */
+    public static double score(byte[] matchinfo, double[] columnWeights) {
+        ByteBuffer buffer = ByteBuffer.wrap(matchinfo).order(ByteOrder.nativeOrder());
+        int phrases = buffer.getInt(0);
+        int columns = buffer.getInt(4);
+        int rows = buffer.getInt(8);
+        double score = 0;
+        for (int phrase = 0; phrase < phrases; phrase++) {
+            for (int column = 0; column < columns; column++) {
+                int offset = 12 + 12 * (phrase * columns + column);
+                int hitsInRow = buffer.getInt(offset);
+                if (hitsInRow == 0) continue;
+                int rowsWithHits = buffer.getInt(offset + 8);
+                double idf = Math.log(1.0 + (double) rows / Math.max(1, rowsWithHits));
+                double weight = column < columnWeights.length ? columnWeights[column] : 1.0;
+                score += weight * hitsInRow * idf;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * 把相关度和 id 合成一个可以直接排序的 long：高 32 位是 float 形式的相关度（非负 float 的位模式与大小同序），
+     * 低 32 位是 id。升序排序后倒着取，就是相关度从高到低、相同时新建的在前。
+     */
+    public static long rankKey(double score, int id) {
+        return (long) Float.floatToIntBits((float) Math.max(0, score)) << 32 | (id & 0xFFFFFFFFL);
+    }
+
+    // 对 keys[0, count) 排序并按相关度从高到低取出 id
+    public static int[] idsByRank(long[] keys, int count) {
+        java.util.Arrays.sort(keys, 0, count);
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = (int) keys[count - 1 - i];
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,397 @@
+package com.example.mycalendarapp.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.os.Trace;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.AttributeSet;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+import android.widget.OverScroller;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.example.mycalendarapp.metrics.Histogram;
+import com.example.mycalendarapp.metrics.Metrics;
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.model.TimelineLayout;
+import com.example.mycalendarapp.utils.DateUtils;
+
+/**
+ * 日 / 周时间轴：左侧是钟点，顶部是日期，每天一列，日程按 TimelineLayout 算好的列并排显示。
+ *
+ * 整个视图在一次 onDraw 中画完，不为每个日程创建子 View；列的排布在后台线程完成（ColumnPacker），
+ * 这里只做坐标换算。每个日程块的文字排版（StaticLayout）在第一次显示时创建并缓存，之后滚动、
+ * 缩放只改变块的高度，直接裁剪绘制，不再重新排版；除了这第一次排版，绘制过程中不分配内存。
+ *
+ * 上下拖动和快速滑动滚动时间轴，双指缩放改变每小时的高度，左右快速滑动切换到前后一段日期。
+ */
+public class TimelineView extends View {
+    private static final String[] WEEKDAYS = {"周日", "周一", "周二", "周三", "周四", "周五", "周六"};
+    private static final String[] HOUR_LABELS = new String[24];
+    private static final Histogram DRAW_TIME = Metrics.timer("draw.TimelineView");
+    private static final int MAX_TEXT_LINES = 6;
+
+    static {
+        for (int hour = 0; hour < HOUR_LABELS.length; hour++) {
+            HOUR_LABELS[hour] = (hour < 10 ? "0" : "") + hour + ":00";
+        }
+    }
+
+    public interface Listener {
+        void onEventClick(Event event);
+
+        // 左右滑动：delta 为 -1 表示前一段日期，1 表示后一段
+        void onPageRequested(int delta);
+    }
+
+    private final float density;
+    private final float gutterWidth;
+    private final float headerHeight;
+    private final float minHourHeight;
+    private final float maxHourHeight;
+    private final float blockGap;
+    private final float blockPadding;
+    private final float blockRadius;
+    private final float stripeWidth;
+
+    private final Paint gridPaint = new Paint();
+    private final Paint hourTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint headerTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint headerBackgroundPaint = new Paint();
+    private final Paint todayPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint blockPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint stripePaint = new Paint();
+    private final Paint nowPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final TextPaint blockTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF rect = new RectF();
+
+    private final OverScroller scroller;
+    private final GestureDetector gestureDetector;
+    private final ScaleGestureDetector scaleDetector;
+
+    private Listener listener;
+    private long firstEpochDay;
+    private int dayCount = 1;
+    private String[] dayLabels = {""};
+    private TimelineLayout timeline;
+    private StaticLayout[] textLayouts = new StaticLayout[0]; // 按块缓存的文字排版，宽度变化时重建
+    private float hourHeight;
+    private float offsetY; // 时间轴滚动的距离，0 为 00:00 在顶部
+    private int pendingMinute = -1; // 还没有尺寸时要求滚动到的钟点
+
+    public TimelineView(Context context) {
+        this(context, null);
+    }
+
+    public TimelineView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        DisplayMetrics display = context.getResources().getDisplayMetrics();
+        density = display.density;
+        gutterWidth = dp(48);
+        headerHeight = dp(40);
+        minHourHeight = dp(24);
+        maxHourHeight = dp(200);
+        hourHeight = dp(56);
+        blockGap = dp(1);
+        blockPadding = dp(4);
+        blockRadius = dp(3);
+        stripeWidth = dp(3);
+
+        gridPaint.setColor(Color.parseColor("#E0E0E0"));
+        gridPaint.setStrokeWidth(1);
+        hourTextPaint.setColor(Color.parseColor("#757575"));
+        hourTextPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 11, display));
+        hourTextPaint.setTextAlign(Paint.Align.RIGHT);
+        headerTextPaint.setColor(Color.parseColor("#424242"));
+        headerTextPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 13, display));
+        headerTextPaint.setTextAlign(Paint.Align.CENTER);
+        headerBackgroundPaint.setColor(Color.parseColor("#EEEEEE"));
+        todayPaint.setColor(Color.parseColor("#2196F3"));
+        todayPaint.setTextSize(headerTextPaint.getTextSize());
+        todayPaint.setTextAlign(Paint.Align.CENTER);
+        todayPaint.setFakeBoldText(true);
+        blockPaint.setColor(Color.parseColor("#BBDEFB"));
+        stripePaint.setColor(Color.parseColor("#2196F3"));
+        nowPaint.setColor(Color.parseColor("#F44336"));
+        nowPaint.setStrokeWidth(dp(2));
+        blockTextPaint.setColor(Color.parseColor("#0D47A1"));
+        blockTextPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 12, display));
+
+        scroller = new OverScroller(context);
+        gestureDetector = new GestureDetector(context, new GestureListener());
+        scaleDetector = new ScaleGestureDetector(context, new ScaleListener());
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 切换显示的日期：从 firstEpochDay 开始连续 dayCount 天。已有的日程先清空，等 setTimeline 送来新的。
+     */
+    public void setDays(long firstEpochDay, int dayCount) {
+        this.firstEpochDay = firstEpochDay;
+        this.dayCount = dayCount;
+        dayLabels = new String[dayCount];
+        StringBuilder label = new StringBuilder(8);
+        for (int i = 0; i < dayCount; i++) {
+            long epochDay = firstEpochDay + i;
+            label.setLength(0);
+            label.append(WEEKDAYS[DateUtils.dayOfWeek(epochDay)]).append(' ')
+                    .append(DateUtils.ymdDay(DateUtils.toYmd(epochDay)));
+            dayLabels[i] = label.toString();
+        }
+        setTimeline(null);
+    }
+
+    /**
+     * 显示排好的日程。日期与 setDays 不一致的（例如翻页后才到达的旧结果）直接忽略。
+     */
+    public void setTimeline(@Nullable TimelineLayout timeline) {
+        if (timeline != null && (timeline.getDayCount() != dayCount
+                || DateUtils.getEpochDay(timeline.getDayStart(0)) != firstEpochDay)) {
+            return;
+        }
+        this.timeline = timeline;
+        textLayouts = new StaticLayout[timeline == null ? 0 : timeline.getBlockCount()];
+        invalidate();
+    }
+
+    // 滚动到某个钟点附近（显示在上方约 1/4 处），用于打开时定位到当前时间或工作时间
+    public void scrollToMinute(int minute) {
+        scroller.forceFinished(true);
+        if (getHeight() == 0) {
+            pendingMinute = minute;
+            return;
+        }
+        setOffsetY(minute * hourHeight / 60 - (getHeight() - headerHeight) / 4);
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        // 宽度变化后缓存的文字排版在下次绘制时按新的列宽重建（见 textLayoutOf）
+        if (pendingMinute >= 0 && h > 0) {
+            int minute = pendingMinute;
+            pendingMinute = -1;
+            scrollToMinute(minute);
+        } else {
+            setOffsetY(offsetY);
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        Trace.beginSection("TimelineView.onDraw");
+        long begin = Metrics.start();
+        try {
+            int width = getWidth();
+            int height = getHeight();
+            float dayWidth = (width - gutterWidth) / dayCount;
+            long today = DateUtils.getEpochDay(System.currentTimeMillis());
+
+            canvas.save();
+            canvas.clipRect(0, headerHeight, width, height);
+            drawGrid(canvas, width, height, dayWidth);
+            if (timeline != null) {
+                float firstMinute = offsetY * 60 / hourHeight;
+                float lastMinute = (offsetY + height - headerHeight) * 60 / hourHeight;
+                for (int day = 0; day < dayCount; day++) {
+                    drawBlocks(canvas, day, gutterWidth + day * dayWidth, dayWidth, firstMinute, lastMinute);
+                }
+            }
+            long todayIndex = today - firstEpochDay;
+            if (todayIndex >= 0 && todayIndex < dayCount) {
+                float y = yOfMinute(DateUtils.getMinuteOfDay(System.currentTimeMillis()));
+                float left = gutterWidth + todayIndex * dayWidth;
+                canvas.drawLine(left, y, left + dayWidth, y, nowPaint);
+            }
+            canvas.restore();
+
+            drawHeader(canvas, width, dayWidth, today);
+        } finally {
+            DRAW_TIME.recordSince(begin);
+            Trace.endSection();
+        }
+    }
+
+    private void drawGrid(Canvas canvas, int width, int height, float dayWidth) {
+        float textOffset = -hourTextPaint.ascent() / 2;
+        int firstHour = Math.max(0, (int) (offsetY / hourHeight));
+        int lastHour = Math.min(24, (int) ((offsetY + height - headerHeight) / hourHeight) + 1);
+        for (int hour = firstHour; hour <= lastHour; hour++) {
+            float y = yOfMinute(hour * 60);
+            canvas.drawLine(gutterWidth, y, width, y, gridPaint);
+            if (hour > 0 && hour < 24) {
+                canvas.drawText(HOUR_LABELS[hour], gutterWidth - blockPadding, y + textOffset, hourTextPaint);
+            }
+        }
+        for (int day = 0; day <= dayCount; day++) {
+            float x = gutterWidth + day * dayWidth;
+            canvas.drawLine(x, headerHeight, x, height, gridPaint);
+        }
+    }
+
+    private void drawBlocks(Canvas canvas, int day, float dayLeft, float dayWidth, float firstMinute, float lastMinute) {
+        for (int block = timeline.getFirstBlock(day); block < timeline.getFirstBlock(day + 1); block++) {
+            int startMinute = timeline.getStartMinute(block);
+            if (startMinute > lastMinute) break; // 同一天的块按开始分钟排序，后面的都在下方
+            if (timeline.getEndMinute(block) < firstMinute) continue;
+
+            float columnWidth = dayWidth / timeline.getColumnCount(block);
+            rect.set(dayLeft + timeline.getColumn(block) * columnWidth + blockGap,
+                    yOfMinute(startMinute) + blockGap,
+                    dayLeft + (timeline.getColumn(block) + 1) * columnWidth - blockGap,
+                    yOfMinute(timeline.getEndMinute(block)) - blockGap);
+            canvas.drawRoundRect(rect, blockRadius, blockRadius, blockPaint);
+            canvas.drawRect(rect.left, rect.top, rect.left + stripeWidth, rect.bottom, stripePaint);
+
+            StaticLayout text = textLayoutOf(block, (int) (rect.width() - stripeWidth - 2 * blockPadding));
+            if (text == null) continue;
+            canvas.save();
+            canvas.clipRect(rect.left + stripeWidth, rect.top, rect.right, rect.bottom);
+            canvas.translate(rect.left + stripeWidth + blockPadding, rect.top + blockPadding / 2);
+            text.draw(canvas);
+            canvas.restore();
+        }
+    }
+
+    private void drawHeader(Canvas canvas, int width, float dayWidth, long today) {
+        canvas.drawRect(0, 0, width, headerHeight, headerBackgroundPaint);
+        float baseline = (headerHeight - headerTextPaint.ascent() - headerTextPaint.descent()) / 2;
+        for (int day = 0; day < dayCount; day++) {
+            float center = gutterWidth + (day + 0.5f) * dayWidth;
+            Paint paint = firstEpochDay + day == today ? todayPaint : headerTextPaint;
+            canvas.drawText(dayLabels[day], center, baseline, paint);
+        }
+    }
+
+    // 第一次显示或列宽变化时才排版，之后直接复用；太窄放不下文字时返回 null
+    private StaticLayout textLayoutOf(int block, int width) {
+        if (width <= 0) return null;
+        StaticLayout cached = textLayouts[block];
+        if (cached != null && cached.getWidth() == width) return cached;
+        Event event = timeline.getEvent(block);
+        StringBuilder text = new StringBuilder(event.getTitle().length() + 1 + DateUtils.TIME_RANGE_LENGTH);
+        text.append(event.getTitle()).append('\n');
+        DateUtils.appendTime(text, event.getStartTime());
+        text.append(" - ");
+        DateUtils.appendTime(text, event.getEndTime());
+        StaticLayout layout = StaticLayout.Builder.obtain(text, 0, text.length(), blockTextPaint, width)
+                .setAlignment(Layout.Alignment.ALIGN_NORMAL)
+                .setIncludePad(false)
+                .setEllipsize(TextUtils.TruncateAt.END)
+                .setMaxLines(MAX_TEXT_LINES)
+                .build();
+        textLayouts[block] = layout;
+        return layout;
+    }
+
+    private float yOfMinute(int minute) {
+        return headerHeight + minute * hourHeight / 60 - offsetY;
+    }
+
+    private float maxOffsetY() {
+        return Math.max(0, 24 * hourHeight - (getHeight() - headerHeight));
+    }
+
+    private float clampOffsetY(float value) {
+        return Math.max(0, Math.min(value, maxOffsetY()));
+    }
+
+    private void setOffsetY(float value) {
+        float clamped = clampOffsetY(value);
+        if (clamped != offsetY) {
+            offsetY = clamped;
+            invalidate();
+        }
+    }
+
+    // --- 手势 ---
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        scaleDetector.onTouchEvent(event);
+        if (!scaleDetector.isInProgress()) {
+            gestureDetector.onTouchEvent(event);
+        }
+        return true;
+    }
+
+    @Override
+    public void computeScroll() {
+        if (scroller.computeScrollOffset()) {
+            setOffsetY(scroller.getCurrY());
+            postInvalidateOnAnimation();
+        }
+    }
+
+    private class GestureListener extends GestureDetector.SimpleOnGestureListener {
+        @Override
+        public boolean onDown(@NonNull MotionEvent e) {
+            scroller.forceFinished(true);
+            return true;
+        }
+
+        @Override
+        public boolean onScroll(@Nullable MotionEvent e1, @NonNull MotionEvent e2, float distanceX, float distanceY) {
+            setOffsetY(offsetY + distanceY);
+            return true;
+        }
+
+        @Override
+        public boolean onFling(@Nullable MotionEvent e1, @NonNull MotionEvent e2, float velocityX, float velocityY) {
+            if (Math.abs(velocityX) > 2 * Math.abs(velocityY)) {
+                if (listener != null) listener.onPageRequested(velocityX < 0 ? 1 : -1);
+                return true;
+            }
+            scroller.fling(0, (int) offsetY, 0, (int) -velocityY, 0, 0, 0, (int) maxOffsetY());
+            postInvalidateOnAnimation();
+            return true;
+        }
+
+        @Override
+        public boolean onSingleTapUp(@NonNull MotionEvent e) {
+            if (timeline == null || listener == null || e.getX() < gutterWidth || e.getY() < headerHeight) {
+                return false;
+            }
+            float dayWidth = (getWidth() - gutterWidth) / dayCount;
+            int day = Math.min(dayCount - 1, (int) ((e.getX() - gutterWidth) / dayWidth));
+            float fraction = (e.getX() - gutterWidth - day * dayWidth) / dayWidth;
+            float minute = (e.getY() - headerHeight + offsetY) * 60 / hourHeight;
+            int block = timeline.findBlock(day, minute, fraction);
+            if (block < 0) return false;
+            listener.onEventClick(timeline.getEvent(block));
+            return true;
+        }
+    }
+
+    private class ScaleListener extends ScaleGestureDetector.SimpleOnScaleGestureListener {
+        @Override
+        public boolean onScale(@NonNull ScaleGestureDetector detector) {
+            // 以两指中点为中心缩放：中点下的钟点缩放前后保持在同一位置
+            float focus = detector.getFocusY() - headerHeight;
+            float minuteAtFocus = (offsetY + focus) * 60 / hourHeight;
+            float scaled = Math.max(minHourHeight, Math.min(hourHeight * detector.getScaleFactor(), maxHourHeight));
+            if (scaled == hourHeight) return true;
+            hourHeight = scaled;
+            offsetY = clampOffsetY(minuteAtFocus * hourHeight / 60 - focus);
+            invalidate();
+            return true;
+        }
+    }
+
+    private float dp(float value) {
+        return value * density;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.mycalendarapp.database;
+
+import com.example.mycalendarapp.model.Event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 确定性的日程数据生成器：同一个种子总是产生同样的日程序列，性能测试的结果可以互相比较。
+ *
+ * 分布大致模仿一个很忙的用户：平均每天 EVENTS_PER_DAY 个日程，集中在 8:00-20:00，
+ * 时长 15 分钟到 3 小时；约 3% 是全天或跨多天的日程，约 0.5% 是重复日程（多数有次数限制）。
+ * 时间以 UTC 午夜为日界，测试需要把默认时区设为 UTC。
+ */
+class CalendarWorkload {
+    static final long MINUTE = 60 * 1000L;
+    static final long HOUR = 60 * MINUTE;
+    static final long DAY = 24 * HOUR;
+    static final int EVENTS_PER_DAY = 20;
+
+    private static final String[] TITLES = {"晨会", "周报", "项目评审", "客户电话", "午餐", "健身", "面试", "培训",
+            "需求讨论", "代码评审", "牙医", "家长会", "读书会", "出差", "生日聚会"};
+    private static final String[] WEEKLY_RULES = {"FREQ=WEEKLY;COUNT=12", "FREQ=WEEKLY;COUNT=52", "FREQ=WEEKLY"};
+    private static final String[] DAILY_RULES = {"FREQ=DAILY;COUNT=5", "FREQ=DAILY;COUNT=30"};
+
+    private final Random random;
+    private final long firstDay;
+    private final int days;
+    private int generated;
+
+    /**
+     * @param firstDay 第一天的开始时间（UTC 午夜）
+     * @param days     日程分布的天数
+     */
+    CalendarWorkload(long seed, long firstDay, int days) {
+        this.random = new Random(seed);
+        this.firstDay = firstDay;
+        this.days = days;
+    }
+
+    // 容纳 count 个日程、密度为 EVENTS_PER_DAY 所需的天数，至少一年
+    static int daysFor(int count) {
+        return Math.max(365, count / EVENTS_PER_DAY);
+    }
+
+    long getFirstDay() {
+        return firstDay;
+    }
+
+    int getDays() {
+        return days;
+    }
+
+    // 下一批 count 个日程；分批生成，百万级数据不需要一次放进内存
+    List<Event> nextBatch(int count) {
+        List<Event> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            batch.add(nextEvent());
+        }
+        return batch;
+    }
+
+    // 随机某一天的开始时间，用于查询
+    long randomDay(Random queryRandom) {
+        return firstDay + queryRandom.nextInt(days) * DAY;
+    }
+
+    private Event nextEvent() {
+        int n = generated++;
+        long day = firstDay + random.nextInt(days) * DAY;
+        String title = TITLES[random.nextInt(TITLES.length)] + " " + n;
+        String description = random.nextInt(4) == 0 ? "会议室 " + random.nextInt(50) + "，记得带材料" : "";
+
+        int kind = random.nextInt(1000);
+        long start;
+        long end;
+        if (kind < 30) {
+            // 全天或跨多天
+            start = day;
+            end = day + (1 + random.nextInt(kind < 5 ? 7 : 1)) * DAY;
+        } else {
+            start = day + 8 * HOUR + random.nextInt(48) * 15 * MINUTE;
+            end = start + (1 + random.nextInt(12)) * 15 * MINUTE;
+        }
+        long remindTime = random.nextInt(3) == 0 ? start : start - 15 * MINUTE;
+        Event event = new Event(title, description, start, end, remindTime);
+        if (kind >= 995) {
+            event.setRecurrenceRule(kind == 999
+                    ? DAILY_RULES[random.nextInt(DAILY_RULES.length)]
+                    : WEEKLY_RULES[random.nextInt(WEEKLY_RULES.length)]);
+        }
+        return event;
+    }
+}
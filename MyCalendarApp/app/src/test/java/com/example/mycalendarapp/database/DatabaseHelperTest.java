@@ -0,0 +1,553 @@
+package com.example.mycalendarapp.database;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import com.example.mycalendarapp.model.AgendaPage;
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.utils.DateUtils;
+import com.example.mycalendarapp.utils.SearchText;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class DatabaseHelperTest {
+    private static final long HOUR = 60 * 60 * 1000L;
+    private static final long DAY = 24 * HOUR;
+
+    private DatabaseHelper helper;
+    private TimeZone originalZone;
+
+    @Before
+    public void setUp() {
+        // 重复日程按本地时间展开，固定为 UTC 让 DAY 的倍数正好是午夜
+        originalZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        DateUtils.resetTimeZone();
+        helper = new DatabaseHelper(RuntimeEnvironment.getApplication(), null);
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        TimeZone.setDefault(originalZone);
+        DateUtils.resetTimeZone();
+    }
+
+    @Test
+    public void rangeQuery_usesTimeIndex() {
+        // 开始时间索引上必须有上下两个边界，否则扫描量随查询日期之前的日程数增长
+        List<String> plan = explain(DatabaseHelper.QUERY_EVENTS_IN_RANGE, "0", "1");
+        assertTrue("开始时间索引缺少边界: " + plan, plan.toString()
+                .contains("USING INDEX " + DatabaseHelper.INDEX_START + " (startTime>? AND startTime<?)"));
+
+        List<String> longPlan = explain(DatabaseHelper.QUERY_LONG_EVENTS_IN_RANGE, "0", "1");
+        assertTrue("未使用跨天日程索引: " + longPlan, longPlan.toString().contains(DatabaseHelper.INDEX_LONG));
+        for (String detail : longPlan) {
+            assertFalse("全表扫描: " + longPlan, detail.startsWith("SCAN"));
+        }
+    }
+
+    @Test
+    public void rangeQuery_findsEventsStartedBeforeTheRange() {
+        long day0 = 150 * DAY;
+        // 正好一天的日程走开始时间索引，更长的走跨天日程索引；结果按开始时间合并
+        insert("十天", day0 - 9 * DAY, day0 + DAY + 3 * HOUR);
+        insert("一整天", day0 + 12 * HOUR, day0 + DAY + 12 * HOUR);
+        insert("早已结束", day0 - 9 * DAY, day0 - 8 * DAY + HOUR);
+        insert("当天", day0 + DAY + 9 * HOUR, day0 + DAY + 10 * HOUR);
+
+        assertTitles(day(day0 + DAY), "十天", "一整天", "当天");
+        assertTitles(day(day0 + 2 * DAY));
+    }
+
+    @Test
+    public void rangeQuery_returnsMultiDayEventOnEveryCoveredDay() {
+        long day0 = 100 * DAY;
+        insert("跨天", day0 + 20 * HOUR, day0 + 2 * DAY + 3 * HOUR);
+        insert("当天", day0 + DAY + 9 * HOUR, day0 + DAY + 10 * HOUR);
+
+        assertTitles(day(day0), "跨天");
+        assertTitles(day(day0 + DAY), "跨天", "当天");
+        assertTitles(day(day0 + 2 * DAY), "跨天");
+        assertTitles(day(day0 + 3 * DAY));
+    }
+
+    @Test
+    public void rangeQuery_boundaryAtMidnight() {
+        long day0 = 200 * DAY;
+        // 在午夜结束的日程不属于第二天；午夜开始的零时长日程属于第二天
+        insert("夜间", day0 + 23 * HOUR, day0 + DAY);
+        insert("零时长", day0 + DAY, day0 + DAY);
+
+        assertTitles(day(day0), "夜间");
+        assertTitles(day(day0 + DAY), "零时长");
+    }
+
+    @Test
+    public void migrationFromVersion1_keepsDataAndAddsIndexes() {
+        SQLiteDatabase db = SQLiteDatabase.create(null);
+        db.execSQL("CREATE TABLE events(id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT,"
+                + " description TEXT, startTime INTEGER, endTime INTEGER, remindTime INTEGER)");
+        db.execSQL("INSERT INTO events(title, description, startTime, endTime, remindTime)"
+                + " VALUES('旧日程', 'desc', 1000, 2000, 1000)");
+
+        DatabaseHelper.migrate(db, 1, 2);
+
+        Cursor rows = db.rawQuery("SELECT title FROM events", null);
+        assertTrue(rows.moveToFirst());
+        assertEquals("旧日程", rows.getString(0));
+        rows.close();
+
+        Cursor indexes = db.rawQuery("SELECT name FROM sqlite_master WHERE type = 'index' AND tbl_name = 'events'", null);
+        List<String> names = new ArrayList<>();
+        while (indexes.moveToNext()) {
+            names.add(indexes.getString(0));
+        }
+        indexes.close();
+        assertTrue(names.contains(DatabaseHelper.INDEX_START));
+        assertTrue(names.contains(DatabaseHelper.INDEX_END_START));
+        db.close();
+    }
+
+    @Test
+    public void migrationFromVersion2_marksExistingEventsAsOneOff() {
+        SQLiteDatabase db = SQLiteDatabase.create(null);
+        db.execSQL("CREATE TABLE events(id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT,"
+                + " description TEXT, startTime INTEGER, endTime INTEGER, remindTime INTEGER)");
+        DatabaseHelper.migrate(db, 1, 2);
+        db.execSQL("INSERT INTO events(title, description, startTime, endTime, remindTime)"
+                + " VALUES('旧日程', 'desc', 1000, 2000, 1000)");
+
+        DatabaseHelper.migrate(db, 2, 3);
+
+        Cursor rows = db.rawQuery("SELECT rrule, exdates, seriesEnd FROM events", null);
+        assertTrue(rows.moveToFirst());
+        assertTrue(rows.isNull(0));
+        assertTrue(rows.isNull(1));
+        assertEquals(2000, rows.getLong(2));
+        rows.close();
+        db.close();
+    }
+
+    @Test
+    public void recurringEvent_storedOnceAndExpandedPerWindow() {
+        long day0 = 300 * DAY;
+        Event weekly = new Event("周会", "", day0 + 9 * HOUR, day0 + 10 * HOUR, day0 + 9 * HOUR);
+        weekly.setRecurrenceRule("freq=weekly;count=3");
+        helper.addEvent(weekly);
+        insert("单次", day0 + 7 * DAY + 8 * HOUR, day0 + 7 * DAY + 9 * HOUR);
+
+        // 整个系列只占一行，规则以规范形式保存
+        Cursor rows = helper.getReadableDatabase().rawQuery("SELECT rrule FROM events ORDER BY id", null);
+        assertEquals(2, rows.getCount());
+        assertTrue(rows.moveToFirst());
+        assertEquals("FREQ=WEEKLY;COUNT=3", rows.getString(0));
+        rows.close();
+
+        assertTitles(day(day0), "周会");
+        assertTitles(day(day0 + DAY));
+        assertTitles(day(day0 + 7 * DAY), "单次", "周会");
+        assertTitles(day(day0 + 14 * DAY), "周会");
+        assertTitles(day(day0 + 21 * DAY)); // COUNT=3 之后不再出现
+
+        List<Event> month = helper.getEventsInRange(day0, day0 + 30 * DAY);
+        assertEquals(4, month.size());
+        Event second = month.get(2);
+        assertTrue(second.isOccurrence());
+        assertEquals(weekly.getId(), second.getId());
+        assertEquals(day0 + 7 * DAY + 9 * HOUR, second.getStartTime());
+
+        try {
+            Event bad = new Event("坏规则", "", day0, day0 + HOUR, day0);
+            bad.setRecurrenceRule("FREQ=SECONDLY");
+            helper.addEvent(bad);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void seriesQuery_usesRecurringIndex() {
+        List<String> plan = explain(DatabaseHelper.QUERY_SERIES_IN_RANGE, "1", "0");
+        boolean usesIndex = false;
+        for (String detail : plan) {
+            if (detail.contains(DatabaseHelper.INDEX_RECURRING)) {
+                usesIndex = true;
+            }
+        }
+        assertTrue("未使用重复日程索引: " + plan, usesIndex);
+    }
+
+    @Test
+    public void deleteOccurrence_removesOnlyThatDay() {
+        long day0 = 400 * DAY;
+        Event daily = new Event("每日", "", day0 + 9 * HOUR, day0 + 10 * HOUR, day0 + 9 * HOUR);
+        daily.setRecurrenceRule("FREQ=DAILY");
+        helper.addEvent(daily);
+
+        Event second = helper.getEventsByDay(day0 + DAY, day0 + 2 * DAY - 1).get(0);
+        assertTrue(helper.deleteOccurrence(second));
+        Event third = helper.getEventsByDay(day0 + 2 * DAY, day0 + 3 * DAY - 1).get(0);
+        assertTrue(helper.deleteOccurrence(third));
+
+        assertTitles(day(day0), "每日");
+        assertTitles(day(day0 + DAY));
+        assertTitles(day(day0 + 2 * DAY));
+        assertTitles(day(day0 + 3 * DAY), "每日");
+
+        // 删除整个系列
+        assertTrue(helper.deleteEvent(daily.getId()));
+        assertTitles(day(day0 + 3 * DAY));
+    }
+
+    @Test
+    public void updateOccurrence_shiftsWholeSeries() {
+        long day0 = 500 * DAY;
+        Event daily = new Event("每日", "", day0 + 9 * HOUR, day0 + 10 * HOUR, day0 + 9 * HOUR);
+        daily.setRecurrenceRule("FREQ=DAILY;COUNT=3");
+        helper.addEvent(daily);
+
+        Event occurrence = new Event(helper.getEventsByDay(day0 + DAY, day0 + 2 * DAY - 1).get(0));
+        occurrence.setTitle("改期");
+        occurrence.setStartTime(occurrence.getStartTime() + HOUR);
+        occurrence.setEndTime(occurrence.getEndTime() + HOUR);
+        assertTrue(helper.updateEvent(occurrence));
+
+        List<Event> events = helper.getEventsInRange(day0, day0 + 5 * DAY);
+        assertEquals(3, events.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals("改期", events.get(i).getTitle());
+            assertEquals(day0 + i * DAY + 10 * HOUR, events.get(i).getStartTime());
+        }
+    }
+
+    @Test
+    public void batchWrites_runInOneTransactionAndAssignIds() {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            events.add(new Event("批量" + i, null, i * HOUR, i * HOUR + HOUR / 2, i * HOUR));
+        }
+        assertEquals(10_000, helper.addEvents(events));
+        assertTrue(events.get(0).getId() > 0);
+        assertTrue(events.get(9_999).getId() > events.get(0).getId());
+
+        List<Event> firstDay = new ArrayList<>(events.subList(0, 24));
+        for (Event event : firstDay) {
+            event.setTitle("已更新");
+        }
+        assertEquals(24, helper.updateEvents(firstDay));
+        assertEquals("已更新", helper.getEventsByDay(0, DAY - 1).get(0).getTitle());
+
+        assertEquals(24, helper.deleteEvents(firstDay));
+        assertTrue(helper.getEventsByDay(0, DAY - 1).isEmpty());
+        assertFalse(helper.deleteEvent(firstDay.get(0).getId()));
+    }
+
+    @Test
+    public void singleWrites_keepConnectionOpen() {
+        Event event = new Event("单条", "desc", 0, HOUR, 0);
+        long id = helper.addEvent(event);
+        assertEquals(id, event.getId());
+
+        event.setTitle("改名");
+        assertTrue(helper.updateEvent(event));
+        // 写操作后连接仍然可用（以前每次写完都会 close）
+        assertEquals("改名", helper.getEventsByDay(0, DAY - 1).get(0).getTitle());
+        assertTrue(helper.deleteEvent(event.getId()));
+    }
+
+    @Test
+    public void migrationFromVersion3_indexesExistingEvents() {
+        SQLiteDatabase db = SQLiteDatabase.create(null);
+        db.execSQL("CREATE TABLE events(id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT,"
+                + " description TEXT, startTime INTEGER, endTime INTEGER, remindTime INTEGER)");
+        DatabaseHelper.migrate(db, 1, 3);
+        db.execSQL("INSERT INTO events(title, description, startTime, endTime, remindTime)"
+                + " VALUES('部门会议', 'Weekly sync', 1000, 2000, 1000)");
+
+        DatabaseHelper.migrate(db, 3, 4);
+
+        Cursor rows = db.rawQuery("SELECT docid FROM events_fts WHERE events_fts MATCH ?",
+                new String[]{SearchText.toMatchQuery("会议")});
+        assertEquals(1, rows.getCount());
+        rows.close();
+        rows = db.rawQuery("SELECT docid FROM events_fts WHERE events_fts MATCH ?",
+                new String[]{SearchText.toMatchQuery("sync")});
+        assertEquals(1, rows.getCount());
+        rows.close();
+        db.close();
+    }
+
+    @Test
+    public void search_ranksTitleHitsFirstAndMatchesPrefixes() {
+        Event inBody = new Event("周报", "整理会议纪要", 0, HOUR, 0);
+        Event inTitle = new Event("项目会议", "", 0, HOUR, 0);
+        Event unrelated = new Event("健身", "Gym", 0, HOUR, 0);
+        Event english = new Event("Design review", "", 0, HOUR, 0);
+        helper.addEvents(java.util.Arrays.asList(inBody, inTitle, unrelated, english));
+
+        assertArrayEquals(new int[]{inTitle.getId(), inBody.getId()}, helper.searchEventIds("会议", () -> false));
+        assertArrayEquals(new int[]{english.getId()}, helper.searchEventIds("desi", () -> false));
+        assertArrayEquals(new int[]{english.getId()}, helper.searchEventIds("REVIEW design", () -> false));
+        assertArrayEquals(new int[]{inTitle.getId(), inBody.getId()}, helper.searchEventIds("会", () -> false));
+        assertEquals(0, helper.searchEventIds("项目纪要", () -> false).length);
+        assertEquals(0, helper.searchEventIds("  ,. ", () -> false).length);
+        assertNull(helper.searchEventIds("会议", () -> true));
+
+        List<Event> page = helper.getEventsByIds(helper.searchEventIds("会议", () -> false), 0, 2);
+        assertEquals("项目会议", page.get(0).getTitle());
+        assertEquals("周报", page.get(1).getTitle());
+    }
+
+    @Test
+    public void search_followsUpdatesAndDeletes() {
+        Event event = new Event("牙医", "", 0, HOUR, 0);
+        helper.addEvent(event);
+        assertEquals(1, helper.searchEventIds("牙医", () -> false).length);
+
+        event.setTitle("体检");
+        helper.updateEvent(event);
+        assertEquals(0, helper.searchEventIds("牙医", () -> false).length);
+        assertEquals(1, helper.searchEventIds("体检", () -> false).length);
+
+        helper.deleteEvent(event.getId());
+        assertEquals(0, helper.searchEventIds("体检", () -> false).length);
+        assertTrue(helper.getEventsByIds(new int[]{event.getId()}, 0, 1).isEmpty());
+    }
+
+    @Test
+    public void search_returnsAllMatchesRanked() {
+        // 超过结果数组的初始容量和取消检查的间隔；数据量大时的耗时见 DatabasePerformanceTest
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            String title = i % 10 == 0 ? "季度评审" : "例行事项 " + i;
+            events.add(new Event(title, i % 2 == 0 ? "需要评审材料" : null, i * HOUR, i * HOUR + HOUR, i * HOUR));
+        }
+        helper.addEvents(events);
+
+        int[] ids = helper.searchEventIds("评", () -> false);
+        assertEquals(300, ids.length);
+        // 标题命中的 60 条排在只有描述命中的前面
+        for (Event event : helper.getEventsByIds(ids, 0, 60)) {
+            assertEquals("季度评审", event.getTitle());
+        }
+        for (Event event : helper.getEventsByIds(ids, 60, ids.length)) {
+            assertEquals("需要评审材料", event.getDescription());
+        }
+    }
+
+    @Test
+    public void nextRemindTime_usesRemindIndex() {
+        List<String> plan = explain(DatabaseHelper.QUERY_NEXT_REMIND_TIME, "0");
+        assertTrue("未使用提醒索引: " + plan, plan.toString().contains(DatabaseHelper.INDEX_REMIND));
+        plan = explain(DatabaseHelper.QUERY_REMINDERS, "0", "1");
+        assertTrue("未使用提醒索引: " + plan, plan.toString().contains(DatabaseHelper.INDEX_REMIND));
+        for (String sql : new String[]{DatabaseHelper.QUERY_SERIES_TO_ADVANCE, DatabaseHelper.QUERY_NEXT_SERIES_REMIND_TIME}) {
+            plan = explain(sql, "0");
+            assertTrue("未使用重复日程提醒索引: " + plan, plan.toString().contains(DatabaseHelper.INDEX_NEXT_REMIND));
+        }
+        plan = explain(DatabaseHelper.QUERY_SERIES_REMINDERS, "0", "1");
+        assertTrue("未使用重复日程提醒索引: " + plan, plan.toString().contains(DatabaseHelper.INDEX_NEXT_REMIND));
+    }
+
+    @Test
+    public void seriesReminders_advanceAfterDeliveryAndFollowEdits() {
+        long day0 = 600 * DAY;
+        Event daily = new Event("晨会", "", day0 + 9 * HOUR, day0 + 10 * HOUR, day0 + 9 * HOUR - HOUR / 4);
+        daily.setRecurrenceRule("FREQ=DAILY");
+        helper.addEvent(daily);
+
+        assertEquals(day0 + 9 * HOUR - HOUR / 4, helper.getNextRemindTime(day0));
+        assertEquals(1, helper.getReminders(day0, day0 + 9 * HOUR).size());
+        // 送达之后从下一天开始
+        assertEquals(day0 + DAY + 9 * HOUR - HOUR / 4, helper.getNextRemindTime(day0 + 9 * HOUR));
+
+        // 删除的正是下一次
+        Event second = helper.getEventsByDay(day0 + DAY, day0 + 2 * DAY - 1).get(0);
+        assertTrue(helper.deleteOccurrence(second));
+        assertEquals(day0 + 2 * DAY + 9 * HOUR - HOUR / 4, helper.getNextRemindTime(day0 + 9 * HOUR));
+        assertTrue(helper.getReminders(day0 + 9 * HOUR, day0 + 2 * DAY).isEmpty());
+
+        // 改成晚一小时提醒的每周日程，同样从当前位置算起
+        daily.setRecurrenceRule("FREQ=WEEKLY");
+        daily.setRemindTime(daily.getStartTime() + HOUR);
+        assertTrue(helper.updateEvent(daily));
+        assertEquals(day0 + 7 * DAY + 10 * HOUR, helper.getNextRemindTime(day0 + 10 * HOUR));
+
+        // 系统时间被调回：已经越过的提醒重新有效
+        assertEquals(day0 + 10 * HOUR, helper.getNextRemindTime(day0 - DAY));
+    }
+
+    @Test
+    public void seriesReminders_recomputedAfterTimeZoneChange() {
+        // 每周五 14:00 UTC 开始的系列，按 UTC 登记下一次为 3 月 15 日
+        long dtstart = java.time.Instant.parse("2024-03-08T14:00:00Z").toEpochMilli();
+        Event weekly = new Event("周会", "", dtstart, dtstart + HOUR, dtstart);
+        weekly.setRecurrenceRule("FREQ=WEEKLY");
+        helper.addEvent(weekly);
+        assertEquals(dtstart + 7 * DAY, helper.getNextRemindTime(dtstart));
+
+        // 换到纽约后按当地 9:00 展开，夏令时开始后是 13:00 UTC
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        DateUtils.resetTimeZone();
+        assertEquals(java.time.Instant.parse("2024-03-15T13:00:00Z").toEpochMilli(),
+                helper.getNextRemindTime(dtstart + HOUR));
+    }
+
+    @Test
+    public void migrationFromVersion5_addsSeriesRemindIndex() {
+        SQLiteDatabase db = SQLiteDatabase.create(null);
+        db.execSQL("CREATE TABLE events(id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT,"
+                + " description TEXT, startTime INTEGER, endTime INTEGER, remindTime INTEGER)");
+        DatabaseHelper.migrate(db, 1, 5);
+        db.execSQL("INSERT INTO events(title, startTime, endTime, remindTime, rrule, seriesEnd)"
+                + " VALUES('晨会', 1000, 2000, 1000, 'FREQ=DAILY', " + Long.MAX_VALUE + ")");
+
+        DatabaseHelper.migrate(db, 5, 6);
+
+        Cursor rows = db.rawQuery("SELECT nextRemind FROM events", null);
+        assertTrue(rows.moveToFirst());
+        assertTrue("第一次查找提醒时才计算", rows.isNull(0));
+        rows.close();
+        rows = db.rawQuery("SELECT floor, zone FROM " + DatabaseHelper.TABLE_REMINDER_STATE, null);
+        assertEquals(1, rows.getCount());
+        assertTrue(rows.moveToFirst());
+        assertEquals("", rows.getString(1));
+        rows.close();
+        db.close();
+    }
+
+    @Test
+    public void migrationFromVersion6_indexesLongEvents() {
+        SQLiteDatabase db = SQLiteDatabase.create(null);
+        db.execSQL("CREATE TABLE events(id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT,"
+                + " description TEXT, startTime INTEGER, endTime INTEGER, remindTime INTEGER)");
+        DatabaseHelper.migrate(db, 1, 6);
+
+        DatabaseHelper.migrate(db, 6, 7);
+
+        Cursor rows = db.rawQuery("EXPLAIN QUERY PLAN " + DatabaseHelper.QUERY_LONG_EVENTS_IN_RANGE,
+                new String[]{"0", "1"});
+        StringBuilder plan = new StringBuilder();
+        while (rows.moveToNext()) {
+            plan.append(rows.getString(rows.getColumnIndexOrThrow("detail")));
+        }
+        rows.close();
+        assertTrue(plan.toString(), plan.toString().contains(DatabaseHelper.INDEX_LONG));
+        db.close();
+    }
+
+    @Test
+    public void reminders_includeOneOffsAndOccurrencesInOrder() {
+        long day0 = 400 * DAY;
+        Event daily = new Event("晨会", "", day0 + 9 * HOUR, day0 + 10 * HOUR, day0 + 9 * HOUR - HOUR / 4);
+        daily.setRecurrenceRule("FREQ=DAILY");
+        Event oneOff = new Event("牙医", "", day0 + DAY + 8 * HOUR, day0 + DAY + 9 * HOUR, day0 + DAY + 8 * HOUR);
+        helper.addEvents(java.util.Arrays.asList(daily, oneOff));
+
+        assertEquals(day0 + 9 * HOUR - HOUR / 4, helper.getNextRemindTime(day0));
+        assertEquals(day0 + DAY + 8 * HOUR, helper.getNextRemindTime(day0 + 9 * HOUR));
+
+        List<Event> due = helper.getReminders(day0, day0 + 2 * DAY);
+        List<String> titles = new ArrayList<>();
+        for (Event event : due) {
+            titles.add(event.getTitle());
+        }
+        assertEquals(java.util.Arrays.asList("晨会", "牙医", "晨会"), titles);
+        assertEquals(day0 + DAY + 9 * HOUR, due.get(2).getStartTime());
+
+        helper.deleteEvent(daily.getId());
+        helper.deleteEvent(oneOff.getId());
+        assertEquals(EventStore.NO_REMINDER, helper.getNextRemindTime(day0));
+    }
+
+    @Test
+    public void agendaPage_walksStartIndexWithoutSorting() {
+        for (String sql : new String[]{DatabaseHelper.QUERY_AGENDA_AFTER, DatabaseHelper.QUERY_AGENDA_BEFORE}) {
+            List<String> plan = explain(sql, "0", "0", "0", "50");
+            assertTrue("未使用开始时间索引: " + plan, plan.toString().contains(DatabaseHelper.INDEX_START));
+            assertFalse("需要临时排序: " + plan, plan.toString().contains("TEMP B-TREE"));
+        }
+    }
+
+    @Test
+    public void agendaPage_pagesByStartAndIdInBothDirections() {
+        long day0 = 500 * DAY;
+        // 两条同时开始的单次日程，以及与它们同时开始的每日重复日程
+        insert("甲", day0 + 9 * HOUR, day0 + 10 * HOUR);
+        insert("乙", day0 + 9 * HOUR, day0 + 10 * HOUR);
+        insert("丙", day0 + DAY + 8 * HOUR, day0 + DAY + 9 * HOUR);
+        Event daily = new Event("晨会", "", day0 + 9 * HOUR, day0 + 10 * HOUR, 0);
+        daily.setRecurrenceRule("FREQ=DAILY;COUNT=3");
+        helper.addEvent(daily);
+
+        List<String> forward = new ArrayList<>();
+        long keyStart = day0;
+        int keyId = AgendaPage.KEY_ID_NONE;
+        List<Event> page;
+        while (!(page = helper.getAgendaPage(keyStart, keyId, 2, true)).isEmpty()) {
+            for (Event event : page) {
+                forward.add(event.getTitle());
+            }
+            Event last = page.get(page.size() - 1);
+            keyStart = last.getStartTime();
+            keyId = last.getId();
+        }
+        assertEquals(java.util.Arrays.asList("甲", "乙", "晨会", "丙", "晨会", "晨会"), forward);
+
+        List<String> backward = new ArrayList<>();
+        while (!(page = helper.getAgendaPage(keyStart, keyId, 2, false)).isEmpty()) {
+            for (int i = page.size() - 1; i >= 0; i--) {
+                backward.add(page.get(i).getTitle());
+            }
+            keyStart = page.get(0).getStartTime();
+            keyId = page.get(0).getId();
+        }
+        assertEquals(java.util.Arrays.asList("晨会", "丙", "晨会", "乙", "甲"), backward);
+    }
+
+    private long[] day(long startOfDay) {
+        return new long[]{startOfDay, startOfDay + DAY - 1};
+    }
+
+    private void insert(String title, long start, long end) {
+        ContentValues values = new ContentValues();
+        values.put("title", title);
+        values.put("description", "");
+        values.put("startTime", start);
+        values.put("endTime", end);
+        values.put("remindTime", start);
+        helper.getWritableDatabase().insert(DatabaseHelper.TABLE_EVENTS, null, values);
+    }
+
+    private void assertTitles(long[] range, String... expected) {
+        List<Event> events = helper.getEventsInRange(range[0], range[1]);
+        List<String> titles = new ArrayList<>();
+        for (Event event : events) {
+            titles.add(event.getTitle());
+        }
+        assertEquals(java.util.Arrays.asList(expected), titles);
+    }
+
+    private List<String> explain(String sql, String... args) {
+        Cursor cursor = helper.getReadableDatabase().rawQuery("EXPLAIN QUERY PLAN " + sql, args);
+        List<String> details = new ArrayList<>();
+        int column = cursor.getColumnIndexOrThrow("detail");
+        while (cursor.moveToNext()) {
+            details.add(cursor.getString(column));
+        }
+        cursor.close();
+        return details;
+    }
+}
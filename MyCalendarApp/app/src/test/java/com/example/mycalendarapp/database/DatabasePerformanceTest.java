@@ -0,0 +1,237 @@
+package com.example.mycalendarapp.database;
+
+import android.database.Cursor;
+import com.example.mycalendarapp.model.AgendaPage;
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.model.MonthSnapshot;
+import com.example.mycalendarapp.utils.DateUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 用 CalendarWorkload 灌入大量日程后测量写入吞吐量和查询延迟，超过阈值即失败。
+ *
+ * 灌入数据需要较长时间，只在指定了数据量时运行（app/build.gradle.kts 会转发 -Pperf.* 参数），例如：
+ *   ./gradlew testDebugUnitTest --tests '*DatabasePerformanceTest' -Pperf.events=100000
+ * 平常的 testDebugUnitTest 只运行 workload_isDeterministic。
+ * 各查询扫描的索引范围只与查询区间或页大小有关，阈值不随 perf.events 变化；
+ * 默认值按 CI 机器留了余量，只用于发现数量级上的退化。
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DatabasePerformanceTest {
+    private static final long DAY = CalendarWorkload.DAY;
+    private static final long SEED = 20240101L;
+    private static final long FIRST_DAY = 19_000 * DAY; // 2022-01-08
+    private static final int BATCH_SIZE = 10_000;
+    private static final int QUERIES = 200;
+    private static final int PAGE_SIZE = 50;
+    private static final int WARMUP_QUERIES = 20;
+
+    // 0 表示未指定，跳过需要灌入数据的测试
+    private static final int EVENTS = Integer.getInteger("perf.events", 0);
+    private static final int MIN_INSERTS_PER_SECOND = Integer.getInteger("perf.minInsertsPerSecond", 2_000);
+    private static final int MAX_DAY_P95_MILLIS = Integer.getInteger("perf.maxDayP95Millis", 10);
+    private static final int MAX_MONTH_P95_MILLIS = Integer.getInteger("perf.maxMonthP95Millis", 40);
+    private static final int MAX_AGENDA_P95_MILLIS = Integer.getInteger("perf.maxAgendaPageP95Millis", 20);
+    private static final int MAX_SEARCH_P95_MILLIS = Integer.getInteger("perf.maxSearchP95Millis", 200);
+
+    private DatabaseHelper helper;
+    private TimeZone originalZone;
+
+    @Before
+    public void setUp() {
+        originalZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        DateUtils.resetTimeZone();
+        helper = new DatabaseHelper(RuntimeEnvironment.getApplication(), null);
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        TimeZone.setDefault(originalZone);
+        DateUtils.resetTimeZone();
+    }
+
+    @Test
+    public void workload_isDeterministic() {
+        List<Event> first = new CalendarWorkload(SEED, FIRST_DAY, 365).nextBatch(1000);
+        List<Event> second = new CalendarWorkload(SEED, FIRST_DAY, 365).nextBatch(1000);
+        int recurring = 0;
+        for (int i = 0; i < first.size(); i++) {
+            Event a = first.get(i);
+            Event b = second.get(i);
+            assertEquals(a.getTitle(), b.getTitle());
+            assertEquals(a.getStartTime(), b.getStartTime());
+            assertEquals(a.getEndTime(), b.getEndTime());
+            assertEquals(a.getRecurrenceRule(), b.getRecurrenceRule());
+            if (a.getRecurrenceRule() != null) recurring++;
+        }
+        assertTrue("应包含少量重复日程", recurring > 0 && recurring < 50);
+    }
+
+    @Test
+    public void seededCalendar_meetsThroughputAndLatencyBudget() {
+        assumeTrue("未指定 -Pperf.events", EVENTS > 0);
+        CalendarWorkload workload = new CalendarWorkload(SEED, FIRST_DAY, CalendarWorkload.daysFor(EVENTS));
+
+        // 写入：按批次提交，与导入 .ics 时相同
+        long insertNanos = 0;
+        for (int remaining = EVENTS; remaining > 0; remaining -= BATCH_SIZE) {
+            List<Event> batch = workload.nextBatch(Math.min(BATCH_SIZE, remaining));
+            long begin = System.nanoTime();
+            assertEquals(batch.size(), helper.addEvents(batch));
+            insertNanos += System.nanoTime() - begin;
+        }
+        long insertsPerSecond = EVENTS * 1_000_000_000L / Math.max(insertNanos, 1);
+
+        // 在有数据的表上确认查询计划
+        assertUsesIndex(DatabaseHelper.QUERY_EVENTS_IN_RANGE,
+                new String[]{"0", "1"}, DatabaseHelper.INDEX_START + " (startTime>? AND startTime<?)");
+        assertUsesIndex(DatabaseHelper.QUERY_LONG_EVENTS_IN_RANGE,
+                new String[]{"0", "1"}, DatabaseHelper.INDEX_LONG);
+        assertUsesIndex(DatabaseHelper.QUERY_SERIES_IN_RANGE,
+                new String[]{"1", "0"}, DatabaseHelper.INDEX_RECURRING);
+        assertUsesIndex(DatabaseHelper.QUERY_AGENDA_AFTER,
+                new String[]{"0", "0", "0", "50"}, DatabaseHelper.INDEX_START);
+
+        Random random = new Random(SEED);
+        // 预热：前几次查询包含类加载和 JIT 的开销，不计入
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            long day = workload.randomDay(random);
+            helper.getEventsByDay(day, day + DAY - 1);
+            helper.getAgendaPage(day, AgendaPage.KEY_ID_NONE, PAGE_SIZE, i % 2 == 0);
+        }
+
+        long[] dayNanos = new long[QUERIES];
+        long dayEvents = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            long day = workload.randomDay(random);
+            long begin = System.nanoTime();
+            dayEvents += helper.getEventsByDay(day, day + DAY - 1).size();
+            dayNanos[i] = System.nanoTime() - begin;
+        }
+
+        long[] monthNanos = new long[QUERIES / 4];
+        long monthEvents = 0;
+        for (int i = 0; i < monthNanos.length; i++) {
+            long day = workload.randomDay(random);
+            long[] boundaries = new long[31];
+            for (int d = 0; d < boundaries.length; d++) {
+                boundaries[d] = day + d * DAY;
+            }
+            long begin = System.nanoTime();
+            MonthSnapshot snapshot = helper.getMonthSnapshot(boundaries);
+            monthNanos[i] = System.nanoTime() - begin;
+            monthEvents += snapshot.getEvents().size();
+        }
+
+        // 议程列表：从任意一天向后、向前各翻一页，耗时不应随日期在表中的位置增长
+        long[] agendaNanos = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            long day = workload.randomDay(random);
+            long begin = System.nanoTime();
+            List<Event> page = helper.getAgendaPage(day, AgendaPage.KEY_ID_NONE, PAGE_SIZE, i % 2 == 0);
+            agendaNanos[i] = System.nanoTime() - begin;
+            assertTrue(page.size() <= PAGE_SIZE);
+        }
+
+        long dayP95 = percentileMillis(dayNanos, 95);
+        long monthP95 = percentileMillis(monthNanos, 95);
+        long agendaP95 = percentileMillis(agendaNanos, 95);
+
+        assertTrue("写入吞吐量 " + insertsPerSecond + "/s 低于 " + MIN_INSERTS_PER_SECOND,
+                insertsPerSecond >= MIN_INSERTS_PER_SECOND);
+        assertTrue("按天查询 p95 " + dayP95 + "ms（p50 " + percentileMillis(dayNanos, 50) + "ms，平均 "
+                        + dayEvents / QUERIES + " 个日程）超过 " + MAX_DAY_P95_MILLIS + "ms",
+                dayP95 <= MAX_DAY_P95_MILLIS);
+        assertTrue("按月查询 p95 " + monthP95 + "ms（p50 " + percentileMillis(monthNanos, 50) + "ms，平均 "
+                        + monthEvents / monthNanos.length + " 个日程）超过 " + MAX_MONTH_P95_MILLIS + "ms",
+                monthP95 <= MAX_MONTH_P95_MILLIS);
+        assertTrue("议程翻页 p95 " + agendaP95 + "ms（p50 " + percentileMillis(agendaNanos, 50) + "ms）超过 "
+                        + MAX_AGENDA_P95_MILLIS + "ms",
+                agendaP95 <= MAX_AGENDA_P95_MILLIS);
+    }
+
+    @Test
+    public void search_largeTable_returnsAllMatchesRankedInTime() {
+        assumeTrue("未指定 -Pperf.events", EVENTS > 0);
+        // 每 100 个日程有一个标题命中，每 10 个有一个描述命中
+        List<Event> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < EVENTS; i++) {
+            String title = i % 100 == 0 ? "季度评审" : "例行事项 " + i;
+            long start = FIRST_DAY + i * CalendarWorkload.HOUR;
+            batch.add(new Event(title, i % 10 == 0 ? "需要评审材料" : null, start, start + CalendarWorkload.HOUR, start));
+            if (batch.size() == BATCH_SIZE || i == EVENTS - 1) {
+                helper.addEvents(batch);
+                batch.clear();
+            }
+        }
+
+        String[] queries = {"评审", "评", "季度", "材料"};
+        long[] searchNanos = new long[QUERIES / 4];
+        for (int i = -WARMUP_QUERIES / 4; i < searchNanos.length; i++) {
+            long begin = System.nanoTime();
+            int[] ids = helper.searchEventIds(queries[Math.floorMod(i, queries.length)], () -> false);
+            if (i >= 0) searchNanos[i] = System.nanoTime() - begin;
+            assertTrue(ids.length > 0);
+        }
+
+        int[] ids = helper.searchEventIds("评审", () -> false);
+        assertEquals((EVENTS + 9) / 10, ids.length);
+        // 标题命中的排在只有描述命中的前面
+        int titleHits = (EVENTS + 99) / 100;
+        for (Event event : helper.getEventsByIds(ids, 0, Math.min(titleHits, PAGE_SIZE))) {
+            assertEquals("季度评审", event.getTitle());
+        }
+        assertEquals("需要评审材料", helper.getEventsByIds(ids, titleHits, titleHits + 1).get(0).getDescription());
+
+        long searchP95 = percentileMillis(searchNanos, 95);
+        assertTrue("搜索 p95 " + searchP95 + "ms（p50 " + percentileMillis(searchNanos, 50) + "ms）超过 "
+                        + MAX_SEARCH_P95_MILLIS + "ms",
+                searchP95 <= MAX_SEARCH_P95_MILLIS);
+    }
+
+    private void assertUsesIndex(String sql, String[] args, String... indexes) {
+        List<String> plan = explain(sql, args);
+        boolean usesIndex = false;
+        for (String detail : plan) {
+            assertFalse("全表扫描: " + plan, detail.startsWith("SCAN") && !detail.contains("INDEX"));
+            for (String index : indexes) {
+                if (detail.contains(index)) usesIndex = true;
+            }
+        }
+        assertTrue("未使用 " + Arrays.toString(indexes) + ": " + plan, usesIndex);
+    }
+
+    private List<String> explain(String sql, String... args) {
+        Cursor cursor = helper.getReadableDatabase().rawQuery("EXPLAIN QUERY PLAN " + sql, args);
+        List<String> details = new ArrayList<>();
+        int column = cursor.getColumnIndexOrThrow("detail");
+        while (cursor.moveToNext()) {
+            details.add(cursor.getString(column));
+        }
+        cursor.close();
+        return details;
+    }
+
+    private static long percentileMillis(long[] nanos, int percentile) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * percentile / 100.0) - 1);
+        return sorted[Math.max(index, 0)] / 1_000_000;
+    }
+}
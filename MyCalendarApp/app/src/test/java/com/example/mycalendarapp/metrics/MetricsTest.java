@@ -0,0 +1,110 @@
+package com.example.mycalendarapp.metrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+    @Before
+    public void setUp() {
+        Metrics.reset();
+    }
+
+    @After
+    public void tearDown() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Test
+    public void disabled_recordsNothingAndSkipsTheClock() {
+        Metrics.setEnabled(false);
+        Counter counter = Metrics.counter("test.disabled.counter");
+        Histogram histogram = Metrics.timer("test.disabled.timer");
+
+        long begin = Metrics.start();
+        counter.increment();
+        histogram.record(5);
+        histogram.recordSince(begin);
+
+        assertEquals(Metrics.NOT_STARTED, begin);
+        assertEquals(0, counter.get());
+        assertEquals(0, histogram.getCount());
+    }
+
+    @Test
+    public void sameNameReturnsSameMetric() {
+        assertSame(Metrics.counter("test.same"), Metrics.counter("test.same"));
+        assertSame(Metrics.timer("test.same.timer"), Metrics.timer("test.same.timer"));
+        try {
+            Metrics.histogram("test.same.timer", Histogram.UNIT_MILLIS);
+            fail("单位不同的同名直方图应被拒绝");
+        } catch (IllegalArgumentException expected) {
+            // 预期
+        }
+    }
+
+    @Test
+    public void histogram_percentilesWithinOneBucket() {
+        Metrics.setEnabled(true);
+        Histogram histogram = Metrics.histogram("test.percentiles", Histogram.UNIT_COUNT);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500_500, histogram.getSum());
+        assertEquals(1000, histogram.getMax());
+        // 估算值是所在桶的上界：不小于真实值，也不超过它的 2 倍
+        long p50 = histogram.getPercentile(50);
+        long p99 = histogram.getPercentile(99);
+        assertTrue("p50=" + p50, p50 >= 500 && p50 < 1000);
+        assertTrue("p99=" + p99, p99 >= 990 && p99 <= 1000);
+        assertEquals(0, Histogram.bucketOf(0));
+        assertEquals(1, Histogram.bucketOf(1));
+        assertEquals(11, Histogram.bucketOf(1024));
+    }
+
+    @Test
+    public void toJson_isSortedAndComplete() {
+        Metrics.setEnabled(true);
+        Metrics.counter("test.json.b").add(2);
+        Metrics.counter("test.json.a").increment();
+        Metrics.histogram("test.json.delay", Histogram.UNIT_MILLIS).record(40);
+        long[] cacheHits = {3};
+        Metrics.gauge("test.json.gauge", () -> cacheHits[0]);
+        cacheHits[0] = 5;
+
+        String json = Metrics.toJson();
+        assertTrue(json, json.startsWith("{\"enabled\":true,\"counters\":{"));
+        assertTrue(json, json.indexOf("\"test.json.a\":1") < json.indexOf("\"test.json.b\":2"));
+        assertTrue(json, json.contains("\"gauges\":{") && json.contains("\"test.json.gauge\":5"));
+        assertTrue(json, json.contains("\"test.json.delay\":{\"unit\":\"ms\",\"count\":1,\"sum\":40,\"max\":40,"
+                + "\"p50\":40,\"p90\":40,\"p99\":40}"));
+        assertTrue(json, json.endsWith("}}"));
+    }
+
+    // 关闭时只记录开启期间的调用；两种状态下每次记录的开销见 :benchmark 的 MetricsBenchmark
+    @Test
+    public void toggling_recordsOnlyWhileEnabled() {
+        Counter counter = Metrics.counter("test.toggle.counter");
+        Histogram histogram = Metrics.timer("test.toggle.timer");
+        int iterations = 1000;
+
+        Metrics.setEnabled(false);
+        for (int i = 0; i < iterations; i++) {
+            counter.increment();
+            histogram.recordSince(Metrics.start());
+        }
+        Metrics.setEnabled(true);
+        for (int i = 0; i < iterations; i++) {
+            counter.increment();
+            histogram.recordSince(Metrics.start());
+        }
+
+        assertEquals(iterations, counter.get());
+        assertEquals(iterations, histogram.getCount());
+    }
+}
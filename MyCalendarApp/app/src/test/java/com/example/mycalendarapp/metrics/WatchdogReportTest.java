@@ -0,0 +1,70 @@
+package com.example.mycalendarapp.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class WatchdogReportTest {
+    private static final String DIALOG_CLICK = ">>>>> Dispatching to Handler (android.os.Handler) {8f3c1a2} "
+            + "com.example.mycalendarapp.MainActivity$$ExternalSyntheticLambda7@1b2c3d: 0";
+
+    @Test
+    public void originOf_keepsHandlerAndCallbackWithoutAddress() {
+        assertEquals("android.os.Handler / com.example.mycalendarapp.MainActivity$$ExternalSyntheticLambda7",
+                WatchdogReport.originOf(DIALOG_CLICK));
+        assertEquals("android.view.Choreographer$FrameHandler", WatchdogReport.originOf(
+                ">>>>> Dispatching to Handler (android.view.Choreographer$FrameHandler) {4d2e} null: 0"));
+        assertEquals(WatchdogReport.ORIGIN_UNKNOWN, WatchdogReport.originOf(null));
+        assertEquals(WatchdogReport.ORIGIN_UNKNOWN, WatchdogReport.originOf("garbage"));
+    }
+
+    @Test
+    public void appFrame_skipsFrameworkAndWatchdogFrames() {
+        StackTraceElement[] stack = {
+                new StackTraceElement("android.database.sqlite.SQLiteConnection", "nativeExecute", "x.java", 1),
+                new StackTraceElement("com.example.mycalendarapp.metrics.MainThreadWatchdog", "record", "y.java", 2),
+                new StackTraceElement("com.example.mycalendarapp.database.DatabaseHelper", "addEvent", "z.java", 240),
+                new StackTraceElement("com.example.mycalendarapp.MainActivity", "lambda$showAddEventDialog$3", "m.java", 512),
+        };
+        assertEquals("database.DatabaseHelper.addEvent:240", WatchdogReport.appFrameOf(stack));
+        assertEquals(WatchdogReport.ORIGIN_UNKNOWN, WatchdogReport.appFrameOf(null));
+    }
+
+    @Test
+    public void sameOriginAndFrame_areAggregated() {
+        WatchdogReport report = new WatchdogReport();
+        StackTraceElement[] stack = {
+                new StackTraceElement("com.example.mycalendarapp.MainActivity", "lambda$showAddEventDialog$3", "m.java", 512),
+        };
+        String origin = WatchdogReport.originOf(DIALOG_CLICK);
+
+        assertTrue(report.add(WatchdogReport.KIND_LONG_DISPATCH, origin, 120, stack));
+        assertFalse(report.add(WatchdogReport.KIND_LONG_DISPATCH, origin, 300, stack));
+        assertTrue(report.add("DiskReadViolation", origin, 0, stack));
+        for (int i = 0; i < 3; i++) {
+            report.add("DiskWriteViolation", WatchdogReport.ORIGIN_UNKNOWN, 0, null);
+        }
+        assertEquals(3, report.size());
+
+        String json = report.toJson();
+        // 次数最多的排在前面
+        assertTrue(json, json.startsWith("{\"findings\":[{\"kind\":\"DiskWriteViolation\""));
+        assertTrue(json, json.contains("\"kind\":\"LongDispatch\",\"origin\":\"" + origin
+                + "\",\"appFrame\":\"MainActivity.lambda$showAddEventDialog$3:512\",\"count\":2,"
+                + "\"totalMillis\":420,\"maxMillis\":300,\"stack\":[\"com.example.mycalendarapp.MainActivity"));
+        assertTrue(json, json.endsWith("],\"dropped\":0}"));
+    }
+
+    @Test
+    public void distinctFindings_areCapped() {
+        WatchdogReport report = new WatchdogReport();
+        for (int i = 0; i < WatchdogReport.MAX_FINDINGS + 10; i++) {
+            report.add(WatchdogReport.KIND_LONG_DISPATCH, "origin" + i, 100, null);
+        }
+        assertEquals(WatchdogReport.MAX_FINDINGS, report.size());
+        assertTrue(report.toJson().endsWith("\"dropped\":10}"));
+
+        report.clear();
+        assertEquals(0, report.size());
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.mycalendarapp.model;
+
+import com.example.mycalendarapp.utils.DateUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class ColumnPackerTest {
+    private static final long MINUTE = 60 * 1000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+    // 1970-01-05 是周一
+    private static final long MONDAY = 4 * DAY;
+
+    private TimeZone originalZone;
+
+    @Before
+    public void setUp() {
+        originalZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        DateUtils.resetTimeZone();
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(originalZone);
+        DateUtils.resetTimeZone();
+    }
+
+    @Test
+    public void overlappingEventsShareTheWidth_othersUseFullWidth() {
+        TimelineLayout layout = ColumnPacker.pack(List.of(
+                event("甲", 9 * HOUR, 11 * HOUR),
+                event("乙", 9 * HOUR + 30 * MINUTE, 10 * HOUR),
+                event("丙", 10 * HOUR, 12 * HOUR),   // 乙结束后接着用乙的列
+                event("丁", 13 * HOUR, 14 * HOUR)), days(1));
+
+        assertEquals(4, layout.getBlockCount());
+        assertBlock(layout, 0, "甲", 0, 2);
+        assertBlock(layout, 1, "乙", 1, 2);
+        assertBlock(layout, 2, "丙", 1, 2);
+        assertBlock(layout, 3, "丁", 0, 1);
+    }
+
+    @Test
+    public void chainedOverlapsFormOneGroup() {
+        // 甲和丙不直接重叠，但都与乙重叠，三者平分同样的宽度
+        TimelineLayout layout = ColumnPacker.pack(List.of(
+                event("丙", 10 * HOUR + 15 * MINUTE, 11 * HOUR),
+                event("乙", 9 * HOUR + 30 * MINUTE, 10 * HOUR + 30 * MINUTE),
+                event("甲", 9 * HOUR, 10 * HOUR)), days(1));
+
+        assertBlock(layout, 0, "甲", 0, 2);
+        assertBlock(layout, 1, "乙", 1, 2);
+        assertBlock(layout, 2, "丙", 0, 2);
+    }
+
+    @Test
+    public void multiDayEventIsSplitPerDay() {
+        TimelineLayout layout = ColumnPacker.pack(List.of(
+                event("夜班", 22 * HOUR, DAY + 2 * HOUR),
+                event("到零点", DAY + 20 * HOUR, 2 * DAY)), days(3));
+
+        assertEquals(0, layout.getFirstBlock(0));
+        assertEquals(1, layout.getFirstBlock(1));
+        assertEquals(3, layout.getFirstBlock(2));
+        assertEquals(3, layout.getFirstBlock(3)); // 恰好在零点结束的不出现在第三天
+        assertMinutes(layout, 0, 22 * 60, 24 * 60);
+        assertMinutes(layout, 1, 0, 2 * 60);
+        assertMinutes(layout, 2, 20 * 60, 24 * 60);
+    }
+
+    @Test
+    public void shortEventsUseMinimumHeightWithinTheDay() {
+        TimelineLayout layout = ColumnPacker.pack(List.of(
+                event("签到", 10 * HOUR, 10 * HOUR + 5 * MINUTE),
+                event("电话", 10 * HOUR + 10 * MINUTE, 10 * HOUR + 10 * MINUTE),
+                event("午夜", 23 * HOUR + 55 * MINUTE, 23 * HOUR + 55 * MINUTE)), days(1), 20);
+
+        // 按 20 分钟显示后前两个重叠，并排显示
+        assertMinutes(layout, 0, 600, 620);
+        assertMinutes(layout, 1, 610, 630);
+        assertEquals(2, layout.getColumnCount(0));
+        assertEquals(1, layout.getColumn(1));
+        // 临近午夜的向上延伸
+        assertMinutes(layout, 2, 24 * 60 - 20, 24 * 60);
+        assertEquals(1, layout.getColumnCount(2));
+    }
+
+    @Test
+    public void findBlock_hitsTheTopmostBlock() {
+        TimelineLayout layout = ColumnPacker.pack(List.of(
+                event("甲", 9 * HOUR, 11 * HOUR),
+                event("乙", 9 * HOUR + 30 * MINUTE, 10 * HOUR)), days(1));
+
+        assertEquals("甲", layout.getEvent(layout.findBlock(0, 9 * 60 + 40, 0.2f)).getTitle());
+        assertEquals("乙", layout.getEvent(layout.findBlock(0, 9 * 60 + 40, 0.7f)).getTitle());
+        assertEquals(-1, layout.findBlock(0, 10 * 60 + 30, 0.7f));
+        assertEquals(-1, layout.findBlock(0, 12 * 60, 0.2f));
+    }
+
+    @Test
+    public void randomWeeks_columnsNeverOverlapAndAreMinimal() {
+        Random random = new Random(7);
+        for (int round = 0; round < 30; round++) {
+            TimelineLayout layout = ColumnPacker.pack(randomWeek(random, 1 + random.nextInt(200)), days(7));
+            for (int day = 0; day < 7; day++) {
+                int from = layout.getFirstBlock(day);
+                int to = layout.getFirstBlock(day + 1);
+                for (int i = from; i < to; i++) {
+                    assertTrue(layout.getColumn(i) < layout.getColumnCount(i));
+                    for (int j = from; j < to; j++) {
+                        if (j == i || !overlaps(layout, i, j)) continue;
+                        assertEquals("重叠的块列数相同", layout.getColumnCount(i), layout.getColumnCount(j));
+                        assertTrue("重叠的块不在同一列", layout.getColumn(i) != layout.getColumn(j));
+                    }
+                    // 贪心分配在区间上是最优的：列数恰好是这一组中同一时刻最多重叠的块数
+                    assertEquals("第 " + i + " 块的列数",
+                            maxDepthOfGroup(layout, i, from, to), layout.getColumnCount(i));
+                }
+            }
+        }
+    }
+
+    // 排列耗时见 :benchmark 的 ColumnPackerBenchmark
+    @Test
+    public void busyWeek_everyEventPlacedWithoutCollisions() {
+        // 每天 150 个 15-90 分钟的日程集中在工作时间，重叠很密
+        Random random = new Random(3);
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 7 * 150; i++) {
+            long start = random.nextInt(7) * DAY + 8 * HOUR + random.nextInt(10 * 60) * MINUTE;
+            events.add(event("日程", start, start + (1 + random.nextInt(6)) * 15 * MINUTE));
+        }
+
+        TimelineLayout layout = ColumnPacker.pack(events, days(7));
+        assertEquals(events.size(), layout.getBlockCount());
+        for (int day = 0; day < 7; day++) {
+            int to = layout.getFirstBlock(day + 1);
+            for (int i = layout.getFirstBlock(day); i < to; i++) {
+                for (int j = i + 1; j < to; j++) {
+                    assertFalse(overlaps(layout, i, j) && layout.getColumn(i) == layout.getColumn(j));
+                }
+            }
+        }
+    }
+
+    private static boolean overlaps(TimelineLayout layout, int i, int j) {
+        return layout.getStartMinute(i) < layout.getEndMinute(j) && layout.getStartMinute(j) < layout.getEndMinute(i);
+    }
+
+    // block 所在的组（直接或间接重叠的块）中，同一时刻最多有几个块
+    private static int maxDepthOfGroup(TimelineLayout layout, int block, int from, int to) {
+        boolean[] inGroup = new boolean[to - from];
+        inGroup[block - from] = true;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = from; i < to; i++) {
+                if (!inGroup[i - from]) continue;
+                for (int j = from; j < to; j++) {
+                    if (!inGroup[j - from] && overlaps(layout, i, j)) {
+                        inGroup[j - from] = true;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        int max = 0;
+        for (int i = from; i < to; i++) {
+            if (!inGroup[i - from]) continue;
+            int depth = 0;
+            for (int j = from; j < to; j++) {
+                if (inGroup[j - from] && layout.getStartMinute(j) <= layout.getStartMinute(i)
+                        && layout.getStartMinute(i) < layout.getEndMinute(j)) {
+                    depth++;
+                }
+            }
+            max = Math.max(max, depth);
+        }
+        return max;
+    }
+
+    private static List<Event> randomWeek(Random random, int count) {
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long start = random.nextInt(7 * 24 * 12) * 5 * MINUTE;
+            long duration = random.nextInt(10) == 0 ? random.nextInt(48) * HOUR : random.nextInt(25) * 5 * MINUTE;
+            events.add(event("日程 " + i, start, start + duration));
+        }
+        return events;
+    }
+
+    // 从 MONDAY 开始连续 count 天的边界
+    private static long[] days(int count) {
+        long[] boundaries = new long[count + 1];
+        for (int i = 0; i <= count; i++) {
+            boundaries[i] = MONDAY + i * DAY;
+        }
+        return boundaries;
+    }
+
+    private static void assertBlock(TimelineLayout layout, int block, String title, int column, int columnCount) {
+        assertEquals(title, layout.getEvent(block).getTitle());
+        assertEquals(title + " 的列", column, layout.getColumn(block));
+        assertEquals(title + " 的列数", columnCount, layout.getColumnCount(block));
+    }
+
+    private static void assertMinutes(TimelineLayout layout, int block, int start, int end) {
+        assertEquals(start, layout.getStartMinute(block));
+        assertEquals(end, layout.getEndMinute(block));
+    }
+
+    // 时间相对于 MONDAY
+    private static Event event(String title, long start, long end) {
+        return new Event(title, "", MONDAY + start, MONDAY + end, MONDAY + start);
+    }
+}
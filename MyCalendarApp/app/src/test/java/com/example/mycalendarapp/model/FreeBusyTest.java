@@ -0,0 +1,186 @@
+package com.example.mycalendarapp.model;
+
+import com.example.mycalendarapp.utils.DateUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class FreeBusyTest {
+    private static final long MINUTE = 60 * 1000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+    // 1970-01-05 是周一
+    private static final long MONDAY = 4 * DAY;
+    private static final FreeBusy.WorkingHours NINE_TO_SIX = FreeBusy.WorkingHours.weekdays(9 * 60, 18 * 60);
+
+    private TimeZone originalZone;
+
+    @Before
+    public void setUp() {
+        originalZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        DateUtils.resetTimeZone();
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(originalZone);
+        DateUtils.resetTimeZone();
+    }
+
+    @Test
+    public void overlappingAndTouchingEventsAreCoalesced() {
+        FreeBusy freeBusy = FreeBusy.of(List.of(
+                event(MONDAY + 9 * HOUR, MONDAY + 10 * HOUR),
+                event(MONDAY + 9 * HOUR + 30 * MINUTE, MONDAY + 11 * HOUR),
+                event(MONDAY + 11 * HOUR, MONDAY + 12 * HOUR),
+                event(MONDAY + 13 * HOUR, MONDAY + 13 * HOUR), // 零时长不占用时间
+                event(MONDAY + 14 * HOUR, MONDAY + 15 * HOUR)), MONDAY, MONDAY + DAY);
+
+        assertEquals(2, freeBusy.getBusyCount());
+        assertEquals(slot(MONDAY + 9 * HOUR, MONDAY + 12 * HOUR), freeBusy.getBusy(0));
+        assertEquals(slot(MONDAY + 14 * HOUR, MONDAY + 15 * HOUR), freeBusy.getBusy(1));
+    }
+
+    @Test
+    public void nextFreeSlot_skipsGapsThatAreTooShort() {
+        FreeBusy freeBusy = FreeBusy.of(List.of(
+                event(MONDAY + 9 * HOUR, MONDAY + 10 * HOUR),
+                event(MONDAY + 10 * HOUR + 30 * MINUTE, MONDAY + 12 * HOUR)), MONDAY, MONDAY + 7 * DAY);
+
+        assertEquals(slot(MONDAY + 10 * HOUR, MONDAY + 10 * HOUR + 30 * MINUTE),
+                freeBusy.nextFreeSlot(MONDAY, 30 * MINUTE, NINE_TO_SIX));
+        assertEquals(slot(MONDAY + 12 * HOUR, MONDAY + 12 * HOUR + 45 * MINUTE),
+                freeBusy.nextFreeSlot(MONDAY, 45 * MINUTE, NINE_TO_SIX));
+        // 从 17:30 起当天剩余不足 45 分钟，顺延到第二天上班
+        assertEquals(slot(MONDAY + DAY + 9 * HOUR, MONDAY + DAY + 9 * HOUR + 45 * MINUTE),
+                freeBusy.nextFreeSlot(MONDAY + 17 * HOUR + 30 * MINUTE, 45 * MINUTE, NINE_TO_SIX));
+    }
+
+    @Test
+    public void multiDayEventBlocksEveryDayItCovers_andWeekendIsSkipped() {
+        // 周一 15:00 到周三 11:00 出差
+        FreeBusy freeBusy = FreeBusy.of(List.of(
+                event(MONDAY + 15 * HOUR, MONDAY + 2 * DAY + 11 * HOUR)), MONDAY, MONDAY + 7 * DAY);
+
+        List<FreeBusy.Slot> slots = freeBusy.freeSlots(HOUR, NINE_TO_SIX);
+        assertEquals(List.of(
+                slot(MONDAY + 9 * HOUR, MONDAY + 15 * HOUR),
+                slot(MONDAY + 2 * DAY + 11 * HOUR, MONDAY + 2 * DAY + 18 * HOUR),
+                slot(MONDAY + 3 * DAY + 9 * HOUR, MONDAY + 3 * DAY + 18 * HOUR),
+                slot(MONDAY + 4 * DAY + 9 * HOUR, MONDAY + 4 * DAY + 18 * HOUR)), slots);
+
+        // 窗口在周五下班后就没有空闲了
+        assertNull(freeBusy.nextFreeSlot(MONDAY + 4 * DAY + 18 * HOUR, MINUTE, NINE_TO_SIX));
+    }
+
+    @Test
+    public void anyTime_mergesFreeTimeAcrossMidnight() {
+        FreeBusy freeBusy = FreeBusy.of(List.of(
+                event(MONDAY + 20 * HOUR, MONDAY + 22 * HOUR),
+                event(MONDAY + DAY + 2 * HOUR, MONDAY + DAY + 8 * HOUR)), MONDAY, MONDAY + 2 * DAY);
+
+        assertEquals(List.of(
+                slot(MONDAY, MONDAY + 20 * HOUR),
+                slot(MONDAY + 22 * HOUR, MONDAY + DAY + 2 * HOUR),
+                slot(MONDAY + DAY + 8 * HOUR, MONDAY + 2 * DAY)),
+                freeBusy.freeSlots(4 * HOUR, FreeBusy.WorkingHours.ANY_TIME));
+    }
+
+    @Test
+    public void unsortedInput_matchesMinuteByMinuteCheck() {
+        Random random = new Random(3);
+        for (int round = 0; round < 30; round++) {
+            List<Event> events = randomEvents(random, 1 + random.nextInt(40), 7 * DAY);
+            if (round % 2 == 0) Collections.shuffle(events, random);
+            FreeBusy freeBusy = FreeBusy.of(events, MONDAY, MONDAY + 7 * DAY);
+            long duration = (1 + random.nextInt(4)) * 30 * MINUTE;
+            assertEquals(bruteForce(events, duration), freeBusy.freeSlots(duration, NINE_TO_SIX));
+        }
+    }
+
+    // 建立和查询的耗时见 :benchmark 的 FreeBusyBenchmark
+    @Test
+    public void yearWindow_freeSlotsAvoidBusyTime() {
+        // 一年 2 万个 15-45 分钟的日程，约占全部时间的 85%
+        Random random = new Random(11);
+        List<Event> events = new ArrayList<>(20_000);
+        for (int i = 0; i < 20_000; i++) {
+            long start = MONDAY + (long) (random.nextDouble() * 365 * DAY) / MINUTE * MINUTE;
+            events.add(event(start, start + (1 + random.nextInt(3)) * 15 * MINUTE));
+        }
+        events.sort((a, b) -> Long.compare(a.getStartTime(), b.getStartTime()));
+
+        FreeBusy freeBusy = FreeBusy.of(events, MONDAY, MONDAY + 365 * DAY);
+        for (int i = 1; i < freeBusy.getBusyCount(); i++) {
+            assertTrue(freeBusy.getBusy(i - 1).end < freeBusy.getBusy(i).start);
+        }
+        List<FreeBusy.Slot> free = freeBusy.freeSlots(45 * MINUTE, NINE_TO_SIX);
+        assertFalse(free.isEmpty());
+        // 空闲段与日程都按时间排序，日程最长 45 分钟，只需检查开始时间在 [start - 45 分钟, end) 内的日程
+        int first = 0;
+        for (FreeBusy.Slot slot : free) {
+            assertTrue(slot.getDuration() >= 45 * MINUTE);
+            assertTrue(isWorkingMinute(slot.start) && isWorkingMinute(slot.end - 1));
+            while (events.get(first).getStartTime() < slot.start - 45 * MINUTE) first++;
+            for (int i = first; i < events.size() && events.get(i).getStartTime() < slot.end; i++) {
+                assertFalse(events.get(i).getEndTime() > slot.start);
+            }
+        }
+    }
+
+    // 逐分钟判断是否空闲，再拼接成段
+    private static List<FreeBusy.Slot> bruteForce(List<Event> events, long duration) {
+        List<FreeBusy.Slot> slots = new ArrayList<>();
+        long runStart = -1;
+        for (long t = MONDAY; t <= MONDAY + 7 * DAY; t += MINUTE) {
+            boolean free = t < MONDAY + 7 * DAY && isWorkingMinute(t) && !isBusy(events, t);
+            if (free && runStart < 0) {
+                runStart = t;
+            } else if (!free && runStart >= 0) {
+                if (t - runStart >= duration) slots.add(slot(runStart, t));
+                runStart = -1;
+            }
+        }
+        return slots;
+    }
+
+    private static boolean isWorkingMinute(long t) {
+        int dayOfWeek = DateUtils.dayOfWeek(DateUtils.getEpochDay(t));
+        int minute = DateUtils.getMinuteOfDay(t);
+        return dayOfWeek >= 1 && dayOfWeek <= 5 && minute >= 9 * 60 && minute < 18 * 60;
+    }
+
+    private static boolean isBusy(List<Event> events, long t) {
+        for (Event event : events) {
+            if (event.getStartTime() <= t && t < event.getEndTime()) return true;
+        }
+        return false;
+    }
+
+    private static List<Event> randomEvents(Random random, int count, long span) {
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long start = MONDAY - DAY + (long) (random.nextDouble() * (span + DAY)) / (15 * MINUTE) * (15 * MINUTE);
+            long length = random.nextInt(30) == 0 ? random.nextInt(3) * DAY : random.nextInt(5) * 30 * MINUTE;
+            events.add(event(start, start + length));
+        }
+        return events;
+    }
+
+    private static Event event(long start, long end) {
+        return new Event("日程", "", start, end, start);
+    }
+
+    private static FreeBusy.Slot slot(long start, long end) {
+        return new FreeBusy.Slot(start, end);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.mycalendarapp.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IntervalIndexTest {
+    private static final long MINUTE = 60 * 1000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+
+    @Test
+    public void touchingEventsDoNotConflict() {
+        IntervalIndex index = IntervalIndex.of(List.of(
+                event(1, "上午", 9 * HOUR, 10 * HOUR),
+                event(2, "下午", 14 * HOUR, 15 * HOUR)));
+
+        assertTrue(index.overlapping(10 * HOUR, 14 * HOUR).isEmpty());
+        assertEquals(List.of("上午"), titles(index.overlapping(9 * HOUR + 59 * MINUTE, 11 * HOUR)));
+        assertEquals(List.of("上午", "下午"), titles(index.overlapping(8 * HOUR, 16 * HOUR)));
+    }
+
+    @Test
+    public void zeroLengthEventsConflictWhenInside() {
+        IntervalIndex index = IntervalIndex.of(List.of(
+                event(1, "会议", 9 * HOUR, 11 * HOUR),
+                event(2, "打卡", 12 * HOUR, 12 * HOUR)));
+
+        assertEquals(List.of("会议"), titles(index.overlapping(10 * HOUR, 10 * HOUR)));
+        assertEquals(List.of("打卡"), titles(index.overlapping(11 * HOUR, 13 * HOUR)));
+        assertTrue(index.overlapping(11 * HOUR, 12 * HOUR).isEmpty());
+    }
+
+    @Test
+    public void collect_excludesEventBeingEdited() {
+        Event series = event(7, "晨会", 9 * HOUR, 10 * HOUR);
+        IntervalIndex index = IntervalIndex.of(List.of(
+                Event.occurrence(series, 9 * HOUR),
+                Event.occurrence(series, DAY + 9 * HOUR),
+                event(8, "面试", 9 * HOUR + 30 * MINUTE, 11 * HOUR)));
+
+        List<Event> out = new ArrayList<>();
+        assertEquals(1, index.collect(9 * HOUR, 10 * HOUR, 7, out));
+        assertEquals("面试", out.get(0).getTitle());
+    }
+
+    @Test
+    public void matchesLinearScanOnRandomCalendars() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            List<Event> events = randomEvents(random, 1 + random.nextInt(300), 7 * DAY);
+            IntervalIndex index = IntervalIndex.of(events);
+            for (int q = 0; q < 100; q++) {
+                long start = (long) (random.nextDouble() * 7 * DAY);
+                long end = start + random.nextInt(6) * 30 * MINUTE;
+                assertEquals(linearScan(events, start, end), index.overlapping(start, end));
+            }
+        }
+    }
+
+    @Test
+    public void denseCalendar_matchesLinearScan() {
+        // 一个月 10 万个日程，平均每分钟 2 个以上；查询耗时与线性扫描的对比见 :benchmark 的 IntervalIndexBenchmark
+        Random random = new Random(7);
+        List<Event> events = randomEvents(random, 100_000, 30 * DAY);
+        IntervalIndex index = IntervalIndex.of(events);
+
+        List<Event> out = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            long start = (long) (random.nextDouble() * 30 * DAY);
+            out.clear();
+            index.collect(start, start + 30 * MINUTE, Integer.MIN_VALUE, out);
+            assertEquals(linearScan(events, start, start + 30 * MINUTE), out);
+        }
+    }
+
+    private static List<Event> randomEvents(Random random, int count, long span) {
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long start = (long) (random.nextDouble() * span) / MINUTE * MINUTE;
+            // 大多数是 0-3 小时，少数跨越多天
+            long length = random.nextInt(20) == 0 ? random.nextInt(3) * DAY : random.nextInt(7) * 30 * MINUTE;
+            events.add(event(i + 1, "日程" + i, start, start + length));
+        }
+        return events;
+    }
+
+    private static List<Event> linearScan(List<Event> events, long start, long end) {
+        long queryEnd = Math.max(end, start + 1);
+        List<Event> result = new ArrayList<>();
+        for (Event event : events) {
+            long eventEnd = Math.max(event.getEndTime(), event.getStartTime() + 1);
+            if (event.getStartTime() < queryEnd && eventEnd > start) result.add(event);
+        }
+        result.sort((a, b) -> Long.compare(a.getStartTime(), b.getStartTime()));
+        return result;
+    }
+
+    private static Event event(int id, String title, long start, long end) {
+        Event event = new Event(title, "", start, end, start);
+        event.setId(id);
+        return event;
+    }
+
+    private static List<String> titles(List<Event> events) {
+        List<String> titles = new ArrayList<>();
+        for (Event event : events) {
+            titles.add(event.getTitle());
+        }
+        return titles;
+    }
+}
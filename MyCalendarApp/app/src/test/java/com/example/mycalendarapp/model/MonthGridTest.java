@@ -0,0 +1,102 @@
+package com.example.mycalendarapp.model;
+
+import com.example.mycalendarapp.utils.DateUtils;
+import org.junit.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+public class MonthGridTest {
+
+    // 1900 - 2100 每个月的网格布局都与 java.time 一致
+    @Test
+    public void everyMonthLayout_matchesJavaTime() {
+        for (int year = 1900; year <= 2100; year++) {
+            for (int month = 0; month < 12; month++) {
+                LocalDate first = LocalDate.of(year, month + 1, 1);
+                long today = first.plusDays(9).toEpochDay();
+                MonthGrid grid = MonthGrid.create(year, month, today);
+                String label = year + "-" + (month + 1);
+
+                int leading = first.getDayOfWeek().getValue() % 7; // 周日为 0
+                assertEquals(label, leading, grid.getLeadingDays());
+                assertEquals(label, first.lengthOfMonth(), grid.getDaysInMonth());
+
+                LocalDate cellDate = first.minusDays(leading);
+                for (int i = 0; i < MonthGrid.CELL_COUNT; i++, cellDate = cellDate.plusDays(1)) {
+                    assertEquals(label, cellDate.toEpochDay(), grid.getEpochDay(i));
+                    assertEquals(label, cellDate.getDayOfMonth(), grid.getDayOfMonth(i));
+                    boolean inMonth = cellDate.getMonthValue() == month + 1;
+                    assertEquals(label + " cell " + i, !inMonth, grid.isOutsideMonth(i));
+                    DayOfWeek dayOfWeek = cellDate.getDayOfWeek();
+                    boolean weekend = dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY;
+                    assertEquals(label, weekend, grid.hasFlag(i, MonthGrid.FLAG_WEEKEND));
+                    assertEquals(label, cellDate.toEpochDay() == today, grid.hasFlag(i, MonthGrid.FLAG_TODAY));
+                }
+                assertEquals(label, leading + 9, grid.getTodayPosition());
+                assertEquals(grid.positionOfDay(10), grid.getTodayPosition());
+                assertEquals(-1, grid.getSelectedPosition());
+            }
+        }
+    }
+
+    @Test
+    public void todayOutsideGrid_hasNoTodayCell() {
+        MonthGrid grid = MonthGrid.create(2024, 8, DateUtils.epochDayOf(2030, 1, 1));
+        assertEquals(-1, grid.getTodayPosition());
+
+        // 今天落在前后月份补位的格子里时也会标记（2024-09-01 是周日，网格最后一格是 10-12）
+        MonthGrid withToday = grid.withToday(DateUtils.epochDayOf(2024, 10, 12));
+        assertEquals(41, withToday.getTodayPosition());
+        assertTrue(withToday.isOutsideMonth(41));
+    }
+
+    @Test
+    public void withSelected_movesSelectionAndKeepsOriginal() {
+        MonthGrid grid = MonthGrid.create(2024, 8, 0);
+        MonthGrid first = grid.withSelected(grid.positionOfDay(5));
+        MonthGrid second = first.withSelected(grid.positionOfDay(20));
+
+        assertEquals(-1, grid.getSelectedPosition());
+        assertEquals(grid.positionOfDay(5), first.getSelectedPosition());
+        assertEquals(grid.positionOfDay(20), second.getSelectedPosition());
+        assertFalse(second.hasFlag(grid.positionOfDay(5), MonthGrid.FLAG_SELECTED));
+        assertSame(second, second.withSelected(grid.positionOfDay(20)));
+        assertEquals(-1, second.withSelected(-1).getSelectedPosition());
+
+        try {
+            grid.withSelected(41); // 下个月的格子
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void withEvents_marksDaysFromSnapshot() {
+        MonthGrid grid = MonthGrid.create(2024, 1, 0); // 2024 年 2 月，29 天
+        long[] boundaries = new long[30];
+        for (int i = 0; i < boundaries.length; i++) {
+            boundaries[i] = i * 1000L;
+        }
+        MonthSnapshot snapshot = new MonthSnapshot(boundaries);
+        Event event = new Event("跨两天", "", 2500, 3500, 2500); // 第 2、3 天，即 3 日和 4 日
+        event.setId(1);
+        snapshot.add(event);
+
+        MonthGrid marked = grid.withEvents(snapshot);
+        for (int day = 1; day <= 29; day++) {
+            boolean expected = day == 3 || day == 4;
+            assertEquals("day " + day, expected, marked.hasFlag(marked.positionOfDay(day), MonthGrid.FLAG_HAS_EVENTS));
+        }
+        assertSame(marked, marked.withEvents(snapshot));
+        assertFalse(marked.withEvents(null).hasFlag(marked.positionOfDay(3), MonthGrid.FLAG_HAS_EVENTS));
+
+        try {
+            MonthGrid.create(2024, 2, 0).withEvents(snapshot); // 3 月有 31 天
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
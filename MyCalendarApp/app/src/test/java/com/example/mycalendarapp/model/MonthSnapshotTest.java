@@ -0,0 +1,77 @@
+package com.example.mycalendarapp.model;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MonthSnapshotTest {
+    private static final long HOUR = 60 * 60 * 1000L;
+    private static final long DAY = 24 * HOUR;
+
+    private static long[] days(int count) {
+        long[] boundaries = new long[count + 1];
+        for (int i = 0; i <= count; i++) {
+            boundaries[i] = i * DAY;
+        }
+        return boundaries;
+    }
+
+    @Test
+    public void multiDayEvent_isInEveryCoveredBucket() {
+        MonthSnapshot snapshot = new MonthSnapshot(days(5));
+        Event trip = new Event("出差", "", DAY + 20 * HOUR, 3 * DAY + 2 * HOUR, 0);
+        snapshot.add(trip);
+
+        assertFalse(snapshot.hasEvents(0));
+        assertTrue(snapshot.hasEvents(1));
+        assertTrue(snapshot.hasEvents(2));
+        assertTrue(snapshot.hasEvents(3));
+        assertFalse(snapshot.hasEvents(4));
+        assertSame(trip, snapshot.getEventsForDay(2).get(0));
+    }
+
+    @Test
+    public void eventsStartingBeforeRange_areClipped() {
+        MonthSnapshot snapshot = new MonthSnapshot(days(3));
+        snapshot.add(new Event("跨月", "", -2 * DAY, DAY + HOUR, 0));
+
+        assertTrue(snapshot.hasEvents(0));
+        assertTrue(snapshot.hasEvents(1));
+        assertFalse(snapshot.hasEvents(2));
+    }
+
+    @Test
+    public void midnightBoundaries_matchRangeQuery() {
+        MonthSnapshot snapshot = new MonthSnapshot(days(3));
+        snapshot.add(new Event("夜间", "", 23 * HOUR, DAY, 0));
+        snapshot.add(new Event("零时长", "", DAY, DAY, 0));
+
+        assertEquals("夜间", snapshot.getEventsForDay(0).get(0).getTitle());
+        List<Event> second = snapshot.getEventsForDay(1);
+        assertEquals(1, second.size());
+        assertEquals("零时长", second.get(0).getTitle());
+    }
+
+    @Test
+    public void bucketsKeepInsertionOrder() {
+        MonthSnapshot snapshot = new MonthSnapshot(days(1));
+        snapshot.add(new Event("a", "", 9 * HOUR, 10 * HOUR, 0));
+        snapshot.add(new Event("b", "", 11 * HOUR, 12 * HOUR, 0));
+
+        List<Event> events = snapshot.getEventsForDay(0);
+        assertEquals("a", events.get(0).getTitle());
+        assertEquals("b", events.get(1).getTitle());
+        assertEquals(0, new MonthSnapshot(days(1)).getEventsForDay(0).size());
+    }
+
+    @Test
+    public void dayIndexOf_handlesOutOfRange() {
+        MonthSnapshot snapshot = new MonthSnapshot(days(3));
+        assertEquals(-1, snapshot.dayIndexOf(-1));
+        assertEquals(0, snapshot.dayIndexOf(0));
+        assertEquals(2, snapshot.dayIndexOf(3 * DAY - 1));
+        assertEquals(3, snapshot.dayIndexOf(3 * DAY));
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.mycalendarapp.model;
+
+import com.example.mycalendarapp.utils.DateUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class RecurrenceRuleTest {
+    private static final ZoneId ZONE = ZoneId.of("America/New_York");
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    private TimeZone originalZone;
+
+    @Before
+    public void setUp() {
+        originalZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone(ZONE));
+        DateUtils.resetTimeZone();
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(originalZone);
+        DateUtils.resetTimeZone();
+    }
+
+    @Test
+    public void parse_canonicalizesAndRejectsUnsupportedRules() {
+        assertEquals("FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,WE",
+                RecurrenceRule.parse("RRULE:freq=weekly;byday=MO,WE;interval=2").toString());
+        assertEquals("FREQ=MONTHLY;BYDAY=2MO,-1FR", RecurrenceRule.parse("FREQ=MONTHLY;BYDAY=+2MO,-1FR").toString());
+        assertEquals("FREQ=DAILY;UNTIL=20240105T140000Z", RecurrenceRule.parse("FREQ=DAILY;UNTIL=20240105T140000Z").toString());
+
+        String[] unsupported = {
+                null, "", "INTERVAL=2", "FREQ=HOURLY", "FREQ=DAILY;BYMONTH=1", "FREQ=DAILY;COUNT=0",
+                "FREQ=DAILY;COUNT=3;UNTIL=20240101", "FREQ=YEARLY;BYDAY=MO", "FREQ=WEEKLY;BYDAY=2MO",
+                "FREQ=MONTHLY;BYDAY=6MO", "FREQ=DAILY;UNTIL=2024",
+        };
+        for (String rule : unsupported) {
+            assertFalse(rule, RecurrenceRule.isSupported(rule));
+        }
+    }
+
+    // 永不结束的每日日程：窗口在 30 年后也只展开窗口内的几十次；展开耗时见 :benchmark 的 RecurrenceRuleBenchmark
+    @Test
+    public void dailyForever_expandsOnlyInsideWindow() {
+        long dtstart = millis(2000, 1, 1, 9, 0);
+        long windowStart = millis(2030, 4, 1, 0, 0);
+        long windowEnd = millis(2030, 5, 1, 0, 0) - 1;
+
+        List<Long> starts = expand("FREQ=DAILY", dtstart, HOUR, null, windowStart, windowEnd);
+        assertEquals(30, starts.size());
+        for (int i = 0; i < starts.size(); i++) {
+            assertEquals(millis(2030, 4, 1 + i, 9, 0), (long) starts.get(i));
+        }
+    }
+
+    @Test
+    public void weeklyByDay_withCountAndInterval() {
+        long dtstart = millis(2024, 1, 1, 9, 0); // 周一
+        assertEquals(Arrays.asList(
+                        millis(2024, 1, 1, 9, 0), millis(2024, 1, 3, 9, 0), millis(2024, 1, 5, 9, 0),
+                        millis(2024, 1, 8, 9, 0), millis(2024, 1, 10, 9, 0), millis(2024, 1, 12, 9, 0)),
+                expandAll("FREQ=WEEKLY;BYDAY=MO,WE,FR;COUNT=6", dtstart));
+
+        // 隔周二、四
+        assertEquals(Arrays.asList(
+                        millis(2024, 1, 1, 9, 0), millis(2024, 1, 2, 9, 0), millis(2024, 1, 4, 9, 0),
+                        millis(2024, 1, 16, 9, 0), millis(2024, 1, 18, 9, 0)),
+                expandAll("FREQ=WEEKLY;INTERVAL=2;BYDAY=TU,TH;COUNT=5", dtstart));
+    }
+
+    @Test
+    public void monthlyByDayOrdinals_matchJavaTime() {
+        LocalDate secondMonday = LocalDate.of(2024, 1, 8);
+        LocalDate lastFriday = LocalDate.of(2024, 1, 26);
+        List<Long> mondays = expandAll("FREQ=MONTHLY;BYDAY=2MO;COUNT=24", millis(secondMonday, 10));
+        List<Long> fridays = expandAll("FREQ=MONTHLY;BYDAY=-1FR;COUNT=24", millis(lastFriday, 10));
+        assertEquals(24, mondays.size());
+        assertEquals(24, fridays.size());
+        for (int i = 0; i < 24; i++) {
+            LocalDate month = LocalDate.of(2024, 1, 1).plusMonths(i);
+            assertEquals(millis(month.with(TemporalAdjusters.dayOfWeekInMonth(2, DayOfWeek.MONDAY)), 10),
+                    (long) mondays.get(i));
+            assertEquals(millis(month.with(TemporalAdjusters.lastInMonth(DayOfWeek.FRIDAY)), 10),
+                    (long) fridays.get(i));
+        }
+    }
+
+    // 没有 31 日的月份跳过，而不是挪到月底
+    @Test
+    public void monthlyOnThe31st_skipsShortMonths() {
+        assertEquals(Arrays.asList(
+                        millis(2024, 1, 31, 8, 0), millis(2024, 3, 31, 8, 0),
+                        millis(2024, 5, 31, 8, 0), millis(2024, 7, 31, 8, 0)),
+                expandAll("FREQ=MONTHLY;COUNT=4", millis(2024, 1, 31, 8, 0)));
+        assertEquals(Arrays.asList(millis(2024, 2, 29, 8, 0), millis(2028, 2, 29, 8, 0)),
+                expandAll("FREQ=YEARLY;COUNT=2", millis(2024, 2, 29, 8, 0)));
+    }
+
+    @Test
+    public void untilAndExdates_limitOccurrences() {
+        long dtstart = millis(2024, 1, 1, 9, 0);
+        // 9:00 纽约时间为 14:00Z，UNTIL 恰好等于第 5 次时包含第 5 次
+        assertEquals(5, expandAll("FREQ=DAILY;UNTIL=20240105T140000Z", dtstart).size());
+        assertEquals(4, expandAll("FREQ=DAILY;UNTIL=20240105T135959Z", dtstart).size());
+        assertEquals(5, expandAll("FREQ=DAILY;UNTIL=20240105", dtstart).size());
+
+        // 被排除的一次仍计入 COUNT
+        long[] exdates = RecurrenceRule.parseExceptionDates(
+                RecurrenceRule.appendExceptionDate(null, millis(2024, 1, 3, 9, 0)));
+        List<Long> starts = expand("FREQ=DAILY;COUNT=5", dtstart, HOUR, exdates, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(Arrays.asList(millis(2024, 1, 1, 9, 0), millis(2024, 1, 2, 9, 0),
+                millis(2024, 1, 4, 9, 0), millis(2024, 1, 5, 9, 0)), starts);
+
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=DAILY;COUNT=5");
+        assertEquals(millis(2024, 1, 5, 10, 0), rule.seriesEnd(dtstart, HOUR));
+        assertEquals(RecurrenceRule.NO_END, RecurrenceRule.parse("FREQ=DAILY").seriesEnd(dtstart, HOUR));
+    }
+
+    // 夏令时切换前后每次都在同样的钟点
+    @Test
+    public void weeklyAcrossDst_keepsWallClockTime() {
+        long windowStart = millis(2024, 2, 1, 0, 0);
+        long windowEnd = millis(2024, 12, 1, 0, 0);
+        List<Long> starts = expand("FREQ=WEEKLY", millis(2020, 1, 6, 9, 30), HOUR, null, windowStart, windowEnd);
+        assertFalse(starts.isEmpty());
+        for (long start : starts) {
+            ZonedDateTime local = ZonedDateTime.ofInstant(java.time.Instant.ofEpochMilli(start), ZONE);
+            assertEquals(DayOfWeek.MONDAY, local.getDayOfWeek());
+            assertEquals(9, local.getHour());
+            assertEquals(30, local.getMinute());
+        }
+        // 3 月 10 日切换到夏令时，前后两次相隔 167 小时
+        int before = starts.indexOf(millis(2024, 3, 4, 9, 30));
+        assertEquals(millis(2024, 3, 11, 9, 30), (long) starts.get(before + 1));
+        assertEquals(7 * 24 * HOUR - HOUR, starts.get(before + 1) - starts.get(before));
+    }
+
+    // 与窗口的交集规则和单次日程一致：跨过窗口开始的一次也算
+    @Test
+    public void window_includesOccurrenceOverlappingStart() {
+        long dtstart = millis(2024, 1, 1, 23, 0);
+        long windowStart = millis(2024, 1, 10, 0, 0);
+        List<Long> starts = expand("FREQ=DAILY", dtstart, 2 * HOUR, null, windowStart, windowStart + 24 * HOUR - 1);
+        assertEquals(Arrays.asList(millis(2024, 1, 9, 23, 0), millis(2024, 1, 10, 23, 0)), starts);
+    }
+
+    @Test
+    public void merge_ordersOneOffsBeforeSeriesAtSameStart() {
+        long day = millis(2024, 1, 2, 0, 0);
+        Event oneOff = event(1, "单次", day + 9 * HOUR, null);
+        Event late = event(2, "单次晚", day + 15 * HOUR, null);
+        Event daily = event(4, "每日", millis(2024, 1, 1, 9, 0), "FREQ=DAILY");
+        Event weekly = event(3, "每周", millis(2023, 12, 26, 9, 0), "FREQ=WEEKLY");
+        Event broken = event(5, "坏规则", day + 12 * HOUR, "FREQ=SECONDLY");
+
+        List<Event> merged = OccurrenceMerger.merge(Arrays.asList(oneOff, late),
+                Arrays.asList(daily, weekly, broken), day, day + 24 * HOUR - 1);
+        List<String> titles = new ArrayList<>();
+        for (Event event : merged) {
+            titles.add(event.getTitle());
+        }
+        assertEquals(Arrays.asList("单次", "每周", "每日", "坏规则", "单次晚"), titles);
+        assertFalse(merged.get(3).isOccurrence());
+
+        Event occurrence = merged.get(2);
+        assertTrue(occurrence.isOccurrence());
+        assertEquals(4, occurrence.getId());
+        assertEquals(day + 9 * HOUR, occurrence.getStartTime());
+        assertEquals(day + 10 * HOUR, occurrence.getEndTime());
+        assertEquals(day + 9 * HOUR, occurrence.getRecurrenceId());
+        assertEquals(daily.getStartTime(), occurrence.getSeriesStartTime());
+
+        assertSame(Collections.<Event>emptyList(),
+                OccurrenceMerger.merge(Collections.<Event>emptyList(), Collections.<Event>emptyList(), 0, 1));
+    }
+
+    private static Event event(int id, String title, long start, String rule) {
+        Event event = new Event(title, "", start, start + HOUR, start);
+        event.setId(id);
+        event.setRecurrenceRule(rule);
+        return event;
+    }
+
+    private static List<Long> expandAll(String rule, long dtstart) {
+        return expand(rule, dtstart, HOUR, null, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    private static List<Long> expand(String rule, long dtstart, long duration, long[] exdates,
+                                     long windowStart, long windowEnd) {
+        RecurrenceRule.OccurrenceIterator iterator =
+                RecurrenceRule.parse(rule).iterator(dtstart, duration, exdates, windowStart, windowEnd);
+        List<Long> starts = new ArrayList<>();
+        while (iterator.hasNext()) {
+            starts.add(iterator.next());
+            assertTrue("runaway expansion", starts.size() < 10_000);
+        }
+        return starts;
+    }
+
+    private static long millis(int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    private static long millis(LocalDate date, int hour) {
+        return millis(date.getYear(), date.getMonthValue(), date.getDayOfMonth(), hour, 0);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.mycalendarapp.receiver;
+
+import com.example.mycalendarapp.model.Event;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ReminderNotifierTest {
+    private static final long MINUTE = 60 * 1000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+
+    @Test
+    public void notificationTag_distinguishesEveryOccurrence() {
+        long day0 = 1000 * DAY;
+        Event first = series(1, day0);
+        Event second = series(2, day0);
+        Event oneOff = new Event("牙医", "", day0, day0 + HOUR, day0);
+        oneOff.setId(1);
+
+        // 按 31 * id + 分钟数混合时，系列 1 的 09:00 与系列 2 的 08:29 会得到同一个 id
+        String nine = ReminderNotifier.notificationTag(Event.occurrence(first, day0 + 9 * HOUR));
+        String eightTwentyNine = ReminderNotifier.notificationTag(Event.occurrence(second, day0 + 8 * HOUR + 29 * MINUTE));
+        assertNotEquals(nine, eightTwentyNine);
+
+        assertNotEquals(ReminderNotifier.notificationTag(oneOff), ReminderNotifier.notificationTag(Event.occurrence(first, day0)));
+        assertNotEquals(nine, ReminderNotifier.notificationTag(Event.occurrence(first, day0 + DAY + 9 * HOUR)));
+        assertEquals(nine, ReminderNotifier.notificationTag(Event.occurrence(first, day0 + 9 * HOUR)));
+    }
+
+    private static Event series(int id, long start) {
+        Event event = new Event("系列 " + id, "", start, start + HOUR, start);
+        event.setId(id);
+        event.setRecurrenceRule("FREQ=DAILY");
+        return event;
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.mycalendarapp.repository;
+
+import com.example.mycalendarapp.model.AgendaPage;
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.utils.DateUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class AgendaPagerTest {
+    private static final long HOUR = 60 * 60 * 1000L;
+    private static final long DAY = 24 * HOUR;
+    private static final long DAY0 = 20_000 * DAY;
+
+    // 按回调维护的列表副本，与适配器看到的一致
+    private static class Shown implements AgendaPager.Listener {
+        final List<Event> events = new ArrayList<>();
+        AgendaPager pager;
+
+        @Override
+        public void onInserted(int position, int count) {
+            for (int i = 0; i < count; i++) {
+                events.add(position + i, pager.get(position + i));
+            }
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            events.subList(position, position + count).clear();
+        }
+    }
+
+    private final FakeEventStore store = new FakeEventStore();
+    private final Queue<Runnable> io = new ArrayDeque<>();
+    private final Shown shown = new Shown();
+    private final AgendaPager pager = new AgendaPager(store, io::add, Runnable::run, shown);
+    private TimeZone originalZone;
+
+    @Before
+    public void setUp() {
+        originalZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        DateUtils.resetTimeZone();
+        shown.pager = pager;
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(originalZone);
+        DateUtils.resetTimeZone();
+    }
+
+    @Test
+    public void start_showsAnchorFirstThenEarlierEvents() {
+        addOneOffs(-3, 3);
+
+        pager.start(DAY0);
+        io.remove().run(); // anchor 之后
+        assertEquals(DAY0 + 9 * HOUR, shown.events.get(0).getStartTime());
+        assertEquals(3, shown.events.size());
+
+        runIo();
+        assertEquals(6, shown.events.size());
+        assertEquals(DAY0 - 3 * DAY + 9 * HOUR, shown.events.get(0).getStartTime());
+        assertFalse(pager.hasPrevious());
+        assertFalse(pager.hasNext());
+    }
+
+    @Test
+    public void scrolling_matchesFullExpansionInBothDirections() {
+        addOneOffs(-400, 400);
+        // 同一时刻开始的单次日程和重复日程按 id 排序
+        Event tie = new Event("同时开始", "", DAY0 + 9 * HOUR, DAY0 + 10 * HOUR, 0);
+        store.addEvent(tie);
+        Event weekly = new Event("周会", "", DAY0 - 300 * DAY + 9 * HOUR, DAY0 - 300 * DAY + 10 * HOUR, 0);
+        weekly.setRecurrenceRule("FREQ=WEEKLY");
+        store.addEvent(weekly);
+        Event limited = new Event("十次", "", DAY0 + 14 * HOUR, DAY0 + 15 * HOUR, 0);
+        limited.setRecurrenceRule("FREQ=DAILY;COUNT=10");
+        store.addEvent(limited);
+        long end = DAY0 + 400 * DAY;
+        List<Event> expected = new ArrayList<>();
+        for (Event event : store.getEventsInRange(DAY0 - 401 * DAY, end)) {
+            if (event.getStartTime() < end) expected.add(event);
+        }
+        expected.sort(AgendaPage.ORDER);
+
+        pager.start(DAY0);
+        runIo();
+        // 向下滚动到 end，沿途收集看到的日程
+        List<Event> seen = new ArrayList<>(shown.events);
+        while (shown.events.get(shown.events.size() - 1).getStartTime() < end) {
+            scrollTo(shown.events.size() - 1);
+            for (int i = seen.isEmpty() ? 0 : indexAfter(seen.get(seen.size() - 1)); i < shown.events.size(); i++) {
+                seen.add(shown.events.get(i));
+            }
+            assertTrue(shown.events.size() <= AgendaPager.PAGE_SIZE * AgendaPager.MAX_PAGES);
+        }
+        // 再一路滚回开头
+        while (pager.hasPrevious()) {
+            scrollTo(0);
+            assertTrue(shown.events.size() <= AgendaPager.PAGE_SIZE * AgendaPager.MAX_PAGES);
+        }
+
+        List<Event> all = new ArrayList<>(seen);
+        all.removeIf(event -> event.getStartTime() >= end);
+        List<Event> head = new ArrayList<>(shown.events);
+        // 滚回开头后列表从最早的一条开始，与完整展开的开头一致
+        assertKeys(expected.subList(0, head.size()), head);
+        // 向下滚动时依次看到的日程与 anchor 之后的完整展开一致
+        int anchorIndex = 0;
+        while (AgendaPage.compareToKey(expected.get(anchorIndex).getStartTime(), expected.get(anchorIndex).getId(),
+                seen.get(0).getStartTime(), seen.get(0).getId()) < 0) {
+            anchorIndex++;
+        }
+        assertKeys(expected.subList(anchorIndex, expected.size()), all);
+    }
+
+    @Test
+    public void droppedEnd_discardsInFlightPage() {
+        addOneOffs(0, 400);
+        pager.start(DAY0);
+        runIo();
+        scrollTo(shown.events.size() - 1);
+        runIo();
+        List<Event> before = new ArrayList<>(shown.events);
+
+        pager.loadNext();
+        pager.trimAround(0, 5); // 请求还在排队时末尾被丢弃
+        assertEquals(5 + 1 + AgendaPager.PAGE_SIZE, shown.events.size());
+        runIo();
+        assertEquals("接不上的一页不应追加", 5 + 1 + AgendaPager.PAGE_SIZE, shown.events.size());
+
+        // 丢弃的部分可以重新读取，并且与之前完全相同
+        scrollTo(shown.events.size() - 1);
+        assertKeys(before, shown.events.subList(0, before.size()));
+        assertKeysAscendingAndUnique(shown.events);
+    }
+
+    @Test
+    public void trimAround_keepsOnePageAroundVisibleRange() {
+        addOneOffs(-200, 200);
+        pager.start(DAY0);
+        runIo();
+        scrollTo(0);
+        runIo();
+        assertEquals(3 * AgendaPager.PAGE_SIZE, shown.events.size());
+
+        int first = AgendaPager.PAGE_SIZE + 30;
+        Event firstVisible = shown.events.get(first);
+        pager.trimAround(first, first + 10);
+
+        assertEquals(2 * AgendaPager.PAGE_SIZE + 11, shown.events.size());
+        assertSame(firstVisible, shown.events.get(AgendaPager.PAGE_SIZE));
+        assertTrue(pager.hasPrevious());
+        assertTrue(pager.hasNext());
+    }
+
+    @Test
+    public void start_dropsPagesOfPreviousSession() {
+        addOneOffs(0, 10);
+        pager.start(DAY0);
+        pager.start(DAY0 + 5 * DAY);
+        runIo();
+
+        // 第一次的加载全部作废，不会留下重复的日程
+        assertEquals(10, shown.events.size());
+        assertKeysAscendingAndUnique(shown.events);
+        assertEquals(DAY0 + 5 * DAY + 9 * HOUR, shown.events.get(5).getStartTime());
+    }
+
+    // 每天 9:00 一条单次日程，天数范围 [fromDay, toDay)
+    private void addOneOffs(int fromDay, int toDay) {
+        List<Event> events = new ArrayList<>();
+        for (int day = fromDay; day < toDay; day++) {
+            long start = DAY0 + day * DAY + 9 * HOUR;
+            events.add(new Event("第 " + day + " 天", "", start, start + HOUR, start));
+        }
+        store.addEvents(events);
+    }
+
+    // 模拟滚动到某个位置并执行触发的加载
+    private void scrollTo(int position) {
+        pager.onVisibleRange(position, position);
+        runIo();
+    }
+
+    private int indexAfter(Event last) {
+        for (int i = 0; i < shown.events.size(); i++) {
+            Event event = shown.events.get(i);
+            if (AgendaPage.compareToKey(event.getStartTime(), event.getId(), last.getStartTime(), last.getId()) > 0) {
+                return i;
+            }
+        }
+        return shown.events.size();
+    }
+
+    private void runIo() {
+        while (!io.isEmpty()) {
+            io.remove().run();
+        }
+    }
+
+    private static void assertKeys(List<Event> expected, List<Event> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals("第 " + i + " 条", expected.get(i).getStartTime(), actual.get(i).getStartTime());
+            assertEquals("第 " + i + " 条", expected.get(i).getId(), actual.get(i).getId());
+        }
+    }
+
+    private static void assertKeysAscendingAndUnique(List<Event> events) {
+        for (int i = 1; i < events.size(); i++) {
+            assertTrue("第 " + i + " 条顺序错误", AgendaPage.ORDER.compare(events.get(i - 1), events.get(i)) < 0);
+        }
+    }
+}
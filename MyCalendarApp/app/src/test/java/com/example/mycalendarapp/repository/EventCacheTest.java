@@ -0,0 +1,108 @@
+package com.example.mycalendarapp.repository;
+
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.model.MonthSnapshot;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EventCacheTest {
+    private static final long HOUR = 60 * 60 * 1000L;
+    private static final long DAY = 24 * HOUR;
+
+    private static Event event(int id, long start, long end) {
+        Event event = new Event("日程" + id, "", start, end, start);
+        event.setId(id);
+        return event;
+    }
+
+    private static List<Event> listOf(Event... events) {
+        List<Event> list = new ArrayList<>();
+        for (Event event : events) list.add(event);
+        return list;
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        EventCache cache = new EventCache(EventCache.DEFAULT_MAX_BYTES);
+        assertNull(cache.getDay(0, DAY - 1));
+        cache.putDay(0, DAY - 1, listOf(event(1, HOUR, 2 * HOUR)));
+        assertEquals(1, cache.getDay(0, DAY - 1).size());
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedWhenOverBudget() {
+        EventCache probe = new EventCache(EventCache.DEFAULT_MAX_BYTES);
+        probe.putDay(0, DAY - 1, listOf(event(1, 0, HOUR)));
+        long entryBytes = probe.getSizeBytes();
+
+        EventCache cache = new EventCache(entryBytes * 2);
+        cache.putDay(0, DAY - 1, listOf(event(1, 0, HOUR)));
+        cache.putDay(DAY, 2 * DAY - 1, listOf(event(2, DAY, DAY + HOUR)));
+        cache.getDay(0, DAY - 1); // 第 0 天变为最近使用
+        cache.putDay(2 * DAY, 3 * DAY - 1, listOf(event(3, 2 * DAY, 2 * DAY + HOUR)));
+
+        assertEquals(1, cache.getEvictionCount());
+        assertNotNull(cache.getDay(0, DAY - 1));
+        assertNull(cache.getDay(DAY, 2 * DAY - 1));
+        assertTrue(cache.getSizeBytes() <= cache.getMaxBytes());
+    }
+
+    @Test
+    public void invalidate_onlyDropsOverlappingBuckets() {
+        EventCache cache = new EventCache(EventCache.DEFAULT_MAX_BYTES);
+        cache.putDay(0, DAY - 1, listOf());
+        cache.putDay(DAY, 2 * DAY - 1, listOf());
+        MonthSnapshot month = new MonthSnapshot(new long[]{0, DAY, 2 * DAY, 3 * DAY});
+        cache.putMonth(month);
+
+        cache.invalidate(event(7, DAY + HOUR, DAY + 2 * HOUR));
+
+        assertNotNull(cache.getDay(0, DAY - 1));
+        assertNull(cache.getDay(DAY, 2 * DAY - 1));
+        assertNull(cache.getMonth(month.getRangeStart(), month.getRangeEnd()));
+        assertEquals(2, cache.getInvalidationCount());
+    }
+
+    @Test
+    public void invalidate_dropsBucketHoldingOldPositionOfMovedEvent() {
+        EventCache cache = new EventCache(EventCache.DEFAULT_MAX_BYTES);
+        Event moved = event(5, HOUR, 2 * HOUR);
+        cache.putDay(0, DAY - 1, listOf(moved));
+        cache.putDay(5 * DAY, 6 * DAY - 1, listOf());
+
+        // 日程被移到第 10 天：第 0 天的缓存里还有它，也必须失效
+        Event updated = event(5, 10 * DAY, 10 * DAY + HOUR);
+        cache.invalidate(updated);
+
+        assertNull(cache.getDay(0, DAY - 1));
+        assertNotNull(cache.getDay(5 * DAY, 6 * DAY - 1));
+    }
+
+    @Test
+    public void repository_servesRepeatedQueriesFromCache() {
+        FakeEventStore store = new FakeEventStore();
+        store.addEvent(new Event("a", "", HOUR, 2 * HOUR, 0));
+        EventRepository repository = new EventRepository(store, Runnable::run, Runnable::run);
+        List<List<Event>> results = new ArrayList<>();
+
+        repository.loadDay(0, DAY - 1, results::add);
+        repository.loadDay(DAY, 2 * DAY - 1, results::add);
+        repository.loadDay(0, DAY - 1, results::add);
+        assertEquals(2, store.queryCount);
+
+        // 修改第 1 天的日程不影响第 0 天的缓存
+        repository.addEvent(new Event("b", "", DAY + HOUR, DAY + 2 * HOUR, 0), id -> { });
+        repository.loadDay(0, DAY - 1, results::add);
+        assertEquals(2, store.queryCount);
+        repository.loadDay(DAY, 2 * DAY - 1, results::add);
+        assertEquals(3, store.queryCount);
+        assertEquals(1, results.get(4).size());
+    }
+}
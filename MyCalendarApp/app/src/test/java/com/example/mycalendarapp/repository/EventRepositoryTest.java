@@ -0,0 +1,272 @@
+package com.example.mycalendarapp.repository;
+
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.model.MonthSnapshot;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.*;
+
+public class EventRepositoryTest {
+    private static final long HOUR = 60 * 60 * 1000L;
+    private static final long DAY = 24 * HOUR;
+
+    // 手动驱动的执行器，用来模拟“请求还在排队”的情况
+    private static class QueueExecutor implements Executor {
+        final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+
+    private FakeEventStore store;
+
+    @Before
+    public void setUp() {
+        store = new FakeEventStore();
+        store.addEvent(new Event("周一", "", DAY + 9 * HOUR, DAY + 10 * HOUR, 0));
+        store.addEvent(new Event("周二", "", 2 * DAY + 9 * HOUR, 2 * DAY + 10 * HOUR, 0));
+        store.addEvent(new Event("周三", "", 3 * DAY + 9 * HOUR, 3 * DAY + 10 * HOUR, 0));
+    }
+
+    @Test
+    public void synchronousExecutors_deliverImmediately() {
+        EventRepository repository = new EventRepository(store, Runnable::run, Runnable::run);
+        List<List<Event>> results = new ArrayList<>();
+
+        repository.loadDay(DAY, 2 * DAY - 1, results::add);
+
+        assertEquals(1, results.size());
+        assertEquals("周一", results.get(0).get(0).getTitle());
+    }
+
+    @Test
+    public void rapidDayQueries_onlyLatestRunsAndIsDelivered() {
+        QueueExecutor io = new QueueExecutor();
+        EventRepository repository = new EventRepository(store, io, Runnable::run);
+        List<String> delivered = new ArrayList<>();
+
+        for (int day = 1; day <= 3; day++) {
+            repository.loadDay(day * DAY, (day + 1) * DAY - 1,
+                    events -> delivered.add(events.get(0).getTitle()));
+        }
+        assertEquals(1, io.tasks.size()); // 排队中的旧查询被替换，不占队列
+        io.runAll();
+
+        assertEquals(1, store.queryCount);
+        assertEquals(List.of("周三"), delivered);
+    }
+
+    @Test
+    public void findConflicts_excludesEditedEventAndTouchingOnes() {
+        EventRepository repository = new EventRepository(store, Runnable::run, Runnable::run);
+        int tuesdayId = store.getEventsInRange(2 * DAY, 3 * DAY - 1).get(0).getId();
+        List<List<Event>> results = new ArrayList<>();
+
+        // 与周一重叠、与周二首尾相接
+        repository.findConflicts(DAY + 9 * HOUR + HOUR / 2, 2 * DAY + 9 * HOUR, Integer.MIN_VALUE, results::add);
+        repository.findConflicts(2 * DAY + 9 * HOUR, 2 * DAY + 11 * HOUR, tuesdayId, results::add);
+
+        assertEquals(1, results.get(0).size());
+        assertEquals("周一", results.get(0).get(0).getTitle());
+        assertTrue(results.get(1).isEmpty());
+    }
+
+    @Test
+    public void staleResult_isDroppedBeforeDelivery() {
+        QueueExecutor main = new QueueExecutor();
+        EventRepository repository = new EventRepository(store, Runnable::run, main);
+        List<String> delivered = new ArrayList<>();
+
+        repository.loadDay(DAY, 2 * DAY - 1, events -> delivered.add(events.get(0).getTitle()));
+        repository.loadDay(2 * DAY, 3 * DAY - 1, events -> delivered.add(events.get(0).getTitle()));
+        main.runAll();
+
+        // 两次查询都执行了，但只有最新的结果回到主线程
+        assertEquals(2, store.queryCount);
+        assertEquals(List.of("周二"), delivered);
+    }
+
+    @Test
+    public void cancelDayQuery_dropsPendingResult() {
+        QueueExecutor io = new QueueExecutor();
+        EventRepository repository = new EventRepository(store, io, Runnable::run);
+        List<List<Event>> results = new ArrayList<>();
+
+        repository.loadDay(DAY, 2 * DAY - 1, results::add);
+        repository.cancelDayQuery();
+        io.runAll();
+
+        assertTrue(results.isEmpty());
+        assertEquals(0, store.queryCount);
+    }
+
+    @Test
+    public void writesAreNeverDroppedAndRunInOrder() {
+        QueueExecutor io = new QueueExecutor();
+        EventRepository repository = new EventRepository(store, io, Runnable::run);
+        Event event = new Event("新日程", "", 4 * DAY, 4 * DAY + HOUR, 0);
+        List<Object> results = new ArrayList<>();
+
+        repository.addEvent(event, results::add);
+        repository.loadMonth(new long[]{4 * DAY, 5 * DAY}, snapshot -> results.add(snapshot.hasEvents(0)));
+        io.runAll();
+
+        assertEquals(2, results.size());
+        assertEquals((long) event.getId(), results.get(0));
+        assertEquals(true, results.get(1));
+    }
+
+    @Test
+    public void fullQueue_isReportedThroughOnError() {
+        Executor full = command -> {
+            throw new RejectedExecutionException("队列已满");
+        };
+        EventRepository repository = new EventRepository(store, full, Runnable::run);
+        List<Exception> errors = new ArrayList<>();
+
+        repository.addEvent(new Event("新日程", "", 4 * DAY, 4 * DAY + HOUR, 0), collectErrors(errors));
+        repository.loadDay(DAY, 2 * DAY - 1, collectErrors(errors));
+        repository.prefetchMonth(new long[]{4 * DAY, 5 * DAY}); // 预取直接放弃，不抛出
+
+        assertEquals(2, errors.size());
+        assertTrue(errors.get(0) instanceof RejectedExecutionException);
+        assertTrue(errors.get(1) instanceof RejectedExecutionException);
+    }
+
+    @Test
+    public void queryFailure_isReportedToLatestCallback() {
+        FakeEventStore failing = new FakeEventStore() {
+            @Override
+            public MonthSnapshot getMonthSnapshot(long[] dayBoundaries) {
+                throw new IllegalStateException("disk I/O error");
+            }
+        };
+        EventRepository repository = new EventRepository(failing, Runnable::run, Runnable::run);
+        List<Exception> errors = new ArrayList<>();
+
+        repository.loadMonth(new long[]{0, DAY}, new EventRepository.Callback<MonthSnapshot>() {
+            @Override
+            public void onResult(MonthSnapshot result) {
+                fail("不应该有结果");
+            }
+
+            @Override
+            public void onError(Exception e) {
+                errors.add(e);
+            }
+        });
+
+        assertEquals(1, errors.size());
+    }
+
+    @Test
+    public void deliverReminders_postsAllDueRemindersAsOneBatchOnIoThread() {
+        long[] now = {0};
+        long[] checkpoint = {Long.MIN_VALUE, Long.MIN_VALUE};
+        ReminderScheduler reminders = new ReminderScheduler(store, new ReminderScheduler.Alarm() {
+            @Override
+            public void set(long triggerAtMillis) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        }, () -> now[0], new ReminderScheduler.Checkpoint() {
+            @Override
+            public long get(String key, long defaultValue) {
+                int index = key.equals(ReminderScheduler.KEY_ARMED_AT) ? 0 : 1;
+                return checkpoint[index] != Long.MIN_VALUE ? checkpoint[index] : defaultValue;
+            }
+
+            @Override
+            public void put(String key, long value) {
+                checkpoint[key.equals(ReminderScheduler.KEY_ARMED_AT) ? 0 : 1] = value;
+            }
+        });
+        QueueExecutor io = new QueueExecutor();
+        EventRepository repository = new EventRepository(store, io, Runnable::run,
+                new EventCache(EventCache.DEFAULT_MAX_BYTES), reminders);
+        List<Event> batch = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            batch.add(new Event("九点" + i, "", 10 * HOUR, 11 * HOUR, 9 * HOUR));
+        }
+        repository.addEvents(batch, null);
+        io.runAll();
+
+        now[0] = 9 * HOUR;
+        List<List<Event>> posted = new ArrayList<>();
+        List<Integer> delivered = new ArrayList<>();
+        repository.deliverReminders(posted::add, delivered::add);
+        assertTrue("通知应在后台线程发出", posted.isEmpty());
+        io.runAll();
+
+        assertEquals(1, posted.size());
+        assertEquals(30, posted.get(0).size());
+        assertEquals(List.of(30), delivered);
+    }
+
+    @Test
+    public void importIcs_runsOnTransferExecutorAndDoesNotBlockReads() {
+        QueueExecutor io = new QueueExecutor();
+        QueueExecutor transfer = new QueueExecutor();
+        EventRepository repository = new EventRepository(store, io, transfer, Runnable::run,
+                new EventCache(EventCache.DEFAULT_MAX_BYTES), null);
+        List<List<Event>> days = new ArrayList<>();
+        repository.loadDay(DAY, 2 * DAY - 1, days::add);
+        io.runAll();
+        assertEquals(1, days.get(0).size());
+
+        String ics = "BEGIN:VCALENDAR\r\nBEGIN:VEVENT\r\nDTSTART:19700102T120000Z\r\nDTEND:19700102T130000Z\r\n"
+                + "SUMMARY:导入\r\nEND:VEVENT\r\nEND:VCALENDAR\r\n";
+        List<IcsTransfer.ImportResult> results = new ArrayList<>();
+        repository.importIcs(new ByteArrayInputStream(ics.getBytes(StandardCharsets.UTF_8)), null, results::add);
+        assertTrue("导入不应排在读写队列中", io.tasks.isEmpty());
+
+        // 导入尚未开始时读取照常进行
+        repository.loadDay(2 * DAY, 3 * DAY - 1, days::add);
+        io.runAll();
+        assertEquals(2, days.size());
+
+        // 导入完成后在读写线程上清空缓存，之后才回调
+        transfer.runAll();
+        assertTrue(results.isEmpty());
+        io.runAll();
+        assertEquals(1, results.get(0).imported);
+        repository.loadDay(DAY, 2 * DAY - 1, days::add);
+        io.runAll();
+        assertEquals(2, days.get(days.size() - 1).size());
+    }
+
+    private static <T> EventRepository.Callback<T> collectErrors(List<Exception> errors) {
+        return new EventRepository.Callback<T>() {
+            @Override
+            public void onResult(T result) {
+                fail("不应该执行");
+            }
+
+            @Override
+            public void onError(Exception e) {
+                errors.add(e);
+            }
+        };
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.mycalendarapp.repository;
+
+import com.example.mycalendarapp.model.Event;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.Assert.*;
+
+public class EventSearchTest {
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    private static class FakeScheduler implements MonthPrefetcher.Scheduler {
+        final List<Runnable> pending = new ArrayList<>();
+
+        @Override
+        public void schedule(Runnable task, long delayMillis) {
+            assertEquals(EventSearch.DEBOUNCE_MS, delayMillis);
+            pending.add(task);
+        }
+
+        @Override
+        public void cancel(Runnable task) {
+            pending.remove(task);
+        }
+
+        void fireAll() {
+            List<Runnable> tasks = new ArrayList<>(pending);
+            pending.clear();
+            for (Runnable task : tasks) {
+                task.run();
+            }
+        }
+    }
+
+    private static class Results implements EventSearch.Listener {
+        final List<Event> shown = new ArrayList<>();
+        int callbacks;
+        int total;
+        boolean hasMore;
+
+        @Override
+        public void onResults(List<Event> events, boolean reset, int total, boolean hasMore) {
+            if (reset) shown.clear();
+            shown.addAll(events);
+            this.total = total;
+            this.hasMore = hasMore;
+            callbacks++;
+        }
+    }
+
+    private final FakeEventStore store = new FakeEventStore();
+    private final FakeScheduler scheduler = new FakeScheduler();
+    private final Queue<Runnable> io = new ArrayDeque<>();
+    private final Results results = new Results();
+    private final EventSearch search = new EventSearch(store, io::add, Runnable::run, scheduler, results);
+
+    @Test
+    public void typing_searchesOnlyAfterPause() {
+        store.addEvent(new Event("部门会议", "", 0, HOUR, 0));
+
+        search.setQuery("会");
+        search.setQuery("会议");
+        search.setQuery("会议 ");
+        assertEquals(1, scheduler.pending.size());
+        assertTrue(io.isEmpty());
+
+        scheduler.fireAll();
+        runIo();
+
+        assertEquals(1, results.callbacks);
+        assertEquals(1, results.total);
+        assertEquals("部门会议", results.shown.get(0).getTitle());
+    }
+
+    @Test
+    public void newInput_dropsInFlightSearch() {
+        store.addEvent(new Event("会议", "", 0, HOUR, 0));
+        store.addEvent(new Event("健身", "", 0, HOUR, 0));
+
+        search.setQuery("会议");
+        scheduler.fireAll();        // 第一次搜索已提交到后台，尚未执行
+        search.setQuery("健身");
+        scheduler.fireAll();
+        runIo();
+
+        assertEquals(1, results.callbacks);
+        assertEquals("健身", results.shown.get(0).getTitle());
+        assertEquals(1, results.shown.size());
+    }
+
+    @Test
+    public void loadMore_pagesThroughRankedResults() {
+        int total = EventSearch.PAGE_SIZE * 2 + 7;
+        for (int i = 0; i < total; i++) {
+            store.addEvent(new Event("例会 " + i, "", i * HOUR, i * HOUR + HOUR, i * HOUR));
+        }
+
+        search.setQuery("例会");
+        scheduler.fireAll();
+        runIo();
+        assertEquals(EventSearch.PAGE_SIZE, results.shown.size());
+        assertEquals(total, results.total);
+        assertTrue(results.hasMore);
+
+        search.loadMore();
+        search.loadMore(); // 上一页还没返回，忽略
+        runIo();
+        search.loadMore();
+        runIo();
+        search.loadMore();  // 已经没有更多
+        runIo();
+
+        assertEquals(total, results.shown.size());
+        assertFalse(results.hasMore);
+        // 相关度相同时新建的在前
+        assertEquals("例会 " + (total - 1), results.shown.get(0).getTitle());
+        assertEquals("例会 0", results.shown.get(total - 1).getTitle());
+    }
+
+    @Test
+    public void cancel_dropsPendingAndRunningWork() {
+        store.addEvent(new Event("会议", "", 0, HOUR, 0));
+
+        search.setQuery("会议");
+        search.cancel();
+        scheduler.fireAll();
+        runIo();
+        assertEquals(0, results.callbacks);
+
+        search.setQuery("会议");
+        scheduler.fireAll();
+        search.cancel();
+        runIo();
+        assertEquals(0, results.callbacks);
+    }
+
+    @Test
+    public void clearingInput_clearsResultsImmediately() {
+        store.addEvent(new Event("会议", "", 0, HOUR, 0));
+        search.setQuery("会议");
+        scheduler.fireAll();
+        runIo();
+        assertEquals(1, results.shown.size());
+
+        search.setQuery("");
+        assertTrue(scheduler.pending.isEmpty());
+        assertTrue(results.shown.isEmpty());
+        assertEquals(0, results.total);
+    }
+
+    private void runIo() {
+        Runnable task;
+        while ((task = io.poll()) != null) {
+            task.run();
+        }
+    }
+}
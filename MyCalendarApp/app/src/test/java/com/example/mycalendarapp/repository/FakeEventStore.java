@@ -0,0 +1,227 @@
+package com.example.mycalendarapp.repository;
+
+import com.example.mycalendarapp.database.EventStore;
+import com.example.mycalendarapp.model.AgendaPage;
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.model.MonthSnapshot;
+import com.example.mycalendarapp.model.OccurrenceMerger;
+import com.example.mycalendarapp.model.RecurrenceRule;
+import com.example.mycalendarapp.model.ReminderTimes;
+import com.example.mycalendarapp.utils.SearchText;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 内存版 EventStore，查询语义与 DatabaseHelper 保持一致，并记录查询次数。
+ */
+class FakeEventStore implements EventStore {
+    final List<Event> events = new ArrayList<>();
+    int queryCount;
+    private int nextId = 1;
+
+    @Override
+    public List<Event> getEventsByDay(long startOfDay, long endOfDay) {
+        return getEventsInRange(startOfDay, endOfDay);
+    }
+
+    @Override
+    public synchronized List<Event> getEventsInRange(long rangeStart, long rangeEnd) {
+        queryCount++;
+        List<Event> result = new ArrayList<>();
+        List<Event> series = new ArrayList<>();
+        for (Event event : events) {
+            if (event.isRecurring()) {
+                series.add(event);
+                continue;
+            }
+            boolean overlaps = event.getEndTime() >= rangeStart && event.getStartTime() <= rangeEnd
+                    && (event.getEndTime() > rangeStart || event.getStartTime() >= rangeStart);
+            if (overlaps) {
+                result.add(event);
+            }
+        }
+        result.sort(Comparator.comparingLong(Event::getStartTime));
+        return OccurrenceMerger.merge(result, series, rangeStart, rangeEnd);
+    }
+
+    @Override
+    public MonthSnapshot getMonthSnapshot(long[] dayBoundaries) {
+        MonthSnapshot snapshot = new MonthSnapshot(dayBoundaries);
+        for (Event event : getEventsInRange(snapshot.getRangeStart(), snapshot.getRangeEnd())) {
+            snapshot.add(event);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public synchronized long addEvent(Event event) {
+        event.setId(nextId++);
+        events.add(event);
+        return event.getId();
+    }
+
+    @Override
+    public int addEvents(List<Event> list) {
+        for (Event event : list) {
+            addEvent(event);
+        }
+        return list.size();
+    }
+
+    @Override
+    public synchronized boolean updateEvent(Event event) {
+        for (int i = 0; i < events.size(); i++) {
+            if (events.get(i).getId() == event.getId()) {
+                events.set(i, event);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int updateEvents(List<Event> list) {
+        int updated = 0;
+        for (Event event : list) {
+            if (updateEvent(event)) updated++;
+        }
+        return updated;
+    }
+
+    @Override
+    public synchronized boolean deleteEvent(int id) {
+        return events.removeIf(event -> event.getId() == id);
+    }
+
+    @Override
+    public synchronized boolean deleteOccurrence(Event occurrence) {
+        for (Event event : events) {
+            if (event.getId() == occurrence.getId() && event.isRecurring()) {
+                event.setExceptionDates(RecurrenceRule.appendExceptionDate(
+                        event.getExceptionDates(), occurrence.getRecurrenceId()));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int forEachEvent(EventVisitor visitor) throws IOException {
+        List<Event> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(events);
+        }
+        for (Event event : snapshot) {
+            visitor.visit(event);
+        }
+        return snapshot.size();
+    }
+
+    @Override
+    public synchronized long getNextRemindTime(long after) {
+        queryCount++;
+        long next = NO_REMINDER;
+        for (Event event : events) {
+            if (event.isRecurring()) {
+                Event occurrence = ReminderTimes.next(event, after);
+                if (occurrence != null) next = Math.min(next, occurrence.getRemindTime());
+            } else if (event.getRemindTime() > after) {
+                next = Math.min(next, event.getRemindTime());
+            }
+        }
+        return next;
+    }
+
+    @Override
+    public synchronized List<Event> getReminders(long after, long until) {
+        queryCount++;
+        List<Event> result = new ArrayList<>();
+        for (Event event : events) {
+            if (event.isRecurring()) {
+                ReminderTimes.collect(event, after, until, result);
+            } else if (event.getRemindTime() > after && event.getRemindTime() <= until) {
+                result.add(event);
+            }
+        }
+        result.sort(Comparator.comparingLong(Event::getRemindTime));
+        return result;
+    }
+
+    /**
+     * 按 SearchText 的分词做子串匹配：查询中的每个词都要出现在标题或描述中，
+     * 标题命中的权重是描述的 4 倍，与 DatabaseHelper 一致。
+     */
+    @Override
+    public synchronized int[] searchEventIds(String query, BooleanSupplier canceled) {
+        String match = SearchText.toMatchQuery(query);
+        if (match == null) return new int[0];
+        String[] terms = match.replace("\"", "").replace("*", "").split(" ");
+        long[] keys = new long[events.size()];
+        int count = 0;
+        for (Event event : events) {
+            if (canceled != null && canceled.getAsBoolean()) return null;
+            String title = SearchText.index(event.getTitle());
+            String body = SearchText.index(event.getDescription());
+            double score = 0;
+            for (String term : terms) {
+                boolean inTitle = title != null && title.contains(term);
+                boolean inBody = body != null && body.contains(term);
+                if (!inTitle && !inBody) {
+                    score = -1;
+                    break;
+                }
+                if (inTitle) score += 4;
+                if (inBody) score += 1;
+            }
+            if (score >= 0) keys[count++] = SearchText.rankKey(score, event.getId());
+        }
+        return SearchText.idsByRank(keys, count);
+    }
+
+    @Override
+    public synchronized List<Event> getEventsByIds(int[] ids, int from, int to) {
+        queryCount++;
+        List<Event> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            for (Event event : events) {
+                if (event.getId() == ids[i]) {
+                    result.add(event);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized List<Event> getAgendaPage(long keyStart, int keyId, int limit, boolean forward) {
+        queryCount++;
+        List<Event> oneOffs = new ArrayList<>();
+        List<Event> series = new ArrayList<>();
+        for (Event event : events) {
+            if (event.isRecurring()) {
+                series.add(event);
+                continue;
+            }
+            int cmp = AgendaPage.compareToKey(event.getStartTime(), event.getId(), keyStart, keyId);
+            if (forward ? cmp > 0 : cmp < 0) oneOffs.add(event);
+        }
+        oneOffs.sort(AgendaPage.ORDER);
+        int from = forward ? 0 : Math.max(0, oneOffs.size() - limit);
+        int to = forward ? Math.min(limit, oneOffs.size()) : oneOffs.size();
+        return AgendaPage.merge(new ArrayList<>(oneOffs.subList(from, to)), series, keyStart, keyId, limit, forward);
+    }
+
+    @Override
+    public int deleteEvents(List<Event> list) {
+        int deleted = 0;
+        for (Event event : list) {
+            if (deleteEvent(event.getId())) deleted++;
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.mycalendarapp.repository;
+
+import com.example.mycalendarapp.model.Event;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class IcsTransferTest {
+    private static final long HOUR = 60 * 60 * 1000L;
+    private static final long BASE = 1_700_000_000_000L;
+
+    @Test
+    public void import_commitsInFixedBatchesAndReportsProgress() throws IOException {
+        RecordingStore store = new RecordingStore();
+        List<Integer> progress = new ArrayList<>();
+        IcsTransfer.ImportResult result = IcsTransfer.importFrom(store, new GeneratedIcs(1234), 500,
+                (imported, bytesRead) -> progress.add(imported));
+
+        assertEquals(1234, result.imported);
+        assertEquals(0, result.skipped);
+        assertEquals(java.util.Arrays.asList(500, 500, 234), store.batchSizes);
+        assertEquals(java.util.Arrays.asList(500, 1000, 1234), progress);
+        assertEquals("事件 1233", store.events.get(1233).getTitle());
+        assertEquals(BASE + 1233 * HOUR, store.events.get(1233).getStartTime());
+    }
+
+    @Test
+    public void export_thenImport_roundTrips() throws IOException {
+        FakeEventStore source = new FakeEventStore();
+        for (int i = 0; i < 50; i++) {
+            Event event = new Event("日程 " + i, i % 2 == 0 ? "描述, 带逗号" : null,
+                    BASE + i * HOUR, BASE + i * HOUR + HOUR / 2, BASE + i * HOUR - 600_000);
+            if (i % 10 == 0) event.setRecurrenceRule("FREQ=DAILY;COUNT=3");
+            source.addEvent(event);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        assertEquals(50, IcsTransfer.exportTo(source, bytes));
+
+        FakeEventStore target = new FakeEventStore();
+        IcsTransfer.ImportResult result = IcsTransfer.importFrom(target,
+                new ByteArrayInputStream(bytes.toByteArray()), 7, null);
+        assertEquals(50, result.imported);
+        for (int i = 0; i < 50; i++) {
+            Event expected = source.events.get(i);
+            Event actual = target.events.get(i);
+            assertEquals(expected.getTitle(), actual.getTitle());
+            assertEquals(expected.getDescription(), actual.getDescription());
+            assertEquals(expected.getStartTime(), actual.getStartTime());
+            assertEquals(expected.getEndTime(), actual.getEndTime());
+            assertEquals(expected.getRemindTime(), actual.getRemindTime());
+            assertEquals(expected.getRecurrenceRule(), actual.getRecurrenceRule());
+        }
+    }
+
+    // 5 万条日程的文件边生成边导入，再边读边导出，内存中只保留一个批次；解析和写出的耗时见 :benchmark 的 IcsBenchmark
+    @Test
+    public void largeFile_streamsInBatches() throws IOException {
+        int count = 50_000;
+        RecordingStore store = new RecordingStore();
+        store.keepEvents = false;
+        IcsTransfer.ImportResult result = IcsTransfer.importFrom(store, new GeneratedIcs(count),
+                IcsTransfer.DEFAULT_BATCH_SIZE, null);
+        assertEquals(count, result.imported);
+        for (int size : store.batchSizes) {
+            assertTrue(size <= IcsTransfer.DEFAULT_BATCH_SIZE);
+        }
+
+        CountingOutputStream output = new CountingOutputStream();
+        assertEquals(count, IcsTransfer.exportTo(new GeneratingStore(count), output));
+        assertTrue(output.count > 0);
+    }
+
+    // 记录每次 addEvents 的批次大小
+    private static final class RecordingStore extends FakeEventStore {
+        final List<Integer> batchSizes = new ArrayList<>();
+        boolean keepEvents = true;
+
+        @Override
+        public int addEvents(List<Event> list) {
+            batchSizes.add(list.size());
+            return keepEvents ? super.addEvents(list) : list.size();
+        }
+    }
+
+    // 不落盘地逐条生成日程，用于导出
+    private static final class GeneratingStore extends FakeEventStore {
+        private final int count;
+
+        GeneratingStore(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public int forEachEvent(EventVisitor visitor) throws IOException {
+            for (int i = 0; i < count; i++) {
+                Event event = new Event("事件 " + i, "说明 " + i, BASE + i * HOUR, BASE + i * HOUR + HOUR, BASE + i * HOUR);
+                event.setId(i + 1);
+                visitor.visit(event);
+            }
+            return count;
+        }
+    }
+
+    // 按需生成 .ics 内容的输入流，不在内存中保存整个文件
+    private static final class GeneratedIcs extends InputStream {
+        private final int count;
+        private int next = -1;
+        private byte[] chunk = new byte[0];
+        private int position;
+
+        GeneratedIcs(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) return -1;
+            return chunk[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) return 0;
+            if (!fill()) return -1;
+            int n = Math.min(length, chunk.length - position);
+            System.arraycopy(chunk, position, buffer, offset, n);
+            position += n;
+            return n;
+        }
+
+        private boolean fill() {
+            while (position == chunk.length) {
+                if (next > count) return false;
+                String text;
+                if (next == -1) {
+                    text = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//test//CN\r\n";
+                } else if (next == count) {
+                    text = "END:VCALENDAR\r\n";
+                } else {
+                    long start = BASE + next * HOUR;
+                    text = "BEGIN:VEVENT\r\nUID:" + next + "@test\r\nDTSTAMP:20240101T000000Z\r\n"
+                            + "DTSTART:" + utc(start) + "\r\nDTEND:" + utc(start + HOUR / 2) + "\r\n"
+                            + "SUMMARY:事件 " + next + "\r\nDESCRIPTION:一段比较长的描述文字，用来模拟真实日历中的备注内容\\, "
+                            + "并且需要折\r\n 行显示\r\nBEGIN:VALARM\r\nACTION:DISPLAY\r\nTRIGGER:-PT10M\r\nEND:VALARM\r\n"
+                            + "END:VEVENT\r\n";
+                }
+                next++;
+                chunk = text.getBytes(StandardCharsets.UTF_8);
+                position = 0;
+            }
+            return true;
+        }
+
+        private static final java.time.format.DateTimeFormatter UTC = java.time.format.DateTimeFormatter
+                .ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(java.time.ZoneOffset.UTC);
+
+        private static String utc(long millis) {
+            return UTC.format(java.time.Instant.ofEpochMilli(millis));
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.mycalendarapp.repository;
+
+import com.example.mycalendarapp.model.Event;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.Assert.*;
+
+public class MonthPrefetcherTest {
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    private static class FakeScheduler implements MonthPrefetcher.Scheduler {
+        final List<Runnable> pending = new ArrayList<>();
+
+        @Override
+        public void schedule(Runnable task, long delayMillis) {
+            assertEquals(MonthPrefetcher.IDLE_DELAY_MS, delayMillis);
+            pending.add(task);
+        }
+
+        @Override
+        public void cancel(Runnable task) {
+            pending.remove(task);
+        }
+
+        void fireAll() {
+            List<Runnable> tasks = new ArrayList<>(pending);
+            pending.clear();
+            for (Runnable task : tasks) {
+                task.run();
+            }
+        }
+    }
+
+    @Test
+    public void rapidPaging_prefetchesOnlyAroundFinalMonth() {
+        FakeScheduler scheduler = new FakeScheduler();
+        List<String> loaded = new ArrayList<>();
+        MonthPrefetcher prefetcher = new MonthPrefetcher(scheduler, (year, month) -> loaded.add(year + "-" + month));
+
+        for (int month = 0; month < 10; month++) {
+            prefetcher.onMonthShown(2024, month);
+        }
+        assertEquals(1, scheduler.pending.size());
+        scheduler.fireAll();
+
+        assertEquals(List.of("2024-10", "2024-8"), loaded);
+    }
+
+    @Test
+    public void yearBoundaries_wrapCorrectly() {
+        FakeScheduler scheduler = new FakeScheduler();
+        List<String> loaded = new ArrayList<>();
+        MonthPrefetcher prefetcher = new MonthPrefetcher(scheduler, (year, month) -> loaded.add(year + "-" + month));
+
+        prefetcher.onMonthShown(2024, 0);
+        scheduler.fireAll();
+        prefetcher.onMonthShown(2024, 11);
+        scheduler.fireAll();
+
+        assertEquals(List.of("2024-1", "2023-11", "2025-0", "2024-10"), loaded);
+    }
+
+    @Test
+    public void cancel_dropsPendingPrefetch() {
+        FakeScheduler scheduler = new FakeScheduler();
+        List<String> loaded = new ArrayList<>();
+        MonthPrefetcher prefetcher = new MonthPrefetcher(scheduler, (year, month) -> loaded.add(year + "-" + month));
+
+        prefetcher.onMonthShown(2024, 5);
+        prefetcher.cancel();
+        scheduler.fireAll();
+
+        assertTrue(loaded.isEmpty());
+    }
+
+    @Test
+    public void repositoryPrefetch_warmsCacheAndDropsStaleWork() {
+        FakeEventStore store = new FakeEventStore();
+        store.addEvent(new Event("a", "", DAY + 1, DAY + 2, 0));
+        Queue<Runnable> io = new ArrayDeque<>();
+        EventRepository repository = new EventRepository(store, io::add, Runnable::run);
+
+        repository.prefetchMonth(new long[]{0, DAY});
+        repository.cancelPrefetch(); // 用户又翻页了
+        repository.prefetchMonth(new long[]{DAY, 2 * DAY});
+        while (!io.isEmpty()) io.poll().run();
+        assertEquals(1, store.queryCount);
+
+        List<Boolean> results = new ArrayList<>();
+        repository.loadMonth(new long[]{DAY, 2 * DAY}, snapshot -> results.add(snapshot.hasEvents(0)));
+        assertEquals(List.of(true), results); // 命中缓存，同步返回
+        assertEquals(1, store.queryCount);
+
+        repository.prefetchMonth(new long[]{DAY, 2 * DAY}); // 已缓存，不再排队
+        assertTrue(io.isEmpty());
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.mycalendarapp.repository;
+
+import com.example.mycalendarapp.database.EventStore;
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.utils.DateUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class ReminderSchedulerTest {
+    private static final long MINUTE = 60 * 1000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+    private static final long T0 = 1000 * DAY;
+
+    private static class FakeAlarm implements ReminderScheduler.Alarm {
+        long armedAt = EventStore.NO_REMINDER;
+        int changes;
+
+        @Override
+        public void set(long triggerAtMillis) {
+            armedAt = triggerAtMillis;
+            changes++;
+        }
+
+        @Override
+        public void cancel() {
+            armedAt = EventStore.NO_REMINDER;
+            changes++;
+        }
+    }
+
+    private static class MapCheckpoint implements ReminderScheduler.Checkpoint {
+        final Map<String, Long> values = new HashMap<>();
+
+        @Override
+        public long get(String key, long defaultValue) {
+            Long value = values.get(key);
+            return value != null ? value : defaultValue;
+        }
+
+        @Override
+        public void put(String key, long value) {
+            values.put(key, value);
+        }
+    }
+
+    private final FakeEventStore store = new FakeEventStore();
+    private final FakeAlarm alarm = new FakeAlarm();
+    private final MapCheckpoint checkpoint = new MapCheckpoint();
+    private long now = T0;
+    private ReminderScheduler scheduler;
+    private TimeZone originalZone;
+
+    @Before
+    public void setUp() {
+        // 重复日程按本地时间展开
+        originalZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        DateUtils.resetTimeZone();
+        scheduler = newScheduler();
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(originalZone);
+        DateUtils.resetTimeZone();
+    }
+
+    @Test
+    public void onlyEarliestReminderIsArmed() {
+        for (int i = 1000; i >= 1; i--) {
+            add("日程" + i, T0 + i * MINUTE);
+        }
+        scheduler.reschedule();
+
+        assertEquals(T0 + MINUTE, alarm.armedAt);
+    }
+
+    @Test
+    public void adding_comparesWithArmedTimeWithoutQuerying() {
+        add("晚", T0 + 2 * HOUR);
+        scheduler.reschedule();
+        int queries = store.queryCount;
+
+        scheduler.onEventsAdded(List.of(add("更晚", T0 + 3 * HOUR)));
+        assertEquals(T0 + 2 * HOUR, alarm.armedAt);
+        scheduler.onEventsAdded(List.of(add("早", T0 + HOUR)));
+        assertEquals(T0 + HOUR, alarm.armedAt);
+        scheduler.onEventsAdded(List.of(add("已过去", T0 - HOUR)));
+        assertEquals(T0 + HOUR, alarm.armedAt);
+
+        assertEquals(queries, store.queryCount);
+    }
+
+    @Test
+    public void firing_deliversEverythingDueAndRearms() {
+        add("一", T0 + HOUR);
+        add("二", T0 + HOUR);
+        add("三", T0 + 2 * HOUR);
+        add("四", T0 + 5 * HOUR);
+        scheduler.reschedule();
+        assertEquals(T0 + HOUR, alarm.armedAt);
+
+        // 闹钟被系统推迟到第三个提醒之后才触发
+        now = T0 + 2 * HOUR + MINUTE;
+        assertEquals(List.of("一", "二", "三"), titles(scheduler.deliverDue()));
+        assertEquals(T0 + 5 * HOUR, alarm.armedAt);
+
+        // 重复触发不会再次送达
+        assertTrue(scheduler.deliverDue().isEmpty());
+
+        now = T0 + 5 * HOUR;
+        assertEquals(List.of("四"), titles(scheduler.deliverDue()));
+        assertEquals(EventStore.NO_REMINDER, alarm.armedAt);
+    }
+
+    @Test
+    public void deletingArmedEvent_movesAlarmToNextReminder() {
+        Event first = add("一", T0 + HOUR);
+        add("二", T0 + 2 * HOUR);
+        scheduler.reschedule();
+
+        store.deleteEvent(first.getId());
+        scheduler.reschedule();
+        assertEquals(T0 + 2 * HOUR, alarm.armedAt);
+
+        store.events.clear();
+        scheduler.reschedule();
+        assertEquals(EventStore.NO_REMINDER, alarm.armedAt);
+    }
+
+    @Test
+    public void editingReminderIntoThePast_doesNotNotify() {
+        Event event = add("会议", T0 + HOUR);
+        scheduler.reschedule();
+
+        now = T0 + 30 * MINUTE;
+        event.setRemindTime(T0 + 10 * MINUTE);
+        scheduler.reschedule();
+        assertEquals(EventStore.NO_REMINDER, alarm.armedAt);
+
+        now = T0 + HOUR;
+        assertTrue(scheduler.deliverDue().isEmpty());
+    }
+
+    @Test
+    public void recurringEvent_armsEachOccurrenceInTurn() {
+        Event daily = new Event("晨会", "", T0 + 9 * HOUR, T0 + 10 * HOUR, T0 + 9 * HOUR - 15 * MINUTE);
+        daily.setRecurrenceRule("FREQ=DAILY;COUNT=3");
+        store.addEvent(daily);
+        scheduler.onEventsAdded(List.of(daily));
+        assertEquals(T0 + 9 * HOUR - 15 * MINUTE, alarm.armedAt);
+
+        for (int day = 0; day < 3; day++) {
+            now = T0 + day * DAY + 9 * HOUR - 15 * MINUTE;
+            List<Event> due = scheduler.deliverDue();
+            assertEquals(1, due.size());
+            assertEquals(T0 + day * DAY + 9 * HOUR, due.get(0).getStartTime());
+        }
+        assertEquals(EventStore.NO_REMINDER, alarm.armedAt);
+    }
+
+    @Test
+    public void restartedProcess_keepsOverdueRemindersAndSkipsVeryOldOnes() {
+        add("很久以前", T0 + HOUR);
+        add("刚刚", T0 + 3 * DAY);
+        scheduler.reschedule();
+        assertEquals(T0 + HOUR, alarm.armedAt);
+
+        // 关机期间错过了两个提醒；新进程中先发生了一次修改
+        now = T0 + 3 * DAY + HOUR;
+        scheduler = newScheduler();
+        scheduler.reschedule();
+        assertTrue("已到点的闹钟应立即触发", alarm.armedAt <= now);
+
+        // 超过 MAX_LATENESS_MS 的不再补发
+        assertEquals(List.of("刚刚"), titles(scheduler.deliverDue()));
+    }
+
+    @Test
+    public void restore_rearmsEvenWhenTimeIsUnchanged() {
+        add("会议", T0 + HOUR);
+        scheduler.reschedule();
+        int changes = alarm.changes;
+
+        scheduler.reschedule();
+        assertEquals(changes, alarm.changes);
+
+        // 时间或时区变化后系统中的闹钟可能已经失效
+        scheduler.restore();
+        assertEquals(changes + 1, alarm.changes);
+        assertEquals(T0 + HOUR, alarm.armedAt);
+    }
+
+    @Test
+    public void clockJumpingForward_deliversSkippedReminders() {
+        add("一", T0 + HOUR);
+        add("二", T0 + 2 * HOUR);
+        scheduler.reschedule();
+
+        now = T0 + 3 * HOUR;
+        scheduler.restore();
+        assertTrue(alarm.armedAt <= now);
+        assertEquals(List.of("一", "二"), titles(scheduler.deliverDue()));
+    }
+
+    private ReminderScheduler newScheduler() {
+        return new ReminderScheduler(store, alarm, () -> now, checkpoint);
+    }
+
+    private Event add(String title, long remindTime) {
+        Event event = new Event(title, "", remindTime, remindTime + HOUR, remindTime);
+        store.addEvent(event);
+        return event;
+    }
+
+    private static List<String> titles(List<Event> events) {
+        List<String> titles = new ArrayList<>();
+        for (Event event : events) {
+            titles.add(event.getTitle());
+        }
+        return titles;
+    }
+}
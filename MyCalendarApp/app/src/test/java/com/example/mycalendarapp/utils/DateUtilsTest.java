@@ -0,0 +1,134 @@
+package com.example.mycalendarapp.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class DateUtilsTest {
+    private static final long HOUR = 60 * 60 * 1000L;
+    private static final String[] ZONES = {
+            "Asia/Shanghai", "America/New_York", "America/Sao_Paulo", "Europe/London", "Australia/Lord_Howe", "UTC"
+    };
+
+    private TimeZone originalZone;
+
+    @Before
+    public void setUp() {
+        originalZone = TimeZone.getDefault();
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(originalZone);
+        DateUtils.resetTimeZone();
+    }
+
+    @Test
+    public void formattingAndDayBoundaries_matchCalendar() {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy年MM月dd日", Locale.getDefault());
+        SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
+        char[] buffer = new char[DateUtils.TIME_RANGE_LENGTH];
+        for (String zoneId : ZONES) {
+            useZone(zoneId);
+            dateFormat.setTimeZone(TimeZone.getDefault());
+            timeFormat.setTimeZone(TimeZone.getDefault());
+            Calendar calendar = Calendar.getInstance();
+            // 1990 - 2030，步长 7 小时多一点，覆盖一天中的不同时刻和所有夏令时切换
+            for (long t = 631152000000L; t < 1893456000000L; t += 7 * HOUR + 13) {
+                calendar.setTimeInMillis(t);
+                long expectedStart = midnight(calendar);
+                calendar.setTimeInMillis(t);
+                calendar.add(Calendar.DAY_OF_MONTH, 1);
+                long expectedEnd = midnight(calendar) - 1;
+
+                assertEquals(zoneId + " " + t, expectedStart, DateUtils.getStartOfDay(t));
+                assertEquals(zoneId + " " + t, expectedEnd, DateUtils.getEndOfDay(t));
+
+                Date date = new Date(t);
+                assertEquals(dateFormat.format(date), DateUtils.formatDate(t));
+                String time = timeFormat.format(date);
+                assertEquals(time, DateUtils.formatTime(t));
+                int length = DateUtils.formatTimeRange(t, t, buffer);
+                assertEquals(time + " - " + time, new String(buffer, 0, length));
+            }
+        }
+    }
+
+    @Test
+    public void monthDayBoundaries_acrossDstMonth() {
+        useZone("America/New_York");
+        long[] march = DateUtils.getMonthDayBoundaries(2024, Calendar.MARCH);
+        assertEquals(32, march.length);
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2024, Calendar.MARCH, 1);
+        for (long boundary : march) {
+            assertEquals(midnight(calendar), boundary);
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+        }
+        // 3 月 10 日切换夏令时，这一天只有 23 小时
+        assertEquals(23 * HOUR, march[10] - march[9]);
+        assertEquals(29 + 1, DateUtils.getMonthDayBoundaries(2024, Calendar.FEBRUARY).length);
+        assertEquals(28 + 1, DateUtils.getMonthDayBoundaries(1900, Calendar.FEBRUARY).length);
+    }
+
+    @Test
+    public void epochDayConversion_roundTrips() {
+        for (long epochDay = -80_000; epochDay <= 80_000; epochDay++) {
+            int ymd = DateUtils.toYmd(epochDay);
+            int year = DateUtils.ymdYear(ymd);
+            int month = DateUtils.ymdMonth(ymd);
+            int day = DateUtils.ymdDay(ymd);
+            assertEquals(epochDay, DateUtils.epochDayOf(year, month, day));
+            assertTrue(day <= DateUtils.daysInMonth(year, month));
+        }
+        assertEquals(4, DateUtils.dayOfWeek(0)); // 1970-01-01 周四
+        assertEquals(0, DateUtils.dayOfWeek(DateUtils.epochDayOf(2024, 9, 1))); // 周日
+    }
+
+    /**
+     * 新逻辑（formatTimeRange 写入复用的 char[]）与旧的绑定逻辑（每行 new SimpleDateFormat）输出一致；
+     * 两者每次绑定的分配量对比见 :benchmark 的 DateUtilsBenchmark（配合 gc profiler）。
+     */
+    @Test
+    public void formatTimeRange_matchesLegacyBind() {
+        char[] buffer = new char[DateUtils.TIME_RANGE_LENGTH];
+        for (String zoneId : ZONES) {
+            useZone(zoneId);
+            for (long t = 1704067200000L; t < 1735689600000L; t += 5 * HOUR + 7 * 60 * 1000L) {
+                int length = DateUtils.formatTimeRange(t, t + HOUR, buffer);
+                assertEquals(zoneId + " " + t, legacyBind(t), new String(buffer, 0, length));
+            }
+        }
+    }
+
+    // 旧版 EventAdapter.onBindViewHolder 中的写法
+    private static String legacyBind(long start) {
+        SimpleDateFormat sdf = new SimpleDateFormat("HH:mm", Locale.getDefault());
+        String startTime = sdf.format(new Date(start));
+        String endTime = sdf.format(new Date(start + HOUR));
+        return startTime + " - " + endTime;
+    }
+
+    // 零点不存在时 Calendar 会顺延到跳变之后
+    private static long midnight(Calendar calendar) {
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    private static void useZone(String zoneId) {
+        TimeZone.setDefault(TimeZone.getTimeZone(zoneId));
+        DateUtils.resetTimeZone();
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.mycalendarapp.utils;
+
+import com.example.mycalendarapp.model.Event;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class IcsParserTest {
+    private static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+    private static final long MINUTE = 60_000L;
+
+    private TimeZone originalZone;
+
+    @Before
+    public void setUp() {
+        originalZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone(ZONE));
+        DateUtils.resetTimeZone();
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(originalZone);
+        DateUtils.resetTimeZone();
+    }
+
+    @Test
+    public void parsesTimesTextAndAlarm() throws IOException {
+        List<Event> events = parse(
+                "BEGIN:VCALENDAR",
+                "VERSION:2.0",
+                "BEGIN:VTIMEZONE",
+                "TZID:Europe/Paris",
+                "BEGIN:STANDARD",
+                "DTSTART:19701025T030000",
+                "END:STANDARD",
+                "END:VTIMEZONE",
+                "BEGIN:VEVENT",
+                "UID:1",
+                "DTSTART:20240105T010000Z",
+                "DTEND:20240105T020000Z",
+                "SUMMARY:周会\\, 第一季度\\; 计划",
+                "DESCRIPTION:第一行\\n第二行 \\\\ 结束",
+                "BEGIN:VALARM",
+                "ACTION:DISPLAY",
+                "TRIGGER;RELATED=START:-PT15M",
+                "END:VALARM",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "DTSTART;TZID=\"Europe/Paris\":20240701T090000",
+                "DURATION:PT1H30M",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "DTSTART:20240702T090000",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "DTSTART;VALUE=DATE:20240703",
+                "SUMMARY:全天",
+                "END:VEVENT",
+                "END:VCALENDAR");
+        assertEquals(4, events.size());
+
+        Event utc = events.get(0);
+        assertEquals(utc(2024, 1, 5, 1, 0), utc.getStartTime());
+        assertEquals(utc(2024, 1, 5, 2, 0), utc.getEndTime());
+        assertEquals(utc.getStartTime() - 15 * MINUTE, utc.getRemindTime());
+        assertEquals("周会, 第一季度; 计划", utc.getTitle());
+        assertEquals("第一行\n第二行 \\ 结束", utc.getDescription());
+
+        Event paris = events.get(1);
+        assertEquals(LocalDateTime.of(2024, 7, 1, 9, 0).atZone(ZoneId.of("Europe/Paris")).toInstant().toEpochMilli(),
+                paris.getStartTime());
+        assertEquals(paris.getStartTime() + 90 * MINUTE, paris.getEndTime());
+        assertEquals("无标题", paris.getTitle());
+
+        Event floating = events.get(2); // 浮动时间按本地时区
+        assertEquals(local(2024, 7, 2, 9, 0), floating.getStartTime());
+        assertEquals(floating.getStartTime(), floating.getEndTime());
+
+        Event allDay = events.get(3);
+        assertEquals(local(2024, 7, 3, 0, 0), allDay.getStartTime());
+        assertEquals(local(2024, 7, 4, 0, 0), allDay.getEndTime());
+    }
+
+    @Test
+    public void unfoldsLongLinesAcrossCrLfAndLf() throws IOException {
+        String summary = "很长的标题".repeat(30);
+        StringBuilder folded = new StringBuilder("SUMMARY:");
+        for (int i = 0; i < summary.length(); i += 20) {
+            if (i > 0) folded.append("\r\n ");
+            folded.append(summary, i, Math.min(summary.length(), i + 20));
+        }
+        String ics = "BEGIN:VEVENT\r\nDTSTART:20240105T010000Z\r\n" + folded + "\r\nEND:VEVENT\n"
+                + "BEGIN:VEVENT\nDTSTART:20240106T010000Z\nSUMMARY:L\n\tF\nEND:VEVENT";
+        IcsParser parser = new IcsParser(new StringReader(ics));
+        assertEquals(summary, parser.next().getTitle());
+        assertEquals("LF", parser.next().getTitle());
+        assertNull(parser.next());
+    }
+
+    @Test
+    public void recurrence_supportedRulesKeptOthersSkipped() throws IOException {
+        IcsParser parser = new IcsParser(new StringReader(String.join("\r\n",
+                "BEGIN:VEVENT",
+                "DTSTART;TZID=Asia/Shanghai:20240101T090000",
+                "DTEND;TZID=Asia/Shanghai:20240101T100000",
+                "RRULE:FREQ=WEEKLY;BYDAY=MO,WE",
+                "EXDATE;TZID=Asia/Shanghai:20240103T090000,20240108T090000",
+                "EXDATE;VALUE=DATE:20240110",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "DTSTART:20240101T090000Z",
+                "RRULE:FREQ=HOURLY",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "DTSTART:20240108T100000Z",
+                "RECURRENCE-ID:20240108T010000Z",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "SUMMARY:没有开始时间",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "DTSTART:2024-01-01",
+                "END:VEVENT")));
+        Event weekly = parser.next();
+        assertEquals("FREQ=WEEKLY;BYDAY=MO,WE", weekly.getRecurrenceRule());
+        assertEquals(local(2024, 1, 3, 9, 0) + "," + local(2024, 1, 8, 9, 0) + "," + local(2024, 1, 10, 9, 0),
+                weekly.getExceptionDates());
+
+        Event hourly = parser.next();
+        assertFalse(hourly.isRecurring()); // 只导入第一次
+        assertNull(parser.next());
+        assertEquals(2, parser.getEventCount());
+        assertEquals(3, parser.getSkippedCount());
+        assertEquals(1, parser.getUnsupportedRuleCount());
+    }
+
+    @Test
+    public void writerOutput_roundTripsThroughParser() throws IOException {
+        Event plain = new Event("标题, 带; 符号\\", "多行\n描述" + "长".repeat(100), utc(2024, 3, 1, 8, 0),
+                utc(2024, 3, 1, 9, 30), utc(2024, 3, 1, 7, 45));
+        plain.setId(7);
+        Event weekly = new Event("周会", null, local(2024, 3, 4, 9, 0), local(2024, 3, 4, 10, 0), local(2024, 3, 4, 9, 0));
+        weekly.setId(8);
+        weekly.setRecurrenceRule("FREQ=WEEKLY;COUNT=10");
+        weekly.setExceptionDates(String.valueOf(local(2024, 3, 11, 9, 0)));
+
+        StringWriter out = new StringWriter();
+        IcsWriter writer = new IcsWriter(out);
+        writer.begin();
+        writer.write(plain);
+        writer.write(weekly);
+        writer.end();
+        String ics = out.toString();
+
+        for (String line : ics.split("\r\n")) {
+            assertTrue(line, line.getBytes(java.nio.charset.StandardCharsets.UTF_8).length <= 75);
+        }
+        assertTrue(ics.contains("DTSTART;TZID=Asia/Shanghai:20240304T090000\r\n"));
+        assertTrue(ics.contains("TRIGGER:-PT15M\r\n"));
+
+        IcsParser parser = new IcsParser(new StringReader(ics));
+        assertEvent(plain, parser.next());
+        assertEvent(weekly, parser.next());
+        assertNull(parser.next());
+    }
+
+    @Test
+    public void durations() {
+        assertEquals(-15 * MINUTE, IcsParser.parseDuration("-PT15M"));
+        assertEquals(DateUtils.MILLIS_PER_DAY + 2 * 3_600_000L, IcsParser.parseDuration("P1DT2H"));
+        assertEquals(14 * DateUtils.MILLIS_PER_DAY, IcsParser.parseDuration("+P2W"));
+        for (String bad : new String[]{"", "P", "PT", "P1H", "1D", "PT5X"}) {
+            try {
+                IcsParser.parseDuration(bad);
+                fail(bad);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+        long[] samples = {0, -15 * MINUTE, 90 * MINUTE, DateUtils.MILLIS_PER_DAY + 61_000, 3 * DateUtils.MILLIS_PER_DAY};
+        for (long sample : samples) {
+            StringBuilder sb = new StringBuilder();
+            IcsWriter.appendDuration(sb, sample);
+            assertEquals(sb.toString(), sample, IcsParser.parseDuration(sb.toString()));
+        }
+    }
+
+    private static void assertEvent(Event expected, Event actual) {
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getStartTime(), actual.getStartTime());
+        assertEquals(expected.getEndTime(), actual.getEndTime());
+        assertEquals(expected.getRemindTime(), actual.getRemindTime());
+        assertEquals(expected.getRecurrenceRule(), actual.getRecurrenceRule());
+        assertEquals(expected.getExceptionDates(), actual.getExceptionDates());
+    }
+
+    private static List<Event> parse(String... lines) throws IOException {
+        IcsParser parser = new IcsParser(new StringReader(String.join("\r\n", lines) + "\r\n"));
+        List<Event> events = new ArrayList<>();
+        Event event;
+        while ((event = parser.next()) != null) {
+            events.add(event);
+        }
+        return events;
+    }
+
+    private static long utc(int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static long local(int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).atZone(ZONE).toInstant().toEpochMilli();
+    }
+}
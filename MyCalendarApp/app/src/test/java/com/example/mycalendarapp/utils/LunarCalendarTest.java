@@ -0,0 +1,121 @@
+package com.example.mycalendarapp.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LunarCalendarTest {
+
+    // 公历日期 -> 当天是正月初一
+    private static final int[][] SPRING_FESTIVALS = {
+            {1900, 1, 31}, {1949, 1, 29}, {1976, 1, 31}, {1990, 1, 27}, {1999, 2, 16},
+            {2000, 2, 5}, {2001, 1, 24}, {2002, 2, 12}, {2003, 2, 1}, {2004, 1, 22},
+            {2005, 2, 9}, {2006, 1, 29}, {2007, 2, 18}, {2008, 2, 7}, {2009, 1, 26},
+            {2010, 2, 14}, {2011, 2, 3}, {2012, 1, 23}, {2013, 2, 10}, {2014, 1, 31},
+            {2015, 2, 19}, {2016, 2, 8}, {2017, 1, 28}, {2018, 2, 16}, {2019, 2, 5},
+            {2020, 1, 25}, {2021, 2, 12}, {2022, 2, 1}, {2023, 1, 22}, {2024, 2, 10},
+            {2025, 1, 29}, {2026, 2, 17}, {2027, 2, 6}, {2028, 1, 26}, {2029, 2, 13},
+            {2030, 2, 3},
+    };
+
+    @Test
+    public void springFestival_knownDates() {
+        for (int[] date : SPRING_FESTIVALS) {
+            int lunar = LunarCalendar.fromSolar(date[0], date[1], date[2]);
+            String message = date[0] + "-" + date[1] + "-" + date[2];
+            assertEquals(message, date[0], LunarCalendar.lunarYear(lunar));
+            assertEquals(message, 1, LunarCalendar.lunarMonth(lunar));
+            assertEquals(message, 1, LunarCalendar.lunarDay(lunar));
+            assertFalse(message, LunarCalendar.isLeapMonth(lunar));
+            assertEquals("春节", DateUtils.getLunarDate(date[0], date[1], date[2]));
+
+            if (date[0] == LunarCalendar.MIN_YEAR) continue;
+            // 前一天是上一年的除夕
+            int eve = LunarCalendar.fromEpochDay(DateUtils.epochDayOf(date[0], date[1], date[2]) - 1);
+            assertEquals(message, date[0] - 1, LunarCalendar.lunarYear(eve));
+        }
+    }
+
+    @Test
+    public void leapMonthsAndFestivals() {
+        assertEquals(4, LunarCalendar.leapMonth(2020));
+        assertEquals(2, LunarCalendar.leapMonth(2023));
+        assertEquals(6, LunarCalendar.leapMonth(2025));
+        assertEquals(11, LunarCalendar.leapMonth(2033));
+        assertEquals(0, LunarCalendar.leapMonth(2024));
+
+        // 2023-03-22 是闰二月初一
+        int leap = LunarCalendar.fromSolar(2023, 3, 22);
+        assertTrue(LunarCalendar.isLeapMonth(leap));
+        assertEquals(2, LunarCalendar.lunarMonth(leap));
+        assertEquals(1, LunarCalendar.lunarDay(leap));
+        assertEquals("闰二月", DateUtils.getLunarDate(2023, 3, 22));
+
+        assertEquals("中秋", DateUtils.getLunarDate(2024, 9, 17));
+        assertEquals("中秋", DateUtils.getLunarDate(2023, 9, 29));
+        assertEquals("端午", DateUtils.getLunarDate(2024, 6, 10));
+        assertEquals("除夕", DateUtils.getLunarDate(2024, 2, 9));
+        assertEquals("十五", DateUtils.getLunarDate(2024, 3, 24)); // 二月十五
+        assertEquals("甲辰年正月初一", LunarCalendar.format(DateUtils.epochDayOf(2024, 2, 10)));
+    }
+
+    @Test
+    public void supportedRange() {
+        assertFalse(LunarCalendar.isSupported(DateUtils.epochDayOf(1900, 1, 30)));
+        assertTrue(LunarCalendar.isSupported(DateUtils.epochDayOf(1900, 1, 31)));
+        assertTrue(LunarCalendar.isSupported(DateUtils.epochDayOf(2100, 12, 31)));
+        assertEquals("", DateUtils.getLunarDate(1899, 12, 31));
+        try {
+            LunarCalendar.fromSolar(1800, 1, 1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    // 整个支持范围内逐日检查：递推结果与逐日转换一致，且日期严格连续
+    @Test
+    public void incrementalLabels_matchDirectConversionForEveryDay() {
+        long first = DateUtils.epochDayOf(1900, 1, 1);
+        long last = DateUtils.epochDayOf(2101, 3, 1);
+        int count = (int) (last - first);
+        String[] labels = new String[count];
+        LunarCalendar.fillLabels(first, labels, 0, count);
+
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            long epochDay = first + i;
+            assertEquals("day " + epochDay, LunarCalendar.getLabel(epochDay), labels[i]);
+            if (!LunarCalendar.isSupported(epochDay)) continue;
+
+            int lunar = LunarCalendar.fromEpochDay(epochDay);
+            if (previous != 0) {
+                if (LunarCalendar.lunarDay(lunar) == 1) {
+                    int length = LunarCalendar.lunarDay(previous);
+                    assertTrue("day " + epochDay, length == 29 || length == 30);
+                } else {
+                    assertEquals(LunarCalendar.lunarDay(previous) + 1, LunarCalendar.lunarDay(lunar));
+                    assertEquals(LunarCalendar.lunarMonth(previous), LunarCalendar.lunarMonth(lunar));
+                }
+            }
+            previous = lunar;
+        }
+
+        // 从任意位置开始的 42 格网格也一致
+        String[] grid = new String[42];
+        for (long start = first; start < last - 42; start += 37) {
+            LunarCalendar.fillLabels(start, grid, 0, 42);
+            for (int i = 0; i < 42; i++) {
+                assertEquals(LunarCalendar.getLabel(start + i), grid[i]);
+            }
+        }
+    }
+
+    @Test
+    public void yearLengths() {
+        for (int year = LunarCalendar.MIN_YEAR; year <= LunarCalendar.MAX_YEAR; year++) {
+            int days = LunarCalendar.yearDays(year);
+            assertTrue(year + ": " + days, days >= 353 && days <= 385);
+            assertEquals(year + "", LunarCalendar.leapMonth(year) != 0, days > 360);
+        }
+    }
+}
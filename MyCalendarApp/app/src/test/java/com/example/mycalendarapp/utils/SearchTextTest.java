@@ -0,0 +1,60 @@
+package com.example.mycalendarapp.utils;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.*;
+
+public class SearchTextTest {
+
+    @Test
+    public void index_splitsCjkIntoBigramsAndLowercasesWords() {
+        assertEquals("部门 门会 会议 议", SearchText.index("部门会议"));
+        assertEquals("weekly 周 sync", SearchText.index("Weekly周, SYNC!"));
+        assertEquals("q3 评审 审", SearchText.index("Q3评审"));
+        assertEquals("", SearchText.index("—— ..."));
+        assertNull(SearchText.index(null));
+    }
+
+    @Test
+    public void toMatchQuery_usesPhrasesForCjkAndPrefixesForWords() {
+        assertEquals("\"部门 门会 会议\"", SearchText.toMatchQuery("部门会议"));
+        assertEquals("会*", SearchText.toMatchQuery("会"));
+        assertEquals("desi* \"会议\"", SearchText.toMatchQuery("Desi 会议"));
+        // 用户输入的引号、星号和 FTS 运算符都只当作普通字符
+        assertEquals("a* or* b*", SearchText.toMatchQuery("a\" OR b*"));
+        assertNull(SearchText.toMatchQuery(" \"*-"));
+    }
+
+    @Test
+    public void score_weighsColumnsAndRareTerms() {
+        double[] weights = {4.0, 1.0};
+        // 一个短语，两列；共 100 行
+        double titleHit = SearchText.score(matchinfo(1, 2, 100, 1, 1, 10, 0, 0, 0), weights);
+        double bodyHit = SearchText.score(matchinfo(1, 2, 100, 0, 0, 0, 1, 1, 10), weights);
+        double commonTitleHit = SearchText.score(matchinfo(1, 2, 100, 1, 1, 90, 0, 0, 0), weights);
+        assertTrue(titleHit > bodyHit);
+        assertTrue(titleHit > commonTitleHit);
+    }
+
+    @Test
+    public void idsByRank_ordersByScoreThenNewestId() {
+        long[] keys = {
+                SearchText.rankKey(1.0, 1),
+                SearchText.rankKey(3.5, 2),
+                SearchText.rankKey(1.0, 3),
+                SearchText.rankKey(0.0, 4),
+        };
+        assertArrayEquals(new int[]{2, 3, 1, 4}, SearchText.idsByRank(keys, keys.length));
+    }
+
+    private static byte[] matchinfo(int... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4).order(ByteOrder.nativeOrder());
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+}
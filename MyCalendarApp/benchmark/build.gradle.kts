@@ -0,0 +1,40 @@
+// 纯 JVM 的 JMH 基准测试，直接编译 app 中不依赖 Android 的 model、utils 包和 metrics 的计数器 / 直方图，不需要模拟器：
+//   ./gradlew :benchmark:jmh
+// 只运行部分基准：./gradlew :benchmark:jmh -PjmhInclude=LunarCalendarBenchmark
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include("com/example/mycalendarapp/model/**")
+            include("com/example/mycalendarapp/utils/**")
+            include("com/example/mycalendarapp/metrics/Metrics.java")
+            include("com/example/mycalendarapp/metrics/Counter.java")
+            include("com/example/mycalendarapp/metrics/Histogram.java")
+        }
+    }
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    // gc 分析器输出每次操作分配的字节数（gc.alloc.rate.norm）和分配速率
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    providers.gradleProperty("jmhInclude").orNull?.let { includes.add(it) }
+}
@@ -0,0 +1,54 @@
+package com.example.mycalendarapp.benchmark;
+
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.utils.DateUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+/**
+ * 各个基准共用的输入数据，固定随机种子，保证每次运行的输入相同。
+ */
+final class BenchmarkData {
+    static final long MINUTE = 60 * 1000L;
+    static final long HOUR = 60 * MINUTE;
+    static final long DAY = 24 * HOUR;
+    // 2025-01-01 00:00 (UTC+8)
+    static final long BASE_TIME = 1735660800000L;
+
+    private BenchmarkData() {
+    }
+
+    // 按应用的主要用户所在时区计算，结果不受运行机器的时区影响
+    static void useFixedTimeZone() {
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+        DateUtils.resetTimeZone();
+    }
+
+    // 分布在 BASE_TIME 之后 years 年内的 count 个时间戳
+    static long[] randomTimes(int count, int years) {
+        Random random = new Random(42);
+        long[] times = new long[count];
+        for (int i = 0; i < count; i++) {
+            times[i] = BASE_TIME + (long) (random.nextDouble() * years * 365 * DAY);
+        }
+        return times;
+    }
+
+    /**
+     * 一天的日程列表，和 EventAdapter 中看到的一样按开始时间排序；约十分之一跨天。
+     */
+    static List<Event> dayOfEvents(int count) {
+        Random random = new Random(7);
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long start = BASE_TIME + 8 * HOUR + i * (14 * HOUR / count) / MINUTE * MINUTE;
+            long length = random.nextInt(10) == 0 ? 2 * DAY : (1 + random.nextInt(4)) * 30 * MINUTE;
+            Event event = new Event("日程 " + i, "", start, start + length, start);
+            event.setId(i + 1);
+            events.add(event);
+        }
+        return events;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.mycalendarapp.benchmark;
+
+import com.example.mycalendarapp.model.ColumnPacker;
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.model.TimelineLayout;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 周视图翻页时后台线程的工作：把一周的日程排成列（ColumnPacker.pack）。
+ * 日程集中在工作时间，每天 eventsPerDay 个，重叠很密。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ColumnPackerBenchmark {
+    @Param({"10", "150"})
+    public int eventsPerDay;
+
+    private List<Event> events;
+    private final long[] week = new long[8];
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.useFixedTimeZone();
+        for (int i = 0; i < week.length; i++) {
+            week[i] = BenchmarkData.BASE_TIME + i * BenchmarkData.DAY;
+        }
+        Random random = new Random(3);
+        events = new ArrayList<>(7 * eventsPerDay);
+        for (int i = 0; i < 7 * eventsPerDay; i++) {
+            long start = BenchmarkData.BASE_TIME + random.nextInt(7) * BenchmarkData.DAY + 8 * BenchmarkData.HOUR
+                    + random.nextInt(10 * 60) * BenchmarkData.MINUTE;
+            long length = (1 + random.nextInt(6)) * 15 * BenchmarkData.MINUTE;
+            events.add(new Event("日程 " + i, "", start, start + length, start));
+        }
+    }
+
+    @Benchmark
+    public TimelineLayout packWeek() {
+        return ColumnPacker.pack(events, week);
+    }
+}
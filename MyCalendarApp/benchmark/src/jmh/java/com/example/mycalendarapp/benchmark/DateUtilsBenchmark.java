@@ -0,0 +1,91 @@
+package com.example.mycalendarapp.benchmark;
+
+import com.example.mycalendarapp.utils.DateUtils;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * DateUtils 的格式化和日界计算，列表绑定、月视图加载时每个日程 / 每一天都会调用。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DateUtilsBenchmark {
+    private static final int MASK = 1023;
+
+    private long[] times;
+    private final char[] buffer = new char[DateUtils.DATE_TIME_RANGE_LENGTH];
+    private final StringBuilder builder = new StringBuilder(32);
+    private int next;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.useFixedTimeZone();
+        times = BenchmarkData.randomTimes(MASK + 1, 5);
+    }
+
+    private long nextTime() {
+        return times[next++ & MASK];
+    }
+
+    @Benchmark
+    public String formatDate() {
+        return DateUtils.formatDate(nextTime());
+    }
+
+    @Benchmark
+    public int appendDateAndTime() {
+        long time = nextTime();
+        builder.setLength(0);
+        DateUtils.appendDate(builder, time);
+        builder.append(' ');
+        DateUtils.appendTime(builder, time);
+        return builder.length();
+    }
+
+    @Benchmark
+    public int formatTimeRange() {
+        long start = nextTime();
+        return DateUtils.formatTimeRange(start, start + BenchmarkData.HOUR, buffer);
+    }
+
+    // 旧版 EventAdapter.onBindViewHolder 的写法，作为 formatTimeRange 的对照（耗时与每次的分配量）
+    @Benchmark
+    public String legacyFormatTimeRange() {
+        long start = nextTime();
+        SimpleDateFormat sdf = new SimpleDateFormat("HH:mm", Locale.getDefault());
+        return sdf.format(new Date(start)) + " - " + sdf.format(new Date(start + BenchmarkData.HOUR));
+    }
+
+    @Benchmark
+    public int formatDateTimeRange() {
+        long start = nextTime();
+        return DateUtils.formatDateTimeRange(start, start + BenchmarkData.HOUR, buffer);
+    }
+
+    @Benchmark
+    public long startAndEndOfDay() {
+        long time = nextTime();
+        return DateUtils.getStartOfDay(time) ^ DateUtils.getEndOfDay(time);
+    }
+
+    @Benchmark
+    public int minuteOfDay() {
+        return DateUtils.getMinuteOfDay(nextTime());
+    }
+
+    @Benchmark
+    public long[] monthDayBoundaries() {
+        int ymd = DateUtils.toYmd(DateUtils.getEpochDay(nextTime()));
+        return DateUtils.getMonthDayBoundaries(DateUtils.ymdYear(ymd), DateUtils.ymdMonth(ymd) - 1);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.mycalendarapp.benchmark;
+
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.utils.DateUtils;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * EventAdapter.onBindViewHolder 中除 TextView 以外的工作：取标题，把时间段写入 ViewHolder 的缓冲区。
+ * 一次操作绑定整张列表，相当于一次完整的滚动。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EventBindingBenchmark {
+    @Param({"20", "200"})
+    public int eventCount;
+
+    private List<Event> events;
+    // 与 ViewHolder 一样，每个可见行一份缓冲区，循环复用
+    private final char[][] buffers = new char[12][DateUtils.DATE_TIME_RANGE_LENGTH];
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.useFixedTimeZone();
+        events = BenchmarkData.dayOfEvents(eventCount);
+    }
+
+    @Benchmark
+    public void bindDayList(Blackhole blackhole) {
+        bind(blackhole, false);
+    }
+
+    @Benchmark
+    public void bindSearchResults(Blackhole blackhole) {
+        // 搜索结果跨越多天，同时显示日期
+        bind(blackhole, true);
+    }
+
+    private void bind(Blackhole blackhole, boolean showDate) {
+        for (int position = 0; position < events.size(); position++) {
+            Event event = events.get(position);
+            char[] buffer = buffers[position % buffers.length];
+            blackhole.consume(event.getTitle());
+            int length = showDate
+                    ? DateUtils.formatDateTimeRange(event.getStartTime(), event.getEndTime(), buffer)
+                    : DateUtils.formatTimeRange(event.getStartTime(), event.getEndTime(), buffer);
+            blackhole.consume(length);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.mycalendarapp.benchmark;
+
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.utils.IcsParser;
+import com.example.mycalendarapp.utils.IcsWriter;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * .ics 导入导出中与数据库无关的部分：IcsParser 逐条解析、IcsWriter 逐条写出。
+ * 一次操作处理整个文件，结果除以 eventCount 即为每条日程的耗时。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IcsBenchmark {
+    @Param({"10000"})
+    public int eventCount;
+
+    private List<Event> events;
+    private byte[] file;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkData.useFixedTimeZone();
+        events = new ArrayList<>(eventCount);
+        for (int i = 0; i < eventCount; i++) {
+            long start = BenchmarkData.BASE_TIME + i * BenchmarkData.HOUR;
+            Event event = new Event("事件 " + i, "一段比较长的描述文字，用来模拟真实日历中的备注内容, 并且需要折行显示",
+                    start, start + BenchmarkData.HOUR / 2, start - 10 * BenchmarkData.MINUTE);
+            if (i % 10 == 0) event.setRecurrenceRule("FREQ=WEEKLY;COUNT=10");
+            event.setId(i + 1);
+            events.add(event);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        write(new OutputStreamWriter(bytes, StandardCharsets.UTF_8));
+        file = bytes.toByteArray();
+    }
+
+    @Benchmark
+    public int parse() throws IOException {
+        try (IcsParser parser = new IcsParser(new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(file), StandardCharsets.UTF_8), 64 * 1024))) {
+            int count = 0;
+            while (parser.next() != null) {
+                count++;
+            }
+            return count;
+        }
+    }
+
+    @Benchmark
+    public int export() throws IOException {
+        return write(new DiscardingWriter());
+    }
+
+    private int write(Writer out) throws IOException {
+        try (IcsWriter writer = new IcsWriter(new BufferedWriter(out, 64 * 1024))) {
+            writer.begin();
+            for (Event event : events) {
+                writer.write(event);
+            }
+            writer.end();
+            return writer.getWrittenCount();
+        }
+    }
+
+    // 只测量生成文本的开销，不计编码和写入
+    private static final class DiscardingWriter extends Writer {
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
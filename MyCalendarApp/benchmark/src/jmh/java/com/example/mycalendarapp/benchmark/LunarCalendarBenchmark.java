@@ -0,0 +1,69 @@
+package com.example.mycalendarapp.benchmark;
+
+import com.example.mycalendarapp.model.MonthGrid;
+import com.example.mycalendarapp.utils.DateUtils;
+import com.example.mycalendarapp.utils.LunarCalendar;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 农历换算：单日查表、格子文字，以及一个月 42 格的逐日递推。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LunarCalendarBenchmark {
+    private static final int MASK = 1023;
+
+    private final long[] epochDays = new long[MASK + 1];
+    private final String[] labels = new String[MonthGrid.CELL_COUNT];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.useFixedTimeZone();
+        // 1950 到 2050 年之间的日期
+        long[] times = BenchmarkData.randomTimes(epochDays.length, 100);
+        long offset = DateUtils.epochDayOf(1950, 1, 1) - DateUtils.getEpochDay(BenchmarkData.BASE_TIME);
+        for (int i = 0; i < epochDays.length; i++) {
+            epochDays[i] = DateUtils.getEpochDay(times[i]) + offset;
+        }
+    }
+
+    @Benchmark
+    public int fromEpochDay() {
+        return LunarCalendar.fromEpochDay(epochDays[next++ & MASK]);
+    }
+
+    @Benchmark
+    public String getLabel() {
+        return LunarCalendar.getLabel(epochDays[next++ & MASK]);
+    }
+
+    @Benchmark
+    public String format() {
+        return LunarCalendar.format(epochDays[next++ & MASK]);
+    }
+
+    @Benchmark
+    public String[] fillMonthLabels() {
+        LunarCalendar.fillLabels(epochDays[next++ & MASK], labels, 0, labels.length);
+        return labels;
+    }
+
+    // 对照：不递推，每格单独查表
+    @Benchmark
+    public String[] fillMonthLabelsPerCell() {
+        long first = epochDays[next++ & MASK];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = LunarCalendar.getLabel(first + i);
+        }
+        return labels;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.mycalendarapp.benchmark;
+
+import com.example.mycalendarapp.metrics.Counter;
+import com.example.mycalendarapp.metrics.Histogram;
+import com.example.mycalendarapp.metrics.Metrics;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * 热路径上每处埋点的开销：一次计数加一次计时。关闭时应接近零（不读时钟、不写计数）。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MetricsBenchmark {
+    @Param({"false", "true"})
+    public boolean enabled;
+
+    private Counter counter;
+    private Histogram histogram;
+
+    @Setup
+    public void setUp() {
+        Metrics.reset();
+        Metrics.setEnabled(enabled);
+        counter = Metrics.counter("benchmark.counter");
+        histogram = Metrics.timer("benchmark.timer");
+    }
+
+    @TearDown
+    public void tearDown() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Benchmark
+    public void counterAndTimer() {
+        long begin = Metrics.start();
+        counter.increment();
+        histogram.recordSince(begin);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.mycalendarapp.benchmark;
+
+import com.example.mycalendarapp.model.Event;
+import com.example.mycalendarapp.model.MonthGrid;
+import com.example.mycalendarapp.model.MonthSnapshot;
+import com.example.mycalendarapp.utils.DateUtils;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 月历网格的生成（原来 daysInMonthArray 的工作）以及翻页、选中、刷新日程标记时产生副本的开销。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MonthGridBenchmark {
+    // 连续 20 年的月份轮流生成，避免总是命中同一个月
+    private static final int MONTHS = 240;
+
+    private long today;
+    private MonthGrid grid;
+    private MonthSnapshot snapshot;
+    private int next;
+    private int selected;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.useFixedTimeZone();
+        today = DateUtils.getEpochDay(BenchmarkData.BASE_TIME);
+        grid = MonthGrid.create(2025, 0, today);
+
+        // 当月隔天有日程
+        snapshot = new MonthSnapshot(DateUtils.getMonthDayBoundaries(2025, 0));
+        for (int day = 0; day < snapshot.getDayCount(); day += 2) {
+            long start = BenchmarkData.BASE_TIME + day * BenchmarkData.DAY + 10 * BenchmarkData.HOUR;
+            snapshot.add(new Event("日程", "", start, start + BenchmarkData.HOUR, start));
+        }
+    }
+
+    @Benchmark
+    public MonthGrid create() {
+        int index = next++ % MONTHS;
+        return MonthGrid.create(2015 + index / 12, index % 12, today);
+    }
+
+    @Benchmark
+    public MonthGrid withSelected() {
+        selected = (selected + 1) % grid.getDaysInMonth();
+        return grid.withSelected(grid.getLeadingDays() + selected);
+    }
+
+    @Benchmark
+    public MonthGrid withEvents() {
+        // 交替设置和清除，每次都会产生新的副本
+        return (next++ & 1) == 0 ? grid.withEvents(snapshot) : grid.withEvents(null);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.mycalendarapp.benchmark;
+
+import com.example.mycalendarapp.model.RecurrenceRule;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 加载一个月时对一个重复系列的展开：只应与窗口内的次数有关，与系列已经开始了多少年无关。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RecurrenceRuleBenchmark {
+    @Param({"FREQ=DAILY", "FREQ=WEEKLY;BYDAY=MO,WE,FR", "FREQ=MONTHLY;BYDAY=-1FR"})
+    public String rule;
+
+    // 系列开始于窗口之前多少年
+    @Param({"0", "30"})
+    public int seriesAgeYears;
+
+    private RecurrenceRule parsed;
+    private long dtstart;
+    private final long windowStart = BenchmarkData.BASE_TIME;
+    private final long windowEnd = BenchmarkData.BASE_TIME + 31 * BenchmarkData.DAY - 1;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.useFixedTimeZone();
+        parsed = RecurrenceRule.parse(rule);
+        dtstart = BenchmarkData.BASE_TIME + 9 * BenchmarkData.HOUR - seriesAgeYears * 365 * BenchmarkData.DAY;
+    }
+
+    @Benchmark
+    public long expandMonth() {
+        RecurrenceRule.OccurrenceIterator iterator =
+                parsed.iterator(dtstart, BenchmarkData.HOUR, null, windowStart, windowEnd);
+        long sum = 0;
+        while (iterator.hasNext()) {
+            sum += iterator.next();
+        }
+        return sum;
+    }
+}